@@ -36,7 +36,7 @@ public class ZclProtocolCodeGenerator {
         if (args.length != 0) {
             sourceRootPath = args[0];
         } else {
-            sourceRootPath = "../zigbee-api/src/main/java/";
+            sourceRootPath = "../zigbee-common/src/main/java/";
         }
 
         final File sourceRootFile = new File(sourceRootPath);
@@ -53,7 +53,7 @@ public class ZclProtocolCodeGenerator {
         if (args.length != 0) {
             packageRoot = args[0];
         } else {
-            packageRoot = "org.bubblecloud.zigbee.network.zcl.protocol";
+            packageRoot = "org.bubblecloud.zigbee.v3.zcl.protocol";
         }
 
         generateCode(definitionFile, sourceRootFile, packageRoot);
@@ -151,7 +151,7 @@ public class ZclProtocolCodeGenerator {
         out.println("package " + packageRoot + ";");
 
         out.println();
-        out.println("import org.bubblecloud.zigbee.network.zcl.field.*;");
+        out.println("import org.bubblecloud.zigbee.v3.zcl.field.*;");
 
         out.println();
         out.println("public enum " + className + " {");
@@ -309,6 +309,10 @@ public class ZclProtocolCodeGenerator {
             out.println(valueRows.getLast().equals(valueRow) ? ';' : ',');
         }
 
+        out.println();
+        out.println("    private static final int LOOKUP_TABLE_SIZE = Integer.highestOneBit(values().length * 4);");
+        out.println("    private static final long[] lookupKeys = new long[LOOKUP_TABLE_SIZE];");
+        out.println("    private static final ZclCommandType[] lookupValues = new ZclCommandType[LOOKUP_TABLE_SIZE];");
         out.println();
         out.println("    private final int id;");
         out.println("    private final ZclClusterType clusterType;");
@@ -331,6 +335,64 @@ public class ZclProtocolCodeGenerator {
         out.println("    public boolean isGeneric() { return generic; }");
         out.println("    public String toString() { return label; }");
         out.println();
+        out.println("    /**");
+        out.println("     * Gets cluster specific command type without allocation.");
+        out.println("     * @param profileId the profile ID");
+        out.println("     * @param clusterId the cluster ID");
+        out.println("     * @param commandId the command ID");
+        out.println("     * @param received true for client to server direction");
+        out.println("     * @return the command type or null if not found");
+        out.println("     */");
+        out.println("    public static ZclCommandType getValue(final int profileId, final int clusterId, final int commandId,");
+        out.println("                                          final boolean received) {");
+        out.println("        return lookup(getLookupKey(profileId, clusterId, commandId, received, false));");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
+        out.println("     * Gets generic command type without allocation.");
+        out.println("     * @param profileId the profile ID");
+        out.println("     * @param commandId the command ID");
+        out.println("     * @return the command type or null if not found");
+        out.println("     */");
+        out.println("    public static ZclCommandType getGenericValue(final int profileId, final int commandId) {");
+        out.println("        return lookup(getLookupKey(profileId, ZclClusterType.GENERAL.getId(), commandId, true, true));");
+        out.println("    }");
+        out.println();
+        out.println("    private static ZclCommandType lookup(final long key) {");
+        out.println("        int index = getLookupIndex(key);");
+        out.println("        while (lookupValues[index] != null) {");
+        out.println("            if (lookupKeys[index] == key) {");
+        out.println("                return lookupValues[index];");
+        out.println("            }");
+        out.println("            index = (index + 1) & (LOOKUP_TABLE_SIZE - 1);");
+        out.println("        }");
+        out.println("        return null;");
+        out.println("    }");
+        out.println();
+        out.println("    private static long getLookupKey(final int profileId, final int clusterId, final int commandId,");
+        out.println("                                     final boolean received, final boolean generic) {");
+        out.println("        return ((long) (profileId & 0xffff) << 26) | ((long) (clusterId & 0xffff) << 10) | ((commandId & 0xff) << 2)");
+        out.println("                | (generic ? 2 : (received ? 1 : 0));");
+        out.println("    }");
+        out.println();
+        out.println("    private static int getLookupIndex(final long key) {");
+        out.println("        final int hash = (int) (key ^ (key >>> 32)) * 0x9e3779b9;");
+        out.println("        return (hash ^ (hash >>> 16)) & (LOOKUP_TABLE_SIZE - 1);");
+        out.println("    }");
+        out.println();
+        out.println("    static {");
+        out.println("        for (final ZclCommandType value : values()) {");
+        out.println("            final long key = getLookupKey(value.clusterType.getProfileType().getId(), value.clusterType.getId(),");
+        out.println("                    value.id, value.received, value.generic);");
+        out.println("            int index = getLookupIndex(key);");
+        out.println("            while (lookupValues[index] != null) {");
+        out.println("                index = (index + 1) & (LOOKUP_TABLE_SIZE - 1);");
+        out.println("            }");
+        out.println("            lookupKeys[index] = key;");
+        out.println("            lookupValues[index] = value;");
+        out.println("        }");
+        out.println("    }");
+        out.println();
         out.println("}");
 
         out.flush();
@@ -410,22 +472,32 @@ public class ZclProtocolCodeGenerator {
 
                     final LinkedList<Field> fields = new LinkedList<Field>(command.fields.values());
                     boolean fieldWithDataTypeList = false;
+                    boolean fieldWithGenericCodec = false;
                     for (final Field field : fields) {
                         if (field.dataTypeClass.startsWith("List")) {
                             fieldWithDataTypeList = true;
-                            break;
+                        }
+                        if (getFieldReadMethod(field) == null) {
+                            fieldWithGenericCodec = true;
                         }
                     }
 
                     out.println("package " + packageRoot + ";");
                     out.println();
-                    out.println("import org.bubblecloud.zigbee.network.zcl.ZclCommandMessage;");
-                    out.println("import org.bubblecloud.zigbee.network.zcl.ZclCommand;");
-                    out.println("import org.bubblecloud.zigbee.network.zcl.protocol.ZclCommandType;");
+                    out.println("import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;");
+                    out.println("import org.bubblecloud.zigbee.v3.zcl.ZclCommand;");
                     if (!fields.isEmpty()) {
-                        out.println("import org.bubblecloud.zigbee.network.zcl.protocol.ZclFieldType;");
+                        out.println("import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;");
+                        out.println("import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;");
+                    }
+                    out.println("import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;");
+                    if (!fields.isEmpty()) {
+                        if (fieldWithGenericCodec) {
+                            out.println("import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;");
+                        }
+                        out.println("import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;");
                         if (fieldWithDataTypeList) {
-                            out.println("import org.bubblecloud.zigbee.network.zcl.field.*;");
+                            out.println("import org.bubblecloud.zigbee.v3.zcl.field.*;");
                         }
                     }
 
@@ -474,6 +546,32 @@ public class ZclProtocolCodeGenerator {
                     }
                     out.println("        return message;");
                     out.println("    }");
+                    if (!fields.isEmpty()) {
+                        out.println();
+                        out.println("    @Override");
+                        out.println("    public void deserializeFields(final ZclFieldDeserializer deserializer) {");
+                        for (final Field field : fields) {
+                            final String readMethod = getFieldReadMethod(field);
+                            if (readMethod != null) {
+                                out.println("        this." + field.nameLowerCamelCase + " = deserializer." + readMethod + "();");
+                            } else {
+                                out.println("        this." + field.nameLowerCamelCase + " = (" + field.dataTypeClass + ") deserializer.deserialize(ZclDataType." + field.dataType + ");");
+                            }
+                        }
+                        out.println("    }");
+                        out.println();
+                        out.println("    @Override");
+                        out.println("    public void serializeFields(final ZclFieldSerializer serializer) {");
+                        for (final Field field : fields) {
+                            final String writeMethod = getFieldWriteMethod(field);
+                            if (writeMethod != null) {
+                                out.println("        serializer." + writeMethod + "(" + field.nameLowerCamelCase + ");");
+                            } else {
+                                out.println("        serializer.serialize(" + field.nameLowerCamelCase + ", ZclDataType." + field.dataType + ");");
+                            }
+                        }
+                        out.println("    }");
+                    }
                     for (final Field field : fields) {
                         out.println();
                         out.println("    /**");
@@ -519,6 +617,46 @@ public class ZclProtocolCodeGenerator {
 
     }
 
+    /**
+     * Gets the typed field deserializer method for reading field value directly from payload.
+     * @param field the field
+     * @return the method name or null if field is read with generic deserialize method
+     */
+    private static String getFieldReadMethod(final Field field) {
+        if (field.dataType.equals("BOOLEAN")) {
+            return "readBoolean";
+        } else if (field.dataType.equals("UNSIGNED_8_BIT_INTEGER") || field.dataType.equals("_8_BIT_BITMAP")
+                || field.dataType.equals("_8_BIT_DATA") || field.dataType.equals("_8_BIT_ENUMERATION")) {
+            return "readUnsigned8BitInteger";
+        } else if (field.dataType.equals("SIGNED_8_BIT_INTEGER")) {
+            return "readSigned8BitInteger";
+        } else if (field.dataType.equals("UNSIGNED_16_BIT_INTEGER")) {
+            return "readUnsigned16BitInteger";
+        } else if (field.dataType.equals("SIGNED_16_BIT_INTEGER") || field.dataType.equals("_16_BIT_BITMAP")
+                || field.dataType.equals("_16_BIT_ENUMERATION")) {
+            return "readSigned16BitInteger";
+        }
+        return null;
+    }
+
+    /**
+     * Gets the typed field serializer method for writing field value directly to payload.
+     * @param field the field
+     * @return the method name or null if field is written with generic serialize method
+     */
+    private static String getFieldWriteMethod(final Field field) {
+        final String readMethod = getFieldReadMethod(field);
+        if (readMethod == null) {
+            return null;
+        } else if (readMethod.equals("readBoolean")) {
+            return "writeBoolean";
+        } else if (readMethod.endsWith("8BitInteger")) {
+            return "write8BitInteger";
+        } else {
+            return "write16BitInteger";
+        }
+    }
+
     private static void generateZclCommandTypeRegistrarClass(Context context, String packageRoot, File packageFile) throws IOException {
         final String className = "ZclCommandTypeRegistrar";
 
@@ -526,16 +664,36 @@ public class ZclProtocolCodeGenerator {
 
         out.println("package " + packageRoot + ";");
         out.println();
-        out.println("import org.bubblecloud.zigbee.network.zcl.ZclUtil;");
+        out.println("import org.bubblecloud.zigbee.v3.zcl.ZclCommand;");
+        out.println("import org.bubblecloud.zigbee.v3.zcl.ZclCommandFactory;");
+        out.println("import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;");
+        out.println("import org.bubblecloud.zigbee.v3.zcl.ZclListItemField;");
+        out.println("import org.bubblecloud.zigbee.v3.zcl.ZclListItemFieldFactory;");
+        out.println("import org.bubblecloud.zigbee.v3.zcl.ZclUtil;");
+        out.println("import org.bubblecloud.zigbee.v3.zcl.field.*;");
         out.println();
         out.println("/**");
         out.println(" * Code generated command type registrar class.");
         out.println(" */");
         out.println("public class " + className + " {");
         out.println("    /**");
-        out.println("     * Register command types.");
+        out.println("     * Register command types and factories of command and list item field classes.");
         out.println("     */");
         out.println("    public static void register() {");
+        final LinkedList<DataType> dataTypes = new LinkedList<DataType>(context.dataTypes.values());
+        for (final DataType dataType : dataTypes) {
+            if (!dataType.dataTypeClass.startsWith("List<")) {
+                continue;
+            }
+            final String itemClass = dataType.dataTypeClass.substring(dataType.dataTypeClass.indexOf("<") + 1,
+                    dataType.dataTypeClass.indexOf(">"));
+            out.println("        ZclUtil.registerListItemFieldFactory(ZclDataType." + dataType.dataTypeType + ", new ZclListItemFieldFactory() {");
+            out.println("            @Override");
+            out.println("            public ZclListItemField createField() {");
+            out.println("                return new " + itemClass + "();");
+            out.println("            }");
+            out.println("        });");
+        }
         final LinkedList<Profile> profiles = new LinkedList<Profile>(context.profiles.values());
         for (final Profile profile : profiles) {
             final LinkedList<Cluster> clusters = new LinkedList<Cluster>(profile.clusters.values());
@@ -544,9 +702,21 @@ public class ZclProtocolCodeGenerator {
                 commands.addAll(cluster.received.values());
                 commands.addAll(cluster.generated.values());
                 for (final Command command : commands) {
+                    final String commandClass = packageRoot + ".command." + cluster.clusterType.replace('_', '.').toLowerCase()
+                            + "." + command.nameUpperCamelCase;
                     out.println("        ZclUtil.registerCommandTypeClassMapping(ZclCommandType." + command.commandType + ",");
                     out.println("            " + packageRoot + ".command." + cluster.clusterType.replace('_', '.').toLowerCase() + ".");
                     out.println("            " + command.nameUpperCamelCase + ".class);");
+                    out.println("        ZclUtil.registerCommandFactory(ZclCommandType." + command.commandType + ", new ZclCommandFactory() {");
+                    out.println("            @Override");
+                    out.println("            public ZclCommand createCommand() {");
+                    out.println("                return new " + commandClass + "();");
+                    out.println("            }");
+                    out.println("            @Override");
+                    out.println("            public ZclCommand createCommand(final ZclCommandMessage message) {");
+                    out.println("                return new " + commandClass + "(message);");
+                    out.println("            }");
+                    out.println("        });");
                 }
             }
         }
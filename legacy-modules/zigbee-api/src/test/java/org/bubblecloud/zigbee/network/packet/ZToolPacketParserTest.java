@@ -28,6 +28,8 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+
 import static org.junit.Assert.*;
 
 
@@ -53,15 +55,48 @@ public class ZToolPacketParserTest {
 
         ZToolPacket parsedFromInt = ZToolPacketStream.parsePacket(
                 ByteUtils.fromBase16toIntArray(BUFFER_ZB_GET_DEVICE_INFO_RSP));
-        try{
-            ZToolPacket parsedFromByte = ZToolPacketStream.parsePacket(
-                    ByteUtils.fromBase16toByteArray(BUFFER_ZB_GET_DEVICE_INFO_RSP));
-            fail("Expected exception due to negative length");
-        }catch(Exception ex){
-        }
+        ZToolPacket parsedFromByte = ZToolPacketStream.parsePacket(
+                ByteUtils.fromBase16toByteArray(BUFFER_ZB_GET_DEVICE_INFO_RSP));
 
         assertTrue("Paserd wrong packet type from int stream", parsedFromInt.getClass()==ZB_GET_DEVICE_INFO_RSP.class);
+        assertTrue("Paserd wrong packet type from byte stream", parsedFromByte.getClass()==ZB_GET_DEVICE_INFO_RSP.class);
+        assertArrayEquals(parsedFromInt.getPacket(), parsedFromByte.getPacket());
+
+    }
+
+    @Test
+    public void testResynchronization() throws Exception {
+        final String BUFFER_GARBAGE_BAD_AND_GOOD_PACKET =
+            "0x00 " +
+            "0xfe 0x09 0x66 0x06 0x06 0x4d 0x05 0x09 0x8d 0x0f 0x00 0x2b 0xe2 0x00 " +
+            "0xfe 0x09 0x66 0x06 0x06 0x4d 0x05 0x09 0x8d 0x0f 0x00 0x2b 0xe2 0x65";
+
+        final ZToolPacket[] packets = new ZToolPacket[1];
+        final ZToolPacketParser parser = new ZToolPacketParser(
+                new ByteArrayInputStream(ByteUtils.fromBase16toByteArray(BUFFER_GARBAGE_BAD_AND_GOOD_PACKET)),
+                new ZToolPacketHandler() {
+            public void error(Throwable th) {
+            }
+
+            public void handlePacket(ZToolPacket packet) {
+                synchronized (packets) {
+                    packets[0] = packet;
+                    packets.notifyAll();
+                }
+            }
+        });
+
+        synchronized (packets) {
+            if (packets[0] == null) {
+                packets.wait(1000);
+            }
+        }
+        parser.close();
 
+        assertTrue("Paserd wrong packet type", packets[0] instanceof ZB_GET_DEVICE_INFO_RSP);
+        assertEquals(1, parser.getFrameCount());
+        assertEquals(1, parser.getResyncCount());
+        assertEquals(14, parser.getDiscardedByteCount());
     }
 
     @Test
@@ -0,0 +1,235 @@
+package org.bubblecloud.zigbee.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Hashed timer wheel for large numbers of short timeouts which are usually cancelled
+ * before they expire. Scheduling and cancelling are O(1) and expiry is detected
+ * with tick granularity without scanning all timeouts. Expired tasks are run in
+ * an expiry thread of their own so that a slow task does not delay the ticks.
+ */
+public class TimerWheel {
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimerWheel.class);
+
+    /**
+     * The tick duration in milliseconds.
+     */
+    private final long tickMillis;
+    /**
+     * The wheel buckets.
+     */
+    private final List<Set<Timeout>> buckets;
+    /**
+     * The tick thread.
+     */
+    private final Thread thread;
+    /**
+     * The expiry thread running expired tasks.
+     */
+    private final Thread expiryThread;
+    /**
+     * The expired tasks waiting to be run.
+     */
+    private final BlockingQueue<Runnable> expiredTasks = new LinkedBlockingQueue<Runnable>();
+    /**
+     * The current tick.
+     */
+    private long tick = 0;
+    /**
+     * The start time of the wheel.
+     */
+    private long startTime;
+    /**
+     * True if wheel has been stopped.
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructor for setting the tick duration and the number of buckets.
+     *
+     * @param name the name of the tick thread
+     * @param tickMillis the tick duration in milliseconds
+     * @param bucketCount the number of buckets in the wheel
+     */
+    public TimerWheel(final String name, final long tickMillis, final int bucketCount) {
+        if (tickMillis <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("Tick duration and bucket count have to be positive.");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<Set<Timeout>>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new HashSet<Timeout>());
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                tickLoop();
+            }
+        }, name);
+        thread.setDaemon(true);
+        expiryThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                expiryLoop();
+            }
+        }, name + " expiry");
+        expiryThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the tick thread.
+     */
+    public void start() {
+        synchronized (buckets) {
+            startTime = System.currentTimeMillis();
+        }
+        thread.start();
+        expiryThread.start();
+    }
+
+    /**
+     * Stops the tick and expiry threads. Pending timeouts do not expire after this
+     * and expired tasks which have not been run yet are discarded.
+     */
+    public void stop() {
+        synchronized (buckets) {
+            stopped = true;
+            for (final Set<Timeout> bucket : buckets) {
+                bucket.clear();
+            }
+            buckets.notifyAll();
+        }
+        expiredTasks.clear();
+        expiryThread.interrupt();
+    }
+
+    /**
+     * Schedules task to be run after the delay unless cancelled before.
+     * The task is run in the expiry thread, so a blocking task delays other expired
+     * tasks but not expiry detection.
+     *
+     * @param task the task
+     * @param delayMillis the delay in milliseconds
+     * @return the timeout which can be used to cancel the task
+     */
+    public Timeout schedule(final Runnable task, final long delayMillis) {
+        synchronized (buckets) {
+            // Deadline is rounded up to tick end so that timeout never expires early.
+            final long deadline = System.currentTimeMillis() + Math.max(0, delayMillis) - startTime;
+            final long deadlineTick = Math.max(tick + 1, (deadline + tickMillis - 1) / tickMillis);
+            final long ticks = deadlineTick - tick;
+            final Timeout timeout = new Timeout(task, (int) (deadlineTick % buckets.size()),
+                    (ticks - 1) / buckets.size());
+            buckets.get(timeout.bucket).add(timeout);
+            return timeout;
+        }
+    }
+
+    /**
+     * Advances the wheel one bucket per tick and hands the expired tasks to the expiry thread.
+     */
+    private void tickLoop() {
+        final List<Timeout> expired = new ArrayList<Timeout>();
+        while (true) {
+            synchronized (buckets) {
+                long sleeping;
+                while (!stopped && (sleeping = startTime + (tick + 1) * tickMillis - System.currentTimeMillis()) > 0) {
+                    try {
+                        buckets.wait(sleeping);
+                    } catch (final InterruptedException e) {
+                        LOGGER.trace("Timer wheel tick interrupted.", e);
+                    }
+                }
+                if (stopped) {
+                    return;
+                }
+                tick++;
+                final Set<Timeout> bucket = buckets.get((int) (tick % buckets.size()));
+                for (final Timeout timeout : bucket) {
+                    if (timeout.rounds == 0) {
+                        expired.add(timeout);
+                    } else {
+                        timeout.rounds--;
+                    }
+                }
+                bucket.removeAll(expired);
+            }
+            for (final Timeout timeout : expired) {
+                expiredTasks.add(timeout.task);
+            }
+            expired.clear();
+        }
+    }
+
+    /**
+     * Runs expired tasks until stopped.
+     */
+    private void expiryLoop() {
+        while (!stopped) {
+            final Runnable task;
+            try {
+                task = expiredTasks.take();
+            } catch (final InterruptedException e) {
+                continue;
+            }
+            try {
+                task.run();
+            } catch (final Exception e) {
+                LOGGER.error("Error in timer wheel task.", e);
+            }
+        }
+    }
+
+    /**
+     * Scheduled timeout.
+     */
+    public class Timeout {
+        /**
+         * The task to run on expiry.
+         */
+        private final Runnable task;
+        /**
+         * The bucket index.
+         */
+        private final int bucket;
+        /**
+         * The remaining full rotations of the wheel before expiry.
+         */
+        private long rounds;
+
+        /**
+         * Constructor for setting the timeout fields.
+         *
+         * @param task the task
+         * @param bucket the bucket
+         * @param rounds the rounds
+         */
+        private Timeout(final Runnable task, final int bucket, final long rounds) {
+            this.task = task;
+            this.bucket = bucket;
+            this.rounds = rounds;
+        }
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return true if timeout was pending
+         */
+        public boolean cancel() {
+            synchronized (buckets) {
+                return buckets.get(bucket).remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Merges attribute reads to the same device and cluster issued within a short window
+ * to one batched read with {@link ZigBeeApi#read(ZigBeeDevice, int, List)}. The batch
+ * is sent when the window of its first read has passed.
+ */
+public class AttributeReadBatcher {
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AttributeReadBatcher.class);
+    /**
+     * The default window for merging reads in milliseconds.
+     */
+    public static final long WINDOW_DEFAULT = 20;
+
+    /**
+     * The ZigBee API.
+     */
+    private final ZigBeeApi zigBeeApi;
+    /**
+     * The window for merging reads in milliseconds.
+     */
+    private final long window;
+    /**
+     * The batches waiting to be sent by device network address, endpoint and cluster ID.
+     */
+    private final Map<BatchKey, Batch> batches = new LinkedHashMap<BatchKey, Batch>();
+    /**
+     * The number of batches sent.
+     */
+    private long batchCount = 0;
+    /**
+     * The thread sending batches.
+     */
+    private final Thread senderThread;
+    /**
+     * True if shutdown has been requested.
+     */
+    private boolean shutdown = false;
+
+    /**
+     * Constructor for setting the ZigBee API and merge window.
+     * @param zigBeeApi the ZigBee API
+     * @param window the window for merging reads in milliseconds
+     */
+    public AttributeReadBatcher(final ZigBeeApi zigBeeApi, final long window) {
+        this.zigBeeApi = zigBeeApi;
+        this.window = window;
+        senderThread = new Thread() {
+            @Override
+            public void run() {
+                sendBatches();
+            }
+        };
+        senderThread.setName("AttributeReadBatcher");
+        senderThread.setDaemon(true);
+        senderThread.start();
+    }
+
+    /**
+     * Shuts down the batcher. Batches waiting to be sent are sent before the sender thread exits.
+     */
+    public void shutdown() {
+        synchronized (batches) {
+            shutdown = true;
+            batches.notifyAll();
+        }
+    }
+
+    /**
+     * Reads attribute from device. The read is merged with other reads to the same
+     * device and cluster within the window.
+     * @param device the device
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @return the attribute result future
+     */
+    public Future<AttributeResult> read(final ZigBeeDevice device, final int clusterId, final int attributeId) {
+        final BatchKey key = new BatchKey(device.getNetworkAddress(), device.getEndpoint(), clusterId);
+        synchronized (batches) {
+            if (shutdown) {
+                throw new IllegalStateException("Attribute read batcher has been shut down.");
+            }
+            Batch batch = batches.get(key);
+            if (batch == null) {
+                batch = new Batch(device, clusterId, System.currentTimeMillis() + window);
+                batches.put(key, batch);
+                batches.notifyAll();
+            }
+            batch.attributeIds.add(attributeId);
+            return new BatchedAttributeFuture(batch, attributeId);
+        }
+    }
+
+    /**
+     * Gets the number of batches sent.
+     * @return the number of batches sent
+     */
+    public long getBatchCount() {
+        synchronized (batches) {
+            return batchCount;
+        }
+    }
+
+    /**
+     * Sends batches when their windows have passed until shutdown.
+     */
+    private void sendBatches() {
+        while (true) {
+            final List<Batch> dueBatches = new ArrayList<Batch>();
+            synchronized (batches) {
+                try {
+                    while (!shutdown) {
+                        final long sleeping = getNextSendTime() - System.currentTimeMillis();
+                        if (sleeping <= 0) {
+                            break;
+                        }
+                        batches.wait(sleeping);
+                    }
+                } catch (final InterruptedException e) {
+                    shutdown = true;
+                }
+                final long now = System.currentTimeMillis();
+                final Iterator<Batch> iterator = batches.values().iterator();
+                while (iterator.hasNext()) {
+                    final Batch batch = iterator.next();
+                    if (shutdown || batch.sendTime <= now) {
+                        dueBatches.add(batch);
+                        iterator.remove();
+                    }
+                }
+                batchCount += dueBatches.size();
+            }
+            for (final Batch batch : dueBatches) {
+                send(batch);
+            }
+            synchronized (batches) {
+                if (shutdown && batches.isEmpty()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the send time of the earliest batch.
+     * @return the send time or Long.MAX_VALUE if there are no batches
+     */
+    private long getNextSendTime() {
+        long nextSendTime = Long.MAX_VALUE;
+        for (final Batch batch : batches.values()) {
+            nextSendTime = Math.min(nextSendTime, batch.sendTime);
+        }
+        return nextSendTime;
+    }
+
+    /**
+     * Sends batch and sets its result future.
+     * @param batch the batch
+     */
+    private void send(final Batch batch) {
+        Future<Map<Integer, AttributeResult>> future;
+        try {
+            future = zigBeeApi.read(batch.device, batch.clusterId, new ArrayList<Integer>(batch.attributeIds));
+        } catch (final RuntimeException e) {
+            LOGGER.error("Error sending batched attribute read.", e);
+            final AttributeResultFuture failedFuture = new AttributeResultFuture();
+            final CommandResultFuture commandResultFuture = new CommandResultFuture(zigBeeApi);
+            commandResultFuture.set(new CommandResult(e.toString()));
+            failedFuture.add(new ArrayList<Integer>(batch.attributeIds), commandResultFuture);
+            future = failedFuture;
+        }
+        synchronized (batch) {
+            batch.future = future;
+            batch.notifyAll();
+        }
+    }
+
+    /**
+     * Key of batch consisting of device network address, endpoint and cluster ID.
+     */
+    private static final class BatchKey {
+        /**
+         * The network address.
+         */
+        private final int networkAddress;
+        /**
+         * The endpoint.
+         */
+        private final int endpoint;
+        /**
+         * The cluster ID.
+         */
+        private final int clusterId;
+
+        /**
+         * Constructor which sets the key fields.
+         * @param networkAddress the network address
+         * @param endpoint the endpoint
+         * @param clusterId the cluster ID
+         */
+        private BatchKey(final int networkAddress, final int endpoint, final int clusterId) {
+            this.networkAddress = networkAddress;
+            this.endpoint = endpoint;
+            this.clusterId = clusterId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            final BatchKey that = (BatchKey) o;
+            return networkAddress == that.networkAddress && endpoint == that.endpoint
+                    && clusterId == that.clusterId;
+        }
+
+        @Override
+        public int hashCode() {
+            return (networkAddress * 31 + endpoint) * 31 + clusterId;
+        }
+    }
+
+    /**
+     * Attribute reads to a device cluster waiting to be sent.
+     */
+    private static class Batch {
+        /**
+         * The device.
+         */
+        private final ZigBeeDevice device;
+        /**
+         * The cluster ID.
+         */
+        private final int clusterId;
+        /**
+         * The send time.
+         */
+        private final long sendTime;
+        /**
+         * The attribute IDs.
+         */
+        private final Set<Integer> attributeIds = new LinkedHashSet<Integer>();
+        /**
+         * The result future or null if batch has not been sent.
+         */
+        private Future<Map<Integer, AttributeResult>> future;
+
+        /**
+         * Constructor for setting the batch fields.
+         * @param device the device
+         * @param clusterId the cluster ID
+         * @param sendTime the send time
+         */
+        private Batch(final ZigBeeDevice device, final int clusterId, final long sendTime) {
+            this.device = device;
+            this.clusterId = clusterId;
+            this.sendTime = sendTime;
+        }
+    }
+
+    /**
+     * Future of one attribute result of a batch.
+     */
+    private static class BatchedAttributeFuture implements Future<AttributeResult> {
+        /**
+         * The batch.
+         */
+        private final Batch batch;
+        /**
+         * The attribute ID.
+         */
+        private final int attributeId;
+
+        /**
+         * Constructor for setting the batch and attribute ID.
+         * @param batch the batch
+         * @param attributeId the attribute ID
+         */
+        private BatchedAttributeFuture(final Batch batch, final int attributeId) {
+            this.batch = batch;
+            this.attributeId = attributeId;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isDone() {
+            synchronized (batch) {
+                return batch.future != null && batch.future.isDone();
+            }
+        }
+
+        @Override
+        public AttributeResult get() throws InterruptedException, ExecutionException {
+            final Future<Map<Integer, AttributeResult>> future;
+            synchronized (batch) {
+                while (batch.future == null) {
+                    batch.wait();
+                }
+                future = batch.future;
+            }
+            return future.get().get(attributeId);
+        }
+
+        @Override
+        public AttributeResult get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            final long wakeUpTime = System.currentTimeMillis() + unit.toMillis(timeout);
+            final Future<Map<Integer, AttributeResult>> future;
+            synchronized (batch) {
+                while (batch.future == null) {
+                    final long sleeping = wakeUpTime - System.currentTimeMillis();
+                    if (sleeping <= 0) {
+                        throw new TimeoutException();
+                    }
+                    batch.wait(sleeping);
+                }
+                future = batch.future;
+            }
+            return future.get(Math.max(0, wakeUpTime - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+                    .get(attributeId);
+        }
+    }
+}
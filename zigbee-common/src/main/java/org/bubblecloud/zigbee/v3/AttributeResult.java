@@ -0,0 +1,107 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.model.Status;
+
+/**
+ * Value class containing result of reading or writing one attribute in a batch.
+ */
+public class AttributeResult {
+    /**
+     * The attribute ID.
+     */
+    private final int attributeId;
+    /**
+     * The result of the command carrying the attribute.
+     */
+    private final CommandResult commandResult;
+    /**
+     * The attribute status code or null if status was not received.
+     */
+    private final Integer statusCode;
+    /**
+     * The read value or null.
+     */
+    private final Object value;
+
+    /**
+     * Constructor which sets the result fields.
+     * @param attributeId the attribute ID
+     * @param commandResult the result of the command carrying the attribute
+     * @param statusCode the attribute status code or null if status was not received
+     * @param value the read value or null
+     */
+    public AttributeResult(final int attributeId, final CommandResult commandResult, final Integer statusCode,
+                           final Object value) {
+        this.attributeId = attributeId;
+        this.commandResult = commandResult;
+        this.statusCode = statusCode;
+        this.value = value;
+    }
+
+    /**
+     * Gets the attribute ID.
+     * @return the attribute ID
+     */
+    public int getAttributeId() {
+        return attributeId;
+    }
+
+    /**
+     * Gets the result of the command carrying the attribute.
+     * @return the command result
+     */
+    public CommandResult getCommandResult() {
+        return commandResult;
+    }
+
+    /**
+     * Gets the attribute status code.
+     * @return the status code or null if status was not received
+     */
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets the read value.
+     * @return the value or null if attribute was written or could not be read
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Checks whether attribute was read or written successfully.
+     * @return TRUE if attribute status is success
+     */
+    public boolean isSuccess() {
+        return statusCode != null && statusCode == 0;
+    }
+
+    /**
+     * Gets error message.
+     * @return the message or null if attribute was read or written successfully
+     */
+    public String getMessage() {
+        if (isSuccess()) {
+            return null;
+        }
+        if (statusCode != null) {
+            final Status status = Status.getStatus((byte) (int) statusCode);
+            return status != null ? status.description : "Status 0x" + Integer.toHexString(statusCode);
+        }
+        if (!commandResult.isSuccess()) {
+            return commandResult.getMessage();
+        }
+        return "Attribute status missing from response.";
+    }
+
+    @Override
+    public String toString() {
+        if (isSuccess()) {
+            return "attribute " + attributeId + ": success" + (value != null ? " " + value : "");
+        } else {
+            return "attribute " + attributeId + ": " + getMessage();
+        }
+    }
+}
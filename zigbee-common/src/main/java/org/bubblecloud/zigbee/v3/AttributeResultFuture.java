@@ -0,0 +1,204 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.field.ReadAttributeStatusRecord;
+import org.bubblecloud.zigbee.v3.zcl.field.WriteAttributeStatusRecord;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesResponseCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesResponseCommand;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Future aggregating the results of attribute read or write commands split to several
+ * frames. The result maps attribute IDs to attribute results in request order.
+ * <p>
+ * Devices leave out trailing records which do not fit the read response frame. Such
+ * attributes are read again one attribute per frame when the results are first got.
+ */
+public class AttributeResultFuture implements Future<Map<Integer, AttributeResult>> {
+    /**
+     * The ZigBee API for reading missing attributes again or null if not reading.
+     */
+    private final ZigBeeApi zigBeeApi;
+    /**
+     * The device read or null if not reading.
+     */
+    private final ZigBeeDevice device;
+    /**
+     * The cluster ID read.
+     */
+    private final int clusterId;
+    /**
+     * The attribute IDs of the frames.
+     */
+    private final List<List<Integer>> frameAttributeIds = new ArrayList<List<Integer>>();
+    /**
+     * The result futures of the frames.
+     */
+    private final List<Future<CommandResult>> frameFutures = new ArrayList<Future<CommandResult>>();
+    /**
+     * The results or null if not yet got.
+     */
+    private Map<Integer, AttributeResult> results;
+
+    /**
+     * Default constructor for results which are not read again if missing from response.
+     */
+    public AttributeResultFuture() {
+        this(null, null, 0);
+    }
+
+    /**
+     * Constructor for attribute read results. Attributes missing from read responses are read again.
+     * @param zigBeeApi the ZigBee API
+     * @param device the device
+     * @param clusterId the cluster ID
+     */
+    public AttributeResultFuture(final ZigBeeApi zigBeeApi, final ZigBeeDevice device, final int clusterId) {
+        this.zigBeeApi = zigBeeApi;
+        this.device = device;
+        this.clusterId = clusterId;
+    }
+
+    /**
+     * Adds result future of sent frame.
+     * @param attributeIds the attribute IDs of the frame
+     * @param future the command result future
+     */
+    public void add(final List<Integer> attributeIds, final Future<CommandResult> future) {
+        frameAttributeIds.add(attributeIds);
+        frameFutures.add(future);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isDone() {
+        for (final Future<CommandResult> future : frameFutures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized Map<Integer, AttributeResult> get() throws InterruptedException, ExecutionException {
+        if (results != null) {
+            return results;
+        }
+        final Map<Integer, AttributeResult> frameResults = new LinkedHashMap<Integer, AttributeResult>();
+        final List<Integer> missingAttributeIds = new ArrayList<Integer>();
+        for (int i = 0; i < frameFutures.size(); i++) {
+            missingAttributeIds.addAll(addResults(frameResults, frameAttributeIds.get(i), frameFutures.get(i).get()));
+        }
+        for (final Map.Entry<Integer, Future<CommandResult>> entry : readAgain(missingAttributeIds).entrySet()) {
+            addResults(frameResults, Collections.singletonList(entry.getKey()), entry.getValue().get());
+        }
+        results = frameResults;
+        return results;
+    }
+
+    @Override
+    public synchronized Map<Integer, AttributeResult> get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (results != null) {
+            return results;
+        }
+        final long wakeUpTime = System.currentTimeMillis() + unit.toMillis(timeout);
+        final Map<Integer, AttributeResult> frameResults = new LinkedHashMap<Integer, AttributeResult>();
+        final List<Integer> missingAttributeIds = new ArrayList<Integer>();
+        for (int i = 0; i < frameFutures.size(); i++) {
+            missingAttributeIds.addAll(addResults(frameResults, frameAttributeIds.get(i), frameFutures.get(i).get(
+                    Math.max(0, wakeUpTime - System.currentTimeMillis()), TimeUnit.MILLISECONDS)));
+        }
+        for (final Map.Entry<Integer, Future<CommandResult>> entry : readAgain(missingAttributeIds).entrySet()) {
+            addResults(frameResults, Collections.singletonList(entry.getKey()), entry.getValue().get(
+                    Math.max(0, wakeUpTime - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+        }
+        results = frameResults;
+        return results;
+    }
+
+    /**
+     * Reads attributes missing from read responses again one attribute per frame.
+     * @param attributeIds the missing attribute IDs
+     * @return the command result futures by attribute ID
+     */
+    private Map<Integer, Future<CommandResult>> readAgain(final List<Integer> attributeIds) {
+        final Map<Integer, Future<CommandResult>> futures = new LinkedHashMap<Integer, Future<CommandResult>>();
+        if (zigBeeApi == null) {
+            return futures;
+        }
+        for (final Integer attributeId : attributeIds) {
+            futures.put(attributeId, zigBeeApi.sendReadAttributes(device, clusterId,
+                    Collections.singletonList(attributeId)));
+        }
+        return futures;
+    }
+
+    /**
+     * Adds attribute results of a frame.
+     * @param results the attribute results
+     * @param attributeIds the attribute IDs of the frame
+     * @param commandResult the command result of the frame
+     * @return the attribute IDs missing from successful read response
+     */
+    private static List<Integer> addResults(final Map<Integer, AttributeResult> results,
+                                            final List<Integer> attributeIds, final CommandResult commandResult) {
+        final Map<Integer, Integer> statusCodes = new HashMap<Integer, Integer>();
+        final Map<Integer, Object> values = new HashMap<Integer, Object>();
+        Integer defaultStatusCode = null;
+        if (!commandResult.isSuccess()) {
+            defaultStatusCode = commandResult.getStatusCode();
+        } else if (commandResult.getResponse() instanceof ReadAttributesResponseCommand) {
+            final List<ReadAttributeStatusRecord> records =
+                    ((ReadAttributesResponseCommand) commandResult.getResponse()).getRecords();
+            if (records != null) {
+                for (final ReadAttributeStatusRecord record : records) {
+                    statusCodes.put(record.getAttributeIdentifier(), record.getStatus());
+                    values.put(record.getAttributeIdentifier(), record.getAttributeValue());
+                }
+            }
+        } else if (commandResult.getResponse() instanceof WriteAttributesResponseCommand) {
+            // Write response lists only failed attributes or a single success status.
+            defaultStatusCode = 0;
+            final List<WriteAttributeStatusRecord> records =
+                    ((WriteAttributesResponseCommand) commandResult.getResponse()).getRecords();
+            if (records != null) {
+                for (final WriteAttributeStatusRecord record : records) {
+                    if (record.getStatus() != 0) {
+                        statusCodes.put(record.getAttributeIdentifier(), record.getStatus());
+                    }
+                }
+            }
+        }
+        final List<Integer> missingAttributeIds = new ArrayList<Integer>();
+        for (final Integer attributeId : attributeIds) {
+            final Integer statusCode = statusCodes.containsKey(attributeId)
+                    ? statusCodes.get(attributeId) : defaultStatusCode;
+            results.put(attributeId, new AttributeResult(attributeId, commandResult, statusCode,
+                    values.get(attributeId)));
+            if (statusCode == null && commandResult.isSuccess()) {
+                missingAttributeIds.add(attributeId);
+            }
+        }
+        return missingAttributeIds;
+    }
+}
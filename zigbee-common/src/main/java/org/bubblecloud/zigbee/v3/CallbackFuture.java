@@ -0,0 +1,178 @@
+package org.bubblecloud.zigbee.v3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Future completed by the producer of the value. Callbacks added to the future are run
+ * once when the future completes, by the callback executor or the completing thread if
+ * there is no executor, or by the adding thread if the future has already completed.
+ *
+ * @param <V> the value type
+ */
+public class CallbackFuture<V> implements Future<V> {
+    /**
+     * The executor running callbacks or null if callbacks are run by the completing thread.
+     */
+    private final Executor callbackExecutor;
+    /**
+     * The callbacks to run on completion.
+     */
+    private List<Runnable> callbacks = new ArrayList<Runnable>();
+    /**
+     * The value.
+     */
+    private V value;
+    /**
+     * The failure or null.
+     */
+    private Throwable failure;
+    /**
+     * True if future has completed.
+     */
+    private boolean done = false;
+
+    /**
+     * Default constructor. Callbacks are run by the completing thread.
+     */
+    public CallbackFuture() {
+        this(null);
+    }
+
+    /**
+     * Constructor for setting the callback executor. Producers completing futures from
+     * threads which must not block, such as IO readers, can hand callbacks off to executor.
+     * @param callbackExecutor the executor running callbacks or null to run them in the completing thread
+     */
+    public CallbackFuture(final Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Completes future with value.
+     * @param value the value
+     * @return false if future had already completed
+     */
+    public boolean set(final V value) {
+        return complete(value, null);
+    }
+
+    /**
+     * Completes future with failure.
+     * @param failure the failure
+     * @return false if future had already completed
+     */
+    public boolean fail(final Throwable failure) {
+        return complete(null, failure);
+    }
+
+    /**
+     * Adds callback to run when future completes.
+     * @param callback the callback
+     */
+    public void addCallback(final Runnable callback) {
+        synchronized (this) {
+            if (!done) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Gets the failure.
+     * @return the failure or null if future has not failed
+     */
+    public synchronized Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public synchronized V get() throws InterruptedException, ExecutionException {
+        while (!done) {
+            wait();
+        }
+        return getValue();
+    }
+
+    @Override
+    public synchronized V get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!done) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return getValue();
+    }
+
+    /**
+     * Completes future and runs callbacks.
+     * @param value the value
+     * @param failure the failure or null
+     * @return false if future had already completed
+     */
+    private boolean complete(final V value, final Throwable failure) {
+        final List<Runnable> completedCallbacks;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            this.value = value;
+            this.failure = failure;
+            done = true;
+            completedCallbacks = callbacks;
+            callbacks = null;
+            notifyAll();
+        }
+        for (final Runnable callback : completedCallbacks) {
+            if (callbackExecutor == null) {
+                callback.run();
+                continue;
+            }
+            try {
+                callbackExecutor.execute(callback);
+            } catch (final RejectedExecutionException e) {
+                callback.run();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the value of completed future.
+     * @return the value
+     * @throws ExecutionException if future failed
+     */
+    private V getValue() throws ExecutionException {
+        if (failure != null) {
+            throw new ExecutionException(failure);
+        }
+        return value;
+    }
+}
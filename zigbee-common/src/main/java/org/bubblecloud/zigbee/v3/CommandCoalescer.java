@@ -0,0 +1,275 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToColorCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToColorTemperatureCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToHueAndSaturationCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToHueCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToSaturationCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveToLevelCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveToLevelWithOnOffCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coalesces commands which set absolute level or color of a destination. Such commands
+ * to the same destination are sent at most once per minimum interval and a command
+ * still waiting to be sent is replaced by newer command of the same type. Sending of the
+ * replaced command fails with {@link ZigBeeException}.
+ * <p>
+ * Other commands are passed through to the network as is.
+ */
+public class CommandCoalescer implements ZigBeeNetwork {
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommandCoalescer.class);
+    /**
+     * The default minimum interval between coalesced commands to the same destination in milliseconds.
+     */
+    public static final long MINIMUM_INTERVAL_DEFAULT = 100;
+
+    /**
+     * The network commands are sent to.
+     */
+    private final ZigBeeNetwork network;
+    /**
+     * The minimum interval between coalesced commands to the same destination in milliseconds.
+     */
+    private final long minimumInterval;
+    /**
+     * The coalesced command types.
+     */
+    private final Set<Class<?>> commandTypes = new HashSet<Class<?>>();
+    /**
+     * The destination slots by destination key.
+     */
+    private final Map<Long, Slot> slots = new HashMap<Long, Slot>();
+    /**
+     * The number of replaced commands.
+     */
+    private long replacedCount = 0;
+    /**
+     * The time when idle slots are next removed.
+     */
+    private long nextIdleSlotRemovalTime = 0;
+
+    /**
+     * Constructor for setting the network and minimum interval.
+     * @param network the network
+     * @param minimumInterval the minimum interval between coalesced commands to the same destination
+     *                        in milliseconds
+     */
+    public CommandCoalescer(final ZigBeeNetwork network, final long minimumInterval) {
+        this.network = network;
+        this.minimumInterval = minimumInterval;
+        commandTypes.add(MoveToLevelCommand.class);
+        commandTypes.add(MoveToLevelWithOnOffCommand.class);
+        commandTypes.add(MoveToColorCommand.class);
+        commandTypes.add(MoveToColorTemperatureCommand.class);
+        commandTypes.add(MoveToHueCommand.class);
+        commandTypes.add(MoveToSaturationCommand.class);
+        commandTypes.add(MoveToHueAndSaturationCommand.class);
+    }
+
+    /**
+     * Adds command type to be coalesced. The command should fully replace the effect
+     * of earlier command of the same type.
+     * @param commandType the command type
+     */
+    public void addCommandType(final Class<? extends ZclCommand> commandType) {
+        synchronized (slots) {
+            commandTypes.add(commandType);
+        }
+    }
+
+    /**
+     * Gets the number of commands replaced by newer commands before sending.
+     * @return the number of replaced commands
+     */
+    public long getReplacedCount() {
+        synchronized (slots) {
+            return replacedCount;
+        }
+    }
+
+    /**
+     * Gets the number of destinations with slot.
+     * @return the number of slots
+     */
+    int getSlotCount() {
+        synchronized (slots) {
+            return slots.size();
+        }
+    }
+
+    @Override
+    public int sendCommand(final Command command) throws ZigBeeException {
+        final Slot slot;
+        synchronized (slots) {
+            removeIdleSlots();
+            if (!commandTypes.contains(command.getClass())) {
+                slot = null;
+            } else {
+                final Long key = getDestinationKey(((ZclCommand) command).getDestinationAddress());
+                Slot existingSlot = slots.get(key);
+                if (existingSlot == null) {
+                    existingSlot = new Slot(key);
+                    slots.put(key, existingSlot);
+                }
+                slot = existingSlot;
+                waitForTurn(slot, command);
+            }
+        }
+        if (slot == null) {
+            return network.sendCommand(command);
+        }
+        try {
+            return network.sendCommand(command);
+        } finally {
+            synchronized (slots) {
+                slot.sending = false;
+                slot.nextSendTime = System.currentTimeMillis() + minimumInterval;
+                slots.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void addCommandListener(final CommandListener commandListener) {
+        network.addCommandListener(commandListener);
+    }
+
+    @Override
+    public void removeCommandListener(final CommandListener commandListener) {
+        network.removeCommandListener(commandListener);
+    }
+
+    /**
+     * Waits until command can be sent to slot destination and marks slot as sending.
+     * Replaces pending command of the same type.
+     * @param slot the slot
+     * @param command the command
+     * @throws ZigBeeException if command was replaced by newer command or interrupted
+     */
+    private void waitForTurn(final Slot slot, final Command command) throws ZigBeeException {
+        final Command replacedCommand = slot.pendingCommands.put(command.getClass(), command);
+        if (replacedCommand != null) {
+            replacedCount++;
+            LOGGER.trace("Replaced pending {} to {}.", command.getClass().getSimpleName(),
+                    ((ZclCommand) command).getDestinationAddress());
+            slots.notifyAll();
+        }
+        try {
+            while (true) {
+                if (slot.pendingCommands.get(command.getClass()) != command) {
+                    throw new ZigBeeException("Command replaced by newer command to the same destination.");
+                }
+                final long sleeping = slot.nextSendTime - System.currentTimeMillis();
+                if (!slot.sending && sleeping <= 0) {
+                    break;
+                }
+                slots.wait(slot.sending ? 0 : sleeping);
+            }
+        } catch (final InterruptedException e) {
+            if (slot.pendingCommands.get(command.getClass()) == command) {
+                slot.pendingCommands.remove(command.getClass());
+            }
+            removeIdleSlot(slot);
+            throw new ZigBeeException("Interrupted while waiting for coalesced command to be sent.");
+        } catch (final ZigBeeException e) {
+            removeIdleSlot(slot);
+            throw e;
+        }
+        slot.pendingCommands.remove(command.getClass());
+        slot.sending = true;
+    }
+
+    /**
+     * Removes slot if nothing is waiting to be sent to its destination and minimum interval has passed.
+     * @param slot the slot
+     */
+    private void removeIdleSlot(final Slot slot) {
+        if (isIdle(slot, System.currentTimeMillis())) {
+            slots.remove(slot.key);
+        }
+    }
+
+    /**
+     * Removes slots whose pending commands have been sent and whose minimum interval has passed.
+     * Slots are kept for the minimum interval after last send to throttle the next command,
+     * so drained slots are removed at most once per minimum interval.
+     */
+    private void removeIdleSlots() {
+        final long now = System.currentTimeMillis();
+        if (now < nextIdleSlotRemovalTime) {
+            return;
+        }
+        nextIdleSlotRemovalTime = now + minimumInterval;
+        final Iterator<Slot> iterator = slots.values().iterator();
+        while (iterator.hasNext()) {
+            if (isIdle(iterator.next(), now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Checks whether nothing is waiting to be sent to slot destination and minimum interval has passed.
+     * @param slot the slot
+     * @param now the current time
+     * @return TRUE if slot is idle
+     */
+    private static boolean isIdle(final Slot slot, final long now) {
+        return !slot.sending && slot.pendingCommands.isEmpty() && slot.nextSendTime <= now;
+    }
+
+    /**
+     * Gets destination key.
+     * @param destination the destination address
+     * @return the key
+     */
+    private static Long getDestinationKey(final ZigBeeAddress destination) {
+        if (destination instanceof ZigBeeGroupAddress) {
+            return (1L << 32) | (((ZigBeeGroupAddress) destination).getGroupId() & 0xffff);
+        }
+        final ZigBeeDeviceAddress deviceAddress = (ZigBeeDeviceAddress) destination;
+        return (long) ((deviceAddress.getAddress() & 0xffff) << 8) | (deviceAddress.getEndpoint() & 0xff);
+    }
+
+    /**
+     * Sending state of a destination.
+     */
+    private static class Slot {
+        /**
+         * The destination key.
+         */
+        private final Long key;
+        /**
+         * The commands waiting to be sent by command type.
+         */
+        private final Map<Class<?>, Command> pendingCommands = new HashMap<Class<?>, Command>();
+        /**
+         * True if command is being sent.
+         */
+        private boolean sending = false;
+        /**
+         * The earliest time next command can be sent.
+         */
+        private long nextSendTime = 0;
+
+        /**
+         * Constructor for setting the destination key.
+         * @param key the destination key
+         */
+        private Slot(final Long key) {
+            this.key = key;
+        }
+    }
+}
@@ -22,6 +22,10 @@ public class CommandExecution {
      * The command response listener.
      */
     private CommandListener commandListener;
+    /**
+     * The command response matcher.
+     */
+    private CommandResponseMatcher responseMatcher;
 
     /**
      * Constructor which sets future and command listener.
@@ -74,4 +78,20 @@ public class CommandExecution {
     public CommandListener getCommandListener() {
         return commandListener;
     }
+
+    /**
+     * Sets command response matcher.
+     * @param responseMatcher the command response matcher
+     */
+    public void setResponseMatcher(CommandResponseMatcher responseMatcher) {
+        this.responseMatcher = responseMatcher;
+    }
+
+    /**
+     * Gets command response matcher.
+     * @return the command response matcher
+     */
+    public CommandResponseMatcher getResponseMatcher() {
+        return responseMatcher;
+    }
 }
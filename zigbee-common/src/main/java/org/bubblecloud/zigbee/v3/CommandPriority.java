@@ -0,0 +1,68 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+
+/**
+ * Priority classes of outbound commands.
+ */
+public enum CommandPriority {
+    /**
+     * Interactive control such as on, off, level and color commands.
+     */
+    INTERACTIVE(8, 4),
+    /**
+     * Attribute reads, writes and reporting configuration.
+     */
+    ATTRIBUTE(4, 4),
+    /**
+     * Network discovery and maintenance.
+     */
+    DISCOVERY(1, 2);
+
+    /**
+     * The default weight in fair queuing.
+     */
+    private final int defaultWeight;
+    /**
+     * The default maximum number of commands being sent at the same time.
+     */
+    private final int defaultInFlightLimit;
+
+    CommandPriority(final int defaultWeight, final int defaultInFlightLimit) {
+        this.defaultWeight = defaultWeight;
+        this.defaultInFlightLimit = defaultInFlightLimit;
+    }
+
+    /**
+     * Gets the default weight in fair queuing.
+     * @return the default weight
+     */
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    /**
+     * Gets the default maximum number of commands being sent at the same time.
+     * @return the default in-flight limit
+     */
+    public int getDefaultInFlightLimit() {
+        return defaultInFlightLimit;
+    }
+
+    /**
+     * Gets priority class of command. Cluster specific ZCL commands are interactive,
+     * generic ZCL commands are attribute I/O and ZDO commands are discovery.
+     * @param command the command
+     * @return the priority class
+     */
+    public static CommandPriority getPriority(final Command command) {
+        if (command instanceof ZclCommand) {
+            final ZclCommand zclCommand = (ZclCommand) command;
+            if (zclCommand.getType() != null && zclCommand.getType().isGeneric()) {
+                return ATTRIBUTE;
+            }
+            return INTERACTIVE;
+        }
+        return DISCOVERY;
+    }
+}
@@ -0,0 +1,331 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zdo.command.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatches received responses to pending command executions with one hash lookup.
+ * ZCL executions are indexed by source address, endpoint, transaction ID and cluster ID
+ * and ZDO executions by network address and response type. The response matcher of the
+ * execution is only evaluated for executions sharing the response key.
+ * <p>
+ * ZCL transaction ID is known only after the command has been sent, so responses received
+ * while sends are in progress are kept in a small buffer and matched when the
+ * execution is resolved.
+ */
+public class CommandResponseDispatcher implements CommandListener {
+    /**
+     * The maximum number of response keys in early response buffer.
+     */
+    private static final int EARLY_RESPONSE_BUFFER_SIZE = 64;
+    /**
+     * The ZCL key type.
+     */
+    private static final long ZCL_KEY = 1L << 56;
+    /**
+     * The ZDO key type.
+     */
+    private static final long ZDO_KEY = 2L << 56;
+    /**
+     * The ZDO response types by request type.
+     */
+    private static final Map<Class<?>, Class<?>> ZDO_RESPONSE_TYPES = new HashMap<Class<?>, Class<?>>();
+    /**
+     * The ZDO response type indexes.
+     */
+    private static final Map<Class<?>, Integer> ZDO_RESPONSE_TYPE_INDEXES = new HashMap<Class<?>, Integer>();
+
+    static {
+        addZdoResponseType(ActiveEndpointsRequest.class, ActiveEndpointsResponse.class);
+        addZdoResponseType(BindRequest.class, BindResponse.class);
+        addZdoResponseType(IeeeAddressRequest.class, IeeeAddressResponse.class);
+        addZdoResponseType(ManagementLqiRequest.class, ManagementLqiResponse.class);
+        addZdoResponseType(ManagementPermitJoinRequest.class, ManagementPermitJoinResponse.class);
+        addZdoResponseType(NodeDescriptorRequest.class, NodeDescriptorResponse.class);
+        addZdoResponseType(SimpleDescriptorRequest.class, SimpleDescriptorResponse.class);
+        addZdoResponseType(UnbindRequest.class, UnbindResponse.class);
+        addZdoResponseType(UserDescriptorRequest.class, UserDescriptorResponse.class);
+        addZdoResponseType(UserDescriptorSet.class, UserDescriptorConfiguration.class);
+    }
+
+    /**
+     * The ZigBee API owning the command executions.
+     */
+    private final ZigBeeApi zigBeeApi;
+    /**
+     * The pending executions by response key.
+     */
+    private final Map<Long, List<CommandExecution>> pendingExecutions = new HashMap<Long, List<CommandExecution>>();
+    /**
+     * The response keys of pending executions.
+     */
+    private final Map<CommandExecution, Long> executionKeys = new HashMap<CommandExecution, Long>();
+    /**
+     * The number of executions being sent and hence not yet resolved.
+     */
+    private int unresolvedCount = 0;
+    /**
+     * The responses received while executions were unresolved.
+     */
+    private final Map<Long, List<Command>> earlyResponses = new LinkedHashMap<Long, List<Command>>() {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, List<Command>> eldest) {
+            return size() > EARLY_RESPONSE_BUFFER_SIZE;
+        }
+    };
+
+    /**
+     * Constructor for setting the ZigBee API.
+     * @param zigBeeApi the ZigBee API
+     */
+    public CommandResponseDispatcher(final ZigBeeApi zigBeeApi) {
+        this.zigBeeApi = zigBeeApi;
+    }
+
+    /**
+     * Checks whether responses to command can be dispatched by this dispatcher.
+     * @param command the command
+     * @return TRUE if command can be dispatched
+     */
+    public boolean isDispatchable(final Command command) {
+        if (command instanceof ZclCommand) {
+            return ((ZclCommand) command).getDestinationAddress() instanceof ZigBeeDeviceAddress;
+        }
+        return ZDO_RESPONSE_TYPES.containsKey(command.getClass());
+    }
+
+    /**
+     * Adds execution before its command is sent. ZDO executions are indexed immediately
+     * and ZCL executions once resolved.
+     * @param execution the command execution
+     */
+    public void add(final CommandExecution execution) {
+        synchronized (pendingExecutions) {
+            final Long key = getRequestKey(execution.getCommand());
+            if (key == null) {
+                unresolvedCount++;
+            } else {
+                index(key, execution);
+            }
+        }
+    }
+
+    /**
+     * Resolves execution after its command has been sent and transaction ID is known.
+     * Execution which has already completed, for example expired while being sent, is
+     * not indexed as nothing would remove it.
+     * @param execution the command execution
+     * @return the early response matching the execution or null
+     */
+    public Command resolve(final CommandExecution execution) {
+        synchronized (pendingExecutions) {
+            if (executionKeys.containsKey(execution)) {
+                return null;
+            }
+            unresolvedCount--;
+            final boolean done = execution.getFuture().isDone();
+            final Long key = done ? null : getRequestKey(execution.getCommand());
+            final Command earlyResponse = key == null ? null : takeEarlyResponse(key, execution);
+            if (unresolvedCount == 0) {
+                earlyResponses.clear();
+            }
+            if (key != null && earlyResponse == null) {
+                index(key, execution);
+            }
+            return earlyResponse;
+        }
+    }
+
+    /**
+     * Removes execution.
+     * @param execution the command execution
+     */
+    public void remove(final CommandExecution execution) {
+        synchronized (pendingExecutions) {
+            final Long key = executionKeys.remove(execution);
+            if (key == null) {
+                return;
+            }
+            final List<CommandExecution> executions = pendingExecutions.get(key);
+            if (executions != null) {
+                executions.remove(execution);
+                if (executions.isEmpty()) {
+                    pendingExecutions.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes unresolved execution which failed to be sent.
+     * @param execution the command execution
+     */
+    public void abandon(final CommandExecution execution) {
+        synchronized (pendingExecutions) {
+            if (executionKeys.containsKey(execution)) {
+                remove(execution);
+                return;
+            }
+            unresolvedCount--;
+            if (unresolvedCount == 0) {
+                earlyResponses.clear();
+            }
+        }
+    }
+
+    @Override
+    public void commandReceived(final Command command) {
+        final Long key = getResponseKey(command);
+        if (key == null) {
+            return;
+        }
+        CommandExecution matchedExecution = null;
+        synchronized (pendingExecutions) {
+            final List<CommandExecution> executions = pendingExecutions.get(key);
+            if (executions != null) {
+                for (final CommandExecution execution : executions) {
+                    if (execution.getResponseMatcher().isMatch(execution.getCommand(), command)) {
+                        matchedExecution = execution;
+                        break;
+                    }
+                }
+            }
+            if (matchedExecution != null) {
+                remove(matchedExecution);
+            } else if (unresolvedCount > 0 && command instanceof ZclCommand) {
+                List<Command> responses = earlyResponses.get(key);
+                if (responses == null) {
+                    responses = new LinkedList<Command>();
+                    earlyResponses.put(key, responses);
+                }
+                responses.add(command);
+            }
+        }
+        if (matchedExecution != null) {
+            zigBeeApi.completeCommandExecution(matchedExecution, new CommandResult(command));
+        }
+    }
+
+    /**
+     * Indexes execution by response key.
+     * @param key the response key
+     * @param execution the command execution
+     */
+    private void index(final Long key, final CommandExecution execution) {
+        List<CommandExecution> executions = pendingExecutions.get(key);
+        if (executions == null) {
+            executions = new ArrayList<CommandExecution>(1);
+            pendingExecutions.put(key, executions);
+        }
+        executions.add(execution);
+        executionKeys.put(execution, key);
+    }
+
+    /**
+     * Takes first early response matching the execution.
+     * @param key the response key
+     * @param execution the command execution
+     * @return the response or null
+     */
+    private Command takeEarlyResponse(final Long key, final CommandExecution execution) {
+        final List<Command> responses = earlyResponses.get(key);
+        if (responses == null) {
+            return null;
+        }
+        for (final Command response : responses) {
+            if (execution.getResponseMatcher().isMatch(execution.getCommand(), response)) {
+                responses.remove(response);
+                if (responses.isEmpty()) {
+                    earlyResponses.remove(key);
+                }
+                return response;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets response key expected by request command.
+     * @param command the request command
+     * @return the response key or null if ZCL transaction ID is not yet known
+     */
+    private static Long getRequestKey(final Command command) {
+        if (command instanceof ZclCommand) {
+            final ZclCommand zclCommand = (ZclCommand) command;
+            if (zclCommand.getTransactionId() == null) {
+                return null;
+            }
+            final ZigBeeDeviceAddress destination = (ZigBeeDeviceAddress) zclCommand.getDestinationAddress();
+            final int clusterId = zclCommand.getClusterId() != null ? zclCommand.getClusterId()
+                    : zclCommand.getType().getClusterType().getId();
+            return getZclKey(destination.getAddress(), destination.getEndpoint(),
+                    zclCommand.getTransactionId(), clusterId);
+        } else {
+            return getZdoKey(((ZdoRequest) command).getDestinationAddress(),
+                    ZDO_RESPONSE_TYPES.get(command.getClass()));
+        }
+    }
+
+    /**
+     * Gets response key of received command.
+     * @param command the received command
+     * @return the response key or null if command can not be a dispatched response
+     */
+    private static Long getResponseKey(final Command command) {
+        if (command instanceof ZclCommand) {
+            final ZclCommand zclCommand = (ZclCommand) command;
+            if (!(zclCommand.getSourceAddress() instanceof ZigBeeDeviceAddress)
+                    || zclCommand.getTransactionId() == null || zclCommand.getClusterId() == null) {
+                return null;
+            }
+            final ZigBeeDeviceAddress source = (ZigBeeDeviceAddress) zclCommand.getSourceAddress();
+            return getZclKey(source.getAddress(), source.getEndpoint(),
+                    zclCommand.getTransactionId(), zclCommand.getClusterId());
+        }
+        if (command instanceof ZdoResponse && ZDO_RESPONSE_TYPE_INDEXES.containsKey(command.getClass())) {
+            return getZdoKey(((ZdoResponse) command).getSourceAddress(), command.getClass());
+        }
+        return null;
+    }
+
+    /**
+     * Packs ZCL response key.
+     * @param networkAddress the network address
+     * @param endpoint the endpoint
+     * @param transactionId the transaction ID
+     * @param clusterId the cluster ID
+     * @return the key
+     */
+    private static long getZclKey(final int networkAddress, final int endpoint, final int transactionId,
+                                  final int clusterId) {
+        return ZCL_KEY | ((long) (clusterId & 0xffff) << 32) | ((long) (networkAddress & 0xffff) << 16)
+                | ((endpoint & 0xff) << 8) | (transactionId & 0xff);
+    }
+
+    /**
+     * Packs ZDO response key.
+     * @param networkAddress the network address
+     * @param responseType the response type
+     * @return the key
+     */
+    private static long getZdoKey(final int networkAddress, final Class<?> responseType) {
+        return ZDO_KEY | ((long) ZDO_RESPONSE_TYPE_INDEXES.get(responseType) << 16) | (networkAddress & 0xffff);
+    }
+
+    /**
+     * Adds ZDO response type.
+     * @param requestType the request type
+     * @param responseType the response type
+     */
+    private static void addZdoResponseType(final Class<?> requestType, final Class<?> responseType) {
+        ZDO_RESPONSE_TYPES.put(requestType, responseType);
+        ZDO_RESPONSE_TYPE_INDEXES.put(responseType, ZDO_RESPONSE_TYPE_INDEXES.size());
+    }
+}
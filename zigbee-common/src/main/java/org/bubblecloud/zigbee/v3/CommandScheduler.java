@@ -0,0 +1,312 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedList;
+
+/**
+ * Schedules outbound commands of different priority classes to the network.
+ * Commands waiting for their turn are ordered with weighted fair queuing between
+ * the classes so that interactive commands are not stuck behind discovery sweeps
+ * while discovery still progresses. The number of commands being sent at the same
+ * time is limited both per class and in total.
+ * <p>
+ * Sending thread blocks in {@link #sendCommand(Command)} until its command has been
+ * scheduled and sent.
+ */
+public class CommandScheduler implements ZigBeeNetwork {
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommandScheduler.class);
+    /**
+     * The default maximum number of commands being sent at the same time.
+     */
+    public static final int TOTAL_IN_FLIGHT_LIMIT_DEFAULT = 8;
+
+    /**
+     * The network commands are sent to.
+     */
+    private final ZigBeeNetwork network;
+    /**
+     * The waiting commands by priority class ordinal.
+     */
+    private final LinkedList<Ticket>[] queues;
+    /**
+     * The weights by priority class ordinal.
+     */
+    private final int[] weights;
+    /**
+     * The in-flight limits by priority class ordinal.
+     */
+    private final int[] inFlightLimits;
+    /**
+     * The number of commands being sent by priority class ordinal.
+     */
+    private final int[] inFlightCounts;
+    /**
+     * The finish tag of last queued command by priority class ordinal.
+     */
+    private final double[] lastFinishTags;
+    /**
+     * The number of commands sent by priority class ordinal.
+     */
+    private final long[] sentCounts;
+    /**
+     * The total queueing delay in nanoseconds by priority class ordinal.
+     */
+    private final long[] totalQueueingDelays;
+    /**
+     * The maximum queueing delay in nanoseconds by priority class ordinal.
+     */
+    private final long[] maximumQueueingDelays;
+    /**
+     * The maximum number of commands being sent at the same time.
+     */
+    private int totalInFlightLimit = TOTAL_IN_FLIGHT_LIMIT_DEFAULT;
+    /**
+     * The number of commands being sent.
+     */
+    private int totalInFlightCount = 0;
+    /**
+     * The fair queuing virtual time.
+     */
+    private double virtualTime = 0;
+
+    /**
+     * Constructor for setting the network commands are sent to.
+     * @param network the network
+     */
+    @SuppressWarnings("unchecked")
+    public CommandScheduler(final ZigBeeNetwork network) {
+        this.network = network;
+        final CommandPriority[] priorities = CommandPriority.values();
+        queues = new LinkedList[priorities.length];
+        weights = new int[priorities.length];
+        inFlightLimits = new int[priorities.length];
+        inFlightCounts = new int[priorities.length];
+        lastFinishTags = new double[priorities.length];
+        sentCounts = new long[priorities.length];
+        totalQueueingDelays = new long[priorities.length];
+        maximumQueueingDelays = new long[priorities.length];
+        for (final CommandPriority priority : priorities) {
+            queues[priority.ordinal()] = new LinkedList<Ticket>();
+            weights[priority.ordinal()] = priority.getDefaultWeight();
+            inFlightLimits[priority.ordinal()] = priority.getDefaultInFlightLimit();
+        }
+    }
+
+    /**
+     * Sets the fair queuing weight of priority class.
+     * @param priority the priority class
+     * @param weight the weight
+     */
+    public void setWeight(final CommandPriority priority, final int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight has to be positive.");
+        }
+        synchronized (queues) {
+            weights[priority.ordinal()] = weight;
+        }
+    }
+
+    /**
+     * Sets the maximum number of commands of priority class being sent at the same time.
+     * @param priority the priority class
+     * @param inFlightLimit the in-flight limit
+     */
+    public void setInFlightLimit(final CommandPriority priority, final int inFlightLimit) {
+        if (inFlightLimit <= 0) {
+            throw new IllegalArgumentException("In-flight limit has to be positive.");
+        }
+        synchronized (queues) {
+            inFlightLimits[priority.ordinal()] = inFlightLimit;
+            schedule();
+        }
+    }
+
+    /**
+     * Sets the maximum number of commands being sent at the same time.
+     * @param totalInFlightLimit the total in-flight limit
+     */
+    public void setTotalInFlightLimit(final int totalInFlightLimit) {
+        if (totalInFlightLimit <= 0) {
+            throw new IllegalArgumentException("In-flight limit has to be positive.");
+        }
+        synchronized (queues) {
+            this.totalInFlightLimit = totalInFlightLimit;
+            schedule();
+        }
+    }
+
+    /**
+     * Gets the number of commands of priority class waiting to be sent.
+     * @param priority the priority class
+     * @return the number of commands
+     */
+    public int getQueueLength(final CommandPriority priority) {
+        synchronized (queues) {
+            return queues[priority.ordinal()].size();
+        }
+    }
+
+    /**
+     * Gets the number of commands of priority class sent.
+     * @param priority the priority class
+     * @return the number of commands
+     */
+    public long getSentCount(final CommandPriority priority) {
+        synchronized (queues) {
+            return sentCounts[priority.ordinal()];
+        }
+    }
+
+    /**
+     * Gets the average time commands of priority class waited before sending.
+     * @param priority the priority class
+     * @return the average queueing delay in milliseconds
+     */
+    public double getAverageQueueingDelayMillis(final CommandPriority priority) {
+        synchronized (queues) {
+            final long sentCount = sentCounts[priority.ordinal()];
+            return sentCount == 0 ? 0 : totalQueueingDelays[priority.ordinal()] / 1000000.0 / sentCount;
+        }
+    }
+
+    /**
+     * Gets the maximum time a command of priority class waited before sending.
+     * @param priority the priority class
+     * @return the maximum queueing delay in milliseconds
+     */
+    public double getMaximumQueueingDelayMillis(final CommandPriority priority) {
+        synchronized (queues) {
+            return maximumQueueingDelays[priority.ordinal()] / 1000000.0;
+        }
+    }
+
+    @Override
+    public int sendCommand(final Command command) throws ZigBeeException {
+        final CommandPriority priority = CommandPriority.getPriority(command);
+        final int index = priority.ordinal();
+        final Ticket ticket;
+        synchronized (queues) {
+            final double startTag = Math.max(virtualTime, lastFinishTags[index]);
+            ticket = new Ticket(index, startTag, startTag + 1.0 / weights[index]);
+            lastFinishTags[index] = ticket.finishTag;
+            queues[index].add(ticket);
+            schedule();
+            try {
+                while (!ticket.scheduled) {
+                    queues.wait();
+                }
+            } catch (final InterruptedException e) {
+                if (!ticket.scheduled) {
+                    queues[index].remove(ticket);
+                    throw new ZigBeeException("Interrupted while waiting for " + priority + " command to be sent.");
+                }
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            return network.sendCommand(command);
+        } finally {
+            synchronized (queues) {
+                inFlightCounts[index]--;
+                totalInFlightCount--;
+                schedule();
+            }
+        }
+    }
+
+    @Override
+    public void addCommandListener(final CommandListener commandListener) {
+        network.addCommandListener(commandListener);
+    }
+
+    @Override
+    public void removeCommandListener(final CommandListener commandListener) {
+        network.removeCommandListener(commandListener);
+    }
+
+    /**
+     * Schedules waiting commands while in-flight limits allow. Of the classes below their
+     * in-flight limit the command with smallest finish tag is scheduled first.
+     */
+    private void schedule() {
+        boolean scheduled = false;
+        while (totalInFlightCount < totalInFlightLimit) {
+            Ticket next = null;
+            for (int i = 0; i < queues.length; i++) {
+                if (inFlightCounts[i] < inFlightLimits[i] && !queues[i].isEmpty()) {
+                    final Ticket head = queues[i].getFirst();
+                    if (next == null || head.finishTag < next.finishTag) {
+                        next = head;
+                    }
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            queues[next.index].removeFirst();
+            virtualTime = Math.max(virtualTime, next.startTag);
+            inFlightCounts[next.index]++;
+            totalInFlightCount++;
+
+            final long queueingDelay = System.nanoTime() - next.queueTime;
+            sentCounts[next.index]++;
+            totalQueueingDelays[next.index] += queueingDelay;
+            if (queueingDelay > maximumQueueingDelays[next.index]) {
+                maximumQueueingDelays[next.index] = queueingDelay;
+            }
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("Scheduled {} command after {} ms in queue.", CommandPriority.values()[next.index],
+                        queueingDelay / 1000000.0);
+            }
+
+            next.scheduled = true;
+            scheduled = true;
+        }
+        if (scheduled) {
+            queues.notifyAll();
+        }
+    }
+
+    /**
+     * Command waiting in queue.
+     */
+    private static class Ticket {
+        /**
+         * The priority class ordinal.
+         */
+        private final int index;
+        /**
+         * The fair queuing start tag.
+         */
+        private final double startTag;
+        /**
+         * The fair queuing finish tag.
+         */
+        private final double finishTag;
+        /**
+         * The time command was queued in nanoseconds.
+         */
+        private final long queueTime = System.nanoTime();
+        /**
+         * True if command has been scheduled for sending.
+         */
+        private boolean scheduled = false;
+
+        /**
+         * Constructor for setting the ticket fields.
+         * @param index the priority class ordinal
+         * @param startTag the start tag
+         * @param finishTag the finish tag
+         */
+        private Ticket(final int index, final double startTag, final double finishTag) {
+            this.index = index;
+            this.startTag = startTag;
+            this.finishTag = finishTag;
+        }
+    }
+}
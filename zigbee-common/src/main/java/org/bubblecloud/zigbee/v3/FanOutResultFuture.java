@@ -0,0 +1,115 @@
+package org.bubblecloud.zigbee.v3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Future aggregating the results of commands fanned out to several destinations.
+ * The result is success if all commands succeeded and otherwise the first failure result.
+ */
+public class FanOutResultFuture implements Future<CommandResult> {
+    /**
+     * The number of commands fanned out.
+     */
+    private final int commandCount;
+    /**
+     * The result futures of commands sent so far.
+     */
+    private final List<Future<CommandResult>> futures = new ArrayList<Future<CommandResult>>();
+
+    /**
+     * Constructor for setting the number of commands fanned out.
+     * @param commandCount the number of commands
+     */
+    public FanOutResultFuture(final int commandCount) {
+        this.commandCount = commandCount;
+    }
+
+    /**
+     * Adds result future of sent command.
+     * @param future the command result future
+     */
+    public synchronized void add(final Future<CommandResult> future) {
+        futures.add(future);
+        notifyAll();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        if (futures.size() < commandCount) {
+            return false;
+        }
+        for (final Future<CommandResult> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public CommandResult get() throws InterruptedException, ExecutionException {
+        final List<Future<CommandResult>> sentFutures;
+        synchronized (this) {
+            while (futures.size() < commandCount) {
+                wait();
+            }
+            sentFutures = new ArrayList<Future<CommandResult>>(futures);
+        }
+        final List<CommandResult> results = new ArrayList<CommandResult>();
+        for (final Future<CommandResult> future : sentFutures) {
+            results.add(future.get());
+        }
+        return aggregate(results);
+    }
+
+    @Override
+    public CommandResult get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final long wakeUpTime = System.currentTimeMillis() + unit.toMillis(timeout);
+        final List<Future<CommandResult>> sentFutures;
+        synchronized (this) {
+            while (futures.size() < commandCount) {
+                final long sleeping = wakeUpTime - System.currentTimeMillis();
+                if (sleeping <= 0) {
+                    return new CommandResult();
+                }
+                wait(sleeping);
+            }
+            sentFutures = new ArrayList<Future<CommandResult>>(futures);
+        }
+        final List<CommandResult> results = new ArrayList<CommandResult>();
+        for (final Future<CommandResult> future : sentFutures) {
+            results.add(future.get(Math.max(0, wakeUpTime - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+        }
+        return aggregate(results);
+    }
+
+    /**
+     * Aggregates the command results.
+     * @param results the command results
+     * @return success result or the first failure result
+     */
+    private static CommandResult aggregate(final List<CommandResult> results) {
+        for (final CommandResult result : results) {
+            if (!result.isSuccess()) {
+                return result;
+            }
+        }
+        return new CommandResult(new BroadcastResponse());
+    }
+}
@@ -3,8 +3,11 @@ package org.bubblecloud.zigbee.v3;
 import org.bubblecloud.zigbee.util.ZigBeeConstants;
 import org.bubblecloud.zigbee.v3.model.ZToolAddress16;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclUtil;
 import org.bubblecloud.zigbee.v3.zcl.field.AttributeIdentifier;
+import org.bubblecloud.zigbee.v3.zcl.field.AttributeReport;
 import org.bubblecloud.zigbee.v3.zcl.field.AttributeReportingConfigurationRecord;
+import org.bubblecloud.zigbee.v3.zcl.field.ReadAttributeStatusRecord;
 import org.bubblecloud.zigbee.v3.zcl.field.Unsigned16BitInteger;
 import org.bubblecloud.zigbee.v3.zcl.field.WriteAttributeRecord;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclAttributeType;
@@ -13,10 +16,15 @@ import org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.LockDoorCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.UnlockDoorCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ConfigureReportingCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesResponseCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReportAttributesCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.AddGroupCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.AddGroupResponseCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.GetGroupMembershipCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.GetGroupMembershipResponseCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.RemoveGroupCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.RemoveGroupResponseCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.ViewGroupCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.wd.SquawkCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.wd.StartWarningCommand;
@@ -39,6 +47,41 @@ public class ZigBeeApi {
      * The {@link Logger}.
      */
     private final static Logger LOGGER = LoggerFactory.getLogger(ZigBeeApi.class);
+    /**
+     * The maximum number of threads sending fanned out commands in parallel.
+     */
+    private static final int FAN_OUT_THREAD_COUNT = 4;
+    /**
+     * The time idle fan-out threads are kept alive in seconds.
+     */
+    private static final int FAN_OUT_THREAD_KEEP_ALIVE_SECONDS = 60;
+    /**
+     * The maximum ZCL payload length of attribute read and write frames and their responses.
+     * Leaves room for ZCL, APS and network headers and security in unfragmented frames.
+     */
+    public static final int ATTRIBUTE_PAYLOAD_LENGTH_MAXIMUM = 64;
+    /**
+     * The estimated length of variable length attribute values in attribute payloads.
+     */
+    private static final int VARIABLE_LENGTH_ESTIMATE = 17;
+    /**
+     * The maximum lengths of string attributes defined by ZCL specification.
+     */
+    private static final Map<ZclAttributeType, Integer> STRING_LENGTH_MAXIMUMS =
+            new EnumMap<ZclAttributeType, Integer>(ZclAttributeType.class);
+
+    static {
+        STRING_LENGTH_MAXIMUMS.put(ZclAttributeType.BASIC_MANUFACTURER_NAME, 32);
+        STRING_LENGTH_MAXIMUMS.put(ZclAttributeType.BASIC_MODEL_IDENTIFIER, 32);
+        STRING_LENGTH_MAXIMUMS.put(ZclAttributeType.BASIC_DATE_CODE, 16);
+        STRING_LENGTH_MAXIMUMS.put(ZclAttributeType.BASIC_LOCATION_DESCRIPTION, 16);
+    }
+
+    /**
+     * The minimum interval of refreshing devices for resolving received commands without
+     * network state in milliseconds.
+     */
+    private static final long DEVICE_REFRESH_INTERVAL_MILLIS = 60000;
     /**
      * The network.
      */
@@ -48,15 +91,65 @@ public class ZigBeeApi {
      */
     private ZigBeeNetworkState networkState;
     /**
-     * The command listener creation times.
+     * The command executions in start time order.
      */
     private Set<CommandExecution> commandExecutions =
-            new HashSet<CommandExecution>();
+            new LinkedHashSet<CommandExecution>();
+    /**
+     * The response dispatcher for command executions.
+     */
+    private final CommandResponseDispatcher responseDispatcher = new CommandResponseDispatcher(this);
+    /**
+     * The listener updating group memberships of network state from group command responses.
+     */
+    private final CommandListener groupMembershipListener = new CommandListener() {
+        @Override
+        public void commandReceived(final Command command) {
+            updateGroupMemberships(command);
+        }
+    };
+    /**
+     * The executor sending fanned out commands and refreshing resolved devices. Shared by all
+     * fan-outs to bound the number of threads. Idle threads exit after keep alive time.
+     */
+    private final ThreadPoolExecutor fanOutExecutor = new ThreadPoolExecutor(FAN_OUT_THREAD_COUNT,
+            FAN_OUT_THREAD_COUNT, FAN_OUT_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "ZigBee fan-out");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * The attribute value cache.
+     */
+    private final ZigBeeAttributeCache attributeCache = new ZigBeeAttributeCache();
+    /**
+     * The devices by network address and endpoint key for resolving IEEE addresses when
+     * network state is not available, as in gateway client.
+     */
+    private final Map<Integer, ZigBeeDevice> resolvedDevices = new HashMap<Integer, ZigBeeDevice>();
+    /**
+     * The time resolved devices were last refreshed.
+     */
+    private long resolvedDevicesRefreshTime = 0;
+    /**
+     * The listener updating attribute value cache from attribute reports and read responses.
+     */
+    private final CommandListener attributeCacheListener = new CommandListener() {
+        @Override
+        public void commandReceived(final Command command) {
+            updateAttributeCache(command);
+        }
+    };
 
     /**
      * Default constructor inheritance.
      */
     public ZigBeeApi() {
+        fanOutExecutor.allowCoreThreadTimeOut(true);
     }
 
     /**
@@ -64,7 +157,8 @@ public class ZigBeeApi {
      * @param network the ZCL API
      */
     public ZigBeeApi(final ZigBeeNetwork network) {
-        this.network = network;
+        this();
+        setNetwork(network);
     }
 
     /**
@@ -72,7 +166,15 @@ public class ZigBeeApi {
      * @param network the network
      */
     public void setNetwork(final ZigBeeNetwork network) {
+        if (this.network != null) {
+            this.network.removeCommandListener(responseDispatcher);
+            this.network.removeCommandListener(groupMembershipListener);
+            this.network.removeCommandListener(attributeCacheListener);
+        }
         this.network = network;
+        network.addCommandListener(responseDispatcher);
+        network.addCommandListener(groupMembershipListener);
+        network.addCommandListener(attributeCacheListener);
     }
 
     /**
@@ -83,6 +185,14 @@ public class ZigBeeApi {
         return network;
     }
 
+    /**
+     * Gets the attribute value cache.
+     * @return the attribute value cache
+     */
+    public ZigBeeAttributeCache getAttributeCache() {
+        return attributeCache;
+    }
+
     /**
      * Sets network state.
      * @param networkState the network state
@@ -106,7 +216,7 @@ public class ZigBeeApi {
      * @param label the label
      */
     public void setDeviceLabel(final int networkAddress, final int endPointId, final String label) {
-        final ZigBeeDevice device = networkState.getDevice(new ZigBeeDeviceAddress(networkAddress, endPointId));
+        final ZigBeeDevice device = networkState.getDevice(networkAddress, endPointId);
         device.setLabel(label);
         networkState.updateDevice(device);
     }
@@ -116,15 +226,7 @@ public class ZigBeeApi {
      * @param networkAddress the network address
      */
     public void removeDevice(final int networkAddress) {
-        final List<ZigBeeDevice> devices = networkState.getDevices();
-        final List<ZigBeeDevice> devicesToRemove = new ArrayList<ZigBeeDevice>();
-        for (final ZigBeeDevice device : devices) {
-            if (device.getNetworkAddress() == networkAddress) {
-                devicesToRemove.add(device);
-            }
-        }
-
-        for (final ZigBeeDevice device : devicesToRemove) {
+        for (final ZigBeeDevice device : networkState.getDevicesByNetworkAddress(networkAddress)) {
             networkState.removeDevice(device.getNetworkAddress(), device.getEndpoint());
         }
     }
@@ -138,6 +240,15 @@ public class ZigBeeApi {
         return getNetworkState().getDevices();
     }
 
+    /**
+     * Gets device and group changes since version for incremental synchronization.
+     * @param version the version known by caller or -1 if none
+     * @return the changes
+     */
+    public ZigBeeNetworkStateChanges getChangesSince(final long version) {
+        return getNetworkState().getChangesSince(version);
+    }
+
     /**
      * Sets group label.
      * @param groupId the group ID
@@ -422,6 +533,7 @@ public class ZigBeeApi {
         command.setRecords(Collections.singletonList(record));
 
         command.setDestinationAddress(device.getDeviceAddress());
+        attributeCache.invalidate(device.getIeeeAddress(), device.getEndpoint(), clusterId, attributeId);
 //        command.setDestinationAddress(device.getNetworkAddress());
   //      command.setDestinationEndpoint(device.getEndpoint());
 
@@ -430,13 +542,129 @@ public class ZigBeeApi {
     }
 
     /**
-     * Reads attribute from device.
+     * Writes attributes to device. Attributes are packed to as few write attributes
+     * commands as fit {@link #ATTRIBUTE_PAYLOAD_LENGTH_MAXIMUM}. Attributes not known in the
+     * cluster can not be encoded and fail without being sent.
+     * @param device the device
+     * @param clusterId the cluster ID
+     * @param values the values by attribute ID
+     * @return the attribute results future
+     */
+    public Future<Map<Integer, AttributeResult>> write(final ZigBeeDevice device, final int clusterId,
+                                                        final Map<Integer, Object> values) {
+        final AttributeResultFuture future = new AttributeResultFuture();
+        List<Integer> attributeIds = new ArrayList<Integer>();
+        List<WriteAttributeRecord> records = new ArrayList<WriteAttributeRecord>();
+        int payloadLength = 0;
+        for (final Map.Entry<Integer, Object> entry : values.entrySet()) {
+            final ZclAttributeType attributeType = ZclAttributeType.get(clusterId, entry.getKey());
+            if (attributeType == null) {
+                final CommandResultFuture unknownAttributeFuture = new CommandResultFuture(this);
+                unknownAttributeFuture.set(new CommandResult("Unknown attribute " + entry.getKey()
+                        + " of cluster " + clusterId + "."));
+                future.add(Collections.singletonList(entry.getKey()), unknownAttributeFuture);
+                continue;
+            }
+            final WriteAttributeRecord record = new WriteAttributeRecord();
+            record.setAttributeIdentifier(entry.getKey());
+            record.setAttributeDataType(attributeType.getZigBeeType().getId());
+            record.setAttributeValue(entry.getValue());
+
+            final int recordLength = 3 + getValueLength(attributeType, entry.getValue());
+            if (!records.isEmpty() && payloadLength + recordLength > ATTRIBUTE_PAYLOAD_LENGTH_MAXIMUM) {
+                future.add(attributeIds, sendWriteAttributes(device, clusterId, records));
+                attributeIds = new ArrayList<Integer>();
+                records = new ArrayList<WriteAttributeRecord>();
+                payloadLength = 0;
+            }
+            attributeIds.add(entry.getKey());
+            records.add(record);
+            payloadLength += recordLength;
+        }
+        if (!records.isEmpty()) {
+            future.add(attributeIds, sendWriteAttributes(device, clusterId, records));
+        }
+        return future;
+    }
+
+    /**
+     * Sends write attributes command.
+     * @param device the device
+     * @param clusterId the cluster ID
+     * @param records the write attribute records
+     * @return the command result future
+     */
+    private Future<CommandResult> sendWriteAttributes(final ZigBeeDevice device, final int clusterId,
+                                                      final List<WriteAttributeRecord> records) {
+        final WriteAttributesCommand command = new WriteAttributesCommand();
+        command.setClusterId(clusterId);
+        command.setRecords(records);
+        command.setDestinationAddress(device.getDeviceAddress());
+        for (final WriteAttributeRecord record : records) {
+            attributeCache.invalidate(device.getIeeeAddress(), device.getEndpoint(), clusterId,
+                    record.getAttributeIdentifier());
+        }
+        return unicast(command, new ZclCustomResponseMatcher());
+    }
+
+    /**
+     * Reads attribute from device. Same as {@link #readFresh(ZigBeeDevice, int, int)}.
      * @param device the device
      * @param clusterId the cluster ID
      * @param attributeId the attribute ID
      * @return the command result future
      */
     public Future<CommandResult> read(final ZigBeeDevice device, final int clusterId, final int attributeId) {
+        return readFresh(device, clusterId, attributeId);
+    }
+
+    /**
+     * Reads attribute from attribute value cache or from device if value is not cached.
+     * Cached value is returned as {@link ReadAttributesResponseCommand} from the device.
+     * @param device the device
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @return the command result future
+     */
+    public Future<CommandResult> readCached(final ZigBeeDevice device, final int clusterId, final int attributeId) {
+        if (networkState == null) {
+            synchronized (resolvedDevices) {
+                resolvedDevices.put(getDeviceKey(device.getDeviceAddress()), device);
+            }
+        }
+        final Object value = attributeCache.get(device.getIeeeAddress(), device.getEndpoint(), clusterId, attributeId);
+        if (value == null) {
+            return readFresh(device, clusterId, attributeId);
+        }
+
+        final ReadAttributeStatusRecord record = new ReadAttributeStatusRecord();
+        record.setAttributeIdentifier(attributeId);
+        record.setStatus(0);
+        final ZclAttributeType attributeType = ZclAttributeType.get(clusterId, attributeId);
+        if (attributeType != null) {
+            record.setAttributeDataType(attributeType.getZigBeeType().getId());
+        }
+        record.setAttributeValue(value);
+
+        final ReadAttributesResponseCommand response = new ReadAttributesResponseCommand();
+        response.setClusterId(clusterId);
+        response.setSourceAddress(device.getDeviceAddress());
+        response.setRecords(Collections.singletonList(record));
+
+        final CommandResultFuture future = new CommandResultFuture(this);
+        future.set(new CommandResult(response));
+        return future;
+    }
+
+    /**
+     * Reads attribute from device bypassing attribute value cache. The cache is updated
+     * from the response.
+     * @param device the device
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @return the command result future
+     */
+    public Future<CommandResult> readFresh(final ZigBeeDevice device, final int clusterId, final int attributeId) {
         final ReadAttributesCommand command = new ReadAttributesCommand();
 
         command.setClusterId(clusterId);
@@ -449,6 +677,79 @@ public class ZigBeeApi {
         return unicast(command, new ZclCustomResponseMatcher());
     }
 
+    /**
+     * Reads attributes from device. Attributes are packed to as few read attributes
+     * commands as expected responses fit {@link #ATTRIBUTE_PAYLOAD_LENGTH_MAXIMUM}.
+     * Attributes left out of responses, as values were longer than expected, are read again.
+     * @param device the device
+     * @param clusterId the cluster ID
+     * @param attributeIds the attribute IDs
+     * @return the attribute results future
+     */
+    public Future<Map<Integer, AttributeResult>> read(final ZigBeeDevice device, final int clusterId,
+                                                       final List<Integer> attributeIds) {
+        final AttributeResultFuture future = new AttributeResultFuture(this, device, clusterId);
+        List<Integer> frameAttributeIds = new ArrayList<Integer>();
+        int payloadLength = 0;
+        for (final Integer attributeId : attributeIds) {
+            // Response record contains attribute ID, status, data type and value.
+            final int recordLength = 4 + getValueLength(ZclAttributeType.get(clusterId, attributeId), null);
+            if (!frameAttributeIds.isEmpty() && payloadLength + recordLength > ATTRIBUTE_PAYLOAD_LENGTH_MAXIMUM) {
+                future.add(frameAttributeIds, sendReadAttributes(device, clusterId, frameAttributeIds));
+                frameAttributeIds = new ArrayList<Integer>();
+                payloadLength = 0;
+            }
+            frameAttributeIds.add(attributeId);
+            payloadLength += recordLength;
+        }
+        if (!frameAttributeIds.isEmpty()) {
+            future.add(frameAttributeIds, sendReadAttributes(device, clusterId, frameAttributeIds));
+        }
+        return future;
+    }
+
+    /**
+     * Sends read attributes command.
+     * @param device the device
+     * @param clusterId the cluster ID
+     * @param attributeIds the attribute IDs
+     * @return the command result future
+     */
+    Future<CommandResult> sendReadAttributes(final ZigBeeDevice device, final int clusterId,
+                                             final Collection<Integer> attributeIds) {
+        final ReadAttributesCommand command = new ReadAttributesCommand();
+        command.setClusterId(clusterId);
+        final List<AttributeIdentifier> identifiers = new ArrayList<AttributeIdentifier>();
+        for (final Integer attributeId : attributeIds) {
+            final AttributeIdentifier attributeIdentifier = new AttributeIdentifier();
+            attributeIdentifier.setAttributeIdentifier(attributeId);
+            identifiers.add(attributeIdentifier);
+        }
+        command.setIdentifiers(identifiers);
+        command.setDestinationAddress(device.getDeviceAddress());
+        return unicast(command, new ZclCustomResponseMatcher());
+    }
+
+    /**
+     * Gets encoded length of attribute value. Strings of unknown value are sized at their
+     * maximum length if known.
+     * @param attributeType the attribute type or null if not known
+     * @param value the value or null if not known
+     * @return the length in bytes
+     */
+    private static int getValueLength(final ZclAttributeType attributeType, final Object value) {
+        if (value instanceof String) {
+            return 1 + ((String) value).length();
+        }
+        if (attributeType != null && STRING_LENGTH_MAXIMUMS.containsKey(attributeType)) {
+            return 1 + STRING_LENGTH_MAXIMUMS.get(attributeType);
+        }
+        if (attributeType == null || attributeType.getZigBeeType().getLength() < 0) {
+            return VARIABLE_LENGTH_ESTIMATE;
+        }
+        return attributeType.getZigBeeType().getLength();
+    }
+
     /**
      * Configures attribute reporting.
      * @param device the device
@@ -567,6 +868,235 @@ public class ZigBeeApi {
         return unicast(command, new ZclCustomResponseMatcher());
     }
 
+    /**
+     * Sends command to devices. Known groups whose members are all among the devices are
+     * used to reach several devices with one multicast and the rest of the devices are
+     * sent unicasts. Group memberships are learned from group command responses, so
+     * {@link #getGroupMemberships(ZigBeeDevice)} can be used to refresh them.
+     * <p>
+     * The multicasts and unicasts are sent in parallel. The returned future completes when
+     * all of them have completed with success result or with the first failure result.
+     * @param devices the devices
+     * @param command the command used as template for the commands sent
+     * @return the command result future
+     */
+    public Future<CommandResult> send(final List<ZigBeeDevice> devices, final ZclCommand command) {
+        final Map<Integer, ZigBeeDeviceAddress> uncovered = new LinkedHashMap<Integer, ZigBeeDeviceAddress>();
+        for (final ZigBeeDevice device : devices) {
+            uncovered.put(getDeviceKey(device.getDeviceAddress()), device.getDeviceAddress());
+        }
+
+        final LinkedList<ZigBeeAddress> destinations = new LinkedList<ZigBeeAddress>();
+        final Map<Integer, List<ZigBeeDeviceAddress>> candidateGroups = new HashMap<Integer, List<ZigBeeDeviceAddress>>();
+        for (final ZigBeeGroupAddress group : networkState.getGroups()) {
+            final List<ZigBeeDeviceAddress> members = networkState.getGroupMembers(group.getGroupId());
+            if (members.size() > 1) {
+                candidateGroups.put(group.getGroupId(), members);
+            }
+        }
+        while (true) {
+            // Greedily pick the largest group which only contains devices not yet covered,
+            // so that no device outside the set or already covered receives the command.
+            Integer bestGroupId = null;
+            int bestSize = 1;
+            for (final Map.Entry<Integer, List<ZigBeeDeviceAddress>> entry : candidateGroups.entrySet()) {
+                if (entry.getValue().size() > bestSize && isCoveredBy(uncovered, entry.getValue())) {
+                    bestGroupId = entry.getKey();
+                    bestSize = entry.getValue().size();
+                }
+            }
+            if (bestGroupId == null) {
+                break;
+            }
+            for (final ZigBeeDeviceAddress member : candidateGroups.remove(bestGroupId)) {
+                uncovered.remove(getDeviceKey(member));
+            }
+            destinations.add(new ZigBeeGroupAddress(bestGroupId));
+        }
+        destinations.addAll(uncovered.values());
+        LOGGER.debug("Fanning out {} to {} devices with {} multicasts and {} unicasts.",
+                command.getClass().getSimpleName(), devices.size(),
+                destinations.size() - uncovered.size(), uncovered.size());
+
+        final FanOutResultFuture future = new FanOutResultFuture(destinations.size());
+        for (final ZigBeeAddress destination : destinations) {
+            final ZclCommand destinationCommand = ZclUtil.toCommand(command.toCommandMessage());
+            destinationCommand.setTransactionId(null);
+            fanOutExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    future.add(send(destination, destinationCommand));
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * Checks whether all group members are among the uncovered devices.
+     * @param uncovered the uncovered device addresses by device key
+     * @param members the group members
+     * @return TRUE if all members are uncovered
+     */
+    private static boolean isCoveredBy(final Map<Integer, ZigBeeDeviceAddress> uncovered,
+                                       final List<ZigBeeDeviceAddress> members) {
+        for (final ZigBeeDeviceAddress member : members) {
+            if (!uncovered.containsKey(getDeviceKey(member))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets device key with network address and endpoint packed to int.
+     * @param deviceAddress the device address
+     * @return the device key
+     */
+    private static int getDeviceKey(final ZigBeeDeviceAddress deviceAddress) {
+        return ZigBeeDeviceIndex.getKey(deviceAddress.getAddress(), deviceAddress.getEndpoint());
+    }
+
+    /**
+     * Updates group memberships of network state from group command response.
+     * @param command the received command
+     */
+    private void updateGroupMemberships(final Command command) {
+        if (networkState == null || !(command instanceof ZclCommand)
+                || !(((ZclCommand) command).getSourceAddress() instanceof ZigBeeDeviceAddress)) {
+            return;
+        }
+        final ZigBeeDeviceAddress source = (ZigBeeDeviceAddress) ((ZclCommand) command).getSourceAddress();
+        if (command instanceof AddGroupResponseCommand) {
+            final AddGroupResponseCommand response = (AddGroupResponseCommand) command;
+            if (response.getStatus() != null && response.getStatus() == 0) {
+                networkState.addGroupMember(response.getGroupId(), source);
+            }
+        } else if (command instanceof RemoveGroupResponseCommand) {
+            final RemoveGroupResponseCommand response = (RemoveGroupResponseCommand) command;
+            if (response.getStatus() != null && response.getStatus() == 0) {
+                networkState.removeGroupMember(response.getGroupId(), source);
+            }
+        } else if (command instanceof GetGroupMembershipResponseCommand) {
+            final GetGroupMembershipResponseCommand response = (GetGroupMembershipResponseCommand) command;
+            final List<Integer> groupIds = new ArrayList<Integer>();
+            if (response.getGroupList() != null) {
+                for (final Unsigned16BitInteger groupId : response.getGroupList()) {
+                    groupIds.add(groupId.getValue());
+                }
+            }
+            networkState.setGroupMemberships(source, groupIds);
+        }
+    }
+
+    /**
+     * Updates attribute value cache from attribute report or read attributes response.
+     * Values are cached only for devices which can be resolved.
+     * @param command the received command
+     */
+    private void updateAttributeCache(final Command command) {
+        if (!(command instanceof ReportAttributesCommand || command instanceof ReadAttributesResponseCommand)) {
+            return;
+        }
+        final ZclCommand zclCommand = (ZclCommand) command;
+        if (zclCommand.getClusterId() == null || !(zclCommand.getSourceAddress() instanceof ZigBeeDeviceAddress)) {
+            return;
+        }
+        final ZigBeeDevice device = resolveDevice((ZigBeeDeviceAddress) zclCommand.getSourceAddress(), true);
+        if (device == null) {
+            return;
+        }
+        final int clusterId = zclCommand.getClusterId();
+        if (command instanceof ReportAttributesCommand) {
+            final List<AttributeReport> reports = ((ReportAttributesCommand) command).getReports();
+            if (reports != null) {
+                for (final AttributeReport report : reports) {
+                    attributeCache.put(device.getIeeeAddress(), device.getEndpoint(), clusterId,
+                            report.getAttributeIdentifier(), report.getAttributeValue());
+                }
+            }
+        } else {
+            final List<ReadAttributeStatusRecord> records = ((ReadAttributesResponseCommand) command).getRecords();
+            if (records != null) {
+                for (final ReadAttributeStatusRecord record : records) {
+                    if (record.getStatus() == 0) {
+                        attributeCache.put(device.getIeeeAddress(), device.getEndpoint(), clusterId,
+                                record.getAttributeIdentifier(), record.getAttributeValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes cached attribute values of the command cluster of destination as cluster
+     * command such as on or move to hue may change them.
+     * @param destination the destination
+     * @param command the command
+     */
+    private void invalidateAttributeCache(final ZigBeeAddress destination, final ZclCommand command) {
+        if (command.getType() == null || command.getType().isGeneric()) {
+            return;
+        }
+        final int clusterId = command.getType().getClusterType().getId();
+        final ZigBeeDevice device = destination.isGroup() ? null
+                : resolveDevice((ZigBeeDeviceAddress) destination, false);
+        if (device == null) {
+            attributeCache.invalidateCluster(clusterId);
+        } else {
+            attributeCache.invalidateCluster(device.getIeeeAddress(), device.getEndpoint(), clusterId);
+        }
+    }
+
+    /**
+     * Resolves device by address from network state or, if network state is not available,
+     * from devices fetched with {@link #getDevices()}. Devices are refreshed in background at
+     * most once per refresh interval as getting devices may be a remote call and commands
+     * are received in the command listener thread.
+     * @param deviceAddress the device address
+     * @param refresh true if devices are to be refreshed in background when device is not found
+     * @return the device or null if device is not known
+     */
+    private ZigBeeDevice resolveDevice(final ZigBeeDeviceAddress deviceAddress, final boolean refresh) {
+        if (networkState != null) {
+            return networkState.getDevice(deviceAddress);
+        }
+        synchronized (resolvedDevices) {
+            final ZigBeeDevice device = resolvedDevices.get(getDeviceKey(deviceAddress));
+            final long now = System.currentTimeMillis();
+            if (device != null || !refresh || now - resolvedDevicesRefreshTime < DEVICE_REFRESH_INTERVAL_MILLIS) {
+                return device;
+            }
+            resolvedDevicesRefreshTime = now;
+        }
+        fanOutExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                refreshResolvedDevices();
+            }
+        });
+        return null;
+    }
+
+    /**
+     * Refreshes devices for resolving received commands when network state is not available.
+     */
+    private void refreshResolvedDevices() {
+        final List<ZigBeeDevice> devices;
+        try {
+            devices = getDevices();
+        } catch (final RuntimeException e) {
+            LOGGER.debug("Error getting devices for resolving received commands.", e);
+            return;
+        }
+        synchronized (resolvedDevices) {
+            resolvedDevices.clear();
+            for (final ZigBeeDevice device : devices) {
+                resolvedDevices.put(getDeviceKey(device.getDeviceAddress()), device);
+            }
+        }
+    }
+
     /**
      * Sends command to {@link ZigBeeAddress}.
      * @param destination the destination
@@ -575,6 +1105,7 @@ public class ZigBeeApi {
      */
     private Future<CommandResult> send(ZigBeeAddress destination, ZclCommand command) {
         command.setDestinationAddress(destination);
+        invalidateAttributeCache(destination, command);
         if (destination.isGroup()) {
             return broadcast(command);
         } else {
@@ -606,6 +1137,88 @@ public class ZigBeeApi {
      * @return the command result future.
      */
     private Future<CommandResult> unicast(final Command command, final CommandResponseMatcher responseMatcher) {
+        if (!responseDispatcher.isDispatchable(command)) {
+            return unicastWithListener(command, responseMatcher);
+        }
+
+        final CommandResultFuture future = new CommandResultFuture(this);
+        final CommandExecution commandExecution = new CommandExecution(
+                System.currentTimeMillis(), command, future);
+        future.setCommandExecution(commandExecution);
+        commandExecution.setResponseMatcher(responseMatcher);
+        responseDispatcher.add(commandExecution);
+        addCommandExecution(commandExecution);
+        if (network instanceof ZigBeeAsyncNetwork) {
+            final CallbackFuture<Integer> sendFuture = ((ZigBeeAsyncNetwork) network).sendCommandAsync(command);
+            sendFuture.addCallback(new Runnable() {
+                @Override
+                public void run() {
+                    final Throwable failure = sendFuture.getFailure();
+                    if (failure != null) {
+                        commandSendFailed(commandExecution, failure);
+                    } else {
+                        commandSent(commandExecution, getTransactionId(sendFuture));
+                    }
+                }
+            });
+            return future;
+        }
+        try {
+            commandSent(commandExecution, network.sendCommand(command));
+        } catch (final ZigBeeException e) {
+            commandSendFailed(commandExecution, e);
+        }
+        return future;
+    }
+
+    /**
+     * Sets transaction ID of sent command and resolves its execution with response dispatcher.
+     * @param commandExecution the command execution
+     * @param transactionId the transaction ID
+     */
+    private void commandSent(final CommandExecution commandExecution, final int transactionId) {
+        final Command command = commandExecution.getCommand();
+        if (command instanceof ZclCommand) {
+            ((ZclCommand) command).setTransactionId((byte) transactionId);
+        }
+        final Command earlyResponse = responseDispatcher.resolve(commandExecution);
+        if (earlyResponse != null) {
+            completeCommandExecution(commandExecution, new CommandResult(earlyResponse));
+        }
+    }
+
+    /**
+     * Completes execution of command which could not be sent.
+     * @param commandExecution the command execution
+     * @param failure the send failure
+     */
+    private void commandSendFailed(final CommandExecution commandExecution, final Throwable failure) {
+        responseDispatcher.abandon(commandExecution);
+        completeCommandExecution(commandExecution, new CommandResult(failure.toString()));
+    }
+
+    /**
+     * Gets transaction ID from completed send future.
+     * @param sendFuture the send future
+     * @return the transaction ID
+     */
+    private static int getTransactionId(final CallbackFuture<Integer> sendFuture) {
+        try {
+            return sendFuture.get();
+        } catch (final Exception e) {
+            throw new IllegalStateException("Send future not completed.", e);
+        }
+    }
+
+    /**
+     * Sends command and matches the response with dedicated command listener.
+     * Used for commands which response dispatcher can not index.
+     * @param command the command
+     * @param responseMatcher the response matcher.
+     * @return the command result future.
+     */
+    private Future<CommandResult> unicastWithListener(final Command command,
+                                                      final CommandResponseMatcher responseMatcher) {
         synchronized (command) {
             final CommandResultFuture future = new CommandResultFuture(this);
             final CommandExecution commandExecution = new CommandExecution(
@@ -665,35 +1278,61 @@ public class ZigBeeApi {
     }
 
     /**
-     * Adds command listener and removes expired command listeners.
+     * Adds command execution and removes expired command executions.
      *
      * @param commandExecution the command execution
      */
     private void addCommandExecution(final CommandExecution commandExecution) {
+        final List<CommandExecution> expiredCommandExecutions =
+                new ArrayList<CommandExecution>();
         synchronized (commandExecutions) {
-            final List<CommandExecution> expiredCommandExecutions =
-                    new ArrayList<CommandExecution>();
             for (final CommandExecution existingCommandExecution : commandExecutions) {
                 if (System.currentTimeMillis() - existingCommandExecution.getStartTime() > 8000) {
                     expiredCommandExecutions.add(existingCommandExecution);
+                } else {
+                    // Executions are in start time order so the rest have not expired.
+                    break;
                 }
             }
-            for (final CommandExecution expiredCommandExecution : expiredCommandExecutions) {
-                ((CommandResultFuture) expiredCommandExecution.getFuture()).set(new CommandResult());
-                removeCommandExecution(expiredCommandExecution);
-            }
             commandExecutions.add(commandExecution);
+        }
+        for (final CommandExecution expiredCommandExecution : expiredCommandExecutions) {
+            completeCommandExecution(expiredCommandExecution, new CommandResult());
+        }
+        if (commandExecution.getCommandListener() != null) {
             network.addCommandListener(commandExecution.getCommandListener());
         }
     }
 
+    /**
+     * Completes command execution with result unless already completed.
+     * @param commandExecution the command execution
+     * @param result the command result
+     */
+    protected void completeCommandExecution(final CommandExecution commandExecution, final CommandResult result) {
+        final CommandResultFuture future = (CommandResultFuture) commandExecution.getFuture();
+        synchronized (future) {
+            if (future.isDone()) {
+                return;
+            }
+            future.set(result);
+        }
+        removeCommandExecution(commandExecution);
+    }
+
     /**
      * Removes command execution.
      * @param expiredCommandExecution the command execution
      */
     protected void removeCommandExecution(CommandExecution expiredCommandExecution) {
-        commandExecutions.remove(expiredCommandExecution);
-        network.removeCommandListener(expiredCommandExecution.getCommandListener());
+        synchronized (commandExecutions) {
+            commandExecutions.remove(expiredCommandExecution);
+        }
+        if (expiredCommandExecution.getCommandListener() != null) {
+            network.removeCommandListener(expiredCommandExecution.getCommandListener());
+        } else {
+            responseDispatcher.remove(expiredCommandExecution);
+        }
         synchronized (expiredCommandExecution.getFuture()) {
             expiredCommandExecution.getFuture().notify();
         }
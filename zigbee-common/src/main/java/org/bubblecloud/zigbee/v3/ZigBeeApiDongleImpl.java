@@ -9,6 +9,10 @@ public class ZigBeeApiDongleImpl extends ZigBeeApi {
      * The dongle implementation.
      */
     private final ZigBeeDongle dongle;
+    /**
+     * The command scheduler in front of the dongle.
+     */
+    private final CommandScheduler commandScheduler;
     /**
      * The ZigBee network state.
      */
@@ -26,12 +30,35 @@ public class ZigBeeApiDongleImpl extends ZigBeeApi {
     public ZigBeeApiDongleImpl(final ZigBeeDongle dongle, final boolean resetNetwork) {
         this.dongle = dongle;
         this.networkState = new ZigBeeNetworkStateImpl(resetNetwork);
-        this.networkDiscoverer = new ZigBeeNetworkDiscoverer(networkState, dongle);
+        this.commandScheduler = new CommandScheduler(dongle);
+        this.networkDiscoverer = new ZigBeeNetworkDiscoverer(networkState, commandScheduler);
 
-        setNetwork(dongle);
+        setNetwork(commandScheduler);
         setNetworkState(networkState);
     }
 
+    /**
+     * Gets the command scheduler in front of the dongle.
+     * @return the command scheduler
+     */
+    public CommandScheduler getCommandScheduler() {
+        return commandScheduler;
+    }
+
+    /**
+     * Enables coalescing of level and color commands sent through the API. Commands of the same
+     * type to the same destination are sent at most once per minimum interval and only the
+     * newest of the waiting commands is sent.
+     * @param minimumInterval the minimum interval between coalesced commands to the same destination
+     *                        in milliseconds
+     * @return the command coalescer
+     */
+    public CommandCoalescer enableCommandCoalescing(final long minimumInterval) {
+        final CommandCoalescer commandCoalescer = new CommandCoalescer(commandScheduler, minimumInterval);
+        setNetwork(commandCoalescer);
+        return commandCoalescer;
+    }
+
     /**
      * Starts up ZigBee API components.
      * @return TRUE if startup was successful.
@@ -0,0 +1,18 @@
+package org.bubblecloud.zigbee.v3;
+
+/**
+ * ZigBee network which can send commands without blocking the caller until the
+ * transaction ID is known. Used by {@link ZigBeeApi} to keep several unicasts in flight
+ * when sending is slow, as with remote networks.
+ */
+public interface ZigBeeAsyncNetwork extends ZigBeeNetwork {
+    /**
+     * Sends command without waiting for it to be sent. The future completes with the
+     * transaction ID or fails with {@link ZigBeeException}. Commands to the same destination
+     * are transmitted in the order they were sent. Future callbacks must not be run by
+     * threads which the network needs for completing other sends.
+     * @param command the command
+     * @return the transaction ID future
+     */
+    CallbackFuture<Integer> sendCommandAsync(final Command command);
+}
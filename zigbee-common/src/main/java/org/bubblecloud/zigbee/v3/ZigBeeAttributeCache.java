@@ -0,0 +1,350 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclAttributeType;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of attribute values received from devices. Values are keyed by IEEE address,
+ * endpoint, cluster ID and attribute ID, so they survive network address changes.
+ * Values expire after time to live derived from attribute metadata and the least
+ * recently used values are evicted when capacity is reached. Only attributes known to be
+ * constant, such as device identity and measurement ranges, are kept for long.
+ */
+public class ZigBeeAttributeCache {
+    /**
+     * The default maximum number of cached values.
+     */
+    public static final int CAPACITY_DEFAULT = 1024;
+    /**
+     * The time to live of constant attributes, such as model identifier, in milliseconds.
+     */
+    public static final long STATIC_TIME_TO_LIVE = 24 * 60 * 60 * 1000L;
+    /**
+     * The time to live of reportable discrete attributes, such as on/off state, in milliseconds.
+     */
+    public static final long DISCRETE_REPORTABLE_TIME_TO_LIVE = 10 * 60 * 1000L;
+    /**
+     * The time to live of other known attributes in milliseconds.
+     */
+    public static final long DYNAMIC_TIME_TO_LIVE = 60 * 1000L;
+    /**
+     * The time to live of unknown attributes in milliseconds.
+     */
+    public static final long UNKNOWN_TIME_TO_LIVE = 30 * 1000L;
+
+    /**
+     * The attributes which do not change, such as device identity and measurement ranges.
+     * Attribute metadata can not be used for this, as many changing attributes such as
+     * current hue or battery voltage are neither writable nor reportable.
+     */
+    private static final Set<ZclAttributeType> STATIC_ATTRIBUTES = EnumSet.of(
+            ZclAttributeType.BASIC_ZCL_VERSION,
+            ZclAttributeType.BASIC_APPLICATION_VERSION,
+            ZclAttributeType.BASIC_STACK_VERSION,
+            ZclAttributeType.BASIC_HW_VERSION,
+            ZclAttributeType.BASIC_MANUFACTURER_NAME,
+            ZclAttributeType.BASIC_MODEL_IDENTIFIER,
+            ZclAttributeType.BASIC_DATE_CODE,
+            ZclAttributeType.BASIC_POWER_SOURCE);
+
+    static {
+        for (final ZclAttributeType attributeType : ZclAttributeType.values()) {
+            final String name = attributeType.name();
+            if (name.endsWith("_MIN_MEASURED_VALUE") || name.endsWith("_MAX_MEASURED_VALUE")
+                    || name.endsWith("_MEASUREMENT_TOLERANCE") || name.startsWith("COLOR_CONTROL_PRIMARY_")) {
+                STATIC_ATTRIBUTES.add(attributeType);
+            }
+        }
+    }
+
+    /**
+     * The cached values in least recently used order.
+     */
+    private final Map<AttributeKey, CachedValue> values;
+    /**
+     * The number of cache hits.
+     */
+    private long hitCount = 0;
+    /**
+     * The number of cache misses.
+     */
+    private long missCount = 0;
+
+    /**
+     * Default constructor with default capacity.
+     */
+    public ZigBeeAttributeCache() {
+        this(CAPACITY_DEFAULT);
+    }
+
+    /**
+     * Constructor for setting the capacity.
+     * @param capacity the maximum number of cached values
+     */
+    public ZigBeeAttributeCache(final int capacity) {
+        values = new LinkedHashMap<AttributeKey, CachedValue>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<AttributeKey, CachedValue> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Puts attribute value to cache. Null values are not cached.
+     * @param ieeeAddress the IEEE address
+     * @param endpoint the endpoint
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @param value the value
+     */
+    public void put(final long ieeeAddress, final int endpoint, final int clusterId, final int attributeId,
+                    final Object value) {
+        put(ieeeAddress, endpoint, clusterId, attributeId, value, System.currentTimeMillis());
+    }
+
+    /**
+     * Puts attribute value to cache at given time.
+     * @param ieeeAddress the IEEE address
+     * @param endpoint the endpoint
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @param value the value
+     * @param time the current time in milliseconds
+     */
+    synchronized void put(final long ieeeAddress, final int endpoint, final int clusterId, final int attributeId,
+                          final Object value, final long time) {
+        final AttributeKey key = new AttributeKey(ieeeAddress, endpoint, clusterId, attributeId);
+        if (value == null) {
+            values.remove(key);
+            return;
+        }
+        values.put(key, new CachedValue(value, time + getTimeToLive(clusterId, attributeId)));
+    }
+
+    /**
+     * Gets attribute value from cache.
+     * @param ieeeAddress the IEEE address
+     * @param endpoint the endpoint
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @return the value or null if value is not cached or has expired
+     */
+    public Object get(final long ieeeAddress, final int endpoint, final int clusterId, final int attributeId) {
+        return get(ieeeAddress, endpoint, clusterId, attributeId, System.currentTimeMillis());
+    }
+
+    /**
+     * Gets attribute value from cache at given time.
+     * @param ieeeAddress the IEEE address
+     * @param endpoint the endpoint
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @param time the current time in milliseconds
+     * @return the value or null if value is not cached or has expired
+     */
+    synchronized Object get(final long ieeeAddress, final int endpoint, final int clusterId, final int attributeId,
+                            final long time) {
+        final AttributeKey key = new AttributeKey(ieeeAddress, endpoint, clusterId, attributeId);
+        final CachedValue cachedValue = values.get(key);
+        if (cachedValue == null) {
+            missCount++;
+            return null;
+        }
+        if (time >= cachedValue.expiryTime) {
+            values.remove(key);
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return cachedValue.value;
+    }
+
+    /**
+     * Removes attribute value from cache.
+     * @param ieeeAddress the IEEE address
+     * @param endpoint the endpoint
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     */
+    public synchronized void invalidate(final long ieeeAddress, final int endpoint, final int clusterId,
+                                        final int attributeId) {
+        values.remove(new AttributeKey(ieeeAddress, endpoint, clusterId, attributeId));
+    }
+
+    /**
+     * Removes values of cluster attributes of device from cache. Used when a command which
+     * may change the attributes, such as on or move to hue, is sent to the device.
+     * @param ieeeAddress the IEEE address
+     * @param endpoint the endpoint
+     * @param clusterId the cluster ID
+     */
+    public synchronized void invalidateCluster(final long ieeeAddress, final int endpoint, final int clusterId) {
+        final Iterator<AttributeKey> iterator = values.keySet().iterator();
+        while (iterator.hasNext()) {
+            final AttributeKey key = iterator.next();
+            if (key.ieeeAddress == ieeeAddress && key.getEndpoint() == (endpoint & 0xff)
+                    && key.getClusterId() == (clusterId & 0xffff)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes values of cluster attributes of all devices from cache. Used when a command
+     * which may change the attributes is sent to a group.
+     * @param clusterId the cluster ID
+     */
+    public synchronized void invalidateCluster(final int clusterId) {
+        final Iterator<AttributeKey> iterator = values.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getClusterId() == (clusterId & 0xffff)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all values from cache.
+     */
+    public synchronized void clear() {
+        values.clear();
+    }
+
+    /**
+     * Gets the number of cached values including expired values not yet removed.
+     * @return the number of cached values
+     */
+    public synchronized int size() {
+        return values.size();
+    }
+
+    /**
+     * Gets the number of cache hits.
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of cache misses.
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets time to live of attribute value. Constant attributes do not change. Reportable
+     * discrete attributes are reported on every change, while analog attributes are reported
+     * only on reportable change.
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @return the time to live in milliseconds
+     */
+    public static long getTimeToLive(final int clusterId, final int attributeId) {
+        final ZclAttributeType attributeType = ZclAttributeType.get(clusterId, attributeId);
+        if (attributeType == null) {
+            return UNKNOWN_TIME_TO_LIVE;
+        }
+        if (STATIC_ATTRIBUTES.contains(attributeType)) {
+            return STATIC_TIME_TO_LIVE;
+        }
+        if (attributeType.isReportable() && attributeType.getZigBeeType() != null
+                && !attributeType.getZigBeeType().isAnalog()) {
+            return DISCRETE_REPORTABLE_TIME_TO_LIVE;
+        }
+        return DYNAMIC_TIME_TO_LIVE;
+    }
+
+    /**
+     * Key of cached attribute value.
+     */
+    private static final class AttributeKey {
+        /**
+         * The IEEE address.
+         */
+        private final long ieeeAddress;
+        /**
+         * The endpoint, cluster ID and attribute ID.
+         */
+        private final long attribute;
+
+        /**
+         * Constructor which sets the key fields.
+         * @param ieeeAddress the IEEE address
+         * @param endpoint the endpoint
+         * @param clusterId the cluster ID
+         * @param attributeId the attribute ID
+         */
+        private AttributeKey(final long ieeeAddress, final int endpoint, final int clusterId, final int attributeId) {
+            this.ieeeAddress = ieeeAddress;
+            this.attribute = ((long) (endpoint & 0xff) << 32) | ((long) (clusterId & 0xffff) << 16)
+                    | (attributeId & 0xffff);
+        }
+
+        /**
+         * Gets the endpoint.
+         * @return the endpoint
+         */
+        private int getEndpoint() {
+            return (int) (attribute >>> 32) & 0xff;
+        }
+
+        /**
+         * Gets the cluster ID.
+         * @return the cluster ID
+         */
+        private int getClusterId() {
+            return (int) (attribute >>> 16) & 0xffff;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AttributeKey)) {
+                return false;
+            }
+            final AttributeKey that = (AttributeKey) o;
+            return ieeeAddress == that.ieeeAddress && attribute == that.attribute;
+        }
+
+        @Override
+        public int hashCode() {
+            final long hash = ieeeAddress * 31 + attribute;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    /**
+     * Cached attribute value.
+     */
+    private static final class CachedValue {
+        /**
+         * The value.
+         */
+        private final Object value;
+        /**
+         * The expiry time in milliseconds.
+         */
+        private final long expiryTime;
+
+        /**
+         * Constructor which sets the value and expiry time.
+         * @param value the value
+         * @param expiryTime the expiry time in milliseconds
+         */
+        private CachedValue(final Object value, final long expiryTime) {
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package org.bubblecloud.zigbee.v3;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of devices by network address and endpoint packed to int. Lookups by network
+ * address and endpoint read an immutable open addressing table without locking or
+ * allocation. Changes are made while holding the index monitor and discard the table,
+ * which is rebuilt on the first lookup after changes so that bulk loads build it once.
+ * <p>
+ * Secondary indexes by IEEE address, network address and input cluster ID are read
+ * while holding the index monitor.
+ */
+class ZigBeeDeviceIndex {
+    /**
+     * The size at which secondary index list is converted to set to avoid linear membership checks.
+     */
+    private static final int SET_THRESHOLD = 16;
+    /**
+     * The published primary table or null if it has to be rebuilt.
+     */
+    private volatile Table table = new Table(16);
+    /**
+     * The indexed devices by packed key in key order.
+     */
+    private final Map<Integer, IndexedDevice> entries = new TreeMap<Integer, IndexedDevice>();
+    /**
+     * The devices by IEEE address.
+     */
+    private final Map<Long, Collection<ZigBeeDevice>> devicesByIeeeAddress = new HashMap<Long, Collection<ZigBeeDevice>>();
+    /**
+     * The devices by network address.
+     */
+    private final Map<Integer, Collection<ZigBeeDevice>> devicesByNetworkAddress =
+            new HashMap<Integer, Collection<ZigBeeDevice>>();
+    /**
+     * The devices by input cluster ID.
+     */
+    private final Map<Integer, Collection<ZigBeeDevice>> devicesByClusterId = new HashMap<Integer, Collection<ZigBeeDevice>>();
+
+    /**
+     * Packs network address and endpoint to key.
+     * @param networkAddress the network address
+     * @param endpoint the endpoint
+     * @return the key
+     */
+    static int getKey(final int networkAddress, final int endpoint) {
+        return (networkAddress & 0xffff) << 8 | (endpoint & 0xff);
+    }
+
+    /**
+     * Gets device by network address and endpoint.
+     * @param networkAddress the network address
+     * @param endpoint the endpoint
+     * @return the device or null
+     */
+    ZigBeeDevice get(final int networkAddress, final int endpoint) {
+        Table current = table;
+        if (current == null) {
+            current = publishTable();
+        }
+        return current.get(getKey(networkAddress, endpoint));
+    }
+
+    /**
+     * Puts device to index replacing device with the same network address and endpoint.
+     * Device which has been modified in place is re-indexed.
+     * @param device the device
+     */
+    synchronized void put(final ZigBeeDevice device) {
+        final int key = getKey(device.getNetworkAddress(), device.getEndpoint());
+        final IndexedDevice previous = entries.put(key, new IndexedDevice(device));
+        if (previous != null) {
+            removeSecondary(previous);
+        }
+        addSecondary(entries.get(key));
+        table = null;
+    }
+
+    /**
+     * Removes device by network address and endpoint.
+     * @param networkAddress the network address
+     * @param endpoint the endpoint
+     * @return the removed device or null
+     */
+    synchronized ZigBeeDevice remove(final int networkAddress, final int endpoint) {
+        final IndexedDevice previous = entries.remove(getKey(networkAddress, endpoint));
+        if (previous == null) {
+            return null;
+        }
+        removeSecondary(previous);
+        table = null;
+        return previous.device;
+    }
+
+    /**
+     * Gets all devices in network address and endpoint order.
+     * @return list of devices
+     */
+    synchronized List<ZigBeeDevice> getAll() {
+        final List<ZigBeeDevice> devices = new ArrayList<ZigBeeDevice>(entries.size());
+        for (final IndexedDevice entry : entries.values()) {
+            devices.add(entry.device);
+        }
+        return devices;
+    }
+
+    /**
+     * Gets devices by IEEE address.
+     * @param ieeeAddress the IEEE address
+     * @return list of devices
+     */
+    synchronized List<ZigBeeDevice> getByIeeeAddress(final long ieeeAddress) {
+        return copy(devicesByIeeeAddress.get(ieeeAddress));
+    }
+
+    /**
+     * Gets devices by network address.
+     * @param networkAddress the network address
+     * @return list of devices
+     */
+    synchronized List<ZigBeeDevice> getByNetworkAddress(final int networkAddress) {
+        return copy(devicesByNetworkAddress.get(networkAddress));
+    }
+
+    /**
+     * Gets devices by input cluster ID.
+     * @param clusterId the cluster ID
+     * @return list of devices
+     */
+    synchronized List<ZigBeeDevice> getByClusterId(final int clusterId) {
+        return copy(devicesByClusterId.get(clusterId));
+    }
+
+    /**
+     * Rebuilds and publishes primary table if it has been discarded by changes.
+     * @return the published table
+     */
+    private synchronized Table publishTable() {
+        if (table == null) {
+            int capacity = 16;
+            while (entries.size() * 2 > capacity) {
+                capacity *= 2;
+            }
+            table = rebuild(capacity);
+        }
+        return table;
+    }
+
+    /**
+     * Builds new primary table from entries.
+     * @param capacity the table capacity
+     * @return the table
+     */
+    private Table rebuild(final int capacity) {
+        final Table rebuilt = new Table(capacity);
+        for (final Map.Entry<Integer, IndexedDevice> entry : entries.entrySet()) {
+            rebuilt.insert(entry.getKey(), entry.getValue().device);
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Adds indexed device to secondary indexes.
+     * @param entry the indexed device
+     */
+    private void addSecondary(final IndexedDevice entry) {
+        add(devicesByIeeeAddress, entry.ieeeAddress, entry.device);
+        add(devicesByNetworkAddress, entry.networkAddress, entry.device);
+        if (entry.clusterIds != null) {
+            for (final int clusterId : entry.clusterIds) {
+                add(devicesByClusterId, clusterId, entry.device);
+            }
+        }
+    }
+
+    /**
+     * Removes indexed device from secondary indexes using the values it was indexed with.
+     * @param entry the indexed device
+     */
+    private void removeSecondary(final IndexedDevice entry) {
+        remove(devicesByIeeeAddress, entry.ieeeAddress, entry.device);
+        remove(devicesByNetworkAddress, entry.networkAddress, entry.device);
+        if (entry.clusterIds != null) {
+            for (final int clusterId : entry.clusterIds) {
+                remove(devicesByClusterId, clusterId, entry.device);
+            }
+        }
+    }
+
+    /**
+     * Adds device to secondary index.
+     * @param index the index
+     * @param key the key
+     * @param device the device
+     */
+    private static <K> void add(final Map<K, Collection<ZigBeeDevice>> index, final K key,
+                                final ZigBeeDevice device) {
+        Collection<ZigBeeDevice> devices = index.get(key);
+        if (devices == null) {
+            devices = new ArrayList<ZigBeeDevice>(1);
+            index.put(key, devices);
+        } else if (devices.size() == SET_THRESHOLD && devices instanceof List) {
+            devices = new LinkedHashSet<ZigBeeDevice>(devices);
+            index.put(key, devices);
+        }
+        if (!devices.contains(device)) {
+            devices.add(device);
+        }
+    }
+
+    /**
+     * Removes device from secondary index.
+     * @param index the index
+     * @param key the key
+     * @param device the device
+     */
+    private static <K> void remove(final Map<K, Collection<ZigBeeDevice>> index, final K key,
+                                   final ZigBeeDevice device) {
+        final Collection<ZigBeeDevice> devices = index.get(key);
+        if (devices != null) {
+            devices.remove(device);
+            if (devices.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Copies device list.
+     * @param devices the devices or null
+     * @return the copy
+     */
+    private static List<ZigBeeDevice> copy(final Collection<ZigBeeDevice> devices) {
+        if (devices == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<ZigBeeDevice>(devices);
+    }
+
+    /**
+     * Device with the secondary index values it was indexed with.
+     */
+    private static class IndexedDevice {
+        /**
+         * The device.
+         */
+        private final ZigBeeDevice device;
+        /**
+         * The IEEE address.
+         */
+        private final long ieeeAddress;
+        /**
+         * The network address.
+         */
+        private final int networkAddress;
+        /**
+         * The input cluster IDs.
+         */
+        private final int[] clusterIds;
+
+        /**
+         * Constructor for capturing the index values of device.
+         * @param device the device
+         */
+        private IndexedDevice(final ZigBeeDevice device) {
+            this.device = device;
+            this.ieeeAddress = device.getIeeeAddress();
+            this.networkAddress = device.getNetworkAddress();
+            this.clusterIds = device.getInputClusterIds() == null ? null : device.getInputClusterIds().clone();
+        }
+    }
+
+    /**
+     * Open addressing table from packed key to device. Published tables are not modified.
+     */
+    private static class Table {
+        /**
+         * The keys.
+         */
+        private final int[] keys;
+        /**
+         * The devices or null for empty slots.
+         */
+        private final ZigBeeDevice[] values;
+
+        /**
+         * Constructor for creating empty table.
+         * @param capacity the capacity which is power of two
+         */
+        private Table(final int capacity) {
+            keys = new int[capacity];
+            values = new ZigBeeDevice[capacity];
+        }
+
+        /**
+         * Gets device by key.
+         * @param key the key
+         * @return the device or null
+         */
+        private ZigBeeDevice get(final int key) {
+            final int mask = values.length - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                final ZigBeeDevice value = values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    return value;
+                }
+            }
+        }
+
+        /**
+         * Inserts or replaces device in unpublished table.
+         * @param key the key
+         * @param device the device
+         */
+        private void insert(final int key, final ZigBeeDevice device) {
+            final int mask = values.length - 1;
+            int i = hash(key) & mask;
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = device;
+        }
+
+        /**
+         * Spreads key bits.
+         * @param key the key
+         * @return the hash
+         */
+        private static int hash(final int key) {
+            final int hash = key * 0x9e3779b9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
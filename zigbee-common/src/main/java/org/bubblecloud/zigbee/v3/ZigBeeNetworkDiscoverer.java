@@ -93,7 +93,7 @@ public class ZigBeeNetworkDiscoverer implements CommandListener {
 
     @Override
     public void commandReceived(final Command command) {
-        LOGGER.info("Received: " + command);
+        LOGGER.debug("Received: {}", command);
 
         // 0. ZCL command received from remote node. Request IEEE address if it
         // is not yet known.
@@ -306,16 +306,15 @@ public class ZigBeeNetworkDiscoverer implements CommandListener {
             final SimpleDescriptorResponse simpleDescriptorResponse) {
         final ZigBeeDevice device;
         final boolean newDevice = networkState
-                .getDevice(new ZigBeeDeviceAddress(ieeeAddressResponse
-                        .getNetworkAddress(), simpleDescriptorResponse
-                        .getEndpoint())) == null;
+                .getDevice(ieeeAddressResponse.getNetworkAddress(),
+                        simpleDescriptorResponse.getEndpoint()) == null;
 
         if (newDevice) {
             device = new ZigBeeDevice();
         } else {
-            device = networkState.getDevice(new ZigBeeDeviceAddress(
+            device = networkState.getDevice(
                     ieeeAddressResponse.getNetworkAddress(),
-                    simpleDescriptorResponse.getEndpoint()));
+                    simpleDescriptorResponse.getEndpoint());
         }
 
         device.setNetworkAddress(ieeeAddressResponse.getNetworkAddress());
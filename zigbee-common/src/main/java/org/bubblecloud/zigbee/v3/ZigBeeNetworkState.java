@@ -33,10 +33,38 @@ public interface ZigBeeNetworkState {
 
     /**
      * Gets all groups.
-     * @return list of groups.
+     * @return unmodifiable list of groups.
      */
     List<ZigBeeGroupAddress> getGroups();
 
+    /**
+     * Adds device to group members.
+     * @param groupId the group ID
+     * @param device the device address
+     */
+    void addGroupMember(int groupId, ZigBeeDeviceAddress device);
+
+    /**
+     * Removes device from group members.
+     * @param groupId the group ID
+     * @param device the device address
+     */
+    void removeGroupMember(int groupId, ZigBeeDeviceAddress device);
+
+    /**
+     * Sets all group memberships of device.
+     * @param device the device address
+     * @param groupIds the IDs of the groups device is member of
+     */
+    void setGroupMemberships(ZigBeeDeviceAddress device, List<Integer> groupIds);
+
+    /**
+     * Gets known members of group.
+     * @param groupId the group ID
+     * @return list of member device addresses.
+     */
+    List<ZigBeeDeviceAddress> getGroupMembers(int groupId);
+
     /**
      * Adds device.
      * @param device the device to add
@@ -63,11 +91,48 @@ public interface ZigBeeNetworkState {
     ZigBeeDevice getDevice(ZigBeeAddress zigBeeDestination);
 
     /**
-     * Gets all devices.
+     * Gets device by network address and endpoint without allocating.
+     * @param networkAddress the network address
+     * @param endpoint the endpoint
+     * @return the ZigBee device or null if no exists with given network address and endpoint.
+     */
+    ZigBeeDevice getDevice(int networkAddress, int endpoint);
+
+    /**
+     * Gets devices by IEEE address.
+     * @param ieeeAddress the IEEE address
+     * @return list of devices i.e. endpoints of the node.
+     */
+    List<ZigBeeDevice> getDevicesByIeeeAddress(long ieeeAddress);
+
+    /**
+     * Gets devices by network address.
+     * @param networkAddress the network address
+     * @return list of devices i.e. endpoints of the node.
+     */
+    List<ZigBeeDevice> getDevicesByNetworkAddress(int networkAddress);
+
+    /**
+     * Gets devices which have the cluster as input cluster.
+     * @param clusterId the cluster ID
      * @return list of devices.
      */
+    List<ZigBeeDevice> getDevicesByClusterId(int clusterId);
+
+    /**
+     * Gets all devices.
+     * @return unmodifiable list of devices.
+     */
     List<ZigBeeDevice> getDevices();
 
+    /**
+     * Gets device and group changes since version. Complete state is returned
+     * if the changes since the version are no longer known.
+     * @param version the version known by caller or -1 if none
+     * @return the changes
+     */
+    ZigBeeNetworkStateChanges getChangesSince(long version);
+
     /**
      * Adds network listener.
      * @param networkListener the network listener
@@ -0,0 +1,213 @@
+package org.bubblecloud.zigbee.v3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Serializes and deserializes the ZigBee network state in compact binary format.
+ * Snapshot files are read to heap buffer in one read for deserialization. They are not memory
+ * mapped as mapping is released only by garbage collection and on some platforms prevents
+ * replacing the file.
+ * <p>
+ * The format starts with magic number and version followed by device count, devices,
+ * group count and groups. Integers are big endian, arrays and strings are prefixed with
+ * length and null is written as length -1.
+ */
+public class ZigBeeNetworkStateBinarySerializer {
+    /**
+     * The magic number.
+     */
+    private static final int MAGIC = 0x5a424e53;
+    /**
+     * The format version.
+     */
+    private static final int VERSION = 1;
+    /**
+     * The string charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Serializes the network state.
+     * @param networkState the network state
+     * @return the serialized network state
+     */
+    public byte[] serialize(final ZigBeeNetworkState networkState) {
+        final List<ZigBeeDevice> devices = networkState.getDevices();
+        final List<ZigBeeGroupAddress> groups = networkState.getGroups();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + devices.size() * 64);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(devices.size());
+            for (final ZigBeeDevice device : devices) {
+                out.writeLong(device.getIeeeAddress());
+                out.writeInt(device.getNetworkAddress());
+                out.writeInt(device.getEndpoint());
+                out.writeInt(device.getProfileId());
+                out.writeInt(device.getDeviceType());
+                out.writeInt(device.getDeviceId());
+                out.writeInt(device.getManufacturerCode());
+                out.writeInt(device.getDeviceVersion());
+                writeIntArray(out, device.getInputClusterIds());
+                writeIntArray(out, device.getOutputClusterIds());
+                writeString(out, device.getLabel());
+            }
+            out.writeInt(groups.size());
+            for (final ZigBeeGroupAddress group : groups) {
+                out.writeInt(group.getGroupId());
+                writeString(out, group.getLabel());
+            }
+            out.flush();
+        } catch (final IOException e) {
+            throw new RuntimeException("Error serializing network state.", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes the network state from snapshot file.
+     * @param networkState the network state
+     * @param file the snapshot file
+     * @throws IOException if IO exception occurs
+     */
+    public void deserialize(final ZigBeeNetworkState networkState, final File file) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        final ByteBuffer buffer;
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Network state snapshot too large: " + file.getAbsolutePath());
+            }
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Network state snapshot ended unexpectedly: " + file.getAbsolutePath());
+                }
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+        buffer.flip();
+        deserialize(networkState, buffer);
+    }
+
+    /**
+     * Deserializes the network state.
+     * @param networkState the network state
+     * @param buffer the serialized network state
+     */
+    public void deserialize(final ZigBeeNetworkState networkState, final ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new RuntimeException("Error deserializing network state: not a network state snapshot.");
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new RuntimeException("Error deserializing network state: unsupported version " + version);
+            }
+            final int deviceCount = buffer.getInt();
+            for (int i = 0; i < deviceCount; i++) {
+                final ZigBeeDevice device = new ZigBeeDevice();
+                device.setIeeeAddress(buffer.getLong());
+                device.setNetworkAddress(buffer.getInt());
+                device.setEndpoint(buffer.getInt());
+                device.setProfileId(buffer.getInt());
+                device.setDeviceType(buffer.getInt());
+                device.setDeviceId(buffer.getInt());
+                device.setManufacturerCode(buffer.getInt());
+                device.setDeviceVersion(buffer.getInt());
+                device.setInputClusterIds(readIntArray(buffer));
+                device.setOutputClusterIds(readIntArray(buffer));
+                device.setLabel(readString(buffer));
+                networkState.addDevice(device);
+            }
+            final int groupCount = buffer.getInt();
+            for (int i = 0; i < groupCount; i++) {
+                final int groupId = buffer.getInt();
+                networkState.addGroup(new ZigBeeGroupAddress(groupId, readString(buffer)));
+            }
+        } catch (final BufferUnderflowException e) {
+            throw new RuntimeException("Error deserializing network state: snapshot is truncated.", e);
+        }
+    }
+
+    /**
+     * Writes int array.
+     * @param out the output
+     * @param values the values or null
+     * @throws IOException if IO exception occurs
+     */
+    private static void writeIntArray(final DataOutputStream out, final int[] values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.length);
+        for (final int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Reads int array.
+     * @param buffer the buffer
+     * @return the values or null
+     */
+    private static int[] readIntArray(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining() / 4) {
+            throw new BufferUnderflowException();
+        }
+        final int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * 4);
+        return values;
+    }
+
+    /**
+     * Writes string.
+     * @param out the output
+     * @param value the value or null
+     * @throws IOException if IO exception occurs
+     */
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads string.
+     * @param buffer the buffer
+     * @return the value or null
+     */
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -0,0 +1,133 @@
+package org.bubblecloud.zigbee.v3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Value class containing network state changes since a version. Contains the devices and groups
+ * added or updated and the devices and groups removed after the version. If the changes since
+ * the version are no longer known, the changes are complete i.e. contain all devices and groups
+ * and the receiver should replace its state.
+ */
+public class ZigBeeNetworkStateChanges {
+    /**
+     * The network state version the changes lead to.
+     */
+    private long version;
+    /**
+     * True if changes contain all devices and groups.
+     */
+    private boolean complete;
+    /**
+     * The added or updated devices.
+     */
+    private List<ZigBeeDevice> devices = new ArrayList<ZigBeeDevice>();
+    /**
+     * The removed devices.
+     */
+    private List<ZigBeeDevice> removedDevices = new ArrayList<ZigBeeDevice>();
+    /**
+     * The added or updated groups.
+     */
+    private List<ZigBeeGroupAddress> groups = new ArrayList<ZigBeeGroupAddress>();
+    /**
+     * The removed groups.
+     */
+    private List<ZigBeeGroupAddress> removedGroups = new ArrayList<ZigBeeGroupAddress>();
+
+    /**
+     * Gets the network state version the changes lead to.
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the network state version the changes lead to.
+     * @param version the version
+     */
+    public void setVersion(final long version) {
+        this.version = version;
+    }
+
+    /**
+     * Checks whether changes contain all devices and groups.
+     * @return TRUE if changes are complete
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Sets whether changes contain all devices and groups.
+     * @param complete TRUE if changes are complete
+     */
+    public void setComplete(final boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * Gets the added or updated devices.
+     * @return list of devices
+     */
+    public List<ZigBeeDevice> getDevices() {
+        return devices;
+    }
+
+    /**
+     * Sets the added or updated devices.
+     * @param devices list of devices
+     */
+    public void setDevices(final List<ZigBeeDevice> devices) {
+        this.devices = devices;
+    }
+
+    /**
+     * Gets the removed devices.
+     * @return list of devices
+     */
+    public List<ZigBeeDevice> getRemovedDevices() {
+        return removedDevices;
+    }
+
+    /**
+     * Sets the removed devices.
+     * @param removedDevices list of devices
+     */
+    public void setRemovedDevices(final List<ZigBeeDevice> removedDevices) {
+        this.removedDevices = removedDevices;
+    }
+
+    /**
+     * Gets the added or updated groups.
+     * @return list of groups
+     */
+    public List<ZigBeeGroupAddress> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Sets the added or updated groups.
+     * @param groups list of groups
+     */
+    public void setGroups(final List<ZigBeeGroupAddress> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * Gets the removed groups.
+     * @return list of groups
+     */
+    public List<ZigBeeGroupAddress> getRemovedGroups() {
+        return removedGroups;
+    }
+
+    /**
+     * Sets the removed groups.
+     * @param removedGroups list of groups
+     */
+    public void setRemovedGroups(final List<ZigBeeGroupAddress> removedGroups) {
+        this.removedGroups = removedGroups;
+    }
+}
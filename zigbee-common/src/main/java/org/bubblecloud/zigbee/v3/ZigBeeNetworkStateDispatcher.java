@@ -0,0 +1,431 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Dispatches network state events to listeners asynchronously. Each listener has a bounded
+ * event queue and a delivery thread of its own, so a slow listener does not delay the thread
+ * changing the network state or other listeners. Events are delivered to a listener in the
+ * order they were published. When the queue of a listener is full, the overflow policy
+ * of the listener decides what happens.
+ * <p>
+ * Events are published to a pending list while network state is locked and moved to
+ * listener queues by {@link #flush()} after the lock has been released, so that a listener
+ * with BLOCK policy does not block network state changes of other threads.
+ */
+public class ZigBeeNetworkStateDispatcher {
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZigBeeNetworkStateDispatcher.class);
+    /**
+     * The default maximum number of events waiting for delivery per listener.
+     */
+    public static final int QUEUE_CAPACITY_DEFAULT = 1024;
+    /**
+     * The minimum interval between queue full warnings of a listener in milliseconds.
+     */
+    private static final long DROP_WARNING_INTERVAL_MILLIS = 10000;
+
+    /**
+     * Policy for handling events published while listener queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Publisher blocks until there is space in queue.
+         */
+        BLOCK,
+        /**
+         * The oldest queued event is dropped.
+         */
+        DROP_OLDEST,
+        /**
+         * The published event is dropped.
+         */
+        DROP_NEWEST
+    }
+
+    /**
+     * The event types.
+     */
+    private enum EventType {
+        /**
+         * Device was added.
+         */
+        ADDED,
+        /**
+         * Device was updated.
+         */
+        UPDATED,
+        /**
+         * Device was removed.
+         */
+        REMOVED
+    }
+
+    /**
+     * The subscriptions by listener.
+     */
+    private final Map<ZigBeeNetworkStateListener, Subscription> subscriptions =
+            new HashMap<ZigBeeNetworkStateListener, Subscription>();
+    /**
+     * The subscriptions events are published to.
+     */
+    private volatile List<Subscription> subscriptionList = new ArrayList<Subscription>();
+    /**
+     * The published events waiting to be moved to listener queues.
+     */
+    private final LinkedList<Event> pendingEvents = new LinkedList<Event>();
+    /**
+     * True if a thread is moving pending events to listener queues.
+     */
+    private boolean flushing = false;
+
+    /**
+     * Adds listener.
+     * @param listener the listener
+     * @param capacity the maximum number of events waiting for delivery to the listener
+     * @param overflowPolicy the overflow policy
+     */
+    public void addListener(final ZigBeeNetworkStateListener listener, final int capacity,
+                            final OverflowPolicy overflowPolicy) {
+        synchronized (subscriptions) {
+            if (subscriptions.containsKey(listener)) {
+                return;
+            }
+            final Subscription subscription = new Subscription(listener, capacity, overflowPolicy);
+            subscriptions.put(listener, subscription);
+            subscriptionList = new ArrayList<Subscription>(subscriptions.values());
+            subscription.thread.start();
+        }
+    }
+
+    /**
+     * Removes listener. Events waiting for delivery to the listener are discarded.
+     * @param listener the listener
+     */
+    public void removeListener(final ZigBeeNetworkStateListener listener) {
+        final Subscription subscription;
+        synchronized (subscriptions) {
+            subscription = subscriptions.remove(listener);
+            if (subscription == null) {
+                return;
+            }
+            subscriptionList = new ArrayList<Subscription>(subscriptions.values());
+        }
+        subscription.stop();
+    }
+
+    /**
+     * Removes all listeners and stops their delivery threads.
+     */
+    public void shutdown() {
+        final List<Subscription> stoppedSubscriptions;
+        synchronized (subscriptions) {
+            stoppedSubscriptions = new ArrayList<Subscription>(subscriptions.values());
+            subscriptions.clear();
+            subscriptionList = new ArrayList<Subscription>();
+        }
+        for (final Subscription subscription : stoppedSubscriptions) {
+            subscription.stop();
+        }
+    }
+
+    /**
+     * Publishes device added event.
+     * @param device the device
+     */
+    public void deviceAdded(final ZigBeeDevice device) {
+        publish(EventType.ADDED, device);
+    }
+
+    /**
+     * Publishes device updated event.
+     * @param device the device
+     */
+    public void deviceUpdated(final ZigBeeDevice device) {
+        publish(EventType.UPDATED, device);
+    }
+
+    /**
+     * Publishes device removed event.
+     * @param device the device
+     */
+    public void deviceRemoved(final ZigBeeDevice device) {
+        publish(EventType.REMOVED, device);
+    }
+
+    /**
+     * Moves published events to listener queues in publish order. Called without holding
+     * network state locks. If another thread is already moving events, returns immediately
+     * as that thread moves the events published by this thread as well.
+     */
+    public void flush() {
+        synchronized (pendingEvents) {
+            if (flushing) {
+                return;
+            }
+            flushing = true;
+        }
+        try {
+            while (true) {
+                final Event event;
+                synchronized (pendingEvents) {
+                    event = pendingEvents.poll();
+                    if (event == null) {
+                        flushing = false;
+                        return;
+                    }
+                }
+                for (final Subscription subscription : subscriptionList) {
+                    subscription.enqueue(event);
+                }
+            }
+        } catch (final RuntimeException e) {
+            synchronized (pendingEvents) {
+                flushing = false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of events waiting for delivery to listener.
+     * @param listener the listener
+     * @return the number of events
+     */
+    public int getQueueLength(final ZigBeeNetworkStateListener listener) {
+        final Subscription subscription = getSubscription(listener);
+        return subscription == null ? 0 : subscription.queue.size();
+    }
+
+    /**
+     * Gets the number of events dropped because listener queue was full.
+     * @param listener the listener
+     * @return the number of events
+     */
+    public long getDroppedCount(final ZigBeeNetworkStateListener listener) {
+        final Subscription subscription = getSubscription(listener);
+        return subscription == null ? 0 : subscription.droppedCount;
+    }
+
+    /**
+     * Gets the time the last delivered event waited in listener queue.
+     * @param listener the listener
+     * @return the lag in milliseconds
+     */
+    public double getLagMillis(final ZigBeeNetworkStateListener listener) {
+        final Subscription subscription = getSubscription(listener);
+        return subscription == null ? 0 : subscription.lag / 1000000.0;
+    }
+
+    /**
+     * Gets the maximum time an event waited in listener queue.
+     * @param listener the listener
+     * @return the maximum lag in milliseconds
+     */
+    public double getMaximumLagMillis(final ZigBeeNetworkStateListener listener) {
+        final Subscription subscription = getSubscription(listener);
+        return subscription == null ? 0 : subscription.maximumLag / 1000000.0;
+    }
+
+    /**
+     * Gets subscription of listener.
+     * @param listener the listener
+     * @return the subscription or null
+     */
+    private Subscription getSubscription(final ZigBeeNetworkStateListener listener) {
+        synchronized (subscriptions) {
+            return subscriptions.get(listener);
+        }
+    }
+
+    /**
+     * Publishes event to pending events if there are listeners.
+     * @param type the event type
+     * @param device the device
+     */
+    private void publish(final EventType type, final ZigBeeDevice device) {
+        if (subscriptionList.isEmpty()) {
+            return;
+        }
+        synchronized (pendingEvents) {
+            pendingEvents.add(new Event(type, device));
+        }
+    }
+
+    /**
+     * Network state event.
+     */
+    private static class Event {
+        /**
+         * The event type.
+         */
+        private final EventType type;
+        /**
+         * The device.
+         */
+        private final ZigBeeDevice device;
+        /**
+         * The publish time in nanoseconds.
+         */
+        private final long publishTime = System.nanoTime();
+
+        /**
+         * Constructor for setting the event fields.
+         * @param type the event type
+         * @param device the device
+         */
+        private Event(final EventType type, final ZigBeeDevice device) {
+            this.type = type;
+            this.device = device;
+        }
+    }
+
+    /**
+     * Listener with its event queue and delivery thread.
+     */
+    private static class Subscription {
+        /**
+         * The listener.
+         */
+        private final ZigBeeNetworkStateListener listener;
+        /**
+         * The events waiting for delivery.
+         */
+        private final BlockingQueue<Event> queue;
+        /**
+         * The overflow policy.
+         */
+        private final OverflowPolicy overflowPolicy;
+        /**
+         * The delivery thread.
+         */
+        private final Thread thread;
+        /**
+         * True if subscription has been stopped.
+         */
+        private volatile boolean stopped = false;
+        /**
+         * The number of dropped events.
+         */
+        private volatile long droppedCount = 0;
+        /**
+         * The queueing time of last delivered event in nanoseconds.
+         */
+        private volatile long lag = 0;
+        /**
+         * The maximum queueing time of delivered events in nanoseconds.
+         */
+        private volatile long maximumLag = 0;
+        /**
+         * The time of last queue full warning in milliseconds.
+         */
+        private long lastDropWarningTime = 0;
+
+        /**
+         * Constructor for setting the listener, queue capacity and overflow policy.
+         * @param listener the listener
+         * @param capacity the queue capacity
+         * @param overflowPolicy the overflow policy
+         */
+        private Subscription(final ZigBeeNetworkStateListener listener, final int capacity,
+                             final OverflowPolicy overflowPolicy) {
+            this.listener = listener;
+            this.queue = new ArrayBlockingQueue<Event>(Math.max(1, capacity));
+            this.overflowPolicy = overflowPolicy;
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    deliverLoop();
+                }
+            }, "ZigBee network state listener");
+            thread.setDaemon(true);
+        }
+
+        /**
+         * Queues event applying overflow policy if queue is full.
+         * @param event the event
+         */
+        private void enqueue(final Event event) {
+            if (queue.offer(event)) {
+                return;
+            }
+            switch (overflowPolicy) {
+                case BLOCK:
+                    try {
+                        queue.put(event);
+                    } catch (final InterruptedException e) {
+                        LOGGER.warn("Interrupted while waiting for network state listener queue space.");
+                        Thread.currentThread().interrupt();
+                    }
+                    return;
+                case DROP_OLDEST:
+                    while (!queue.offer(event)) {
+                        if (queue.poll() != null) {
+                            droppedCount++;
+                        }
+                    }
+                    break;
+                default:
+                    droppedCount++;
+                    break;
+            }
+            final long now = System.currentTimeMillis();
+            if (now - lastDropWarningTime >= DROP_WARNING_INTERVAL_MILLIS) {
+                lastDropWarningTime = now;
+                LOGGER.warn("Network state listener queue full, dropped {} events in total.", droppedCount);
+            }
+        }
+
+        /**
+         * Stops the delivery thread. Events waiting for delivery are discarded.
+         */
+        private void stop() {
+            stopped = true;
+            thread.interrupt();
+        }
+
+        /**
+         * Delivers queued events to listener until stopped.
+         */
+        private void deliverLoop() {
+            while (!stopped) {
+                final Event event;
+                try {
+                    event = queue.take();
+                } catch (final InterruptedException e) {
+                    continue;
+                }
+                lag = System.nanoTime() - event.publishTime;
+                if (lag > maximumLag) {
+                    maximumLag = lag;
+                }
+                try {
+                    switch (event.type) {
+                        case ADDED:
+                            listener.deviceAdded(event.device);
+                            break;
+                        case UPDATED:
+                            listener.deviceUpdated(event.device);
+                            break;
+                        default:
+                            listener.deviceRemoved(event.device);
+                            break;
+                    }
+                } catch (final Exception e) {
+                    LOGGER.error("Error in network state listener.", e);
+                }
+            }
+        }
+    }
+}
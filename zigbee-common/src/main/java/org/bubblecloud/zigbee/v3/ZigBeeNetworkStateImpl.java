@@ -17,27 +17,61 @@ public class ZigBeeNetworkStateImpl implements ZigBeeNetworkState {
      */
     private final static Logger LOGGER = LoggerFactory
             .getLogger(ZigBeeNetworkStateImpl.class);
+    /**
+     * The maximum number of changes kept for incremental synchronization.
+     */
+    private static final int CHANGE_JOURNAL_SIZE = 1024;
     /**
      * The devices in the ZigBee network.
      */
-    private Map<String, ZigBeeDevice> devices = new TreeMap<String, ZigBeeDevice>();
+    private final ZigBeeDeviceIndex devices = new ZigBeeDeviceIndex();
     /**
      * The groups in the ZigBee network.
      */
     private Map<Integer, ZigBeeGroupAddress> groups = new TreeMap<Integer, ZigBeeGroupAddress>();
     /**
-     * The listeners of the ZigBee network.
+     * The group member device addresses by group ID. Memberships are learned from group
+     * command responses and are not persisted.
+     */
+    private Map<Integer, Map<Integer, ZigBeeDeviceAddress>> groupMembers =
+            new HashMap<Integer, Map<Integer, ZigBeeDeviceAddress>>();
+    /**
+     * The published snapshot of devices and groups.
+     */
+    private volatile Snapshot snapshot = new Snapshot(0, Collections.<ZigBeeDevice>emptyList(),
+            Collections.<ZigBeeGroupAddress>emptyList());
+    /**
+     * The recent changes in version order.
+     */
+    private final LinkedList<Change> changes = new LinkedList<Change>();
+    /**
+     * The dispatcher delivering events to the listeners of the ZigBee network.
      */
-    private List<ZigBeeNetworkStateListener> listeners = Collections
-            .unmodifiableList(new ArrayList<ZigBeeNetworkStateListener>());
+    private final ZigBeeNetworkStateDispatcher dispatcher = new ZigBeeNetworkStateDispatcher();
     /**
      * The network reset flag.
      */
     private final boolean resetNetwork;
     /**
-     * The network state file path.
+     * The network state binary snapshot file path.
+     */
+    private final String networkStateFilePath;
+    /**
+     * The JSON network state file path of earlier versions or null if not migrated.
      */
-    private final String networkStateFilePath = "simple-network.json";
+    private final String jsonNetworkStateFilePath;
+    /**
+     * The network state change log file path.
+     */
+    private final String networkStateLogFilePath;
+    /**
+     * The network state change log or null if changes are not logged.
+     */
+    private volatile ZigBeeNetworkStateLog networkStateLog;
+    /**
+     * True if the network state snapshot is saved at shutdown without change log.
+     */
+    private volatile boolean snapshotSavedAtShutdown = false;
 
     /**
      * Constructor which configures whether network shoule be reset at startup
@@ -47,54 +81,151 @@ public class ZigBeeNetworkStateImpl implements ZigBeeNetworkState {
      *            the network reset flag
      */
     public ZigBeeNetworkStateImpl(boolean resetNetwork) {
+        this(resetNetwork, "simple-network.bin", "simple-network.log", "simple-network.json");
+    }
+
+    /**
+     * Constructor which configures whether network should be reset at startup
+     * and the network state snapshot and change log file paths.
+     *
+     * @param resetNetwork
+     *            the network reset flag
+     * @param networkStateFilePath
+     *            the network state binary snapshot file path
+     * @param networkStateLogFilePath
+     *            the network state change log file path
+     */
+    public ZigBeeNetworkStateImpl(final boolean resetNetwork, final String networkStateFilePath,
+                                  final String networkStateLogFilePath) {
+        this(resetNetwork, networkStateFilePath, networkStateLogFilePath, null);
+    }
+
+    /**
+     * Constructor which configures whether network should be reset at startup, the network
+     * state snapshot and change log file paths and the JSON network state file path to
+     * migrate from if binary snapshot does not exist.
+     *
+     * @param resetNetwork
+     *            the network reset flag
+     * @param networkStateFilePath
+     *            the network state binary snapshot file path
+     * @param networkStateLogFilePath
+     *            the network state change log file path
+     * @param jsonNetworkStateFilePath
+     *            the JSON network state file path or null
+     */
+    public ZigBeeNetworkStateImpl(final boolean resetNetwork, final String networkStateFilePath,
+                                  final String networkStateLogFilePath, final String jsonNetworkStateFilePath) {
         this.resetNetwork = resetNetwork;
+        this.networkStateFilePath = networkStateFilePath;
+        this.networkStateLogFilePath = networkStateLogFilePath;
+        this.jsonNetworkStateFilePath = jsonNetworkStateFilePath;
     }
 
     /**
-     * Starts up network state.
+     * Starts up network state. Loads the snapshot, replays the change log on top of it
+     * and starts logging changes.
      */
     public void startup() {
         final File networkStateFile = new File(networkStateFilePath);
-        final boolean networkStateExists = networkStateFile.exists();
-        if (!resetNetwork && networkStateExists) {
+        final File networkStateLogFile = new File(networkStateLogFilePath);
+        final File jsonNetworkStateFile = jsonNetworkStateFilePath == null ? null : new File(jsonNetworkStateFilePath);
+        if (!resetNetwork && networkStateFile.exists()) {
             LOGGER.info("Loading network state...");
+            try {
+                new ZigBeeNetworkStateBinarySerializer().deserialize(this, networkStateFile);
+            } catch (final Exception e) {
+                LOGGER.error("Error loading network state from file: "
+                        + networkStateFile.getAbsolutePath(), e);
+                return;
+            }
+            LOGGER.info("Loading network state done.");
+        } else if (!resetNetwork && jsonNetworkStateFile != null && jsonNetworkStateFile.exists()) {
+            LOGGER.info("Migrating network state from JSON file: " + jsonNetworkStateFile.getAbsolutePath());
             final String networkStateString;
             try {
                 networkStateString = FileUtils
-                        .readFileToString(networkStateFile);
+                        .readFileToString(jsonNetworkStateFile);
             } catch (final IOException e) {
                 LOGGER.error("Error loading network state from file: "
-                        + networkStateFile.getAbsolutePath());
+                        + jsonNetworkStateFile.getAbsolutePath());
                 return;
             }
             final ZigBeeNetworkStateSerializer serializer = new ZigBeeNetworkStateSerializer();
             serializer.deserialize(this, networkStateString);
             LOGGER.info("Loading network state done.");
         }
+        final ZigBeeNetworkStateLog networkStateLog = new ZigBeeNetworkStateLog(this, networkStateFile,
+                networkStateLogFile);
+        if (!resetNetwork) {
+            final int replayCount = networkStateLog.replay();
+            if (replayCount > 0) {
+                LOGGER.info("Replayed {} network state changes from log.", replayCount);
+            }
+        }
+        try {
+            networkStateLog.start();
+        } catch (final IOException e) {
+            LOGGER.error("Error starting network state log, network state will be saved only at shutdown: "
+                    + networkStateLogFile.getAbsolutePath(), e);
+            snapshotSavedAtShutdown = true;
+            return;
+        }
+        this.networkStateLog = networkStateLog;
     }
 
     /**
-     * Shuts down the network state.
+     * Shuts down the network state. Writes the logged changes and saves the network state snapshot.
      */
     public void shutdown() {
-        LOGGER.info("ZigBeeApi saving network state...");
-        final ZigBeeNetworkStateSerializer serializer = new ZigBeeNetworkStateSerializer();
-        final File networkStateFile = new File(networkStateFilePath);
-        try {
-            FileUtils.writeStringToFile(networkStateFile,
-                    serializer.serialize(this), false);
-        } catch (final IOException e) {
-            LOGGER.error("Error loading network state from file: "
-                    + networkStateFile.getAbsolutePath());
-            return;
+        dispatcher.shutdown();
+        if (networkStateLog != null) {
+            LOGGER.info("ZigBeeApi saving network state...");
+            networkStateLog.stop();
+            LOGGER.info("ZigBeeApi saving network state done.");
+        } else if (snapshotSavedAtShutdown) {
+            LOGGER.info("ZigBeeApi saving network state snapshot...");
+            final File networkStateFile = new File(networkStateFilePath);
+            try {
+                final byte[] snapshot;
+                synchronized (devices) {
+                    synchronized (groups) {
+                        snapshot = new ZigBeeNetworkStateBinarySerializer().serialize(this);
+                    }
+                }
+                FileUtils.writeByteArrayToFile(networkStateFile, snapshot);
+            } catch (final IOException e) {
+                LOGGER.error("Error saving network state to file: " + networkStateFile.getAbsolutePath(), e);
+                return;
+            }
+            LOGGER.info("ZigBeeApi saving network state snapshot done.");
         }
-        LOGGER.info("ZigBeeApi saving network state done.");
+    }
+
+    /**
+     * Gets the lock object held while devices are changed and logged.
+     * @return the devices lock
+     */
+    Object getDevicesLock() {
+        return devices;
+    }
+
+    /**
+     * Gets the lock object held while groups are changed and logged.
+     * @return the groups lock
+     */
+    Object getGroupsLock() {
+        return groups;
     }
 
     @Override
     public void addGroup(final ZigBeeGroupAddress group) {
         synchronized (groups) {
             groups.put(group.getGroupId(), group);
+            publishGroupChange(group, false);
+            if (networkStateLog != null) {
+                networkStateLog.groupAdded(group);
+            }
         }
     }
 
@@ -102,6 +233,10 @@ public class ZigBeeNetworkStateImpl implements ZigBeeNetworkState {
     public void updateGroup(ZigBeeGroupAddress group) {
         synchronized (groups) {
             groups.put(group.getGroupId(), group);
+            publishGroupChange(group, false);
+            if (networkStateLog != null) {
+                networkStateLog.groupUpdated(group);
+            }
         }
     }
 
@@ -117,40 +252,94 @@ public class ZigBeeNetworkStateImpl implements ZigBeeNetworkState {
         final ZigBeeGroupAddress group;
         synchronized (groups) {
             group = groups.remove(groupId);
+            if (group != null) {
+                publishGroupChange(group, true);
+            }
+            if (networkStateLog != null) {
+                networkStateLog.groupRemoved(groupId);
+            }
         }
     }
 
     @Override
     public List<ZigBeeGroupAddress> getGroups() {
-        synchronized (groups) {
-            return new ArrayList<ZigBeeGroupAddress>(groups.values());
+        return snapshot.groups;
+    }
+
+    @Override
+    public void addGroupMember(final int groupId, final ZigBeeDeviceAddress device) {
+        synchronized (groupMembers) {
+            Map<Integer, ZigBeeDeviceAddress> members = groupMembers.get(groupId);
+            if (members == null) {
+                members = new TreeMap<Integer, ZigBeeDeviceAddress>();
+                groupMembers.put(groupId, members);
+            }
+            members.put(ZigBeeDeviceIndex.getKey(device.getAddress(), device.getEndpoint()), device);
+        }
+    }
+
+    @Override
+    public void removeGroupMember(final int groupId, final ZigBeeDeviceAddress device) {
+        synchronized (groupMembers) {
+            final Map<Integer, ZigBeeDeviceAddress> members = groupMembers.get(groupId);
+            if (members != null) {
+                members.remove(ZigBeeDeviceIndex.getKey(device.getAddress(), device.getEndpoint()));
+                if (members.isEmpty()) {
+                    groupMembers.remove(groupId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setGroupMemberships(final ZigBeeDeviceAddress device, final List<Integer> groupIds) {
+        synchronized (groupMembers) {
+            for (final Integer groupId : new ArrayList<Integer>(groupMembers.keySet())) {
+                if (!groupIds.contains(groupId)) {
+                    removeGroupMember(groupId, device);
+                }
+            }
+            for (final Integer groupId : groupIds) {
+                addGroupMember(groupId, device);
+            }
+        }
+    }
+
+    @Override
+    public List<ZigBeeDeviceAddress> getGroupMembers(final int groupId) {
+        synchronized (groupMembers) {
+            final Map<Integer, ZigBeeDeviceAddress> members = groupMembers.get(groupId);
+            if (members == null) {
+                return new ArrayList<ZigBeeDeviceAddress>();
+            }
+            return new ArrayList<ZigBeeDeviceAddress>(members.values());
         }
     }
 
     @Override
     public void addDevice(final ZigBeeDevice device) {
         synchronized (devices) {
-            devices.put(
-                    device.getNetworkAddress() + "/" + device.getEndpoint(),
-                    device);
-        }
-        synchronized (this) {
-            for (final ZigBeeNetworkStateListener listener : listeners) {
-                listener.deviceAdded(device);
+            devices.put(device);
+            publishDeviceChange(device, false);
+            if (networkStateLog != null) {
+                networkStateLog.deviceAdded(device);
             }
+            dispatcher.deviceAdded(device);
         }
+        dispatcher.flush();
     }
 
     @Override
     public void updateDevice(ZigBeeDevice device) {
         synchronized (devices) {
-            devices.put(device.getDeviceAddress().toString(), device);
-        }
-        synchronized (this) {
-            for (final ZigBeeNetworkStateListener listener : listeners) {
-                listener.deviceUpdated(device);
+            devices.put(device);
+            publishDeviceChange(device, false);
+            if (networkStateLog != null) {
+                networkStateLog.deviceUpdated(device);
             }
+            dispatcher.deviceUpdated(device);
         }
+        dispatcher.flush();
     }
 
     @Override
@@ -158,55 +347,264 @@ public class ZigBeeNetworkStateImpl implements ZigBeeNetworkState {
         if (networkAddress.isGroup()) {
             return null;
         }
+        final ZigBeeDeviceAddress deviceAddress = (ZigBeeDeviceAddress) networkAddress;
+        return devices.get(deviceAddress.getAddress(), deviceAddress.getEndpoint());
+    }
 
-        synchronized (devices) {
-            // TODO Maybe this should just use the network address as the key?
-            return devices.get(networkAddress.toString());
-        }
+    @Override
+    public ZigBeeDevice getDevice(final int networkAddress, final int endpoint) {
+        return devices.get(networkAddress, endpoint);
+    }
+
+    @Override
+    public List<ZigBeeDevice> getDevicesByIeeeAddress(final long ieeeAddress) {
+        return devices.getByIeeeAddress(ieeeAddress);
+    }
+
+    @Override
+    public List<ZigBeeDevice> getDevicesByNetworkAddress(final int networkAddress) {
+        return devices.getByNetworkAddress(networkAddress);
+    }
+
+    @Override
+    public List<ZigBeeDevice> getDevicesByClusterId(final int clusterId) {
+        return devices.getByClusterId(clusterId);
     }
 
     @Override
     public void removeDevice(final int networkAddress, int endpoint) {
         final ZigBeeDevice device;
         synchronized (devices) {
-            device = devices.remove(networkAddress + "/" + endpoint);
-        }
-        synchronized (this) {
+            device = devices.remove(networkAddress, endpoint);
             if (device != null) {
-                for (final ZigBeeNetworkStateListener listener : listeners) {
-                    listener.deviceRemoved(device);
-                }
+                publishDeviceChange(device, true);
+            }
+            if (networkStateLog != null && device != null) {
+                networkStateLog.deviceRemoved(networkAddress, endpoint);
+            }
+            if (device != null) {
+                dispatcher.deviceRemoved(device);
+            }
+        }
+        dispatcher.flush();
+        synchronized (groupMembers) {
+            for (final Integer groupId : new ArrayList<Integer>(groupMembers.keySet())) {
+                removeGroupMember(groupId, new ZigBeeDeviceAddress(networkAddress, endpoint));
             }
         }
     }
 
     @Override
     public List<ZigBeeDevice> getDevices() {
+        final Snapshot current = snapshot;
+        if (current.devices != null) {
+            return current.devices;
+        }
+        return getCompleteSnapshot().devices;
+    }
+
+    @Override
+    public ZigBeeNetworkStateChanges getChangesSince(final long version) {
+        final ZigBeeNetworkStateChanges stateChanges = new ZigBeeNetworkStateChanges();
+        // Devices lock keeps the copied device list and the journal at the same version.
         synchronized (devices) {
-            return new ArrayList<ZigBeeDevice>(devices.values());
+            final Snapshot current = getCompleteSnapshot();
+            synchronized (changes) {
+                stateChanges.setVersion(current.version);
+                final long oldestVersion = changes.isEmpty() ? current.version + 1 : changes.getFirst().version;
+                if (version < oldestVersion - 1 || version > current.version) {
+                    stateChanges.setComplete(true);
+                    stateChanges.getDevices().addAll(current.devices);
+                    stateChanges.getGroups().addAll(current.groups);
+                    return stateChanges;
+                }
+                // Only the last change of each device and group is relevant.
+                final Map<String, Change> lastChanges = new LinkedHashMap<String, Change>();
+                final Iterator<Change> iterator = changes.descendingIterator();
+                while (iterator.hasNext()) {
+                    final Change change = iterator.next();
+                    if (change.version <= version) {
+                        break;
+                    }
+                    final String key = change.device != null ? "d" + change.device.getNetworkAddress()
+                            + "/" + change.device.getEndpoint() : "g" + change.group.getGroupId();
+                    if (!lastChanges.containsKey(key)) {
+                        lastChanges.put(key, change);
+                    }
+                }
+                for (final Change change : lastChanges.values()) {
+                    if (change.device != null) {
+                        (change.removed ? stateChanges.getRemovedDevices() : stateChanges.getDevices())
+                                .add(change.device);
+                    } else {
+                        (change.removed ? stateChanges.getRemovedGroups() : stateChanges.getGroups())
+                                .add(change.group);
+                    }
+                }
+            }
+        }
+        return stateChanges;
+    }
+
+    /**
+     * Gets the current snapshot copying the device list if it has changed since last read.
+     * @return the snapshot with device list
+     */
+    private Snapshot getCompleteSnapshot() {
+        synchronized (devices) {
+            synchronized (changes) {
+                final Snapshot current = snapshot;
+                if (current.devices != null) {
+                    return current;
+                }
+                snapshot = new Snapshot(current.version, Collections.unmodifiableList(devices.getAll()),
+                        current.groups);
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Publishes new snapshot version after device change. Called while holding devices lock.
+     * The device list is copied on first read so that bulk loads do not copy it on every change.
+     * @param device the changed device
+     * @param removed TRUE if device was removed
+     */
+    private void publishDeviceChange(final ZigBeeDevice device, final boolean removed) {
+        synchronized (changes) {
+            final Snapshot previous = snapshot;
+            snapshot = new Snapshot(previous.version + 1, null, previous.groups);
+            addChange(new Change(snapshot.version, device, null, removed));
+        }
+    }
+
+    /**
+     * Publishes new snapshot after group change. Called while holding groups lock.
+     * @param group the changed group
+     * @param removed TRUE if group was removed
+     */
+    private void publishGroupChange(final ZigBeeGroupAddress group, final boolean removed) {
+        synchronized (changes) {
+            final Snapshot previous = snapshot;
+            snapshot = new Snapshot(previous.version + 1, previous.devices,
+                    Collections.unmodifiableList(new ArrayList<ZigBeeGroupAddress>(groups.values())));
+            addChange(new Change(snapshot.version, null, group, removed));
+        }
+    }
+
+    /**
+     * Adds change to journal and drops the oldest change if journal is full.
+     * @param change the change
+     */
+    private void addChange(final Change change) {
+        changes.add(change);
+        if (changes.size() > CHANGE_JOURNAL_SIZE) {
+            changes.removeFirst();
         }
     }
 
     @Override
     public void addNetworkListener(
             final ZigBeeNetworkStateListener networkListener) {
-        synchronized (this) {
-            final List<ZigBeeNetworkStateListener> modifiedListeners = new ArrayList<ZigBeeNetworkStateListener>(
-                    listeners);
-            modifiedListeners.add(networkListener);
-            listeners = Collections.unmodifiableList(modifiedListeners);
-        }
+        addNetworkListener(networkListener, ZigBeeNetworkStateDispatcher.QUEUE_CAPACITY_DEFAULT,
+                ZigBeeNetworkStateDispatcher.OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Adds network listener with bounded event queue. Events are delivered to the listener
+     * in its own thread in the order the network state changed. Listeners added without
+     * policy use BLOCK so that no events are lost. With BLOCK policy the thread moving events
+     * to a full queue waits without holding network state locks, but a listener changing
+     * the network state while its own queue is full can still block itself.
+     * @param networkListener the network listener
+     * @param capacity the maximum number of events waiting for delivery
+     * @param overflowPolicy the policy applied when the queue is full
+     */
+    public void addNetworkListener(final ZigBeeNetworkStateListener networkListener, final int capacity,
+                                   final ZigBeeNetworkStateDispatcher.OverflowPolicy overflowPolicy) {
+        dispatcher.addListener(networkListener, capacity, overflowPolicy);
     }
 
     @Override
     public void removeNetworkListener(
             final ZigBeeNetworkStateListener networkListener) {
-        synchronized (this) {
-            final List<ZigBeeNetworkStateListener> modifiedListeners = new ArrayList<ZigBeeNetworkStateListener>(
-                    listeners);
-            modifiedListeners.remove(networkListener);
-            listeners = Collections.unmodifiableList(modifiedListeners);
+        dispatcher.removeListener(networkListener);
+    }
+
+    /**
+     * Gets the dispatcher delivering events to network listeners for queue length, dropped
+     * event count and lag metrics.
+     * @return the dispatcher
+     */
+    public ZigBeeNetworkStateDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Immutable snapshot of devices and groups.
+     */
+    private static class Snapshot {
+        /**
+         * The version.
+         */
+        private final long version;
+        /**
+         * The unmodifiable list of devices or null if not yet copied for this version.
+         */
+        private final List<ZigBeeDevice> devices;
+        /**
+         * The unmodifiable list of groups.
+         */
+        private final List<ZigBeeGroupAddress> groups;
+
+        /**
+         * Constructor for setting the snapshot fields.
+         * @param version the version
+         * @param devices the devices
+         * @param groups the groups
+         */
+        private Snapshot(final long version, final List<ZigBeeDevice> devices,
+                         final List<ZigBeeGroupAddress> groups) {
+            this.version = version;
+            this.devices = devices;
+            this.groups = groups;
         }
     }
 
+    /**
+     * Change of device or group.
+     */
+    private static class Change {
+        /**
+         * The version after the change.
+         */
+        private final long version;
+        /**
+         * The changed device or null.
+         */
+        private final ZigBeeDevice device;
+        /**
+         * The changed group or null.
+         */
+        private final ZigBeeGroupAddress group;
+        /**
+         * TRUE if device or group was removed.
+         */
+        private final boolean removed;
+
+        /**
+         * Constructor for setting the change fields.
+         * @param version the version
+         * @param device the device
+         * @param group the group
+         * @param removed TRUE if removed
+         */
+        private Change(final long version, final ZigBeeDevice device, final ZigBeeGroupAddress group,
+                       final boolean removed) {
+            this.version = version;
+            this.device = device;
+            this.group = group;
+            this.removed = removed;
+        }
+    }
 }
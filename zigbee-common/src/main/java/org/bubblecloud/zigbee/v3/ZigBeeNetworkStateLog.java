@@ -0,0 +1,354 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.codehaus.jackson.map.DeserializationConfig;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append only change log of network state. Device and group changes are queued by the caller and
+ * written to the log file by a writer thread which syncs the file once per batch of changes.
+ * The log is periodically compacted by writing the whole network state to the snapshot file
+ * and truncating the log. At startup the snapshot is loaded and the log replayed on top of it.
+ * <p>
+ * The log file contains one JSON array of operation name and arguments per line.
+ */
+public class ZigBeeNetworkStateLog {
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZigBeeNetworkStateLog.class);
+    /**
+     * The number of logged changes after which the log is compacted.
+     */
+    private static final int COMPACTION_CHANGE_COUNT = 1000;
+    /**
+     * The add device operation.
+     */
+    private static final String ADD_DEVICE = "addDevice";
+    /**
+     * The update device operation.
+     */
+    private static final String UPDATE_DEVICE = "updateDevice";
+    /**
+     * The remove device operation.
+     */
+    private static final String REMOVE_DEVICE = "removeDevice";
+    /**
+     * The add group operation.
+     */
+    private static final String ADD_GROUP = "addGroup";
+    /**
+     * The update group operation.
+     */
+    private static final String UPDATE_GROUP = "updateGroup";
+    /**
+     * The remove group operation.
+     */
+    private static final String REMOVE_GROUP = "removeGroup";
+
+    /**
+     * The network state.
+     */
+    private final ZigBeeNetworkStateImpl networkState;
+    /**
+     * The snapshot file.
+     */
+    private final File snapshotFile;
+    /**
+     * The log file.
+     */
+    private final File logFile;
+    /**
+     * The object mapper.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * The changes waiting to be written.
+     */
+    private final BlockingQueue<List<Object>> queue = new LinkedBlockingQueue<List<Object>>();
+    /**
+     * The writer thread.
+     */
+    private final Thread thread;
+    /**
+     * The log output stream.
+     */
+    private FileOutputStream logOutputStream;
+    /**
+     * The number of changes written since last compaction.
+     */
+    private int changeCount = 0;
+    /**
+     * True if log has been stopped.
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructor for setting the network state and files.
+     * @param networkState the network state
+     * @param snapshotFile the snapshot file
+     * @param logFile the log file
+     */
+    public ZigBeeNetworkStateLog(final ZigBeeNetworkStateImpl networkState, final File snapshotFile,
+                                 final File logFile) {
+        this.networkState = networkState;
+        this.snapshotFile = snapshotFile;
+        this.logFile = logFile;
+        objectMapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
+        objectMapper.configure(DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "ZigBee network state log writer");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Replays the log to network state. Replay stops at first line which can not be read,
+     * which is expected if the previous process was stopped while writing the line.
+     * @return the number of replayed changes
+     */
+    public int replay() {
+        if (!logFile.exists()) {
+            return 0;
+        }
+        int replayCount = 0;
+        try {
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(logFile), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final List<Object> change;
+                    try {
+                        change = objectMapper.readValue(line, ArrayList.class);
+                    } catch (final IOException e) {
+                        LOGGER.warn("Ignoring network state log from unreadable line " + (replayCount + 1) + ".", e);
+                        break;
+                    }
+                    apply(change);
+                    replayCount++;
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Error replaying network state log: " + logFile.getAbsolutePath(), e);
+        }
+        return replayCount;
+    }
+
+    /**
+     * Compacts the log and starts the writer thread.
+     * @throws IOException if IO exception occurs in compaction
+     */
+    public void start() throws IOException {
+        compact();
+        thread.start();
+    }
+
+    /**
+     * Stops the writer thread after writing the queued changes and compacts the log.
+     */
+    public void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            LOGGER.warn("Interrupted in network state log writer thread shutdown join.");
+        }
+        try {
+            compact();
+            logOutputStream.close();
+        } catch (final IOException e) {
+            LOGGER.error("Error compacting network state log: " + logFile.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Logs added device.
+     * @param device the device
+     */
+    public void deviceAdded(final ZigBeeDevice device) {
+        queue.add(Arrays.<Object>asList(ADD_DEVICE, device));
+    }
+
+    /**
+     * Logs updated device.
+     * @param device the device
+     */
+    public void deviceUpdated(final ZigBeeDevice device) {
+        queue.add(Arrays.<Object>asList(UPDATE_DEVICE, device));
+    }
+
+    /**
+     * Logs removed device.
+     * @param networkAddress the network address
+     * @param endpoint the endpoint
+     */
+    public void deviceRemoved(final int networkAddress, final int endpoint) {
+        queue.add(Arrays.<Object>asList(REMOVE_DEVICE, networkAddress, endpoint));
+    }
+
+    /**
+     * Logs added group.
+     * @param group the group
+     */
+    public void groupAdded(final ZigBeeGroupAddress group) {
+        queue.add(Arrays.<Object>asList(ADD_GROUP, group));
+    }
+
+    /**
+     * Logs updated group.
+     * @param group the group
+     */
+    public void groupUpdated(final ZigBeeGroupAddress group) {
+        queue.add(Arrays.<Object>asList(UPDATE_GROUP, group));
+    }
+
+    /**
+     * Logs removed group.
+     * @param groupId the group ID
+     */
+    public void groupRemoved(final int groupId) {
+        queue.add(Arrays.<Object>asList(REMOVE_GROUP, groupId));
+    }
+
+    /**
+     * Applies logged change to network state.
+     * @param change the change
+     */
+    private void apply(final List<Object> change) {
+        final String operation = (String) change.get(0);
+        final Object argument = change.get(1);
+        if (ADD_DEVICE.equals(operation)) {
+            networkState.addDevice((ZigBeeDevice) argument);
+        } else if (UPDATE_DEVICE.equals(operation)) {
+            networkState.updateDevice((ZigBeeDevice) argument);
+        } else if (REMOVE_DEVICE.equals(operation)) {
+            networkState.removeDevice(((Number) argument).intValue(), ((Number) change.get(2)).intValue());
+        } else if (ADD_GROUP.equals(operation)) {
+            networkState.addGroup((ZigBeeGroupAddress) argument);
+        } else if (UPDATE_GROUP.equals(operation)) {
+            networkState.updateGroup((ZigBeeGroupAddress) argument);
+        } else if (REMOVE_GROUP.equals(operation)) {
+            networkState.removeGroup(((Number) argument).intValue());
+        } else {
+            LOGGER.warn("Ignoring unknown network state log operation: {}", operation);
+        }
+    }
+
+    /**
+     * Writes queued changes in batches until stopped and compacts the log periodically.
+     */
+    private void writeLoop() {
+        final List<List<Object>> batch = new ArrayList<List<Object>>();
+        while (true) {
+            try {
+                final List<Object> change = queue.poll(1, TimeUnit.SECONDS);
+                if (change != null) {
+                    batch.add(change);
+                }
+            } catch (final InterruptedException e) {
+                LOGGER.trace("Network state log writer interrupted.");
+            }
+            queue.drainTo(batch);
+            try {
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+                if (changeCount >= COMPACTION_CHANGE_COUNT) {
+                    compact();
+                }
+            } catch (final IOException e) {
+                LOGGER.error("Error writing network state log: " + logFile.getAbsolutePath(), e);
+                batch.clear();
+            }
+            if (stopped && queue.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes changes to log and syncs the log file.
+     * @param changes the changes
+     * @throws IOException if IO exception occurs
+     */
+    private void write(final List<List<Object>> changes) throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        for (final List<Object> change : changes) {
+            builder.append(objectMapper.writeValueAsString(change)).append('\n');
+        }
+        logOutputStream.write(builder.toString().getBytes("UTF-8"));
+        logOutputStream.flush();
+        logOutputStream.getFD().sync();
+        changeCount += changes.size();
+    }
+
+    /**
+     * Compacts the log by writing network state to snapshot file and truncating the log.
+     * Network state is locked while queued changes are written so that the snapshot
+     * contains all logged changes. If the process stops before the log has been truncated,
+     * replaying the log on top of the new snapshot results in the same state.
+     * @throws IOException if IO exception occurs
+     */
+    private void compact() throws IOException {
+        if (logOutputStream == null) {
+            logOutputStream = new FileOutputStream(logFile, true);
+        }
+        final byte[] snapshot;
+        synchronized (networkState.getDevicesLock()) {
+            synchronized (networkState.getGroupsLock()) {
+                final List<List<Object>> changes = new ArrayList<List<Object>>();
+                queue.drainTo(changes);
+                if (!changes.isEmpty()) {
+                    write(changes);
+                }
+                snapshot = new ZigBeeNetworkStateBinarySerializer().serialize(networkState);
+            }
+        }
+
+        final File temporaryFile = new File(snapshotFile.getAbsolutePath() + ".tmp");
+        final FileOutputStream snapshotOutputStream = new FileOutputStream(temporaryFile);
+        try {
+            snapshotOutputStream.write(snapshot);
+            snapshotOutputStream.flush();
+            snapshotOutputStream.getFD().sync();
+        } finally {
+            snapshotOutputStream.close();
+        }
+        if (!temporaryFile.renameTo(snapshotFile)) {
+            if (!snapshotFile.delete() || !temporaryFile.renameTo(snapshotFile)) {
+                throw new IOException("Error renaming " + temporaryFile.getAbsolutePath()
+                        + " to " + snapshotFile.getAbsolutePath());
+            }
+        }
+
+        logOutputStream.getChannel().truncate(0);
+        logOutputStream.getFD().sync();
+        LOGGER.debug("Compacted network state log after {} changes.", changeCount);
+        changeCount = 0;
+    }
+}
@@ -4,6 +4,7 @@ import org.bubblecloud.zigbee.v3.Command;
 import org.bubblecloud.zigbee.v3.ZigBeeDevice;
 import org.bubblecloud.zigbee.v3.ZigBeeException;
 import org.bubblecloud.zigbee.v3.ZigBeeGroupAddress;
+import org.bubblecloud.zigbee.v3.ZigBeeNetworkStateChanges;
 
 import java.util.List;
 
@@ -37,6 +38,14 @@ public interface ZigBeeRpcApi {
      */
     String addReceiveQueue();
 
+    /**
+     * Start receiving commands matching filter by creating receive queue.
+     *
+     * @param filter the receive filter
+     * @return the receive queue ID
+     */
+    String addReceiveQueue(final ZigBeeRpcReceiveFilter filter);
+
     /**
      * Stops receiving by removing receive queue.
      *
@@ -52,6 +61,17 @@ public interface ZigBeeRpcApi {
      */
     List<Command> receive(final String receiveQueueId) throws ZigBeeException;
 
+    /**
+     * Receives ZigBee Cluster Library commands waiting for the first command to arrive
+     * if none are queued. Server may limit the wait time.
+     *
+     * @param receiveQueueId the receive queue ID
+     * @param timeoutMillis the maximum time to wait in milliseconds
+     * @return list of commands received which is empty if none arrived before timeout
+     * @throws ZigBeeException if exception occurs in receiving
+     */
+    List<Command> receive(final String receiveQueueId, final long timeoutMillis) throws ZigBeeException;
+
     /**
      * Sets device label.
      * @param networkAddress the network address
@@ -72,6 +92,13 @@ public interface ZigBeeRpcApi {
      */
     List<ZigBeeDevice> getDevices();
 
+    /**
+     * Gets device and group changes since version.
+     * @param version the version known by caller or -1 if none
+     * @return the changes
+     */
+    ZigBeeNetworkStateChanges getChangesSince(long version);
+
     /**
      * Sets group label.
      * @param groupId the group ID
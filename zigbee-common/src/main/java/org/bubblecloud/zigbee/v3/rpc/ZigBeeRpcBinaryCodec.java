@@ -0,0 +1,547 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import org.bubblecloud.zigbee.v3.Command;
+import org.bubblecloud.zigbee.v3.ZigBeeAddress;
+import org.bubblecloud.zigbee.v3.ZigBeeDeviceAddress;
+import org.bubblecloud.zigbee.v3.ZigBeeGroupAddress;
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclCommandProtocol;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclClusterType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.codehaus.jackson.map.DeserializationConfig;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec of the binary ZigBee RPC transport. Frames consist of length, request ID, frame type
+ * and body. Request body contains method name and arguments, response body the return value
+ * and error body the error message. Requests are multiplexed on one connection by request ID.
+ * <p>
+ * ZCL commands are encoded with a small header followed by the ZCL payload as serialized by
+ * {@link ZclCommandProtocol#serializeCommand(ZclCommand)}. Other values are encoded
+ * as JSON.
+ */
+public class ZigBeeRpcBinaryCodec {
+    /**
+     * The authorize frame type. Body contains the access token.
+     */
+    public static final byte AUTHORIZE = 0;
+    /**
+     * The request frame type.
+     */
+    public static final byte REQUEST = 1;
+    /**
+     * The response frame type.
+     */
+    public static final byte RESPONSE = 2;
+    /**
+     * The error frame type.
+     */
+    public static final byte ERROR = 3;
+    /**
+     * The maximum frame length.
+     */
+    public static final int MAXIMUM_FRAME_LENGTH = 16 * 1024 * 1024;
+    /**
+     * The maximum length of authorize frame. Limits memory allocated before client is authorized.
+     */
+    public static final int MAXIMUM_AUTHORIZE_FRAME_LENGTH = 512;
+
+    /**
+     * The null value tag.
+     */
+    private static final byte NULL = 0;
+    /**
+     * The integer value tag.
+     */
+    private static final byte INTEGER = 1;
+    /**
+     * The long value tag.
+     */
+    private static final byte LONG = 2;
+    /**
+     * The string value tag.
+     */
+    private static final byte STRING = 3;
+    /**
+     * The ZCL command value tag.
+     */
+    private static final byte ZCL_COMMAND = 4;
+    /**
+     * The command list value tag.
+     */
+    private static final byte COMMAND_LIST = 5;
+    /**
+     * The JSON value tag.
+     */
+    private static final byte JSON = 6;
+
+    /**
+     * The null address tag.
+     */
+    private static final byte NULL_ADDRESS = 0;
+    /**
+     * The device address tag.
+     */
+    private static final byte DEVICE_ADDRESS = 1;
+    /**
+     * The group address tag.
+     */
+    private static final byte GROUP_ADDRESS = 2;
+
+    /**
+     * The received command type flag.
+     */
+    private static final int FLAG_RECEIVED = 1;
+    /**
+     * The generic command type flag.
+     */
+    private static final int FLAG_GENERIC = 2;
+    /**
+     * The cluster ID present flag.
+     */
+    private static final int FLAG_CLUSTER_ID = 4;
+    /**
+     * The transaction ID present flag.
+     */
+    private static final int FLAG_TRANSACTION_ID = 8;
+
+    /**
+     * The object mapper for values without binary encoding.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Default constructor.
+     */
+    public ZigBeeRpcBinaryCodec() {
+        objectMapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
+        objectMapper.configure(DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Encodes authorize frame.
+     * @param requestId the request ID
+     * @param accessToken the access token
+     * @return the frame
+     * @throws IOException if IO exception occurs
+     */
+    public byte[] encodeAuthorize(final int requestId, final String accessToken) throws IOException {
+        final FrameOutput frame = new FrameOutput(requestId, AUTHORIZE);
+        frame.out.writeUTF(accessToken == null ? "" : accessToken);
+        return frame.toByteArray();
+    }
+
+    /**
+     * Encodes request frame.
+     * @param requestId the request ID
+     * @param method the method name
+     * @param arguments the arguments or null if none
+     * @return the frame
+     * @throws IOException if IO exception occurs
+     */
+    public byte[] encodeRequest(final int requestId, final String method, final Object[] arguments)
+            throws IOException {
+        final FrameOutput frame = new FrameOutput(requestId, REQUEST);
+        frame.out.writeUTF(method);
+        final int argumentCount = arguments == null ? 0 : arguments.length;
+        frame.out.writeByte(argumentCount);
+        for (int i = 0; i < argumentCount; i++) {
+            writeValue(frame.out, arguments[i]);
+        }
+        return frame.toByteArray();
+    }
+
+    /**
+     * Encodes response frame.
+     * @param requestId the request ID
+     * @param value the return value
+     * @return the frame
+     * @throws IOException if IO exception occurs
+     */
+    public byte[] encodeResponse(final int requestId, final Object value) throws IOException {
+        final FrameOutput frame = new FrameOutput(requestId, RESPONSE);
+        writeValue(frame.out, value);
+        return frame.toByteArray();
+    }
+
+    /**
+     * Encodes error frame.
+     * @param requestId the request ID
+     * @param message the error message
+     * @return the frame
+     * @throws IOException if IO exception occurs
+     */
+    public byte[] encodeError(final int requestId, final String message) throws IOException {
+        final FrameOutput frame = new FrameOutput(requestId, ERROR);
+        frame.out.writeUTF(message == null ? "" : message);
+        return frame.toByteArray();
+    }
+
+    /**
+     * Reads frame from input. Blocks until the whole frame has been read.
+     * @param in the input
+     * @return the frame
+     * @throws IOException if IO exception occurs or the input ended
+     */
+    public Frame readFrame(final DataInputStream in) throws IOException {
+        return readFrame(in, MAXIMUM_FRAME_LENGTH);
+    }
+
+    /**
+     * Reads frame from input limiting the frame length. Blocks until the whole frame has been read.
+     * @param in the input
+     * @param maximumLength the maximum frame length
+     * @return the frame
+     * @throws IOException if IO exception occurs, the input ended or the frame is too long
+     */
+    public Frame readFrame(final DataInputStream in, final int maximumLength) throws IOException {
+        final int length = in.readInt();
+        if (length < 5 || length > maximumLength) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        final int requestId = in.readInt();
+        final byte type = in.readByte();
+        final byte[] body = new byte[length - 5];
+        in.readFully(body);
+        return new Frame(requestId, type, body);
+    }
+
+    /**
+     * Writes value.
+     * @param out the output
+     * @param value the value
+     * @throws IOException if IO exception occurs
+     */
+    public void writeValue(final DataOutputStream out, final Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof ZclCommand) {
+            out.writeByte(ZCL_COMMAND);
+            writeZclCommand(out, (ZclCommand) value);
+        } else if (value instanceof List && isCommandList((List<?>) value)) {
+            final List<?> commands = (List<?>) value;
+            out.writeByte(COMMAND_LIST);
+            out.writeInt(commands.size());
+            for (final Object command : commands) {
+                writeValue(out, command);
+            }
+        } else {
+            out.writeByte(JSON);
+            final byte[] json = objectMapper.writeValueAsBytes(value);
+            out.writeInt(json.length);
+            out.write(json);
+        }
+    }
+
+    /**
+     * Reads value.
+     * @param in the input
+     * @param type the expected type used for JSON values
+     * @return the value
+     * @throws IOException if IO exception occurs
+     */
+    public Object readValue(final DataInputStream in, final Type type) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case STRING:
+                return readString(in);
+            case ZCL_COMMAND:
+                return readZclCommand(in);
+            case COMMAND_LIST:
+                final int count = in.readInt();
+                if (count < 0 || count > in.available()) {
+                    throw new IOException("Invalid command count: " + count);
+                }
+                final List<Command> commands = new ArrayList<Command>(count);
+                for (int i = 0; i < count; i++) {
+                    commands.add((Command) readValue(in, Command.class));
+                }
+                return commands;
+            case JSON:
+                final int length = in.readInt();
+                if (length < 0 || length > in.available()) {
+                    throw new IOException("Invalid JSON length: " + length);
+                }
+                final byte[] json = new byte[length];
+                in.readFully(json);
+                return objectMapper.readValue(json, 0, length, objectMapper.getTypeFactory().constructType(type));
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    /**
+     * Writes ZCL command as command type, cluster ID, transaction ID, addresses and ZCL payload.
+     * @param out the output
+     * @param command the command
+     * @throws IOException if IO exception occurs
+     */
+    private void writeZclCommand(final DataOutputStream out, final ZclCommand command) throws IOException {
+        final ZclCommandType type = command.getType();
+        int flags = 0;
+        if (type.isReceived()) {
+            flags |= FLAG_RECEIVED;
+        }
+        if (type.isGeneric()) {
+            flags |= FLAG_GENERIC;
+        }
+        if (command.getClusterId() != null) {
+            flags |= FLAG_CLUSTER_ID;
+        }
+        if (command.getTransactionId() != null) {
+            flags |= FLAG_TRANSACTION_ID;
+        }
+        out.writeShort(type.getClusterType().getProfileType().getId());
+        out.writeShort(type.getClusterType().getId());
+        out.writeByte(type.getId());
+        out.writeByte(flags);
+        if (command.getClusterId() != null) {
+            out.writeShort(command.getClusterId());
+        }
+        if (command.getTransactionId() != null) {
+            out.writeByte(command.getTransactionId());
+        }
+        writeAddress(out, command.getSourceAddress());
+        writeAddress(out, command.getDestinationAddress());
+        final byte[] payload = ZclCommandProtocol.serializeCommand(command);
+        out.writeShort(payload.length);
+        out.write(payload);
+    }
+
+    /**
+     * Reads ZCL command.
+     * @param in the input
+     * @return the command
+     * @throws IOException if IO exception occurs
+     */
+    private Command readZclCommand(final DataInputStream in) throws IOException {
+        final int profileId = in.readUnsignedShort();
+        final int clusterTypeId = in.readUnsignedShort();
+        final int commandId = in.readUnsignedByte();
+        final int flags = in.readUnsignedByte();
+        final ZclCommandType type;
+        if ((flags & FLAG_GENERIC) != 0) {
+            type = ZclCommandType.getGenericValue(profileId, commandId);
+        } else {
+            type = ZclCommandType.getValue(profileId, clusterTypeId, commandId, (flags & FLAG_RECEIVED) != 0);
+        }
+        if (type == null) {
+            throw new IOException("Unknown ZCL command type: " + ZclClusterType.getValueById(clusterTypeId)
+                    + " command " + commandId);
+        }
+        final Integer clusterId = (flags & FLAG_CLUSTER_ID) != 0 ? in.readUnsignedShort() : null;
+        final Byte transactionId = (flags & FLAG_TRANSACTION_ID) != 0 ? in.readByte() : null;
+        final ZigBeeAddress sourceAddress = readAddress(in);
+        final ZigBeeAddress destinationAddress = readAddress(in);
+        final byte[] payload = new byte[in.readUnsignedShort()];
+        in.readFully(payload);
+        final ZclCommand command = ZclCommandProtocol.deserializeCommand(type, payload, 0);
+        command.setClusterId(clusterId);
+        command.setTransactionId(transactionId);
+        command.setSourceAddress(sourceAddress);
+        command.setDestinationAddress(destinationAddress);
+        return command;
+    }
+
+    /**
+     * Writes address.
+     * @param out the output
+     * @param address the address or null
+     * @throws IOException if IO exception occurs
+     */
+    private static void writeAddress(final DataOutputStream out, final ZigBeeAddress address) throws IOException {
+        if (address instanceof ZigBeeDeviceAddress) {
+            out.writeByte(DEVICE_ADDRESS);
+            out.writeShort(((ZigBeeDeviceAddress) address).getAddress());
+            out.writeByte(((ZigBeeDeviceAddress) address).getEndpoint());
+        } else if (address instanceof ZigBeeGroupAddress) {
+            out.writeByte(GROUP_ADDRESS);
+            out.writeShort(((ZigBeeGroupAddress) address).getGroupId());
+        } else {
+            out.writeByte(NULL_ADDRESS);
+        }
+    }
+
+    /**
+     * Reads address.
+     * @param in the input
+     * @return the address or null
+     * @throws IOException if IO exception occurs
+     */
+    private static ZigBeeAddress readAddress(final DataInputStream in) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case DEVICE_ADDRESS:
+                final int networkAddress = in.readUnsignedShort();
+                return new ZigBeeDeviceAddress(networkAddress, in.readUnsignedByte());
+            case GROUP_ADDRESS:
+                return new ZigBeeGroupAddress(in.readUnsignedShort());
+            case NULL_ADDRESS:
+                return null;
+            default:
+                throw new IOException("Unknown address tag: " + tag);
+        }
+    }
+
+    /**
+     * Writes string which may be longer than {@link DataOutputStream#writeUTF(String)} allows.
+     * @param out the output
+     * @param value the value
+     * @throws IOException if IO exception occurs
+     */
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads string.
+     * @param in the input
+     * @return the value
+     * @throws IOException if IO exception occurs
+     */
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Checks whether list contains only commands.
+     * @param list the list
+     * @return TRUE if all elements are commands
+     */
+    private static boolean isCommandList(final List<?> list) {
+        for (final Object element : list) {
+            if (!(element instanceof Command)) {
+                return false;
+            }
+        }
+        return !list.isEmpty();
+    }
+
+    /**
+     * Frame read from input.
+     */
+    public static class Frame {
+        /**
+         * The request ID.
+         */
+        private final int requestId;
+        /**
+         * The frame type.
+         */
+        private final byte type;
+        /**
+         * The frame body.
+         */
+        private final byte[] body;
+
+        /**
+         * Constructor for setting frame fields.
+         * @param requestId the request ID
+         * @param type the frame type
+         * @param body the frame body
+         */
+        private Frame(final int requestId, final byte type, final byte[] body) {
+            this.requestId = requestId;
+            this.type = type;
+            this.body = body;
+        }
+
+        /**
+         * Gets the request ID.
+         * @return the request ID
+         */
+        public int getRequestId() {
+            return requestId;
+        }
+
+        /**
+         * Gets the frame type.
+         * @return the frame type
+         */
+        public byte getType() {
+            return type;
+        }
+
+        /**
+         * Gets input for reading frame body.
+         * @return the input
+         */
+        public DataInputStream getBody() {
+            return new DataInputStream(new ByteArrayInputStream(body));
+        }
+    }
+
+    /**
+     * Output for encoding frame which fills in the length when done.
+     */
+    private static class FrameOutput {
+        /**
+         * The bytes.
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        /**
+         * The data output.
+         */
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        /**
+         * Constructor which writes frame header with placeholder length.
+         * @param requestId the request ID
+         * @param type the frame type
+         * @throws IOException if IO exception occurs
+         */
+        private FrameOutput(final int requestId, final byte type) throws IOException {
+            out.writeInt(0);
+            out.writeInt(requestId);
+            out.writeByte(type);
+        }
+
+        /**
+         * Gets the frame bytes with length filled in.
+         * @return the frame
+         * @throws IOException if IO exception occurs
+         */
+        private byte[] toByteArray() throws IOException {
+            out.flush();
+            final byte[] frame = bytes.toByteArray();
+            final int length = frame.length - 4;
+            frame[0] = (byte) (length >>> 24);
+            frame[1] = (byte) (length >>> 16);
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+            return frame;
+        }
+    }
+}
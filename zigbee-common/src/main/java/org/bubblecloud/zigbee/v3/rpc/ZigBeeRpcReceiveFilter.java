@@ -0,0 +1,94 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Value class defining which received commands are delivered to a receive queue. Empty set
+ * means that the corresponding property is not filtered. Command must match all
+ * non-empty sets to be delivered. Attribute reports can further be limited to one report
+ * per attribute in the minimum interval. The latest value reported within the interval is
+ * delivered when the interval has passed.
+ */
+public class ZigBeeRpcReceiveFilter {
+    /**
+     * The source network addresses.
+     */
+    private Set<Integer> sourceAddresses = new HashSet<Integer>();
+    /**
+     * The cluster IDs.
+     */
+    private Set<Integer> clusterIds = new HashSet<Integer>();
+    /**
+     * The command types as simple class names, for example ReportAttributesCommand.
+     */
+    private Set<String> commandTypes = new HashSet<String>();
+    /**
+     * The minimum interval between reports of an attribute in milliseconds or 0 for no limit.
+     */
+    private long minimumReportIntervalMillis;
+
+    /**
+     * Gets the source network addresses.
+     * @return the source network addresses
+     */
+    public Set<Integer> getSourceAddresses() {
+        return sourceAddresses;
+    }
+
+    /**
+     * Sets the source network addresses.
+     * @param sourceAddresses the source network addresses
+     */
+    public void setSourceAddresses(final Set<Integer> sourceAddresses) {
+        this.sourceAddresses = sourceAddresses;
+    }
+
+    /**
+     * Gets the cluster IDs.
+     * @return the cluster IDs
+     */
+    public Set<Integer> getClusterIds() {
+        return clusterIds;
+    }
+
+    /**
+     * Sets the cluster IDs.
+     * @param clusterIds the cluster IDs
+     */
+    public void setClusterIds(final Set<Integer> clusterIds) {
+        this.clusterIds = clusterIds;
+    }
+
+    /**
+     * Gets the command types as simple class names.
+     * @return the command types
+     */
+    public Set<String> getCommandTypes() {
+        return commandTypes;
+    }
+
+    /**
+     * Sets the command types as simple class names.
+     * @param commandTypes the command types
+     */
+    public void setCommandTypes(final Set<String> commandTypes) {
+        this.commandTypes = commandTypes;
+    }
+
+    /**
+     * Gets the minimum interval between reports of an attribute.
+     * @return the minimum interval in milliseconds or 0 for no limit
+     */
+    public long getMinimumReportIntervalMillis() {
+        return minimumReportIntervalMillis;
+    }
+
+    /**
+     * Sets the minimum interval between reports of an attribute.
+     * @param minimumReportIntervalMillis the minimum interval in milliseconds or 0 for no limit
+     */
+    public void setMinimumReportIntervalMillis(final long minimumReportIntervalMillis) {
+        this.minimumReportIntervalMillis = minimumReportIntervalMillis;
+    }
+}
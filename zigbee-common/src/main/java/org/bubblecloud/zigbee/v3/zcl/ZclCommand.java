@@ -146,6 +146,20 @@ public class ZclCommand extends Command {
         return commandMessage;
     }
 
+    /**
+     * Reads command fields from ZCL payload. Overridden by command classes with fields.
+     * @param deserializer the field deserializer
+     */
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+    }
+
+    /**
+     * Writes command fields to ZCL payload. Overridden by command classes with fields.
+     * @param serializer the field serializer
+     */
+    public void serializeFields(final ZclFieldSerializer serializer) {
+    }
+
     @Override
     public String toString() {
         Integer resolvedClusterId = getClusterId();
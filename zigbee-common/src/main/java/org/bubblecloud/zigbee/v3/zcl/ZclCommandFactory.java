@@ -0,0 +1,20 @@
+package org.bubblecloud.zigbee.v3.zcl;
+
+/**
+ * Factory constructing command value objects of one ZCL command type. Code generated
+ * factories are registered to {@link ZclUtil} to avoid reflection when commands are received.
+ */
+public interface ZclCommandFactory {
+    /**
+     * Constructs empty command.
+     * @return the command
+     */
+    ZclCommand createCommand();
+
+    /**
+     * Constructs command from command message.
+     * @param message the command message
+     * @return the command
+     */
+    ZclCommand createCommand(final ZclCommandMessage message);
+}
@@ -38,6 +38,30 @@ public class ZclCommandProtocol {
      */
     private Map<ZclCommandType, ZclCommandFormat> commandFormats = new HashMap<ZclCommandType, ZclCommandFormat>();
 
+    /**
+     * Deserializes command from payload with the field decoder generated to the command class.
+     * @param type the command type
+     * @param payload the payload
+     * @param offset the offset of command fields in payload
+     * @return the command without addresses and transaction ID
+     */
+    public static ZclCommand deserializeCommand(final ZclCommandType type, final byte[] payload, final int offset) {
+        final ZclCommand command = ZclUtil.newCommand(type);
+        command.deserializeFields(new ZclFieldDeserializer(payload, offset));
+        return command;
+    }
+
+    /**
+     * Serializes command fields with the field encoder generated to the command class.
+     * @param command the command
+     * @return the payload
+     */
+    public static byte[] serializeCommand(final ZclCommand command) {
+        final ZclFieldSerializer serializer = new ZclFieldSerializer();
+        command.serializeFields(serializer);
+        return serializer.getPayload();
+    }
+
     /**
      * Deserializes fields from payload.
      * @param payload the payload
@@ -22,7 +22,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * ZCL field deserializer.
+ * ZCL field deserializer. Code generated command classes read their fields with the typed
+ * read methods and fall back to {@link #deserialize(ZclDataType)} for strings, addresses
+ * and lists.
  *
  * @author Tommi S.E. Laukkanen
  */
@@ -49,15 +51,9 @@ public class ZclFieldDeserializer {
      */
     public Object deserialize(final ZclDataType dataType) {
         if (ZclListItemField.class.isAssignableFrom(dataType.getDataClass())) {
-            final Class dataTypeClass = dataType.getDataClass();
             final List<ZclListItemField> list = new ArrayList<ZclListItemField>();
             while (defaultDeserializer.getSize() - defaultDeserializer.getPosition() > 0 ) {
-                final ZclListItemField item;
-                try {
-                    item = (ZclListItemField) dataTypeClass.newInstance();
-                } catch (final Exception e) {
-                    throw new IllegalArgumentException("Error deserializing field: " + dataType.getLabel(), e);
-                }
+                final ZclListItemField item = ZclUtil.newListItemField(dataType);
                 item.deserialize(this.defaultDeserializer);
                 list.add(item);
             }
@@ -67,4 +63,44 @@ public class ZclFieldDeserializer {
         return defaultDeserializer.readZigBeeType(ZclUtil.mapDataType(dataType));
     }
 
+    /**
+     * Reads boolean field.
+     * @return the value
+     */
+    public boolean readBoolean() {
+        return defaultDeserializer.read_boolean();
+    }
+
+    /**
+     * Reads unsigned 8-bit integer, 8-bit bitmap, 8-bit data or 8-bit enumeration field.
+     * @return the value
+     */
+    public int readUnsigned8BitInteger() {
+        return defaultDeserializer.read_byte() & 0xFF;
+    }
+
+    /**
+     * Reads signed 8-bit integer field.
+     * @return the value
+     */
+    public int readSigned8BitInteger() {
+        return defaultDeserializer.read_byte();
+    }
+
+    /**
+     * Reads unsigned 16-bit integer field.
+     * @return the value
+     */
+    public int readUnsigned16BitInteger() {
+        return defaultDeserializer.read_short() & 0xFFFF;
+    }
+
+    /**
+     * Reads signed 16-bit integer, 16-bit bitmap or 16-bit enumeration field.
+     * @return the value
+     */
+    public int readSigned16BitInteger() {
+        return defaultDeserializer.read_short();
+    }
+
 }
@@ -21,7 +21,9 @@ import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import java.util.List;
 
 /**
- * ZCL field serializer.
+ * ZCL field serializer. Code generated command classes write their fields with the typed
+ * write methods and fall back to {@link #serialize(Object, ZclDataType)} for strings, addresses
+ * and lists.
  *
  * @author Tommi S.E. Laukkanen
  */
@@ -50,6 +52,30 @@ public class ZclFieldSerializer {
         serializer.appendZigBeeType(value, ZclUtil.mapDataType(dataType));
     }
 
+    /**
+     * Writes boolean field.
+     * @param value the value
+     */
+    public void writeBoolean(final boolean value) {
+        serializer.append_boolean(value);
+    }
+
+    /**
+     * Writes 8-bit integer, bitmap, data or enumeration field.
+     * @param value the value
+     */
+    public void write8BitInteger(final int value) {
+        serializer.append_byte((byte) value);
+    }
+
+    /**
+     * Writes 16-bit integer, bitmap or enumeration field.
+     * @param value the value
+     */
+    public void write16BitInteger(final int value) {
+        serializer.append_short((short) value);
+    }
+
     /**
      * Gets payload.
      * @return the payload
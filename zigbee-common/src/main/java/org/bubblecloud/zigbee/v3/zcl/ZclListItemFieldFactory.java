@@ -0,0 +1,13 @@
+package org.bubblecloud.zigbee.v3.zcl;
+
+/**
+ * Factory constructing list item fields of one ZCL data type. Code generated factories
+ * are registered to {@link ZclUtil} to avoid reflection when list fields are deserialized.
+ */
+public interface ZclListItemFieldFactory {
+    /**
+     * Constructs empty list item field.
+     * @return the list item field
+     */
+    ZclListItemField createField();
+}
@@ -18,6 +18,7 @@ package org.bubblecloud.zigbee.v3.zcl;
 import org.apache.commons.lang.StringUtils;
 import org.bubblecloud.zigbee.v3.model.ZigBeeType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandTypeRegistrar;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +46,20 @@ public class ZclUtil {
      * Mapping between specialized ZclCommand value object class and ZclCommandType enumeration value.
      */
     private static Map<Class<? extends ZclCommand>, ZclCommandType> commandClassTypeMap = new HashMap();
+    /**
+     * The command factories indexed by ZclCommandType ordinal.
+     */
+    private static final ZclCommandFactory[] commandFactories = new ZclCommandFactory[ZclCommandType.values().length];
+    /**
+     * The list item field factories indexed by ZclDataType ordinal.
+     */
+    private static final ZclListItemFieldFactory[] listItemFieldFactories =
+            new ZclListItemFieldFactory[ZclDataType.values().length];
+
+    static {
+        ZclCommandTypeRegistrar.register();
+    }
+
     /**
      * Register command type and class mapping.
      * @param commandType the command type
@@ -54,21 +69,64 @@ public class ZclUtil {
         commandTypeClassMap.put(commandType, commandClass);
         commandClassTypeMap.put(commandClass, commandType);
     }
+    /**
+     * Register command factory.
+     * @param commandType the command type
+     * @param commandFactory the command factory
+     */
+    public static void registerCommandFactory(final ZclCommandType commandType, final ZclCommandFactory commandFactory) {
+        commandFactories[commandType.ordinal()] = commandFactory;
+    }
+    /**
+     * Register list item field factory.
+     * @param dataType the list data type
+     * @param listItemFieldFactory the list item field factory
+     */
+    public static void registerListItemFieldFactory(final ZclDataType dataType,
+                                                    final ZclListItemFieldFactory listItemFieldFactory) {
+        listItemFieldFactories[dataType.ordinal()] = listItemFieldFactory;
+    }
     /**
      * Converts message to command.
      * @param message the message
      * @return the command
      */
     public static ZclCommand toCommand(final ZclCommandMessage message) {
-        final Class<? extends ZclCommand> commandClass = commandTypeClassMap.get(message.getType());
-        final ZclCommand command;
-        try {
-            command = commandClass.getConstructor(ZclCommandMessage.class).newInstance(message);
-        } catch (final Exception e) {
-            throw new IllegalArgumentException("Error in converting message to command: " + message, e);
+        return getCommandFactory(message.getType()).createCommand(message);
+    }
+    /**
+     * Constructs empty command of given type.
+     * @param commandType the command type
+     * @return the command
+     */
+    public static ZclCommand newCommand(final ZclCommandType commandType) {
+        return getCommandFactory(commandType).createCommand();
+    }
+    /**
+     * Constructs empty list item field of given list data type.
+     * @param dataType the list data type
+     * @return the list item field
+     */
+    public static ZclListItemField newListItemField(final ZclDataType dataType) {
+        final ZclListItemFieldFactory listItemFieldFactory = listItemFieldFactories[dataType.ordinal()];
+        if (listItemFieldFactory == null) {
+            throw new IllegalArgumentException("List item field factory not registered: " + dataType.getLabel());
         }
-        return command;
+        return listItemFieldFactory.createField();
     }
+    /**
+     * Gets command factory of given type.
+     * @param commandType the command type
+     * @return the command factory
+     */
+    private static ZclCommandFactory getCommandFactory(final ZclCommandType commandType) {
+        final ZclCommandFactory commandFactory = commandType != null ? commandFactories[commandType.ordinal()] : null;
+        if (commandFactory == null) {
+            throw new IllegalArgumentException("Command factory not registered: " + commandType);
+        }
+        return commandFactory;
+    }
+
     /**
      * Converts command to nessage.
      * @param command the command
@@ -117,6 +117,10 @@ public enum ZclCommandType {
     WRITE_ATTRIBUTES_STRUCTURED_COMMAND(15, ZclClusterType.GENERAL, "Write Attributes Structured Command", true, true),
     WRITE_ATTRIBUTES_STRUCTURED_RESPONSE_COMMAND(16, ZclClusterType.GENERAL, "Write Attributes Structured Response Command", true, true);
 
+    private static final int LOOKUP_TABLE_SIZE = Integer.highestOneBit(values().length * 4);
+    private static final long[] lookupKeys = new long[LOOKUP_TABLE_SIZE];
+    private static final ZclCommandType[] lookupValues = new ZclCommandType[LOOKUP_TABLE_SIZE];
+
     private final int id;
     private final ZclClusterType clusterType;
     private final String label;
@@ -138,4 +142,62 @@ public enum ZclCommandType {
     public boolean isGeneric() { return generic; }
     public String toString() { return label; }
 
+    /**
+     * Gets cluster specific command type without allocation.
+     * @param profileId the profile ID
+     * @param clusterId the cluster ID
+     * @param commandId the command ID
+     * @param received true for client to server direction
+     * @return the command type or null if not found
+     */
+    public static ZclCommandType getValue(final int profileId, final int clusterId, final int commandId,
+                                          final boolean received) {
+        return lookup(getLookupKey(profileId, clusterId, commandId, received, false));
+    }
+
+    /**
+     * Gets generic command type without allocation.
+     * @param profileId the profile ID
+     * @param commandId the command ID
+     * @return the command type or null if not found
+     */
+    public static ZclCommandType getGenericValue(final int profileId, final int commandId) {
+        return lookup(getLookupKey(profileId, ZclClusterType.GENERAL.getId(), commandId, true, true));
+    }
+
+    private static ZclCommandType lookup(final long key) {
+        int index = getLookupIndex(key);
+        while (lookupValues[index] != null) {
+            if (lookupKeys[index] == key) {
+                return lookupValues[index];
+            }
+            index = (index + 1) & (LOOKUP_TABLE_SIZE - 1);
+        }
+        return null;
+    }
+
+    private static long getLookupKey(final int profileId, final int clusterId, final int commandId,
+                                     final boolean received, final boolean generic) {
+        return ((long) (profileId & 0xffff) << 26) | ((long) (clusterId & 0xffff) << 10) | ((commandId & 0xff) << 2)
+                | (generic ? 2 : (received ? 1 : 0));
+    }
+
+    private static int getLookupIndex(final long key) {
+        final int hash = (int) (key ^ (key >>> 32)) * 0x9e3779b9;
+        return (hash ^ (hash >>> 16)) & (LOOKUP_TABLE_SIZE - 1);
+    }
+
+    static {
+        for (final ZclCommandType value : values()) {
+            final long key = getLookupKey(value.clusterType.getProfileType().getId(), value.clusterType.getId(),
+                    value.id, value.received, value.generic);
+            int index = getLookupIndex(key);
+            while (lookupValues[index] != null) {
+                index = (index + 1) & (LOOKUP_TABLE_SIZE - 1);
+            }
+            lookupKeys[index] = key;
+            lookupValues[index] = value;
+        }
+    }
+
 }
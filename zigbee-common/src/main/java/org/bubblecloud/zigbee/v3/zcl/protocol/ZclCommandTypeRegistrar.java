@@ -1,359 +1,1593 @@
 package org.bubblecloud.zigbee.v3.zcl.protocol;
 
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclCommandFactory;
+import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
+import org.bubblecloud.zigbee.v3.zcl.ZclListItemField;
+import org.bubblecloud.zigbee.v3.zcl.ZclListItemFieldFactory;
 import org.bubblecloud.zigbee.v3.zcl.ZclUtil;
+import org.bubblecloud.zigbee.v3.zcl.field.*;
 
 /**
  * Code generated command type registrar class.
  */
 public class ZclCommandTypeRegistrar {
     /**
-     * Register command types.
+     * Register command types and factories of command and list item field classes.
      */
     public static void register() {
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_ATTRIBUTE_IDENTIFIER, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new AttributeIdentifier();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_ATTRIBUTE_INFORMATION, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new AttributeInformation();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_ATTRIBUTE_RECORD, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new AttributeRecord();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_ATTRIBUTE_REPORT, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new AttributeReport();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_ATTRIBUTE_REPORTING_CONFIGURATION_RECORD, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new AttributeReportingConfigurationRecord();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_ATTRIBUTE_STATUS_RECORD, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new AttributeStatusRecord();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_EXTENSION_FIELD_SET, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new ExtensionFieldSet();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_NEIGHBORS_INFORMATION, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new NeighborInformation();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_READ_ATTRIBUTE_STATUS_RECORD, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new ReadAttributeStatusRecord();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_UNSIGNED_16_BIT_INTEGER, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new Unsigned16BitInteger();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_UNSIGNED_8_BIT_INTEGER, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new Unsigned8BitInteger();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_WRITE_ATTRIBUTE_RECORD, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new WriteAttributeRecord();
+            }
+        });
+        ZclUtil.registerListItemFieldFactory(ZclDataType.N_X_WRITE_ATTRIBUTE_STATUS_RECORD, new ZclListItemFieldFactory() {
+            @Override
+            public ZclListItemField createField() {
+                return new WriteAttributeStatusRecord();
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESET_TO_FACTORY_DEFAULTS_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.basic.
             ResetToFactoryDefaultsCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESET_TO_FACTORY_DEFAULTS_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.basic.ResetToFactoryDefaultsCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.basic.ResetToFactoryDefaultsCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.IDENTIFY_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.identify.
             IdentifyCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.IDENTIFY_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.identify.IdentifyCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.identify.IdentifyCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.IDENTIFY_QUERY_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.identify.
             IdentifyQueryCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.IDENTIFY_QUERY_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.identify.IdentifyQueryCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.identify.IdentifyQueryCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.IDENTIFY_QUERY_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.identify.
             IdentifyQueryResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.IDENTIFY_QUERY_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.identify.IdentifyQueryResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.identify.IdentifyQueryResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ADD_GROUP_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             AddGroupCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ADD_GROUP_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.AddGroupCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.AddGroupCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.VIEW_GROUP_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             ViewGroupCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.VIEW_GROUP_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.ViewGroupCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.ViewGroupCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_GROUP_MEMBERSHIP_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             GetGroupMembershipCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_GROUP_MEMBERSHIP_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.GetGroupMembershipCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.GetGroupMembershipCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REMOVE_GROUP_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             RemoveGroupCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REMOVE_GROUP_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.RemoveGroupCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.RemoveGroupCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REMOVE_ALL_GROUPS_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             RemoveAllGroupsCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REMOVE_ALL_GROUPS_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.RemoveAllGroupsCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.RemoveAllGroupsCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ADD_GROUP_IF_IDENTIFYING_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             AddGroupIfIdentifyingCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ADD_GROUP_IF_IDENTIFYING_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.AddGroupIfIdentifyingCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.AddGroupIfIdentifyingCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ADD_GROUP_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             AddGroupResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ADD_GROUP_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.AddGroupResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.AddGroupResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.VIEW_GROUP_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             ViewGroupResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.VIEW_GROUP_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.ViewGroupResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.ViewGroupResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_GROUP_MEMBERSHIP_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             GetGroupMembershipResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_GROUP_MEMBERSHIP_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.GetGroupMembershipResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.GetGroupMembershipResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REMOVE_GROUP_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.
             RemoveGroupResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REMOVE_GROUP_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.RemoveGroupResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.groups.RemoveGroupResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ADD_SCENE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             AddSceneCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ADD_SCENE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.AddSceneCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.AddSceneCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.VIEW_SCENE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             ViewSceneCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.VIEW_SCENE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.ViewSceneCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.ViewSceneCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REMOVE_SCENE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             RemoveSceneCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REMOVE_SCENE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RemoveSceneCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RemoveSceneCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REMOVE_ALL_SCENES_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             RemoveAllScenesCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REMOVE_ALL_SCENES_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RemoveAllScenesCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RemoveAllScenesCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.STORE_SCENE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             StoreSceneCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.STORE_SCENE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.StoreSceneCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.StoreSceneCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RECALL_SCENE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             RecallSceneCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RECALL_SCENE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RecallSceneCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RecallSceneCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_SCENE_MEMBERSHIP_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             GetSceneMembershipCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_SCENE_MEMBERSHIP_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.GetSceneMembershipCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.GetSceneMembershipCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ADD_SCENE_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             AddSceneResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ADD_SCENE_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.AddSceneResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.AddSceneResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.VIEW_SCENE_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             ViewSceneResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.VIEW_SCENE_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.ViewSceneResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.ViewSceneResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REMOVE_SCENE_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             RemoveSceneResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REMOVE_SCENE_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RemoveSceneResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RemoveSceneResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REMOVE_ALL_SCENES_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             RemoveAllScenesResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REMOVE_ALL_SCENES_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RemoveAllScenesResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.RemoveAllScenesResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.STORE_SCENE_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             StoreSceneResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.STORE_SCENE_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.StoreSceneResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.StoreSceneResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_SCENE_MEMBERSHIP_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.
             GetSceneMembershipResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_SCENE_MEMBERSHIP_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.GetSceneMembershipResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.scenes.GetSceneMembershipResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.OFF_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.
             OffCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.OFF_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OffCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OffCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ON_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.
             OnCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ON_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OnCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OnCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.TOGGLE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.
             ToggleCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.TOGGLE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.ToggleCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.ToggleCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_TO_LEVEL_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.
             MoveToLevelCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_TO_LEVEL_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveToLevelCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveToLevelCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.
             MoveCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.STEP_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.
             StepCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.STEP_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.StepCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.StepCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.STOP_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.
             StopCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.STOP_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.StopCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.StopCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_TO_LEVEL__WITH_ON_OFF__COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.
             MoveToLevelWithOnOffCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_TO_LEVEL__WITH_ON_OFF__COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveToLevelWithOnOffCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveToLevelWithOnOffCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE__WITH_ON_OFF__COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.
             MoveWithOnOffCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE__WITH_ON_OFF__COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveWithOnOffCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveWithOnOffCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.STEP__WITH_ON_OFF__COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.
             StepWithOnOffCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.STEP__WITH_ON_OFF__COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.StepWithOnOffCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.StepWithOnOffCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.STOP_2_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.
             Stop2Command.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.STOP_2_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.Stop2Command();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.Stop2Command(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESET_ALARM_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.
             ResetAlarmCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESET_ALARM_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.ResetAlarmCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.ResetAlarmCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESET_ALL_ALARMS_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.
             ResetAllAlarmsCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESET_ALL_ALARMS_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.ResetAllAlarmsCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.ResetAllAlarmsCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_ALARM_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.
             GetAlarmCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_ALARM_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.GetAlarmCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.GetAlarmCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESET_ALARM_LOG_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.
             ResetAlarmLogCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESET_ALARM_LOG_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.ResetAlarmLogCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.ResetAlarmLogCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ALARM_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.
             AlarmCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ALARM_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.AlarmCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.AlarmCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_ALARM_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.
             GetAlarmResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_ALARM_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.GetAlarmResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms.GetAlarmResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.SET_ABSOLUTE_LOCATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             SetAbsoluteLocationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.SET_ABSOLUTE_LOCATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.SetAbsoluteLocationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.SetAbsoluteLocationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.SET_DEVICE_CONFIGURATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             SetDeviceConfigurationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.SET_DEVICE_CONFIGURATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.SetDeviceConfigurationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.SetDeviceConfigurationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_DEVICE_CONFIGURATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             GetDeviceConfigurationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_DEVICE_CONFIGURATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.GetDeviceConfigurationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.GetDeviceConfigurationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_LOCATION_DATA_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             GetLocationDataCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_LOCATION_DATA_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.GetLocationDataCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.GetLocationDataCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RSSI_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             RssiResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RSSI_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.RssiResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.RssiResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.SEND_PINGS_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             SendPingsCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.SEND_PINGS_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.SendPingsCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.SendPingsCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ANCHOR_NODE_ANNOUNCE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             AnchorNodeAnnounceCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ANCHOR_NODE_ANNOUNCE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.AnchorNodeAnnounceCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.AnchorNodeAnnounceCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.DEVICE_CONFIGURATION_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             DeviceConfigurationResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.DEVICE_CONFIGURATION_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.DeviceConfigurationResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.DeviceConfigurationResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.LOCATION_DATA_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             LocationDataResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.LOCATION_DATA_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.LocationDataResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.LocationDataResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.LOCATION_DATA_NOTIFICATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             LocationDataNotificationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.LOCATION_DATA_NOTIFICATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.LocationDataNotificationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.LocationDataNotificationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.COMPACT_LOCATION_DATA_NOTIFICATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             CompactLocationDataNotificationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.COMPACT_LOCATION_DATA_NOTIFICATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.CompactLocationDataNotificationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.CompactLocationDataNotificationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RSSI_PING_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             RssiPingCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RSSI_PING_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.RssiPingCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.RssiPingCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RSSI_REQUEST_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             RssiRequestCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RSSI_REQUEST_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.RssiRequestCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.RssiRequestCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REPORT_RSSI_MEASUREMENTS_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             ReportRssiMeasurementsCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REPORT_RSSI_MEASUREMENTS_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.ReportRssiMeasurementsCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.ReportRssiMeasurementsCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REQUEST_OWN_LOCATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.
             RequestOwnLocationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REQUEST_OWN_LOCATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.RequestOwnLocationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location.RequestOwnLocationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESTART_DEVICE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.
             RestartDeviceCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESTART_DEVICE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.RestartDeviceCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.RestartDeviceCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.SAVE_STARTUP_PARAMETERS_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.
             SaveStartupParametersCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.SAVE_STARTUP_PARAMETERS_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.SaveStartupParametersCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.SaveStartupParametersCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESTORE_STARTUP_PARAMETERS_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.
             RestoreStartupParametersCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESTORE_STARTUP_PARAMETERS_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.RestoreStartupParametersCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.RestoreStartupParametersCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESET_STARTUP_PARAMETERS_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.
             ResetStartupParametersCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESET_STARTUP_PARAMETERS_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.ResetStartupParametersCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.ResetStartupParametersCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESTART_DEVICE_RESPONSE_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.
             RestartDeviceResponseResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESTART_DEVICE_RESPONSE_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.RestartDeviceResponseResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.RestartDeviceResponseResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.SAVE_STARTUP_PARAMETERS_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.
             SaveStartupParametersResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.SAVE_STARTUP_PARAMETERS_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.SaveStartupParametersResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.SaveStartupParametersResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESTORE_STARTUP_PARAMETERS_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.
             RestoreStartupParametersResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESTORE_STARTUP_PARAMETERS_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.RestoreStartupParametersResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.RestoreStartupParametersResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.RESET_STARTUP_PARAMETERS_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.
             ResetStartupParametersResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.RESET_STARTUP_PARAMETERS_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.ResetStartupParametersResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.commissioning.ResetStartupParametersResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.LOCK_DOOR_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.
             LockDoorCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.LOCK_DOOR_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.LockDoorCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.LockDoorCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.UNLOCK_DOOR_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.
             UnlockDoorCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.UNLOCK_DOOR_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.UnlockDoorCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.UnlockDoorCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.LOCK_DOOR_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.
             LockDoorResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.LOCK_DOOR_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.LockDoorResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.LockDoorResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.UNLOCK_DOOR_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.
             UnlockDoorResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.UNLOCK_DOOR_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.UnlockDoorResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.UnlockDoorResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.SETPOINT_RAISE_LOWER_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.thermostat.
             SetpointRaiseLowerCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.SETPOINT_RAISE_LOWER_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.thermostat.SetpointRaiseLowerCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.thermostat.SetpointRaiseLowerCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_TO_HUE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             MoveToHueCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_TO_HUE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToHueCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToHueCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_HUE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             MoveHueCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_HUE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveHueCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveHueCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.STEP_HUE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             StepHueCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.STEP_HUE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.StepHueCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.StepHueCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_TO_SATURATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             MoveToSaturationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_TO_SATURATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToSaturationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToSaturationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_SATURATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             MoveSaturationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_SATURATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveSaturationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveSaturationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.STEP_SATURATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             StepSaturationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.STEP_SATURATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.StepSaturationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.StepSaturationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_TO_HUE_AND_SATURATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             MoveToHueAndSaturationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_TO_HUE_AND_SATURATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToHueAndSaturationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToHueAndSaturationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_TO_COLOR_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             MoveToColorCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_TO_COLOR_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToColorCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToColorCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_COLOR_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             MoveColorCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_COLOR_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveColorCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveColorCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.STEP_COLOR_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             StepColorCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.STEP_COLOR_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.StepColorCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.StepColorCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.MOVE_TO_COLOR_TEMPERATURE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.
             MoveToColorTemperatureCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.MOVE_TO_COLOR_TEMPERATURE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToColorTemperatureCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control.MoveToColorTemperatureCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ZONE_ENROLL_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.zone.
             ZoneEnrollResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ZONE_ENROLL_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.zone.ZoneEnrollResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.zone.ZoneEnrollResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ZONE_STATUS_CHANGE_NOTIFICATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.zone.
             ZoneStatusChangeNotificationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ZONE_STATUS_CHANGE_NOTIFICATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.zone.ZoneStatusChangeNotificationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.zone.ZoneStatusChangeNotificationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ZONE_ENROLL_REQUEST_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.zone.
             ZoneEnrollRequestCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ZONE_ENROLL_REQUEST_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.zone.ZoneEnrollRequestCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.zone.ZoneEnrollRequestCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ARM_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             ArmCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ARM_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.ArmCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.ArmCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.BYPASS_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             BypassCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.BYPASS_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.BypassCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.BypassCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.EMERGENCY_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             EmergencyCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.EMERGENCY_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.EmergencyCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.EmergencyCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.FIRE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             FireCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.FIRE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.FireCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.FireCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.PANIC_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             PanicCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.PANIC_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.PanicCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.PanicCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_ZONE_ID_MAP_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             GetZoneIdMapCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_ZONE_ID_MAP_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.GetZoneIdMapCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.GetZoneIdMapCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_ZONE_INFORMATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             GetZoneInformationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_ZONE_INFORMATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.GetZoneInformationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.GetZoneInformationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.ARM_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             ArmResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.ARM_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.ArmResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.ArmResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_ZONE_ID_MAP_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             GetZoneIdMapResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_ZONE_ID_MAP_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.GetZoneIdMapResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.GetZoneIdMapResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.GET_ZONE_INFORMATION_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.
             GetZoneInformationResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.GET_ZONE_INFORMATION_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.GetZoneInformationResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace.GetZoneInformationResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.START_WARNING_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.wd.
             StartWarningCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.START_WARNING_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.wd.StartWarningCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.wd.StartWarningCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.SQUAWK_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.wd.
             SquawkCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.SQUAWK_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.wd.SquawkCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.wd.SquawkCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.READ_ATTRIBUTES_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             ReadAttributesCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.READ_ATTRIBUTES_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.READ_ATTRIBUTES_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             ReadAttributesResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.READ_ATTRIBUTES_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.WRITE_ATTRIBUTES_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             WriteAttributesCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.WRITE_ATTRIBUTES_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.WRITE_ATTRIBUTES_UNDIVIDED_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             WriteAttributesUndividedCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.WRITE_ATTRIBUTES_UNDIVIDED_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesUndividedCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesUndividedCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.WRITE_ATTRIBUTES_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             WriteAttributesResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.WRITE_ATTRIBUTES_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.WRITE_ATTRIBUTES_NO_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             WriteAttributesNoResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.WRITE_ATTRIBUTES_NO_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesNoResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesNoResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.CONFIGURE_REPORTING_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             ConfigureReportingCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.CONFIGURE_REPORTING_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ConfigureReportingCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ConfigureReportingCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.CONFIGURE_REPORTING_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             ConfigureReportingResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.CONFIGURE_REPORTING_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ConfigureReportingResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ConfigureReportingResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.READ_REPORTING_CONFIGURATION_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             ReadReportingConfigurationCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.READ_REPORTING_CONFIGURATION_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadReportingConfigurationCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadReportingConfigurationCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.READ_REPORTING_CONFIGURATION_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             ReadReportingConfigurationResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.READ_REPORTING_CONFIGURATION_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadReportingConfigurationResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadReportingConfigurationResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.REPORT_ATTRIBUTES_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             ReportAttributesCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.REPORT_ATTRIBUTES_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReportAttributesCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReportAttributesCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.DEFAULT_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             DefaultResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.DEFAULT_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.DefaultResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.DefaultResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.DISCOVER_ATTRIBUTES_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             DiscoverAttributesCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.DISCOVER_ATTRIBUTES_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.DiscoverAttributesCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.DiscoverAttributesCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.DISCOVER_ATTRIBUTES_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             DiscoverAttributesResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.DISCOVER_ATTRIBUTES_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.DiscoverAttributesResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.DiscoverAttributesResponseCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.READ_ATTRIBUTES_STRUCTURED_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             ReadAttributesStructuredCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.READ_ATTRIBUTES_STRUCTURED_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesStructuredCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesStructuredCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.WRITE_ATTRIBUTES_STRUCTURED_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             WriteAttributesStructuredCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.WRITE_ATTRIBUTES_STRUCTURED_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesStructuredCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesStructuredCommand(message);
+            }
+        });
         ZclUtil.registerCommandTypeClassMapping(ZclCommandType.WRITE_ATTRIBUTES_STRUCTURED_RESPONSE_COMMAND,
             org.bubblecloud.zigbee.v3.zcl.protocol.command.general.
             WriteAttributesStructuredResponseCommand.class);
+        ZclUtil.registerCommandFactory(ZclCommandType.WRITE_ATTRIBUTES_STRUCTURED_RESPONSE_COMMAND, new ZclCommandFactory() {
+            @Override
+            public ZclCommand createCommand() {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesStructuredResponseCommand();
+            }
+            @Override
+            public ZclCommand createCommand(final ZclCommandMessage message) {
+                return new org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesStructuredResponseCommand(message);
+            }
+        });
     }
 }
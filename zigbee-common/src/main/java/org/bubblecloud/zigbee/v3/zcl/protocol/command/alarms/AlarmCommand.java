@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
@@ -44,6 +46,18 @@ public class AlarmCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.alarmCode = deserializer.readUnsigned8BitInteger();
+        this.clusterIdentifier = deserializer.readUnsigned16BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write8BitInteger(alarmCode);
+        serializer.write16BitInteger(clusterIdentifier);
+    }
+
     /**
      * Gets Alarm code.
      * @return the Alarm code
@@ -2,7 +2,10 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.alarms;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
 
@@ -56,6 +59,22 @@ public class GetAlarmResponseCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.status = deserializer.readUnsigned8BitInteger();
+        this.alarmCode = deserializer.readUnsigned8BitInteger();
+        this.clusterIdentifier = deserializer.readUnsigned16BitInteger();
+        this.timestamp = (Integer) deserializer.deserialize(ZclDataType.UNSIGNED_32_BIT_INTEGER);
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write8BitInteger(status);
+        serializer.write8BitInteger(alarmCode);
+        serializer.write16BitInteger(clusterIdentifier);
+        serializer.serialize(timestamp, ZclDataType.UNSIGNED_32_BIT_INTEGER);
+    }
+
     /**
      * Gets Status.
      * @return the Status
@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
@@ -44,6 +46,18 @@ public class MoveColorCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.rateX = deserializer.readSigned16BitInteger();
+        this.rateY = deserializer.readSigned16BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write16BitInteger(rateX);
+        serializer.write16BitInteger(rateY);
+    }
+
     /**
      * Gets RateX.
      * @return the RateX
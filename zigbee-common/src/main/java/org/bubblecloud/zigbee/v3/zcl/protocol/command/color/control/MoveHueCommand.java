@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
@@ -44,6 +46,18 @@ public class MoveHueCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.moveMode = deserializer.readUnsigned8BitInteger();
+        this.rate = deserializer.readUnsigned8BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write8BitInteger(moveMode);
+        serializer.write8BitInteger(rate);
+    }
+
     /**
      * Gets Move mode.
      * @return the Move mode
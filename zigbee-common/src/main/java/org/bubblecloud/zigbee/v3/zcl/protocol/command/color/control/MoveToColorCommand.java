@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
@@ -50,6 +52,20 @@ public class MoveToColorCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.colorX = deserializer.readUnsigned16BitInteger();
+        this.colorY = deserializer.readUnsigned16BitInteger();
+        this.transitionTime = deserializer.readUnsigned16BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write16BitInteger(colorX);
+        serializer.write16BitInteger(colorY);
+        serializer.write16BitInteger(transitionTime);
+    }
+
     /**
      * Gets ColorX.
      * @return the ColorX
@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.color.control;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
@@ -50,6 +52,20 @@ public class StepHueCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.stepMode = deserializer.readUnsigned8BitInteger();
+        this.stepSize = deserializer.readUnsigned8BitInteger();
+        this.transitionTime = deserializer.readUnsigned8BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write8BitInteger(stepMode);
+        serializer.write8BitInteger(stepSize);
+        serializer.write8BitInteger(transitionTime);
+    }
+
     /**
      * Gets Step mode.
      * @return the Step mode
@@ -2,7 +2,10 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
 
@@ -38,6 +41,16 @@ public class LockDoorCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.pinCode = (String) deserializer.deserialize(ZclDataType.OCTET_STRING);
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.serialize(pinCode, ZclDataType.OCTET_STRING);
+    }
+
     /**
      * Gets Pin code.
      * @return the Pin code
@@ -2,7 +2,10 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.general;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 import org.bubblecloud.zigbee.v3.zcl.field.*;
 
@@ -40,6 +43,16 @@ public class ConfigureReportingCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.records = (List<AttributeReportingConfigurationRecord>) deserializer.deserialize(ZclDataType.N_X_ATTRIBUTE_REPORTING_CONFIGURATION_RECORD);
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.serialize(records, ZclDataType.N_X_ATTRIBUTE_REPORTING_CONFIGURATION_RECORD);
+    }
+
     /**
      * Gets Records.
      * @return the Records
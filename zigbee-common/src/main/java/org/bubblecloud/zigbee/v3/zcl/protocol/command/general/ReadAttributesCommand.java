@@ -2,7 +2,10 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.general;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 import org.bubblecloud.zigbee.v3.zcl.field.*;
 
@@ -40,6 +43,16 @@ public class ReadAttributesCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.identifiers = (List<AttributeIdentifier>) deserializer.deserialize(ZclDataType.N_X_ATTRIBUTE_IDENTIFIER);
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.serialize(identifiers, ZclDataType.N_X_ATTRIBUTE_IDENTIFIER);
+    }
+
     /**
      * Gets Identifiers.
      * @return the Identifiers
@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
@@ -128,6 +130,46 @@ public class GetZoneIdMapResponseCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.zoneIdMapSection0 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection1 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection2 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection3 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection4 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection5 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection6 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection7 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection8 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection9 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection10 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection11 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection12 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection13 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection14 = deserializer.readSigned16BitInteger();
+        this.zoneIdMapSection15 = deserializer.readSigned16BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write16BitInteger(zoneIdMapSection0);
+        serializer.write16BitInteger(zoneIdMapSection1);
+        serializer.write16BitInteger(zoneIdMapSection2);
+        serializer.write16BitInteger(zoneIdMapSection3);
+        serializer.write16BitInteger(zoneIdMapSection4);
+        serializer.write16BitInteger(zoneIdMapSection5);
+        serializer.write16BitInteger(zoneIdMapSection6);
+        serializer.write16BitInteger(zoneIdMapSection7);
+        serializer.write16BitInteger(zoneIdMapSection8);
+        serializer.write16BitInteger(zoneIdMapSection9);
+        serializer.write16BitInteger(zoneIdMapSection10);
+        serializer.write16BitInteger(zoneIdMapSection11);
+        serializer.write16BitInteger(zoneIdMapSection12);
+        serializer.write16BitInteger(zoneIdMapSection13);
+        serializer.write16BitInteger(zoneIdMapSection14);
+        serializer.write16BitInteger(zoneIdMapSection15);
+    }
+
     /**
      * Gets Zone ID Map section 0.
      * @return the Zone ID Map section 0
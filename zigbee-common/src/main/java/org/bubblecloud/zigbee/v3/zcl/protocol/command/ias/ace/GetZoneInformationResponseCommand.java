@@ -2,7 +2,10 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.ias.ace;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
 
@@ -50,6 +53,20 @@ public class GetZoneInformationResponseCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.zoneId = deserializer.readUnsigned8BitInteger();
+        this.zoneType = deserializer.readSigned16BitInteger();
+        this.ieeeAddress = (Long) deserializer.deserialize(ZclDataType.IEEE_ADDRESS);
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write8BitInteger(zoneId);
+        serializer.write16BitInteger(zoneType);
+        serializer.serialize(ieeeAddress, ZclDataType.IEEE_ADDRESS);
+    }
+
     /**
      * Gets Zone ID.
      * @return the Zone ID
@@ -2,7 +2,10 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
 
@@ -56,6 +59,22 @@ public class AnchorNodeAnnounceCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.anchorNodeAddress = (Long) deserializer.deserialize(ZclDataType.IEEE_ADDRESS);
+        this.coordinate1 = deserializer.readSigned16BitInteger();
+        this.coordinate2 = deserializer.readSigned16BitInteger();
+        this.coordinate3 = deserializer.readSigned16BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.serialize(anchorNodeAddress, ZclDataType.IEEE_ADDRESS);
+        serializer.write16BitInteger(coordinate1);
+        serializer.write16BitInteger(coordinate2);
+        serializer.write16BitInteger(coordinate3);
+    }
+
     /**
      * Gets Anchor Node Address.
      * @return the Anchor Node Address
@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
@@ -68,6 +70,26 @@ public class DeviceConfigurationResponseCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.status = deserializer.readUnsigned8BitInteger();
+        this.power = deserializer.readSigned16BitInteger();
+        this.pathLossExponent = deserializer.readUnsigned16BitInteger();
+        this.calculationPeriod = deserializer.readUnsigned16BitInteger();
+        this.numberRssiMeasurements = deserializer.readUnsigned8BitInteger();
+        this.reportingPeriod = deserializer.readUnsigned16BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write8BitInteger(status);
+        serializer.write16BitInteger(power);
+        serializer.write16BitInteger(pathLossExponent);
+        serializer.write16BitInteger(calculationPeriod);
+        serializer.write8BitInteger(numberRssiMeasurements);
+        serializer.write16BitInteger(reportingPeriod);
+    }
+
     /**
      * Gets Status.
      * @return the Status
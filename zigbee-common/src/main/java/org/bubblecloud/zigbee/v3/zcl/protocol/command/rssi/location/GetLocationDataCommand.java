@@ -2,7 +2,10 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
 
@@ -50,6 +53,20 @@ public class GetLocationDataCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.header = deserializer.readUnsigned8BitInteger();
+        this.numberResponses = deserializer.readUnsigned8BitInteger();
+        this.targetAddress = (Long) deserializer.deserialize(ZclDataType.IEEE_ADDRESS);
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write8BitInteger(header);
+        serializer.write8BitInteger(numberResponses);
+        serializer.serialize(targetAddress, ZclDataType.IEEE_ADDRESS);
+    }
+
     /**
      * Gets Header.
      * @return the Header
@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
@@ -92,6 +94,34 @@ public class LocationDataResponseCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.status = deserializer.readUnsigned8BitInteger();
+        this.locationType = deserializer.readUnsigned8BitInteger();
+        this.coordinate1 = deserializer.readSigned16BitInteger();
+        this.coordinate2 = deserializer.readSigned16BitInteger();
+        this.coordinate3 = deserializer.readSigned16BitInteger();
+        this.power = deserializer.readSigned16BitInteger();
+        this.pathLossExponent = deserializer.readUnsigned16BitInteger();
+        this.locationMethod = deserializer.readUnsigned8BitInteger();
+        this.qualityMeasure = deserializer.readUnsigned8BitInteger();
+        this.locationAge = deserializer.readUnsigned16BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write8BitInteger(status);
+        serializer.write8BitInteger(locationType);
+        serializer.write16BitInteger(coordinate1);
+        serializer.write16BitInteger(coordinate2);
+        serializer.write16BitInteger(coordinate3);
+        serializer.write16BitInteger(power);
+        serializer.write16BitInteger(pathLossExponent);
+        serializer.write8BitInteger(locationMethod);
+        serializer.write8BitInteger(qualityMeasure);
+        serializer.write16BitInteger(locationAge);
+    }
+
     /**
      * Gets Status.
      * @return the Status
@@ -2,7 +2,10 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
 
@@ -50,6 +53,20 @@ public class SendPingsCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.targetAddress = (Long) deserializer.deserialize(ZclDataType.IEEE_ADDRESS);
+        this.numberRssiMeasurements = deserializer.readUnsigned8BitInteger();
+        this.calculationPeriod = deserializer.readUnsigned16BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.serialize(targetAddress, ZclDataType.IEEE_ADDRESS);
+        serializer.write8BitInteger(numberRssiMeasurements);
+        serializer.write16BitInteger(calculationPeriod);
+    }
+
     /**
      * Gets Target Address.
      * @return the Target Address
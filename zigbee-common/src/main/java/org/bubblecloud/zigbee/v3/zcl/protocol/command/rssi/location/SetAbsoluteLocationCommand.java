@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl.protocol.command.rssi.location;
 
 import org.bubblecloud.zigbee.v3.zcl.ZclCommandMessage;
 import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldDeserializer;
+import org.bubblecloud.zigbee.v3.zcl.ZclFieldSerializer;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclFieldType;
 
@@ -62,6 +64,24 @@ public class SetAbsoluteLocationCommand extends ZclCommand {
         return message;
     }
 
+    @Override
+    public void deserializeFields(final ZclFieldDeserializer deserializer) {
+        this.coordinate1 = deserializer.readSigned16BitInteger();
+        this.coordinate2 = deserializer.readSigned16BitInteger();
+        this.coordinate3 = deserializer.readSigned16BitInteger();
+        this.power = deserializer.readSigned16BitInteger();
+        this.pathLossExponent = deserializer.readUnsigned16BitInteger();
+    }
+
+    @Override
+    public void serializeFields(final ZclFieldSerializer serializer) {
+        serializer.write16BitInteger(coordinate1);
+        serializer.write16BitInteger(coordinate2);
+        serializer.write16BitInteger(coordinate3);
+        serializer.write16BitInteger(power);
+        serializer.write16BitInteger(pathLossExponent);
+    }
+
     /**
      * Gets Coordinate 1.
      * @return the Coordinate 1
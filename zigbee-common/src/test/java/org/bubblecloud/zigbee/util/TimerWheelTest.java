@@ -0,0 +1,110 @@
+package org.bubblecloud.zigbee.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests timer wheel scheduling, cancellation and expiry.
+ */
+public class TimerWheelTest {
+
+    @Test
+    public void testExpiry() throws Exception {
+        final TimerWheel timerWheel = new TimerWheel("test", 10, 8);
+        timerWheel.start();
+        try {
+            final CountDownLatch shortLatch = new CountDownLatch(1);
+            final CountDownLatch longLatch = new CountDownLatch(1);
+            final long startTime = System.currentTimeMillis();
+            // Delay longer than one rotation of the wheel.
+            timerWheel.schedule(new CountDown(longLatch), 200);
+            timerWheel.schedule(new CountDown(shortLatch), 30);
+
+            Assert.assertTrue(shortLatch.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(System.currentTimeMillis() - startTime >= 30);
+            Assert.assertEquals(1, longLatch.getCount());
+            Assert.assertTrue(longLatch.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(System.currentTimeMillis() - startTime >= 200);
+        } finally {
+            timerWheel.stop();
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final TimerWheel timerWheel = new TimerWheel("test", 10, 8);
+        timerWheel.start();
+        try {
+            final AtomicInteger runCount = new AtomicInteger();
+            final TimerWheel.Timeout timeout = timerWheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    runCount.incrementAndGet();
+                }
+            }, 50);
+            Assert.assertTrue(timeout.cancel());
+            Assert.assertFalse(timeout.cancel());
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            final TimerWheel.Timeout expiredTimeout = timerWheel.schedule(new CountDown(latch), 10);
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertFalse(expiredTimeout.cancel());
+
+            Thread.sleep(100);
+            Assert.assertEquals(0, runCount.get());
+        } finally {
+            timerWheel.stop();
+        }
+    }
+
+    @Test
+    public void testBlockingTaskDoesNotDelayTicks() throws Exception {
+        final TimerWheel timerWheel = new TimerWheel("test", 10, 8);
+        timerWheel.start();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            final CountDownLatch blocked = new CountDownLatch(1);
+            timerWheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, 10);
+            Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            // Timeouts keep expiring while the task blocks and are run after it.
+            final CountDownLatch latch = new CountDownLatch(1);
+            final TimerWheel.Timeout timeout = timerWheel.schedule(new CountDown(latch), 10);
+            Thread.sleep(100);
+            Assert.assertFalse(timeout.cancel());
+            Assert.assertEquals(1, latch.getCount());
+            release.countDown();
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            timerWheel.stop();
+        }
+    }
+
+    private static class CountDown implements Runnable {
+        private final CountDownLatch latch;
+
+        private CountDown(final CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.level.control.MoveToLevelCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OnCommand;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that waiting level commands to the same destination are replaced by the newest one.
+ */
+public class CommandCoalescerTest {
+
+    @Test
+    public void testReplaceWaitingCommands() throws Exception {
+        final List<Command> failedCommands = new ArrayList<Command>();
+        final GatedNetwork network = new GatedNetwork();
+        final CommandCoalescer coalescer = new CommandCoalescer(network, 10);
+
+        final List<Command> commands = new ArrayList<Command>();
+        for (int i = 0; i < 4; i++) {
+            final MoveToLevelCommand command = new MoveToLevelCommand();
+            command.setDestinationAddress(new ZigBeeDeviceAddress(1, 1));
+            command.setLevel(i);
+            commands.add(command);
+        }
+        final List<Thread> threads = new ArrayList<Thread>();
+        threads.add(send(coalescer, commands.get(0), failedCommands));
+        network.waitForSentCount(1);
+        for (int i = 1; i < 4; i++) {
+            threads.add(send(coalescer, commands.get(i), failedCommands));
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(2, coalescer.getReplacedCount());
+
+        network.open();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final List<Command> sentCommands = network.getSentCommands();
+        Assert.assertEquals(2, sentCommands.size());
+        Assert.assertSame(commands.get(0), sentCommands.get(0));
+        Assert.assertSame(commands.get(3), sentCommands.get(1));
+        Assert.assertEquals(2, failedCommands.size());
+
+        // Drained slot is removed after minimum interval.
+        Thread.sleep(20);
+        final MoveToLevelCommand command = new MoveToLevelCommand();
+        command.setDestinationAddress(new ZigBeeDeviceAddress(2, 1));
+        coalescer.sendCommand(command);
+        Thread.sleep(20);
+        coalescer.sendCommand(new OnCommand());
+        Assert.assertEquals(0, coalescer.getSlotCount());
+    }
+
+    private static Thread send(final CommandCoalescer coalescer, final Command command,
+                               final List<Command> failedCommands) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    coalescer.sendCommand(command);
+                } catch (final ZigBeeException e) {
+                    synchronized (failedCommands) {
+                        failedCommands.add(command);
+                    }
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,69 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OnCommand;
+import org.bubblecloud.zigbee.v3.zdo.command.ManagementLqiRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that interactive commands overtake queued discovery commands.
+ */
+public class CommandSchedulerTest {
+
+    @Test
+    public void testInteractiveBeforeDiscovery() throws Exception {
+        final GatedNetwork network = new GatedNetwork();
+        final CommandScheduler scheduler = new CommandScheduler(network);
+        scheduler.setTotalInFlightLimit(1);
+
+        final List<Thread> threads = new ArrayList<Thread>();
+        threads.add(send(scheduler, new ManagementLqiRequest()));
+        while (scheduler.getSentCount(CommandPriority.DISCOVERY) == 0) {
+            Thread.sleep(10);
+        }
+        for (int i = 0; i < 3; i++) {
+            threads.add(send(scheduler, new ManagementLqiRequest()));
+        }
+        waitForQueueLength(scheduler, CommandPriority.DISCOVERY, 3);
+        threads.add(send(scheduler, new OnCommand()));
+        waitForQueueLength(scheduler, CommandPriority.INTERACTIVE, 1);
+
+        network.open();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final List<Command> sentCommands = network.getSentCommands();
+        Assert.assertEquals(5, sentCommands.size());
+        Assert.assertTrue(sentCommands.get(1) instanceof OnCommand);
+        Assert.assertEquals(4, scheduler.getSentCount(CommandPriority.DISCOVERY));
+        Assert.assertEquals(1, scheduler.getSentCount(CommandPriority.INTERACTIVE));
+    }
+
+    private static Thread send(final CommandScheduler scheduler, final Command command) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    scheduler.sendCommand(command);
+                } catch (final ZigBeeException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void waitForQueueLength(final CommandScheduler scheduler, final CommandPriority priority,
+                                           final int queueLength) throws InterruptedException {
+        final long endTime = System.currentTimeMillis() + 5000;
+        while (scheduler.getQueueLength(priority) != queueLength && System.currentTimeMillis() < endTime) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+    }
+}
@@ -0,0 +1,62 @@
+package org.bubblecloud.zigbee.v3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test network which records sent commands and holds senders until the gate is opened.
+ */
+public class GatedNetwork implements ZigBeeNetwork {
+    private final List<Command> sentCommands = new ArrayList<Command>();
+    private boolean open = false;
+
+    @Override
+    public synchronized int sendCommand(final Command command) throws ZigBeeException {
+        sentCommands.add(command);
+        notifyAll();
+        try {
+            while (!open) {
+                wait();
+            }
+        } catch (final InterruptedException e) {
+            throw new ZigBeeException(e);
+        }
+        return 0;
+    }
+
+    @Override
+    public void addCommandListener(final CommandListener commandListener) {
+    }
+
+    @Override
+    public void removeCommandListener(final CommandListener commandListener) {
+    }
+
+    /**
+     * Opens the gate releasing waiting and future senders.
+     */
+    public synchronized void open() {
+        open = true;
+        notifyAll();
+    }
+
+    /**
+     * Gets copy of the sent commands.
+     * @return the sent commands
+     */
+    public synchronized List<Command> getSentCommands() {
+        return new ArrayList<Command>(sentCommands);
+    }
+
+    /**
+     * Waits until given number of commands have been sent or five seconds have passed.
+     * @param count the command count
+     * @throws InterruptedException if interrupted
+     */
+    public synchronized void waitForSentCount(final int count) throws InterruptedException {
+        final long endTime = System.currentTimeMillis() + 5000;
+        while (sentCommands.size() < count && System.currentTimeMillis() < endTime) {
+            wait(Math.max(1, endTime - System.currentTimeMillis()));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.DefaultResponseCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OnCommand;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests that unicasts over asynchronous network complete when response arrives.
+ */
+public class ZigBeeApiAsyncUnicastTest {
+
+    @Test
+    public void testResponseBeforeSendCompletes() throws Exception {
+        final TestAsyncNetwork network = new TestAsyncNetwork();
+        final ZigBeeApi api = new ZigBeeApi(network);
+
+        final Future<CommandResult> first = api.on(new ZigBeeDeviceAddress(5, 1));
+        final Future<CommandResult> second = api.off(new ZigBeeDeviceAddress(6, 1));
+        Assert.assertEquals(2, network.sendFutures.size());
+        Assert.assertFalse(first.isDone());
+
+        network.receive(createResponse(6, 21));
+        network.sendFutures.get(1).set(21);
+        Assert.assertTrue(second.isDone());
+        Assert.assertTrue(second.get().isSuccess());
+        Assert.assertFalse(first.isDone());
+
+        network.sendFutures.get(0).set(20);
+        Assert.assertFalse(first.isDone());
+        network.receive(createResponse(5, 20));
+        Assert.assertTrue(first.get(1, TimeUnit.SECONDS).isSuccess());
+    }
+
+    @Test
+    public void testSendFailure() throws Exception {
+        final TestAsyncNetwork network = new TestAsyncNetwork();
+        final ZigBeeApi api = new ZigBeeApi(network);
+
+        final Future<CommandResult> future = api.on(new ZigBeeDeviceAddress(5, 1));
+        network.sendFutures.get(0).fail(new ZigBeeException("Connection closed."));
+        Assert.assertTrue(future.isDone());
+        Assert.assertTrue(future.get().isError());
+        Assert.assertTrue(future.get().getMessage().contains("Connection closed."));
+    }
+
+    @Test
+    public void testExpiryBeforeResolve() throws Exception {
+        final ZigBeeApi api = new ZigBeeApi(new TestAsyncNetwork());
+        final CommandResponseDispatcher dispatcher = new CommandResponseDispatcher(api);
+
+        final CommandExecution expiredExecution = createExecution(api);
+        dispatcher.add(expiredExecution);
+        ((OnCommand) expiredExecution.getCommand()).setTransactionId((byte) 20);
+        // Execution expires after the command has been sent but before it is resolved.
+        ((CommandResultFuture) expiredExecution.getFuture()).set(new CommandResult());
+        dispatcher.remove(expiredExecution);
+        Assert.assertNull(dispatcher.resolve(expiredExecution));
+
+        // Transaction ID has wrapped around to the same value.
+        final CommandExecution execution = createExecution(api);
+        dispatcher.add(execution);
+        ((OnCommand) execution.getCommand()).setTransactionId((byte) 20);
+        Assert.assertNull(dispatcher.resolve(execution));
+        dispatcher.commandReceived(createResponse(5, 20));
+        Assert.assertTrue(execution.getFuture().isDone());
+        Assert.assertTrue(execution.getFuture().get().isSuccess());
+    }
+
+    private static CommandExecution createExecution(final ZigBeeApi api) {
+        final OnCommand command = new OnCommand();
+        command.setDestinationAddress(new ZigBeeDeviceAddress(5, 1));
+        final CommandResultFuture future = new CommandResultFuture(api);
+        final CommandExecution execution = new CommandExecution(System.currentTimeMillis(), command, future);
+        future.setCommandExecution(execution);
+        execution.setResponseMatcher(new ZclResponseMatcher());
+        return execution;
+    }
+
+    private static DefaultResponseCommand createResponse(final int networkAddress, final int transactionId) {
+        final DefaultResponseCommand response = new DefaultResponseCommand();
+        response.setSourceAddress(new ZigBeeDeviceAddress(networkAddress, 1));
+        response.setDestinationAddress(new ZigBeeDeviceAddress(0, 1));
+        response.setClusterId(6);
+        response.setTransactionId((byte) transactionId);
+        response.setStatusCode(0);
+        return response;
+    }
+
+    private static class TestAsyncNetwork implements ZigBeeAsyncNetwork {
+        private final List<CallbackFuture<Integer>> sendFutures = new ArrayList<CallbackFuture<Integer>>();
+        private final List<CommandListener> commandListeners = new ArrayList<CommandListener>();
+
+        private void receive(final Command command) {
+            for (final CommandListener commandListener : commandListeners) {
+                commandListener.commandReceived(command);
+            }
+        }
+
+        @Override
+        public CallbackFuture<Integer> sendCommandAsync(final Command command) {
+            final CallbackFuture<Integer> future = new CallbackFuture<Integer>();
+            sendFutures.add(future);
+            return future;
+        }
+
+        @Override
+        public int sendCommand(final Command command) throws ZigBeeException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addCommandListener(final CommandListener commandListener) {
+            commandListeners.add(commandListener);
+        }
+
+        @Override
+        public void removeCommandListener(final CommandListener commandListener) {
+            commandListeners.remove(commandListener);
+        }
+    }
+}
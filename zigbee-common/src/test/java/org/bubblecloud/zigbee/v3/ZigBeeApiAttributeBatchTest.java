@@ -0,0 +1,301 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.field.AttributeIdentifier;
+import org.bubblecloud.zigbee.v3.zcl.field.ReadAttributeStatusRecord;
+import org.bubblecloud.zigbee.v3.zcl.field.WriteAttributeRecord;
+import org.bubblecloud.zigbee.v3.zcl.field.WriteAttributeStatusRecord;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclAttributeType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesResponseCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.WriteAttributesResponseCommand;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests that attribute reads and writes are packed to frames and merged by the batcher.
+ */
+public class ZigBeeApiAttributeBatchTest {
+    private static final int MANUFACTURER_CLUSTER = 0xfc00;
+
+    @Test
+    public void testBatchedRead() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final ZigBeeApi api = new ZigBeeApi(network);
+
+        // Unknown attributes are estimated as variable length, so three fit one frame.
+        final Future<Map<Integer, AttributeResult>> future = api.read(createDevice(), MANUFACTURER_CLUSTER,
+                Arrays.asList(0, 1, 2, 3, 4, 5, 6));
+        Assert.assertEquals(3, network.sentCommands.size());
+        Assert.assertEquals(Arrays.asList(0, 1, 2), getAttributeIds(network.sentCommands.get(0)));
+        Assert.assertEquals(Arrays.asList(6), getAttributeIds(network.sentCommands.get(2)));
+
+        for (final Command command : network.sentCommands) {
+            final List<ReadAttributeStatusRecord> records = new ArrayList<ReadAttributeStatusRecord>();
+            for (final Integer attributeId : getAttributeIds(command)) {
+                final ReadAttributeStatusRecord record = new ReadAttributeStatusRecord();
+                record.setAttributeIdentifier(attributeId);
+                record.setStatus(attributeId == 4 ? 0x86 : 0);
+                record.setAttributeValue(attributeId == 4 ? null : attributeId * 10);
+                records.add(record);
+            }
+            final ReadAttributesResponseCommand response = new ReadAttributesResponseCommand();
+            response.setRecords(records);
+            network.respond(command, response);
+        }
+
+        final Map<Integer, AttributeResult> results = future.get(1, TimeUnit.SECONDS);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), new ArrayList<Integer>(results.keySet()));
+        Assert.assertTrue(results.get(6).isSuccess());
+        Assert.assertEquals(60, results.get(6).getValue());
+        Assert.assertFalse(results.get(4).isSuccess());
+        Assert.assertEquals(Integer.valueOf(0x86), results.get(4).getStatusCode());
+    }
+
+    @Test
+    public void testStringAttributesSizedAtMaximumLength() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final ZigBeeApi api = new ZigBeeApi(network);
+
+        final int clusterId = ZclAttributeType.BASIC_MANUFACTURER_NAME.getClusterType().getId();
+        api.read(createDevice(), clusterId, Arrays.asList(ZclAttributeType.BASIC_MANUFACTURER_NAME.getId(),
+                ZclAttributeType.BASIC_MODEL_IDENTIFIER.getId(), ZclAttributeType.BASIC_DATE_CODE.getId()));
+        Assert.assertEquals(2, network.sentCommands.size());
+        Assert.assertEquals(Arrays.asList(ZclAttributeType.BASIC_MANUFACTURER_NAME.getId()),
+                getAttributeIds(network.sentCommands.get(0)));
+        Assert.assertEquals(Arrays.asList(ZclAttributeType.BASIC_MODEL_IDENTIFIER.getId(),
+                ZclAttributeType.BASIC_DATE_CODE.getId()), getAttributeIds(network.sentCommands.get(1)));
+    }
+
+    @Test
+    public void testMissingAttributesReadAgain() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final ZigBeeApi api = new ZigBeeApi(network);
+
+        final Future<Map<Integer, AttributeResult>> future = api.read(createDevice(), MANUFACTURER_CLUSTER,
+                Arrays.asList(0, 1, 2));
+        // Device leaves out records which did not fit the response.
+        network.respond(network.sentCommands.get(0), createReadResponse(Arrays.asList(0)));
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Map<Integer, AttributeResult>> results = executor.submit(
+                    new Callable<Map<Integer, AttributeResult>>() {
+                @Override
+                public Map<Integer, AttributeResult> call() throws Exception {
+                    return future.get(5, TimeUnit.SECONDS);
+                }
+            });
+
+            final List<Command> commands = network.waitForCommands(3);
+            Assert.assertEquals(3, commands.size());
+            Assert.assertEquals(Arrays.asList(1), getAttributeIds(commands.get(1)));
+            Assert.assertEquals(Arrays.asList(2), getAttributeIds(commands.get(2)));
+            waitForTransactionId(commands.get(1));
+            waitForTransactionId(commands.get(2));
+            network.respond(commands.get(1), createReadResponse(Arrays.asList(1)));
+            // Device still leaves out the last attribute.
+            network.respond(commands.get(2), createReadResponse(Collections.<Integer>emptyList()));
+
+            final Map<Integer, AttributeResult> attributeResults = results.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(Arrays.asList(0, 1, 2), new ArrayList<Integer>(attributeResults.keySet()));
+            Assert.assertEquals(10, attributeResults.get(1).getValue());
+            Assert.assertFalse(attributeResults.get(2).isSuccess());
+            Assert.assertSame(attributeResults, future.get(1, TimeUnit.SECONDS));
+            Assert.assertEquals(3, network.sentCommands.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchedWrite() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final ZigBeeApi api = new ZigBeeApi(network);
+
+        final int clusterId = ZclAttributeType.BASIC_LOCATION_DESCRIPTION.getClusterType().getId();
+        final Map<Integer, Object> values = new LinkedHashMap<Integer, Object>();
+        values.put(ZclAttributeType.BASIC_LOCATION_DESCRIPTION.getId(), createString(60));
+        values.put(ZclAttributeType.BASIC_DEVICE_ENABLED.getId(), true);
+        values.put(ZclAttributeType.BASIC_ALARM_MASK.getId(), 1);
+        final Future<Map<Integer, AttributeResult>> future = api.write(createDevice(), clusterId, values);
+        Assert.assertEquals(2, network.sentCommands.size());
+        Assert.assertEquals(1, ((WriteAttributesCommand) network.sentCommands.get(0)).getRecords().size());
+        Assert.assertEquals(2, ((WriteAttributesCommand) network.sentCommands.get(1)).getRecords().size());
+
+        final WriteAttributeStatusRecord success = new WriteAttributeStatusRecord();
+        success.setStatus(0);
+        final WriteAttributesResponseCommand successResponse = new WriteAttributesResponseCommand();
+        successResponse.setRecords(Collections.singletonList(success));
+        network.respond(network.sentCommands.get(0), successResponse);
+
+        final WriteAttributeStatusRecord failure = new WriteAttributeStatusRecord();
+        failure.setStatus(0x88);
+        failure.setAttributeIdentifier(ZclAttributeType.BASIC_ALARM_MASK.getId());
+        final WriteAttributesResponseCommand failureResponse = new WriteAttributesResponseCommand();
+        failureResponse.setRecords(Collections.singletonList(failure));
+        network.respond(network.sentCommands.get(1), failureResponse);
+
+        final Map<Integer, AttributeResult> results = future.get(1, TimeUnit.SECONDS);
+        Assert.assertTrue(results.get(ZclAttributeType.BASIC_LOCATION_DESCRIPTION.getId()).isSuccess());
+        Assert.assertTrue(results.get(ZclAttributeType.BASIC_DEVICE_ENABLED.getId()).isSuccess());
+        Assert.assertEquals(Integer.valueOf(0x88), results.get(ZclAttributeType.BASIC_ALARM_MASK.getId())
+                .getStatusCode());
+    }
+
+    @Test
+    public void testWriteUnknownAttribute() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final ZigBeeApi api = new ZigBeeApi(network);
+
+        final int clusterId = ZclAttributeType.BASIC_DEVICE_ENABLED.getClusterType().getId();
+        final Map<Integer, Object> values = new LinkedHashMap<Integer, Object>();
+        values.put(0x7fff, 1);
+        values.put(ZclAttributeType.BASIC_DEVICE_ENABLED.getId(), true);
+        final Future<Map<Integer, AttributeResult>> future = api.write(createDevice(), clusterId, values);
+        Assert.assertEquals(1, network.sentCommands.size());
+        Assert.assertEquals(1, ((WriteAttributesCommand) network.sentCommands.get(0)).getRecords().size());
+
+        final WriteAttributeStatusRecord success = new WriteAttributeStatusRecord();
+        success.setStatus(0);
+        final WriteAttributesResponseCommand response = new WriteAttributesResponseCommand();
+        response.setRecords(Collections.singletonList(success));
+        network.respond(network.sentCommands.get(0), response);
+
+        final Map<Integer, AttributeResult> results = future.get(1, TimeUnit.SECONDS);
+        Assert.assertTrue(results.get(ZclAttributeType.BASIC_DEVICE_ENABLED.getId()).isSuccess());
+        Assert.assertFalse(results.get(0x7fff).isSuccess());
+        Assert.assertEquals("Unknown attribute 32767 of cluster " + clusterId + ".",
+                results.get(0x7fff).getMessage());
+    }
+
+    @Test
+    public void testReadBatcher() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final ZigBeeApi api = new ZigBeeApi(network);
+        final AttributeReadBatcher batcher = new AttributeReadBatcher(api, 100);
+        final ZigBeeDevice device = createDevice();
+
+        final Future<AttributeResult> first = batcher.read(device, MANUFACTURER_CLUSTER, 1);
+        final Future<AttributeResult> second = batcher.read(device, MANUFACTURER_CLUSTER, 2);
+        final Future<AttributeResult> other = batcher.read(device, MANUFACTURER_CLUSTER + 1, 1);
+        Assert.assertFalse(first.isDone());
+
+        final Command command = network.waitForCommands(2).get(0);
+        Assert.assertEquals(Arrays.asList(1, 2), getAttributeIds(command));
+        final List<ReadAttributeStatusRecord> records = new ArrayList<ReadAttributeStatusRecord>();
+        for (final Integer attributeId : getAttributeIds(command)) {
+            final ReadAttributeStatusRecord record = new ReadAttributeStatusRecord();
+            record.setAttributeIdentifier(attributeId);
+            record.setAttributeValue(attributeId);
+            records.add(record);
+        }
+        final ReadAttributesResponseCommand response = new ReadAttributesResponseCommand();
+        response.setRecords(records);
+        network.respond(command, response);
+
+        Assert.assertEquals(1, first.get(1, TimeUnit.SECONDS).getValue());
+        Assert.assertEquals(2, second.get(1, TimeUnit.SECONDS).getValue());
+        Assert.assertFalse(other.isDone());
+        Assert.assertEquals(2, batcher.getBatchCount());
+        batcher.shutdown();
+    }
+
+    private static ReadAttributesResponseCommand createReadResponse(final List<Integer> attributeIds) {
+        final List<ReadAttributeStatusRecord> records = new ArrayList<ReadAttributeStatusRecord>();
+        for (final Integer attributeId : attributeIds) {
+            final ReadAttributeStatusRecord record = new ReadAttributeStatusRecord();
+            record.setAttributeIdentifier(attributeId);
+            record.setAttributeValue(attributeId * 10);
+            records.add(record);
+        }
+        final ReadAttributesResponseCommand response = new ReadAttributesResponseCommand();
+        response.setRecords(records);
+        return response;
+    }
+
+    private static void waitForTransactionId(final Command command) throws InterruptedException {
+        final long endTime = System.currentTimeMillis() + 5000;
+        while (((ZclCommand) command).getTransactionId() == null && System.currentTimeMillis() < endTime) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static ZigBeeDevice createDevice() {
+        final ZigBeeDevice device = new ZigBeeDevice();
+        device.setIeeeAddress(0x1234L);
+        device.setNetworkAddress(5);
+        device.setEndpoint(1);
+        return device;
+    }
+
+    private static String createString(final int length) {
+        final StringBuilder builder = new StringBuilder();
+        while (builder.length() < length) {
+            builder.append('x');
+        }
+        return builder.toString();
+    }
+
+    private static List<Integer> getAttributeIds(final Command command) {
+        final List<Integer> attributeIds = new ArrayList<Integer>();
+        for (final AttributeIdentifier identifier : ((ReadAttributesCommand) command).getIdentifiers()) {
+            attributeIds.add(identifier.getAttributeIdentifier());
+        }
+        return attributeIds;
+    }
+
+    private static class TestNetwork implements ZigBeeNetwork {
+        private final List<Command> sentCommands = new ArrayList<Command>();
+        private final List<CommandListener> commandListeners = new ArrayList<CommandListener>();
+
+        private void respond(final Command command, final ZclCommand response) {
+            final ZclCommand request = (ZclCommand) command;
+            response.setClusterId(request.getClusterId());
+            response.setTransactionId(request.getTransactionId());
+            response.setSourceAddress(request.getDestinationAddress());
+            response.setDestinationAddress(new ZigBeeDeviceAddress(0, 1));
+            for (final CommandListener commandListener : commandListeners) {
+                commandListener.commandReceived(response);
+            }
+        }
+
+        private synchronized List<Command> waitForCommands(final int count) throws InterruptedException {
+            final long endTime = System.currentTimeMillis() + 5000;
+            while (sentCommands.size() < count && System.currentTimeMillis() < endTime) {
+                wait(100);
+            }
+            return new ArrayList<Command>(sentCommands);
+        }
+
+        @Override
+        public synchronized int sendCommand(final Command command) throws ZigBeeException {
+            sentCommands.add(command);
+            notifyAll();
+            return sentCommands.size();
+        }
+
+        @Override
+        public void addCommandListener(final CommandListener commandListener) {
+            commandListeners.add(commandListener);
+        }
+
+        @Override
+        public void removeCommandListener(final CommandListener commandListener) {
+            commandListeners.remove(commandListener);
+        }
+    }
+}
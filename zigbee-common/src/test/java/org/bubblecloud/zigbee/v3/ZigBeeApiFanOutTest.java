@@ -0,0 +1,91 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OffCommand;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests that commands to devices are fanned out to group multicasts and unicasts.
+ */
+public class ZigBeeApiFanOutTest {
+
+    @Test
+    public void testGroupCover() throws Exception {
+        final List<Command> sentCommands = new ArrayList<Command>();
+        final ZigBeeNetwork network = new ZigBeeNetwork() {
+            @Override
+            public int sendCommand(final Command command) throws ZigBeeException {
+                synchronized (sentCommands) {
+                    sentCommands.add(command);
+                    sentCommands.notifyAll();
+                    return sentCommands.size();
+                }
+            }
+
+            @Override
+            public void addCommandListener(final CommandListener commandListener) {
+            }
+
+            @Override
+            public void removeCommandListener(final CommandListener commandListener) {
+            }
+        };
+        final ZigBeeNetworkStateImpl networkState = new ZigBeeNetworkStateImpl(true);
+        final ZigBeeApi api = new ZigBeeApi(network);
+        api.setNetworkState(networkState);
+
+        final List<ZigBeeDevice> devices = new ArrayList<ZigBeeDevice>();
+        for (int i = 1; i <= 5; i++) {
+            final ZigBeeDevice device = new ZigBeeDevice();
+            device.setNetworkAddress(i);
+            device.setEndpoint(1);
+            devices.add(device);
+        }
+        addGroup(networkState, 10, 1, 2, 3);
+        addGroup(networkState, 11, 3, 4);
+        addGroup(networkState, 12, 1, 6);
+
+        api.send(devices, new OffCommand());
+
+        final long endTime = System.currentTimeMillis() + 5000;
+        synchronized (sentCommands) {
+            while (sentCommands.size() < 3 && System.currentTimeMillis() < endTime) {
+                sentCommands.wait(100);
+            }
+        }
+        Thread.sleep(50);
+
+        Assert.assertEquals(3, sentCommands.size());
+        final Set<Integer> groupIds = new HashSet<Integer>();
+        final Set<List<Integer>> deviceAddresses = new HashSet<List<Integer>>();
+        for (final Command command : sentCommands) {
+            Assert.assertTrue(command instanceof OffCommand);
+            final ZigBeeAddress destination = ((ZclCommand) command).getDestinationAddress();
+            if (destination.isGroup()) {
+                groupIds.add(((ZigBeeGroupAddress) destination).getGroupId());
+            } else {
+                final ZigBeeDeviceAddress deviceAddress = (ZigBeeDeviceAddress) destination;
+                deviceAddresses.add(Arrays.asList(deviceAddress.getAddress(), deviceAddress.getEndpoint()));
+            }
+        }
+        Assert.assertEquals(Collections.singleton(10), groupIds);
+        Assert.assertEquals(new HashSet<List<Integer>>(Arrays.asList(Arrays.asList(4, 1), Arrays.asList(5, 1))),
+                deviceAddresses);
+    }
+
+    private static void addGroup(final ZigBeeNetworkState networkState, final int groupId,
+                                 final int... networkAddresses) {
+        networkState.addGroup(new ZigBeeGroupAddress(groupId));
+        for (final int networkAddress : networkAddresses) {
+            networkState.addGroupMember(groupId, new ZigBeeDeviceAddress(networkAddress, 1));
+        }
+    }
+}
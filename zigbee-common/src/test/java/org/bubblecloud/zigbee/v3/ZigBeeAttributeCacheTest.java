@@ -0,0 +1,194 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.bubblecloud.zigbee.v3.zcl.field.AttributeReport;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclAttributeType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReadAttributesResponseCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReportAttributesCommand;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests attribute value cache expiry, eviction and feeding from attribute reports.
+ */
+public class ZigBeeAttributeCacheTest {
+    private static final int ON_OFF_CLUSTER = ZclAttributeType.ON_OFF_ON_OFF.getClusterType().getId();
+    private static final int ON_OFF_ATTRIBUTE = ZclAttributeType.ON_OFF_ON_OFF.getId();
+
+    @Test
+    public void testTimeToLive() {
+        Assert.assertEquals(ZigBeeAttributeCache.STATIC_TIME_TO_LIVE, ZigBeeAttributeCache.getTimeToLive(
+                ZclAttributeType.BASIC_MODEL_IDENTIFIER.getClusterType().getId(),
+                ZclAttributeType.BASIC_MODEL_IDENTIFIER.getId()));
+        Assert.assertEquals(ZigBeeAttributeCache.DISCRETE_REPORTABLE_TIME_TO_LIVE,
+                ZigBeeAttributeCache.getTimeToLive(ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE));
+        Assert.assertEquals(ZigBeeAttributeCache.UNKNOWN_TIME_TO_LIVE,
+                ZigBeeAttributeCache.getTimeToLive(0xfc00, 0));
+        Assert.assertEquals(ZigBeeAttributeCache.STATIC_TIME_TO_LIVE, ZigBeeAttributeCache.getTimeToLive(
+                ZclAttributeType.TEMPERATURE_MEASUREMENT_MIN_MEASURED_VALUE.getClusterType().getId(),
+                ZclAttributeType.TEMPERATURE_MEASUREMENT_MIN_MEASURED_VALUE.getId()));
+        // Neither writable nor reportable but changing.
+        Assert.assertEquals(ZigBeeAttributeCache.DYNAMIC_TIME_TO_LIVE, ZigBeeAttributeCache.getTimeToLive(
+                ZclAttributeType.COLOR_CONTROL_CURRENT_HUE.getClusterType().getId(),
+                ZclAttributeType.COLOR_CONTROL_CURRENT_HUE.getId()));
+        Assert.assertEquals(ZigBeeAttributeCache.DYNAMIC_TIME_TO_LIVE, ZigBeeAttributeCache.getTimeToLive(
+                ZclAttributeType.POWER_CONFIGURATION_BATTERY_VOLTAGE.getClusterType().getId(),
+                ZclAttributeType.POWER_CONFIGURATION_BATTERY_VOLTAGE.getId()));
+
+        final ZigBeeAttributeCache cache = new ZigBeeAttributeCache();
+        cache.put(1L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE, true, 0);
+        Assert.assertEquals(true, cache.get(1L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE,
+                ZigBeeAttributeCache.DISCRETE_REPORTABLE_TIME_TO_LIVE - 1));
+        Assert.assertNull(cache.get(1L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE,
+                ZigBeeAttributeCache.DISCRETE_REPORTABLE_TIME_TO_LIVE));
+        Assert.assertNull(cache.get(1L, 2, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE, 0));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        final ZigBeeAttributeCache cache = new ZigBeeAttributeCache(2);
+        cache.put(1L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE, true);
+        cache.put(2L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE, true);
+        Assert.assertEquals(true, cache.get(1L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE));
+        cache.put(3L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE, false);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(true, cache.get(1L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE));
+        Assert.assertNull(cache.get(2L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE));
+        Assert.assertEquals(false, cache.get(3L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE));
+
+        cache.invalidate(3L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE);
+        Assert.assertNull(cache.get(3L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE));
+    }
+
+    @Test
+    public void testInvalidateCluster() {
+        final ZigBeeAttributeCache cache = new ZigBeeAttributeCache();
+        cache.put(1L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE, true);
+        cache.put(1L, 2, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE, true);
+        cache.put(1L, 1, ON_OFF_CLUSTER + 1, ON_OFF_ATTRIBUTE, true);
+        cache.put(2L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE, true);
+
+        cache.invalidateCluster(1L, 1, ON_OFF_CLUSTER);
+        Assert.assertNull(cache.get(1L, 1, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE));
+        Assert.assertEquals(3, cache.size());
+
+        cache.invalidateCluster(ON_OFF_CLUSTER);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(true, cache.get(1L, 1, ON_OFF_CLUSTER + 1, ON_OFF_ATTRIBUTE));
+    }
+
+    @Test
+    public void testReadCached() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final ZigBeeNetworkStateImpl networkState = new ZigBeeNetworkStateImpl(true);
+        final ZigBeeApi api = new ZigBeeApi(network);
+        api.setNetworkState(networkState);
+
+        final ZigBeeDevice device = createDevice();
+        networkState.addDevice(device);
+
+        api.readCached(device, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE);
+        Assert.assertEquals(1, network.sentCommands.size());
+        Assert.assertTrue(network.sentCommands.get(0) instanceof ReadAttributesCommand);
+
+        network.report(true);
+
+        final CommandResult result = api.readCached(device, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE).get();
+        Assert.assertEquals(1, network.sentCommands.size());
+        Assert.assertTrue(result.isSuccess());
+        final ReadAttributesResponseCommand response = result.getResponse();
+        Assert.assertEquals(true, response.getRecords().get(0).getAttributeValue());
+        Assert.assertEquals(1, api.getAttributeCache().getHitCount());
+        Assert.assertEquals(1, api.getAttributeCache().getMissCount());
+
+        api.readFresh(device, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE);
+        Assert.assertEquals(2, network.sentCommands.size());
+
+        // Cluster command sent to device invalidates the cluster attributes.
+        api.off(device.getDeviceAddress());
+        Assert.assertNull(api.getAttributeCache().get(device.getIeeeAddress(), device.getEndpoint(),
+                ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE));
+    }
+
+    @Test
+    public void testReadCachedWithoutNetworkState() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final ZigBeeDevice device = createDevice();
+        final Thread listenerThread = Thread.currentThread();
+        final CountDownLatch refreshed = new CountDownLatch(1);
+        final ZigBeeApi api = new ZigBeeApi(network) {
+            @Override
+            public List<ZigBeeDevice> getDevices() {
+                // Devices are refreshed off the command listener thread.
+                Assert.assertNotSame(listenerThread, Thread.currentThread());
+                refreshed.countDown();
+                return Collections.singletonList(device);
+            }
+        };
+
+        network.report(true);
+        Assert.assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        final long endTime = System.currentTimeMillis() + 5000;
+        while (api.getAttributeCache().get(device.getIeeeAddress(), device.getEndpoint(), ON_OFF_CLUSTER,
+                ON_OFF_ATTRIBUTE) == null && System.currentTimeMillis() < endTime) {
+            Thread.sleep(10);
+            network.report(true);
+        }
+        Assert.assertEquals(true, api.getAttributeCache().get(device.getIeeeAddress(), device.getEndpoint(),
+                ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE));
+        Assert.assertTrue(api.readCached(device, ON_OFF_CLUSTER, ON_OFF_ATTRIBUTE).get().isSuccess());
+        Assert.assertEquals(0, network.sentCommands.size());
+    }
+
+    private static ZigBeeDevice createDevice() {
+        final ZigBeeDevice device = new ZigBeeDevice();
+        device.setIeeeAddress(0x1234L);
+        device.setNetworkAddress(5);
+        device.setEndpoint(1);
+        return device;
+    }
+
+    private static class TestNetwork implements ZigBeeNetwork {
+        private final List<Command> sentCommands = new ArrayList<Command>();
+        private final List<CommandListener> commandListeners = new ArrayList<CommandListener>();
+
+        private void report(final Object value) {
+            final AttributeReport report = new AttributeReport();
+            report.setAttributeIdentifier(ON_OFF_ATTRIBUTE);
+            report.setAttributeDataType(ZclAttributeType.ON_OFF_ON_OFF.getZigBeeType().getId());
+            report.setAttributeValue(value);
+            final ReportAttributesCommand reportCommand = new ReportAttributesCommand();
+            reportCommand.setClusterId(ON_OFF_CLUSTER);
+            reportCommand.setSourceAddress(new ZigBeeDeviceAddress(5, 1));
+            reportCommand.setReports(Collections.singletonList(report));
+            for (final CommandListener commandListener : commandListeners) {
+                commandListener.commandReceived(reportCommand);
+            }
+        }
+
+        @Override
+        public int sendCommand(final Command command) throws ZigBeeException {
+            sentCommands.add(command);
+            return sentCommands.size();
+        }
+
+        @Override
+        public void addCommandListener(final CommandListener commandListener) {
+            commandListeners.add(commandListener);
+        }
+
+        @Override
+        public void removeCommandListener(final CommandListener commandListener) {
+            commandListeners.remove(commandListener);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests device index lookups after puts, in place updates and removals.
+ */
+public class ZigBeeDeviceIndexTest {
+
+    @Test
+    public void testIndex() {
+        final ZigBeeDeviceIndex index = new ZigBeeDeviceIndex();
+        for (int i = 0; i < 1000; i++) {
+            index.put(createDevice(i / 2, i % 2 + 1, 1000 + i / 2, new int[] {i % 3}));
+        }
+        Assert.assertEquals(1000, index.getAll().size());
+        Assert.assertEquals(7, index.get(7, 2).getNetworkAddress());
+        Assert.assertEquals(2, index.get(7, 2).getEndpoint());
+        Assert.assertNull(index.get(7, 3));
+        Assert.assertNull(index.get(500, 1));
+        Assert.assertEquals(2, index.getByNetworkAddress(7).size());
+        Assert.assertEquals(2, index.getByIeeeAddress(1007).size());
+        Assert.assertEquals(334, index.getByClusterId(0).size());
+
+        final ZigBeeDevice device = index.get(7, 2);
+        device.setIeeeAddress(2007);
+        device.setInputClusterIds(new int[] {6});
+        index.put(device);
+        Assert.assertEquals(1, index.getByIeeeAddress(1007).size());
+        Assert.assertEquals(1, index.getByIeeeAddress(2007).size());
+        Assert.assertEquals(1, index.getByClusterId(6).size());
+
+        Assert.assertSame(device, index.remove(7, 2));
+        Assert.assertNull(index.remove(7, 2));
+        Assert.assertNull(index.get(7, 2));
+        Assert.assertNotNull(index.get(7, 1));
+        Assert.assertEquals(999, index.getAll().size());
+        Assert.assertEquals(0, index.getByIeeeAddress(2007).size());
+        Assert.assertEquals(0, index.getByClusterId(6).size());
+    }
+
+    private static ZigBeeDevice createDevice(final int networkAddress, final int endpoint, final long ieeeAddress,
+                                             final int[] inputClusterIds) {
+        final ZigBeeDevice device = new ZigBeeDevice();
+        device.setNetworkAddress(networkAddress);
+        device.setEndpoint(endpoint);
+        device.setIeeeAddress(ieeeAddress);
+        device.setInputClusterIds(inputClusterIds);
+        return device;
+    }
+}
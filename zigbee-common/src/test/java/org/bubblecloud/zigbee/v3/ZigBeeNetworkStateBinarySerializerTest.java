@@ -0,0 +1,136 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * Tests binary network state snapshot round trip, JSON migration and compares load
+ * time and heap use with JSON format.
+ */
+public class ZigBeeNetworkStateBinarySerializerTest {
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZigBeeNetworkStateBinarySerializerTest.class);
+
+    @Test
+    public void testRoundTrip() {
+        final ZigBeeNetworkStateImpl networkState = createNetworkState(3);
+        networkState.getDevices().get(1).setInputClusterIds(null);
+        networkState.getDevices().get(2).setLabel(null);
+
+        final ZigBeeNetworkStateImpl loadedState = new ZigBeeNetworkStateImpl(true);
+        new ZigBeeNetworkStateBinarySerializer().deserialize(loadedState,
+                ByteBuffer.wrap(new ZigBeeNetworkStateBinarySerializer().serialize(networkState)));
+
+        Assert.assertEquals(3, loadedState.getDevices().size());
+        for (final ZigBeeDevice device : networkState.getDevices()) {
+            final ZigBeeDevice loadedDevice = loadedState.getDevice(device.getDeviceAddress());
+            Assert.assertEquals(device.getIeeeAddress(), loadedDevice.getIeeeAddress());
+            Assert.assertEquals(device.getProfileId(), loadedDevice.getProfileId());
+            Assert.assertEquals(device.getDeviceId(), loadedDevice.getDeviceId());
+            Assert.assertArrayEquals(device.getInputClusterIds(), loadedDevice.getInputClusterIds());
+            Assert.assertArrayEquals(device.getOutputClusterIds(), loadedDevice.getOutputClusterIds());
+            Assert.assertEquals(device.getLabel(), loadedDevice.getLabel());
+        }
+        Assert.assertEquals("group", loadedState.getGroup(1).getLabel());
+    }
+
+    @Test
+    public void testJsonMigration() throws Exception {
+        final File directory = new File("target/network-state-migration-test");
+        FileUtils.deleteDirectory(directory);
+        directory.mkdirs();
+        final File jsonFile = new File(directory, "simple-network.json");
+        final File binaryFile = new File(directory, "simple-network.bin");
+        final File logFile = new File(directory, "simple-network.log");
+        FileUtils.writeStringToFile(jsonFile, new ZigBeeNetworkStateSerializer().serialize(createNetworkState(5)));
+
+        final ZigBeeNetworkStateImpl migratedState = new ZigBeeNetworkStateImpl(false,
+                binaryFile.getPath(), logFile.getPath(), jsonFile.getPath());
+        migratedState.startup();
+        Assert.assertEquals(5, migratedState.getDevices().size());
+        Assert.assertTrue(binaryFile.exists());
+        migratedState.shutdown();
+
+        final ZigBeeNetworkStateImpl loadedState = new ZigBeeNetworkStateImpl(false,
+                binaryFile.getPath(), logFile.getPath());
+        loadedState.startup();
+        Assert.assertEquals(5, loadedState.getDevices().size());
+        Assert.assertEquals(1, loadedState.getGroups().size());
+        loadedState.shutdown();
+    }
+
+    /**
+     * Compares JSON and binary load of 10000 devices. Run with -Dbenchmark=true.
+     */
+    @Test
+    public void testLoadBenchmark() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        final File directory = new File("target/network-state-benchmark");
+        FileUtils.deleteDirectory(directory);
+        directory.mkdirs();
+        final ZigBeeNetworkStateImpl networkState = createNetworkState(10000);
+        final File jsonFile = new File(directory, "simple-network.json");
+        final File binaryFile = new File(directory, "simple-network.bin");
+        FileUtils.writeStringToFile(jsonFile, new ZigBeeNetworkStateSerializer().serialize(networkState));
+        FileUtils.writeByteArrayToFile(binaryFile, new ZigBeeNetworkStateBinarySerializer().serialize(networkState));
+
+        for (int i = 0; i < 3; i++) {
+            final long jsonHeap = usedHeap();
+            final long jsonStartTime = System.nanoTime();
+            final ZigBeeNetworkStateImpl jsonState = new ZigBeeNetworkStateImpl(true);
+            new ZigBeeNetworkStateSerializer().deserialize(jsonState, FileUtils.readFileToString(jsonFile));
+            final long jsonTime = System.nanoTime() - jsonStartTime;
+            final long jsonHeapDelta = usedHeapWithoutGc() - jsonHeap;
+
+            final long binaryHeap = usedHeap();
+            final long binaryStartTime = System.nanoTime();
+            final ZigBeeNetworkStateImpl binaryState = new ZigBeeNetworkStateImpl(true);
+            new ZigBeeNetworkStateBinarySerializer().deserialize(binaryState, binaryFile);
+            final long binaryTime = System.nanoTime() - binaryStartTime;
+            final long binaryHeapDelta = usedHeapWithoutGc() - binaryHeap;
+
+            Assert.assertEquals(10000, jsonState.getDevices().size());
+            Assert.assertEquals(10000, binaryState.getDevices().size());
+            LOGGER.info("Loaded 10000 devices: JSON {} bytes in {} ms allocating {} kB, "
+                            + "binary {} bytes in {} ms allocating {} kB.",
+                    jsonFile.length(), jsonTime / 1000000, jsonHeapDelta / 1024,
+                    binaryFile.length(), binaryTime / 1000000, binaryHeapDelta / 1024);
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return usedHeapWithoutGc();
+    }
+
+    private static long usedHeapWithoutGc() {
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+    private static ZigBeeNetworkStateImpl createNetworkState(final int deviceCount) {
+        final ZigBeeNetworkStateImpl networkState = new ZigBeeNetworkStateImpl(true);
+        for (int i = 0; i < deviceCount; i++) {
+            final ZigBeeDevice device = new ZigBeeDevice();
+            device.setIeeeAddress(0x00124b0000000000L + i);
+            device.setNetworkAddress(i + 1);
+            device.setEndpoint(1);
+            device.setProfileId(0x104);
+            device.setDeviceId(0x100);
+            device.setInputClusterIds(new int[] {0, 3, 4, 5, 6, 8, 0x300});
+            device.setOutputClusterIds(new int[] {0x19});
+            device.setLabel("lamp " + i);
+            networkState.addDevice(device);
+        }
+        networkState.addGroup(new ZigBeeGroupAddress(1, "group"));
+        return networkState;
+    }
+}
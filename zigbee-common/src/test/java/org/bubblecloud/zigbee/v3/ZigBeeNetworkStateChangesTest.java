@@ -0,0 +1,58 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests network state snapshots and incremental changes.
+ */
+public class ZigBeeNetworkStateChangesTest {
+
+    @Test
+    public void testChangesSince() {
+        final ZigBeeNetworkStateImpl networkState = new ZigBeeNetworkStateImpl(true);
+        networkState.addDevice(createDevice(1));
+        networkState.addDevice(createDevice(2));
+        final List<ZigBeeDevice> snapshot = networkState.getDevices();
+        final ZigBeeNetworkStateChanges initial = networkState.getChangesSince(-1);
+        Assert.assertTrue(initial.isComplete());
+        Assert.assertEquals(2, initial.getDevices().size());
+
+        networkState.updateDevice(createDevice(2));
+        networkState.updateDevice(createDevice(2));
+        networkState.removeDevice(1, 1);
+        networkState.addGroup(new ZigBeeGroupAddress(5, "group"));
+        Assert.assertEquals(2, snapshot.size());
+        Assert.assertEquals(1, networkState.getDevices().size());
+
+        final ZigBeeNetworkStateChanges changes = networkState.getChangesSince(initial.getVersion());
+        Assert.assertFalse(changes.isComplete());
+        Assert.assertEquals(initial.getVersion() + 4, changes.getVersion());
+        Assert.assertEquals(1, changes.getDevices().size());
+        Assert.assertEquals(2, changes.getDevices().get(0).getNetworkAddress());
+        Assert.assertEquals(1, changes.getRemovedDevices().size());
+        Assert.assertEquals(1, changes.getRemovedDevices().get(0).getNetworkAddress());
+        Assert.assertEquals(1, changes.getGroups().size());
+
+        final ZigBeeNetworkStateChanges noChanges = networkState.getChangesSince(changes.getVersion());
+        Assert.assertFalse(noChanges.isComplete());
+        Assert.assertTrue(noChanges.getDevices().isEmpty());
+
+        for (int i = 0; i < 2000; i++) {
+            networkState.updateDevice(createDevice(2));
+        }
+        final ZigBeeNetworkStateChanges expired = networkState.getChangesSince(changes.getVersion());
+        Assert.assertTrue(expired.isComplete());
+        Assert.assertEquals(1, expired.getDevices().size());
+        Assert.assertEquals(1, expired.getGroups().size());
+    }
+
+    private static ZigBeeDevice createDevice(final int networkAddress) {
+        final ZigBeeDevice device = new ZigBeeDevice();
+        device.setNetworkAddress(networkAddress);
+        device.setEndpoint(1);
+        return device;
+    }
+}
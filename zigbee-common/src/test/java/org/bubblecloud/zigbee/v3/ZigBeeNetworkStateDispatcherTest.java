@@ -0,0 +1,164 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests asynchronous network state listener dispatch.
+ */
+public class ZigBeeNetworkStateDispatcherTest {
+
+    @Test
+    public void testOrderedDelivery() throws Exception {
+        final ZigBeeNetworkStateImpl networkState = new ZigBeeNetworkStateImpl(true);
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch latch = new CountDownLatch(3);
+        networkState.addNetworkListener(new ZigBeeNetworkStateListener() {
+            @Override
+            public void deviceAdded(ZigBeeDevice device) {
+                events.add("added " + device.getNetworkAddress());
+                latch.countDown();
+            }
+
+            @Override
+            public void deviceUpdated(ZigBeeDevice device) {
+                events.add("updated " + device.getNetworkAddress());
+                latch.countDown();
+            }
+
+            @Override
+            public void deviceRemoved(ZigBeeDevice device) {
+                events.add("removed " + device.getNetworkAddress());
+                latch.countDown();
+            }
+        });
+
+        networkState.addDevice(createDevice(1));
+        networkState.updateDevice(createDevice(1));
+        networkState.removeDevice(1, 1);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("[added 1, updated 1, removed 1]", events.toString());
+    }
+
+    @Test
+    public void testSlowListenerDoesNotBlock() throws Exception {
+        final ZigBeeNetworkStateImpl networkState = new ZigBeeNetworkStateImpl(true);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ZigBeeNetworkStateListener listener = new ZigBeeNetworkStateListener() {
+            @Override
+            public void deviceAdded(ZigBeeDevice device) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void deviceUpdated(ZigBeeDevice device) {
+            }
+
+            @Override
+            public void deviceRemoved(ZigBeeDevice device) {
+            }
+        };
+        networkState.addNetworkListener(listener, 4, ZigBeeNetworkStateDispatcher.OverflowPolicy.DROP_OLDEST);
+
+        final long startTime = System.currentTimeMillis();
+        networkState.addDevice(createDevice(0));
+        Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 10; i++) {
+            networkState.addDevice(createDevice(i));
+        }
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 1000);
+
+        final ZigBeeNetworkStateDispatcher dispatcher = networkState.getDispatcher();
+        Assert.assertEquals(4, dispatcher.getQueueLength(listener));
+        Assert.assertEquals(5, dispatcher.getDroppedCount(listener));
+
+        release.countDown();
+        final long timeout = System.currentTimeMillis() + 5000;
+        while (dispatcher.getQueueLength(listener) > 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, dispatcher.getQueueLength(listener));
+        Assert.assertTrue(dispatcher.getMaximumLagMillis(listener) > 0);
+        networkState.removeNetworkListener(listener);
+    }
+
+    @Test
+    public void testBlockingListenerDoesNotLockNetworkState() throws Exception {
+        final ZigBeeNetworkStateImpl networkState = new ZigBeeNetworkStateImpl(true);
+        final List<Integer> addedDevices = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ZigBeeNetworkStateListener listener = new ZigBeeNetworkStateListener() {
+            @Override
+            public void deviceAdded(ZigBeeDevice device) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                addedDevices.add(device.getNetworkAddress());
+            }
+
+            @Override
+            public void deviceUpdated(ZigBeeDevice device) {
+            }
+
+            @Override
+            public void deviceRemoved(ZigBeeDevice device) {
+            }
+        };
+        networkState.addNetworkListener(listener, 1, ZigBeeNetworkStateDispatcher.OverflowPolicy.BLOCK);
+        final ZigBeeNetworkStateDispatcher dispatcher = networkState.getDispatcher();
+
+        networkState.addDevice(createDevice(0));
+        Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        networkState.addDevice(createDevice(1));
+        final Thread publisher = new Thread() {
+            @Override
+            public void run() {
+                networkState.addDevice(createDevice(2));
+            }
+        };
+        publisher.start();
+        final long timeout = System.currentTimeMillis() + 5000;
+        while (publisher.getState() != Thread.State.WAITING && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Thread.State.WAITING, publisher.getState());
+
+        // Publisher waits for queue space without holding the network state lock.
+        networkState.addDevice(createDevice(3));
+        Assert.assertEquals(4, networkState.getDevices().size());
+
+        release.countDown();
+        publisher.join(5000);
+        while (addedDevices.size() < 4 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("[0, 1, 2, 3]", addedDevices.toString());
+        Assert.assertEquals(0, dispatcher.getDroppedCount(listener));
+
+        networkState.shutdown();
+        Assert.assertEquals(0, dispatcher.getQueueLength(listener));
+    }
+
+    private static ZigBeeDevice createDevice(final int networkAddress) {
+        final ZigBeeDevice device = new ZigBeeDevice();
+        device.setNetworkAddress(networkAddress);
+        device.setEndpoint(1);
+        return device;
+    }
+}
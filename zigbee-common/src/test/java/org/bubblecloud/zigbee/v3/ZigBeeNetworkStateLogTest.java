@@ -0,0 +1,86 @@
+package org.bubblecloud.zigbee.v3;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * Tests that network state changes logged before a crash are recovered from snapshot and log.
+ */
+public class ZigBeeNetworkStateLogTest {
+
+    @Test
+    public void testReplayAfterCrash() throws Exception {
+        final File directory = new File("target/network-state-log-test");
+        FileUtils.deleteDirectory(directory);
+        directory.mkdirs();
+        final File snapshotFile = new File(directory, "simple-network.bin");
+        final File logFile = new File(directory, "simple-network.log");
+
+        final ZigBeeNetworkStateImpl networkState = new ZigBeeNetworkStateImpl(true,
+                snapshotFile.getPath(), logFile.getPath());
+        networkState.startup();
+
+        networkState.addDevice(createDevice(1, 1));
+        networkState.addDevice(createDevice(2, 1));
+        final ZigBeeDevice device = createDevice(1, 1);
+        device.setLabel("lamp");
+        networkState.updateDevice(device);
+        networkState.removeDevice(2, 1);
+        networkState.addGroup(new ZigBeeGroupAddress(10, "kitchen"));
+
+        final long endTime = System.currentTimeMillis() + 5000;
+        while (FileUtils.readLines(logFile).size() < 5 && System.currentTimeMillis() < endTime) {
+            Thread.sleep(10);
+        }
+
+        final ZigBeeNetworkStateImpl recoveredState = new ZigBeeNetworkStateImpl(false,
+                snapshotFile.getPath(), logFile.getPath());
+        new ZigBeeNetworkStateBinarySerializer().deserialize(recoveredState, snapshotFile);
+        Assert.assertEquals(5, new ZigBeeNetworkStateLog(recoveredState, snapshotFile, logFile).replay());
+
+        Assert.assertEquals(1, recoveredState.getDevices().size());
+        Assert.assertEquals("lamp", recoveredState.getDevice(new ZigBeeDeviceAddress(1, 1)).getLabel());
+        Assert.assertEquals("kitchen", recoveredState.getGroup(10).getLabel());
+
+        networkState.shutdown();
+        Assert.assertEquals(0, logFile.length());
+        final ZigBeeNetworkStateImpl restartedState = new ZigBeeNetworkStateImpl(false,
+                snapshotFile.getPath(), logFile.getPath());
+        restartedState.startup();
+        Assert.assertEquals(1, restartedState.getDevices().size());
+        Assert.assertEquals(1, restartedState.getGroups().size());
+        restartedState.shutdown();
+    }
+
+    @Test
+    public void testSnapshotSavedWhenLogFails() throws Exception {
+        final File directory = new File("target/network-state-log-failure-test");
+        FileUtils.deleteDirectory(directory);
+        directory.mkdirs();
+        final File snapshotFile = new File(directory, "simple-network.bin");
+        // Log can not be opened as its path is a directory.
+        final File logFile = new File(directory, "simple-network.log");
+        logFile.mkdirs();
+
+        final ZigBeeNetworkStateImpl networkState = new ZigBeeNetworkStateImpl(true,
+                snapshotFile.getPath(), logFile.getPath());
+        networkState.startup();
+        networkState.addDevice(createDevice(1, 1));
+        networkState.shutdown();
+
+        final ZigBeeNetworkStateImpl loadedState = new ZigBeeNetworkStateImpl(true,
+                snapshotFile.getPath(), logFile.getPath());
+        new ZigBeeNetworkStateBinarySerializer().deserialize(loadedState, snapshotFile);
+        Assert.assertEquals(1, loadedState.getDevices().size());
+    }
+
+    private static ZigBeeDevice createDevice(final int networkAddress, final int endpoint) {
+        final ZigBeeDevice device = new ZigBeeDevice();
+        device.setNetworkAddress(networkAddress);
+        device.setEndpoint(endpoint);
+        return device;
+    }
+}
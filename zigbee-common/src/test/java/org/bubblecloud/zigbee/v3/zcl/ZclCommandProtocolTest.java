@@ -2,6 +2,8 @@ package org.bubblecloud.zigbee.v3.zcl;
 
 import org.bubblecloud.zigbee.v3.model.ZigBeeType;
 import org.bubblecloud.zigbee.v3.zcl.field.*;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclDataType;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.LockDoorCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.door.lock.UnlockDoorCommand;
 import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.*;
@@ -22,6 +24,19 @@ import java.util.List;
  */
 public class ZclCommandProtocolTest {
 
+    @Test
+    public void testCommandFactories() throws Exception {
+        for (final ZclCommandType commandType : ZclCommandType.values()) {
+            Assert.assertEquals(commandType.toString(), commandType, ZclUtil.newCommand(commandType).getType());
+        }
+        for (final ZclDataType dataType : ZclDataType.values()) {
+            if (ZclListItemField.class.isAssignableFrom(dataType.getDataClass())) {
+                Assert.assertEquals(dataType.toString(), dataType.getDataClass(),
+                        ZclUtil.newListItemField(dataType).getClass());
+            }
+        }
+    }
+
     @Test
     public void testLockDoorCommand() throws Exception {
         final LockDoorCommand command = new LockDoorCommand();
@@ -283,6 +298,11 @@ public class ZclCommandProtocolTest {
 
         Assert.assertEquals("Command equality after payload ZigBee serialization", command.toString(), command2.toString());
 
+        Assert.assertArrayEquals("Payload equality with generated field encoder", payload,
+                ZclCommandProtocol.serializeCommand(command));
+        final ZclCommand command4 = ZclCommandProtocol.deserializeCommand(command.getType(), payload, 0);
+        Assert.assertEquals("Command equality after generated field decoder", command.toString(), command4.toString());
+
         final ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
         final String json = objectMapper.writeValueAsString(message1);
@@ -0,0 +1,57 @@
+package org.bubblecloud.zigbee.v3.zcl.protocol;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests command type lookup against linear search over all command types.
+ */
+public class ZclCommandTypeTest {
+
+    @Test
+    public void testGetValue() {
+        for (final ZclCommandType type : ZclCommandType.values()) {
+            final int profileId = type.getClusterType().getProfileType().getId();
+            if (type.isGeneric()) {
+                Assert.assertEquals(findGeneric(profileId, type.getId()),
+                        ZclCommandType.getGenericValue(profileId, type.getId()));
+            } else {
+                Assert.assertEquals(find(profileId, type.getClusterType().getId(), type.getId(), type.isReceived()),
+                        ZclCommandType.getValue(profileId, type.getClusterType().getId(), type.getId(),
+                                type.isReceived()));
+            }
+        }
+    }
+
+    @Test
+    public void testGetValueNotFound() {
+        final int profileId = ZclProfileType.HOME_AUTOMATION.getId();
+        Assert.assertNull(ZclCommandType.getValue(profileId, ZclClusterType.ON_OFF.getId(), 0xff, true));
+        Assert.assertNull(ZclCommandType.getValue(0, ZclClusterType.ON_OFF.getId(), 0, true));
+        Assert.assertNull(ZclCommandType.getGenericValue(profileId, 0xff));
+    }
+
+    private static ZclCommandType find(final int profileId, final int clusterId, final int commandId,
+                                       final boolean received) {
+        for (final ZclCommandType candidate : ZclCommandType.values()) {
+            if (candidate.getClusterType().getProfileType().getId() == profileId
+                    && candidate.getClusterType().getId() == clusterId
+                    && candidate.getId() == commandId
+                    && candidate.isReceived() == received) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static ZclCommandType findGeneric(final int profileId, final int commandId) {
+        for (final ZclCommandType candidate : ZclCommandType.values()) {
+            if (candidate.getClusterType().getProfileType().getId() == profileId
+                    && candidate.isGeneric()
+                    && candidate.getId() == commandId) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
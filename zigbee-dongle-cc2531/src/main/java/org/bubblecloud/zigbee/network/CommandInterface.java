@@ -34,9 +34,9 @@ public interface CommandInterface {
     void close();
 
     /**
-     * Sends packet.
+     * Queues packet for sending. Returns without waiting for the packet to be written.
      * @param packet the packet
-     * @throws IOException if IO exception occurs in sending
+     * @throws IOException if packet could not be queued for sending
      */
     void sendPacket(ZToolPacket packet)
             throws IOException;
@@ -60,7 +60,7 @@ public interface CommandInterface {
      * @param packet the raw packet
      * @throws IOException if IO exception occurs in sending
      */
-    void sendRaw(int[] packet) throws IOException;
+    void sendRaw(byte[] packet) throws IOException;
     /**
      * Adds asynchronous command listener
      * @param listener the asynchronous command listener
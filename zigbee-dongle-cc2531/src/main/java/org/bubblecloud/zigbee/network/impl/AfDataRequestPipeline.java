@@ -0,0 +1,215 @@
+package org.bubblecloud.zigbee.network.impl;
+
+import org.bubblecloud.zigbee.network.AsynchronousCommandListener;
+import org.bubblecloud.zigbee.network.CommandInterface;
+import org.bubblecloud.zigbee.network.packet.ZToolCMD;
+import org.bubblecloud.zigbee.network.packet.ZToolPacket;
+import org.bubblecloud.zigbee.network.packet.af.AF_DATA_CONFIRM;
+import org.bubblecloud.zigbee.network.packet.af.AF_DATA_REQUEST;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pipeline for AF_DATA_REQUEST conversations. Any number of requests up to the configured
+ * window can wait for their AF_DATA_CONFIRM at the same time. Confirms are matched to requests
+ * by source endpoint and AF transaction ID.
+ */
+public class AfDataRequestPipeline implements AsynchronousCommandListener {
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AfDataRequestPipeline.class);
+
+    /**
+     * The maximum number of requests in flight.
+     */
+    private final int window;
+    /**
+     * The transactions in flight by key.
+     */
+    private final Map<Integer, Transaction> transactions = new HashMap<Integer, Transaction>();
+
+    /**
+     * Constructor for setting the command interface and in-flight window.
+     * Sets self as listener for commands in command interface.
+     *
+     * @param commandInterface the command interface
+     * @param window the maximum number of requests waiting for confirm at the same time
+     */
+    public AfDataRequestPipeline(final CommandInterface commandInterface, final int window) {
+        this.window = Math.max(1, Math.min(window, 0xff));
+        commandInterface.addAsynchronousCommandListener(this);
+    }
+
+    /**
+     * Gets the maximum number of requests in flight.
+     *
+     * @return the window
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Gets the number of requests currently waiting for confirm.
+     *
+     * @return the number of requests in flight
+     */
+    public int getInFlightCount() {
+        synchronized (transactions) {
+            return transactions.size();
+        }
+    }
+
+    /**
+     * Opens transaction for the request. Blocks while the window is full or the
+     * same endpoint and transaction ID is still in flight.
+     * The transaction has to be opened before the request is sent so that confirm can not be missed.
+     *
+     * @param request the request
+     * @param timeoutMillis the maximum time to wait for free slot
+     * @return the transaction or null if no slot was freed before timeout
+     */
+    public Transaction open(final AF_DATA_REQUEST request, final long timeoutMillis) {
+        final int key = getKey(request.getSrcEndpoint(), request.getTransID());
+        final long wakeUpTime = System.currentTimeMillis() + timeoutMillis;
+        synchronized (transactions) {
+            while (transactions.size() >= window || transactions.containsKey(key)) {
+                final long sleeping = wakeUpTime - System.currentTimeMillis();
+                if (sleeping <= 0) {
+                    LOGGER.warn("Timed out waiting for free AF_DATA_REQUEST slot, {} requests in flight.",
+                            transactions.size());
+                    return null;
+                }
+                try {
+                    transactions.wait(sleeping);
+                } catch (final InterruptedException e) {
+                    LOGGER.trace("Waiting for free AF_DATA_REQUEST slot interrupted.", e);
+                }
+            }
+            final Transaction transaction = new Transaction(key);
+            transactions.put(key, transaction);
+            LOGGER.trace("Opened AF_DATA_REQUEST transaction {}, {} requests in flight.",
+                    key, transactions.size());
+            return transaction;
+        }
+    }
+
+    /**
+     * Closes transaction and releases its slot.
+     *
+     * @param transaction the transaction
+     */
+    public void close(final Transaction transaction) {
+        synchronized (transactions) {
+            if (transactions.get(transaction.key) == transaction) {
+                transactions.remove(transaction.key);
+            }
+            transactions.notifyAll();
+        }
+    }
+
+    @Override
+    public void receivedAsynchronousCommand(final ZToolPacket packet) {
+        if (packet.isError() || packet.getCMD().get16BitValue() != ZToolCMD.AF_DATA_CONFIRM) {
+            return;
+        }
+        final AF_DATA_CONFIRM confirm = (AF_DATA_CONFIRM) packet;
+        final int key = getKey(confirm.Endpoint, confirm.TransID);
+        final Transaction transaction;
+        synchronized (transactions) {
+            transaction = transactions.get(key);
+        }
+        if (transaction == null) {
+            LOGGER.trace("Received unmatched AF_DATA_CONFIRM: {}", confirm);
+            return;
+        }
+        transaction.setConfirm(confirm);
+    }
+
+    @Override
+    public void receivedUnclaimedSynchronousCommandResponse(final ZToolPacket packet) {
+    }
+
+    /**
+     * Gets transaction key from source endpoint and AF transaction ID.
+     *
+     * @param endpoint the source endpoint
+     * @param transactionId the AF transaction ID
+     * @return the key
+     */
+    private static int getKey(final int endpoint, final int transactionId) {
+        return ((endpoint & 0xff) << 8) | (transactionId & 0xff);
+    }
+
+    /**
+     * AF_DATA_REQUEST transaction waiting for AF_DATA_CONFIRM.
+     */
+    public class Transaction {
+        /**
+         * The transaction key.
+         */
+        private final int key;
+        /**
+         * The received confirm.
+         */
+        private AF_DATA_CONFIRM confirm;
+
+        /**
+         * Constructor for setting the transaction key.
+         *
+         * @param key the key
+         */
+        private Transaction(final int key) {
+            this.key = key;
+        }
+
+        /**
+         * Sets the received confirm and wakes up the waiting thread.
+         *
+         * @param confirm the confirm
+         */
+        private void setConfirm(final AF_DATA_CONFIRM confirm) {
+            synchronized (this) {
+                this.confirm = confirm;
+                this.notifyAll();
+            }
+        }
+
+        /**
+         * Gets the confirm and blocks until the confirm is available or timeoutMillis occurs.
+         * Closes the transaction.
+         *
+         * @param timeoutMillis the timeout in milliseconds
+         * @return the confirm or null if time out occurs
+         */
+        public AF_DATA_CONFIRM getConfirm(final long timeoutMillis) {
+            try {
+                synchronized (this) {
+                    final long wakeUpTime = System.currentTimeMillis() + timeoutMillis;
+                    while (confirm == null) {
+                        final long sleeping = wakeUpTime - System.currentTimeMillis();
+                        if (sleeping <= 0) {
+                            break;
+                        }
+                        try {
+                            this.wait(sleeping);
+                        } catch (final InterruptedException e) {
+                            LOGGER.trace("Waiting for AF_DATA_CONFIRM interrupted.", e);
+                        }
+                    }
+                    if (confirm == null) {
+                        LOGGER.trace("Timeout {} expired and no AF_DATA_CONFIRM received for {}",
+                                timeoutMillis, key);
+                    }
+                    return confirm;
+                }
+            } finally {
+                close(this);
+            }
+        }
+    }
+}
@@ -363,18 +363,20 @@ public class ApplicationFrameworkLayer {
      * @return byte transaction ID
      */
     public byte getNextTransactionId(short endPoint) {
-        if (!endPoint2Transaction.containsKey(endPoint)) {
-            endPoint2Transaction.put(endPoint, (byte) 1);
-        }
-        byte value = endPoint2Transaction.get(endPoint);
-        switch (value) {
-            case 127: {
-                endPoint2Transaction.put(endPoint, (byte) -128);
-                return 127;
+        synchronized (endPoint2Transaction) {
+            if (!endPoint2Transaction.containsKey(endPoint)) {
+                endPoint2Transaction.put(endPoint, (byte) 1);
             }
-            default: {
-                endPoint2Transaction.put(endPoint, (byte) (value + 1));
-                return value;
+            byte value = endPoint2Transaction.get(endPoint);
+            switch (value) {
+                case 127: {
+                    endPoint2Transaction.put(endPoint, (byte) -128);
+                    return 127;
+                }
+                default: {
+                    endPoint2Transaction.put(endPoint, (byte) (value + 1));
+                    return value;
+                }
             }
         }
     }
@@ -29,12 +29,18 @@ import org.bubblecloud.zigbee.network.packet.ZToolPacket;
 import org.bubblecloud.zigbee.network.packet.ZToolPacketHandler;
 import org.bubblecloud.zigbee.network.packet.ZToolPacketParser;
 import org.bubblecloud.zigbee.util.DoubleByte;
+import org.bubblecloud.zigbee.util.TimerWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ZigBeeSerialInterface is used to startup connection to ZigBee network.
@@ -60,26 +66,64 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
      * The packet parser.
      */
     private ZToolPacketParser parser;
+    /**
+     * The system property for disabling parallel processing of synchronous commands with different command IDs.
+     */
+    public static final String MULTIPLE_SYNCHRONOUS_COMMANDS_KEY = "zigbee.driver.cc2530.sreq.multiplexed";
+    /**
+     * The default maximum number of packets waiting to be written to the port.
+     */
+    public static final int TX_QUEUE_CAPACITY_DEFAULT = 64;
+    /**
+     * The system property for setting the maximum number of packets waiting to be written to the port.
+     */
+    public static final String TX_QUEUE_CAPACITY_KEY = "zigbee.driver.cc2530.tx.queue";
+    /**
+     * The queue key used for all synchronous commands when they are processed one at a time.
+     */
+    private static final short SINGLE_QUEUE_KEY = -1;
+    /**
+     * The timer wheel tick in milliseconds.
+     */
+    private static final long TIMER_WHEEL_TICK_MILLIS = 10;
+    /**
+     * The timer wheel bucket count.
+     */
+    private static final int TIMER_WHEEL_BUCKET_COUNT = 512;
     /**
      * Support parallel processing of different command types.
-     * Only one command per command ID can be in process at a time.
+     * Only one command per command ID can be in process at a time and
+     * commands with same command ID are sent in FIFO order.
      */
-    private final boolean supportMultipleSynchrounsCommand = false;
+    private final boolean supportMultipleSynchrounsCommand;
     /**
-     * Synchronous command listeners.
+     * Pending synchronous commands queued by command ID. The head of each queue is in process.
      */
-    private final Hashtable<Short, SynchronousCommandListener> synchronousCommandListeners
-            = new Hashtable<Short, SynchronousCommandListener>();
+    private final Map<Short, LinkedList<PendingSynchronousCommand>> pendingSynchronousCommands
+            = new HashMap<Short, LinkedList<PendingSynchronousCommand>>();
     /**
      * Asynchronous command listeners.
      */
     private final HashSet<AsynchronousCommandListener> asynchrounsCommandListeners
             = new HashSet<AsynchronousCommandListener>();
     /**
-     * Timeout times for synchronous command listeners.
+     * The timer wheel for synchronous command timeouts.
      */
-    private final HashMap<SynchronousCommandListener, Long> synchronousCommandListenerTimeouts =
-            new HashMap<SynchronousCommandListener, Long>();
+    private TimerWheel timerWheel;
+    /**
+     * The executor sending queued synchronous commands which became in process. Sending may block
+     * while write queue is full, so it is not done in the parser thread which reads the responses
+     * the writer is waiting for.
+     */
+    private ThreadPoolExecutor synchronousCommandSender;
+    /**
+     * The maximum number of packets waiting to be written to the port.
+     */
+    private final int txQueueCapacity;
+    /**
+     * The packet writer.
+     */
+    private PacketWriter packetWriter;
 
     /**
      * Constructor for configuring the ZigBee Network connection parameters.
@@ -87,6 +131,18 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
      */
     public CommandInterfaceImpl(SerialPort port) {
         this.port = port;
+        final String multiplexed = System.getProperty(MULTIPLE_SYNCHRONOUS_COMMANDS_KEY);
+        this.supportMultipleSynchrounsCommand = multiplexed == null || Boolean.parseBoolean(multiplexed);
+
+        int txQueueCapacity = TX_QUEUE_CAPACITY_DEFAULT;
+        try {
+            if (System.getProperty(TX_QUEUE_CAPACITY_KEY) != null) {
+                txQueueCapacity = Integer.parseInt(System.getProperty(TX_QUEUE_CAPACITY_KEY));
+            }
+        } catch (final NumberFormatException ex) {
+            LOGGER.trace("Failed to parse TX queue capacity system property: " + System.getProperty(TX_QUEUE_CAPACITY_KEY), ex);
+        }
+        this.txQueueCapacity = txQueueCapacity;
     }
 
     /**
@@ -98,6 +154,20 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
         if (!port.open()) {
             return false;
         }
+        timerWheel = new TimerWheel("ZigBee synchronous command timeouts",
+                TIMER_WHEEL_TICK_MILLIS, TIMER_WHEEL_BUCKET_COUNT);
+        timerWheel.start();
+        synchronousCommandSender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "ZigBee synchronous command sender");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        packetWriter = new PacketWriter(port, txQueueCapacity);
+        packetWriter.start();
         parser = new ZToolPacketParser(port.getInputStream(), this);
         return true;
     }
@@ -111,12 +181,21 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
             if (parser != null) {
                 parser.setClosing();
             }
+            if (packetWriter != null) {
+                packetWriter.stop();
+            }
             if (port != null) {
                 port.close();
             }
             if (parser != null) {
                 parser.close();
             }
+            if (timerWheel != null) {
+                timerWheel.stop();
+            }
+            if (synchronousCommandSender != null) {
+                synchronousCommandSender.shutdownNow();
+            }
         }
     }
 
@@ -140,17 +219,23 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
      */
     public void handlePacket(final ZToolPacket packet) {
         final DoubleByte cmdId = packet.getCMD();
-        PACKET_LOGGER.trace("|<|{}|{}", packet.getClass().getSimpleName(), packet.getPacket());
+        if (PACKET_LOGGER.isTraceEnabled()) {
+            PACKET_LOGGER.trace("|<|{}|{}", packet.getClass().getSimpleName(), packet.getPacket());
+        }
         switch (cmdId.getMsb() & 0xE0) {
             // Received incoming message which can be either message from dongle or remote device.
             case 0x40:
-                LOGGER.debug("<-- {} ({})", packet.getClass().getSimpleName(), packet.getPacket());
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("<-- {} ({})", packet.getClass().getSimpleName(), packet.getPacket());
+                }
                 notifyAsynchronousCommand(packet);
                 break;
 
             // Received synchronous command response.
             case 0x60:
-                LOGGER.debug("<- {} ({})", packet.getClass().getSimpleName(), packet.getPacket());
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("<- {} ({})", packet.getClass().getSimpleName(), packet.getPacket());
+                }
                 notifySynchronousCommand(packet);
                 break;
 
@@ -160,63 +245,40 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
     }
 
     /**
-     * Send packet to dongle.
+     * Send packet to dongle. The packet is queued to packet writer and this method
+     * returns without waiting for the write. Blocks while the write queue is full.
      * @param packet the packet
-     * @throws IOException if IO exception occurs while sending packet
+     * @throws IOException if packet could not be queued for sending
      */
     @Override
     public void sendPacket(final ZToolPacket packet)
             throws IOException {
         LOGGER.debug("-> {} ({}) ", packet.getClass().getSimpleName(), packet);
-        PACKET_LOGGER.trace("|>|{}|{}", packet.getClass().getSimpleName(), packet.getPacket());
-        final int[] pck = packet.getPacket();
-        sendRaw(pck);
-    }
-
-
-    /**
-     * Cleans expired synchronous command listeners.
-     */
-    private void cleanExpiredSynchronousCommandListeners() {
-        final long now = System.currentTimeMillis();
-        final ArrayList<Short> expired = new ArrayList<Short>();
-        synchronized (synchronousCommandListeners) {
-            final Iterator<Map.Entry<Short, SynchronousCommandListener>> i =
-                    synchronousCommandListeners.entrySet().iterator();
-            while (i.hasNext()) {
-                Map.Entry<Short, SynchronousCommandListener> entry = i.next();
-
-                final long expiration = synchronousCommandListenerTimeouts.get(entry.getValue());
-                if (expiration != -1L && expiration < now) {
-                    expired.add(entry.getKey());
-                }
-            }
-
-            for (Short key : expired) {
-                synchronousCommandListeners.remove(key);
-            }
-            synchronousCommandListeners.notifyAll();
+        if (PACKET_LOGGER.isTraceEnabled()) {
+            PACKET_LOGGER.trace("|>|{}|{}", packet.getClass().getSimpleName(), packet.getPacket());
         }
+        final PacketWriter packetWriter = this.packetWriter;
+        if (packetWriter == null) {
+            // Port has not been opened.
+            return;
+        }
+        packetWriter.write(packet.getFrame());
     }
 
+
     /**
-     * Sends synchronous command and adds listener.
+     * Sends synchronous command and adds listener. If other command with the same command ID
+     * is in process the command is queued and sent after the preceding commands have completed
+     * or expired. The timeout starts when the command is queued.
      * @param packet the command packet
      * @param listener the synchronous command response listener
-     * @param timeoutMillis the timeout
+     * @param timeoutMillis the timeout or -1 for no timeout
      * @throws IOException if IO exception occurs in packet sending
      */
     @Override
     public void sendSynchronousCommand(final ZToolPacket packet, final SynchronousCommandListener listener,
                                        final long timeoutMillis)
             throws IOException {
-        if (timeoutMillis == -1L) {
-            synchronousCommandListenerTimeouts.put(listener, -1L);
-        } else {
-            final long expirationTime = System.currentTimeMillis() + timeoutMillis;
-            synchronousCommandListenerTimeouts.put(listener, expirationTime);
-        }
-
         final DoubleByte cmdId = packet.getCMD();
         final int value = (cmdId.getMsb() & 0xE0);
         if (value != 0x20) {
@@ -226,38 +288,109 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
             );
         }
 
-        cleanExpiredSynchronousCommandListeners();
-
-        if (supportMultipleSynchrounsCommand) {
-            synchronized (synchronousCommandListeners) {
-                final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
-                while (synchronousCommandListeners.get(cmdId) != null) {
-                    try {
-                        LOGGER.trace("Waiting for other request {} to complete", id);
-                        synchronousCommandListeners.wait(500);
-                        cleanExpiredSynchronousCommandListeners();
-                    } catch (InterruptedException ignored) {
-                    }
-                }
-                synchronousCommandListeners.put(id, listener);
+        final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
+        final PendingSynchronousCommand command = new PendingSynchronousCommand(id, packet, listener);
+        final boolean sendNow;
+        synchronized (pendingSynchronousCommands) {
+            final short queueKey = getQueueKey(id);
+            LinkedList<PendingSynchronousCommand> queue = pendingSynchronousCommands.get(queueKey);
+            if (queue == null) {
+                queue = new LinkedList<PendingSynchronousCommand>();
+                pendingSynchronousCommands.put(queueKey, queue);
             }
-        } else {
-            synchronized (synchronousCommandListeners) {
-                final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
-                while (!synchronousCommandListeners.isEmpty()) {
-                    try {
-                        LOGGER.trace("Waiting for other request to complete");
-                        synchronousCommandListeners.wait(500);
-                        cleanExpiredSynchronousCommandListeners();
-                    } catch (InterruptedException ignored) {
-                    }
+            queue.add(command);
+            sendNow = queue.size() == 1;
+            if (timeoutMillis != -1L) {
+                command.timeout = timerWheel.schedule(command, timeoutMillis);
+            }
+            if (!sendNow) {
+                LOGGER.trace("Queued synchronous command {} behind {} other requests.", id, queue.size() - 1);
+            }
+        }
+
+        if (sendNow) {
+            LOGGER.trace("Sending SynchrounsCommand {} ", packet);
+            try {
+                sendPacket(packet);
+            } catch (final IOException e) {
+                sendPendingSynchronousCommand(completeSynchronousCommand(command));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Gets the key of the queue for synchronous command ID.
+     * @param id the command ID
+     * @return the queue key
+     */
+    private short getQueueKey(final short id) {
+        return supportMultipleSynchrounsCommand ? id : SINGLE_QUEUE_KEY;
+    }
+
+    /**
+     * Removes synchronous command from its queue and cancels its timeout.
+     * @param command the command
+     * @return the next command which became in process or null if none
+     */
+    private PendingSynchronousCommand completeSynchronousCommand(final PendingSynchronousCommand command) {
+        synchronized (pendingSynchronousCommands) {
+            if (command.timeout != null) {
+                command.timeout.cancel();
+            }
+            final short queueKey = getQueueKey(command.id);
+            final LinkedList<PendingSynchronousCommand> queue = pendingSynchronousCommands.get(queueKey);
+            if (queue == null) {
+                return null;
+            }
+            final boolean wasInProcess = queue.peek() == command;
+            if (!queue.remove(command)) {
+                return null;
+            }
+            if (queue.isEmpty()) {
+                pendingSynchronousCommands.remove(queueKey);
+                return null;
+            }
+            return wasInProcess ? queue.peek() : null;
+        }
+    }
+
+    /**
+     * Sends queued synchronous command which became in process in the synchronous command sender thread.
+     * @param command the command or null
+     */
+    private void sendPendingSynchronousCommandLater(final PendingSynchronousCommand command) {
+        if (command == null) {
+            return;
+        }
+        try {
+            synchronousCommandSender.execute(new Runnable() {
+                @Override
+                public void run() {
+                    sendPendingSynchronousCommand(command);
                 }
-                LOGGER.trace("Put synchronousCommandListeners listener for {} command", id);
-                synchronousCommandListeners.put(id, listener);
+            });
+        } catch (final RejectedExecutionException e) {
+            LOGGER.trace("Queued synchronous command not sent as interface has been closed.", e);
+        }
+    }
+
+    /**
+     * Sends queued synchronous command which became in process. If sending fails
+     * the command is dropped and the next one in queue is sent.
+     * @param command the command or null
+     */
+    private void sendPendingSynchronousCommand(PendingSynchronousCommand command) {
+        while (command != null) {
+            try {
+                LOGGER.trace("Sending queued SynchrounsCommand {} ", command.packet);
+                sendPacket(command.packet);
+                return;
+            } catch (final IOException e) {
+                LOGGER.error("Error sending queued synchronous command.", e);
+                command = completeSynchronousCommand(command);
             }
         }
-        LOGGER.trace("Sending SynchrounsCommand {} ", packet);
-        sendPacket(packet);
     }
 
     /**
@@ -278,22 +411,23 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
     }
 
     /**
-     * Send raw bytes to output stream.
+     * Send raw bytes to output stream through packet writer and wait until they have been written.
      * @param packet the byte buffer
      * @throws IOException if IO exception occurs when writing or flushing bytes.
      */
     @Override
-    public void sendRaw(int[] packet) throws IOException {
-        synchronized (port) {
-            final OutputStream out = port.getOutputStream();
-            if (out == null) {
-                // Socket has not been opened or is already closed.
-                return;
-            }
-            for (int i = 0; i < packet.length; i++) {
-                out.write(packet[i]);
-            }
-            out.flush();
+    public void sendRaw(byte[] packet) throws IOException {
+        final PacketWriter packetWriter = this.packetWriter;
+        if (packetWriter == null) {
+            // Port has not been opened.
+            return;
+        }
+        try {
+            packetWriter.write(packet).get();
+        } catch (final InterruptedException e) {
+            throw new IOException("Interrupted while waiting for raw bytes to be written.");
+        } catch (final ExecutionException e) {
+            throw (IOException) e.getCause();
         }
     }
 
@@ -303,28 +437,35 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
      */
     private void notifySynchronousCommand(final ZToolPacket packet) {
         final DoubleByte cmdId = packet.getCMD();
-        synchronized (synchronousCommandListeners) {
-            final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
-            final SynchronousCommandListener listener = synchronousCommandListeners.get(id);
-            if (listener != null) {
-                listener.receivedCommandResponse(packet);
-                synchronousCommandListeners.remove(id);
-                synchronousCommandListeners.notifyAll();
-            } else {
-                // Notify asynchronous command listeners of unclaimed asynchronous command responses.
-                final AsynchronousCommandListener[] listeners;
-                synchronized (asynchrounsCommandListeners) {
-                    listeners = asynchrounsCommandListeners.toArray(new AsynchronousCommandListener[]{});
-                }
-                for (final AsynchronousCommandListener asynchronousCommandListener : listeners) {
-                    try {
-                        asynchronousCommandListener.receivedUnclaimedSynchronousCommandResponse(packet);
-                    } catch (Throwable e) {
-                        LOGGER.error("Error in incoming asynchronous message processing.", e);
-                    }
-                }
+        final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
+        PendingSynchronousCommand command = null;
+        synchronized (pendingSynchronousCommands) {
+            final LinkedList<PendingSynchronousCommand> queue = pendingSynchronousCommands.get(getQueueKey(id));
+            if (queue != null && queue.peek().id == id) {
+                command = queue.peek();
             }
+        }
 
+        if (command != null) {
+            sendPendingSynchronousCommandLater(completeSynchronousCommand(command));
+            try {
+                command.listener.receivedCommandResponse(packet);
+            } catch (Throwable e) {
+                LOGGER.error("Error in synchronous command response processing.", e);
+            }
+        } else {
+            // Notify asynchronous command listeners of unclaimed asynchronous command responses.
+            final AsynchronousCommandListener[] listeners;
+            synchronized (asynchrounsCommandListeners) {
+                listeners = asynchrounsCommandListeners.toArray(new AsynchronousCommandListener[]{});
+            }
+            for (final AsynchronousCommandListener asynchronousCommandListener : listeners) {
+                try {
+                    asynchronousCommandListener.receivedUnclaimedSynchronousCommandResponse(packet);
+                } catch (Throwable e) {
+                    LOGGER.error("Error in incoming asynchronous message processing.", e);
+                }
+            }
         }
     }
 
@@ -375,4 +516,48 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
             }
         }
     }
+
+    /**
+     * Synchronous command waiting for its response.
+     */
+    private class PendingSynchronousCommand implements Runnable {
+        /**
+         * The command ID.
+         */
+        private final short id;
+        /**
+         * The command packet.
+         */
+        private final ZToolPacket packet;
+        /**
+         * The response listener.
+         */
+        private final SynchronousCommandListener listener;
+        /**
+         * The timeout or null if command does not expire.
+         */
+        private TimerWheel.Timeout timeout;
+
+        /**
+         * Constructor for setting the command fields.
+         * @param id the command ID
+         * @param packet the command packet
+         * @param listener the response listener
+         */
+        private PendingSynchronousCommand(final short id, final ZToolPacket packet,
+                                          final SynchronousCommandListener listener) {
+            this.id = id;
+            this.packet = packet;
+            this.listener = listener;
+        }
+
+        /**
+         * Expires the command.
+         */
+        @Override
+        public void run() {
+            LOGGER.trace("Synchronous command {} expired.", id);
+            sendPendingSynchronousCommandLater(completeSynchronousCommand(this));
+        }
+    }
 }
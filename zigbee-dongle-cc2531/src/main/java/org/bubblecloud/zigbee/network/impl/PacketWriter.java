@@ -0,0 +1,308 @@
+package org.bubblecloud.zigbee.network.impl;
+
+import org.bubblecloud.zigbee.v3.SerialPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes packet frames to serial port from a single writer thread. Senders enqueue frames to
+ * a bounded queue and block only while the queue is full. Frames queued while the previous
+ * write was in progress are packed to one write and flush.
+ */
+public class PacketWriter {
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PacketWriter.class);
+    /**
+     * The maximum number of bytes packed to one write.
+     */
+    private static final int MAX_WRITE_LENGTH = 1024;
+    /**
+     * The maximum time to wait for writer thread to exit at stop in milliseconds.
+     */
+    private static final long STOP_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * The serial port.
+     */
+    private final SerialPort port;
+    /**
+     * The queue of frames waiting to be written.
+     */
+    private final BlockingQueue<PendingWrite> queue;
+    /**
+     * The writer thread.
+     */
+    private final Thread thread;
+    /**
+     * The write buffer.
+     */
+    private final byte[] buffer = new byte[MAX_WRITE_LENGTH];
+    /**
+     * The frames being written.
+     */
+    private volatile List<PendingWrite> writingBatch = new ArrayList<PendingWrite>();
+    /**
+     * True if writer has been stopped.
+     */
+    private volatile boolean stopped = false;
+    /**
+     * The number of frames written.
+     */
+    private volatile long frameCount = 0;
+    /**
+     * The number of writes to output stream.
+     */
+    private volatile long writeCount = 0;
+
+    /**
+     * Constructor for setting the serial port and queue capacity.
+     *
+     * @param port the serial port
+     * @param capacity the maximum number of frames waiting to be written
+     */
+    public PacketWriter(final SerialPort port, final int capacity) {
+        this.port = port;
+        this.queue = new ArrayBlockingQueue<PendingWrite>(Math.max(1, capacity));
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "ZigBee packet writer");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops the writer thread. Frames waiting in queue fail with IO exception. Write blocked
+     * in serial port does not respond to interrupt, so if writer thread does not exit in time
+     * the frames being written fail as well.
+     */
+    public void stop() {
+        stopped = true;
+        thread.interrupt();
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (final InterruptedException e) {
+            LOGGER.warn("Interrupted in packet writer thread shutdown join.");
+        }
+        if (thread.isAlive()) {
+            LOGGER.warn("Packet writer thread blocked in write did not exit in {} ms.", STOP_TIMEOUT_MILLIS);
+            for (final PendingWrite write : writingBatch) {
+                write.complete(new IOException("Packet writer has been stopped."));
+            }
+        }
+        failPendingWrites();
+        LOGGER.debug("Packet writer wrote {} frames in {} writes.", frameCount, writeCount);
+    }
+
+    /**
+     * Queues frame to be written. Blocks while queue is full.
+     *
+     * @param frame the frame
+     * @return the future which completes when the frame has been written
+     * @throws IOException if writer has been stopped or interrupted while waiting for queue space
+     */
+    public Future<Void> write(final byte[] frame) throws IOException {
+        if (frame.length > MAX_WRITE_LENGTH) {
+            throw new IllegalArgumentException("Frame is longer than " + MAX_WRITE_LENGTH + " bytes.");
+        }
+        final PendingWrite write = new PendingWrite(frame);
+        if (stopped) {
+            throw new IOException("Packet writer has been stopped.");
+        }
+        try {
+            queue.put(write);
+        } catch (final InterruptedException e) {
+            throw new IOException("Interrupted while waiting for packet writer queue space.");
+        }
+        if (stopped) {
+            failPendingWrites();
+        }
+        return write;
+    }
+
+    /**
+     * Gets the number of frames written.
+     *
+     * @return the number of frames
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Gets the number of writes to output stream.
+     *
+     * @return the number of writes
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Gets the number of frames waiting to be written.
+     *
+     * @return the number of frames
+     */
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * Takes frames from queue and writes them in batches until stopped.
+     */
+    private void writeLoop() {
+        final List<PendingWrite> batch = new ArrayList<PendingWrite>();
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+            } catch (final InterruptedException e) {
+                continue;
+            }
+            int length = batch.get(0).frame.length;
+            PendingWrite next;
+            while ((next = queue.peek()) != null && length + next.frame.length <= MAX_WRITE_LENGTH) {
+                batch.add(queue.poll());
+                length += next.frame.length;
+            }
+
+            writingBatch = new ArrayList<PendingWrite>(batch);
+            IOException exception = null;
+            try {
+                final OutputStream out = port.getOutputStream();
+                if (out != null) {
+                    int offset = 0;
+                    for (final PendingWrite write : batch) {
+                        System.arraycopy(write.frame, 0, buffer, offset, write.frame.length);
+                        offset += write.frame.length;
+                    }
+                    out.write(buffer, 0, offset);
+                    out.flush();
+                    writeCount++;
+                    frameCount += batch.size();
+                }
+            } catch (final IOException e) {
+                LOGGER.error("Error writing {} frames to serial port.", batch.size(), e);
+                exception = e;
+            }
+            for (final PendingWrite write : batch) {
+                write.complete(exception);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Fails the frames waiting in queue.
+     */
+    private void failPendingWrites() {
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            write.complete(new IOException("Packet writer has been stopped."));
+        }
+    }
+
+    /**
+     * Frame waiting to be written.
+     */
+    private static class PendingWrite implements Future<Void> {
+        /**
+         * The frame.
+         */
+        private final byte[] frame;
+        /**
+         * True if write has been completed.
+         */
+        private boolean done = false;
+        /**
+         * The exception if write failed.
+         */
+        private IOException exception;
+
+        /**
+         * Constructor for setting the frame.
+         *
+         * @param frame the frame
+         */
+        private PendingWrite(final byte[] frame) {
+            this.frame = frame;
+        }
+
+        /**
+         * Completes the write and wakes up waiting threads unless already completed.
+         *
+         * @param exception the exception or null if write succeeded
+         */
+        private synchronized void complete(final IOException exception) {
+            if (done) {
+                return;
+            }
+            this.exception = exception;
+            this.done = true;
+            notifyAll();
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public synchronized boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public synchronized Void get() throws InterruptedException, ExecutionException {
+            while (!done) {
+                wait();
+            }
+            if (exception != null) {
+                throw new ExecutionException(exception);
+            }
+            return null;
+        }
+
+        @Override
+        public synchronized Void get(final long timeout, final TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            final long wakeUpTime = System.currentTimeMillis() + unit.toMillis(timeout);
+            while (!done) {
+                final long sleeping = wakeUpTime - System.currentTimeMillis();
+                if (sleeping <= 0) {
+                    throw new TimeoutException();
+                }
+                wait(sleeping);
+            }
+            if (exception != null) {
+                throw new ExecutionException(exception);
+            }
+            return null;
+        }
+    }
+}
@@ -81,6 +81,9 @@ public class ZigBeeNetworkManagerImpl implements ZigBeeNetworkManager {
     public static final int BOOTLOADER_MAGIC_BYTE_DEFAULT = 0xef;
     public static final String BOOTLOADER_MAGIC_BYTE_KEY = "zigbee.driver.cc2530.bl.magic.byte";
 
+    public static final int AF_DATA_WINDOW_DEFAULT = 8;
+    public static final String AF_DATA_WINDOW_KEY = "zigbee.driver.cc2530.af.window";
+
     private final int TIMEOUT;
     private final int RESET_TIMEOUT;
     private final int STARTUP_TIMEOUT;
@@ -88,6 +91,7 @@ public class ZigBeeNetworkManagerImpl implements ZigBeeNetworkManager {
     private final int RESEND_MAX_RETRY;
     private final boolean RESEND_ONLY_EXCEPTION;
     private final int BOOTLOADER_MAGIC_BYTE;
+    private final int AF_DATA_WINDOW;
     
     // Dongle startup options
     private final int STARTOPT_CLEAR_CONFIG = 0x00000001;
@@ -97,6 +101,7 @@ public class ZigBeeNetworkManagerImpl implements ZigBeeNetworkManager {
     private final short AUTO_PANID = (short) 0xffff;
 
     private CommandInterface commandInterface;
+    private AfDataRequestPipeline afDataRequestPipeline;
     private SerialPort port;
     private DriverStatus state;
     private NetworkMode mode;
@@ -188,7 +193,16 @@ public class ZigBeeNetworkManagerImpl implements ZigBeeNetworkManager {
             logger.trace("Using BOOTLOADER_MAGIC_BYTE set as DEFAULT {}", aux);
         }
         BOOTLOADER_MAGIC_BYTE = aux;
-        
+
+        aux = AF_DATA_WINDOW_DEFAULT;
+        try {
+            aux = Integer.parseInt(System.getProperty(AF_DATA_WINDOW_KEY));
+            logger.trace("Using AF_DATA_WINDOW set from enviroment {}", aux);
+        } catch (NumberFormatException ex) {
+            logger.trace("Using AF_DATA_WINDOW set as DEFAULT {}", aux);
+        }
+        AF_DATA_WINDOW = aux;
+
         state = DriverStatus.CLOSED;
         setSerialPort(port);
         setZigBeeNetwork((byte) channel, (short) pan);
@@ -252,6 +266,7 @@ public class ZigBeeNetworkManagerImpl implements ZigBeeNetworkManager {
             logger.error("Failed to initialize the dongle on port {}.", port);
             return false;
         }
+        afDataRequestPipeline = new AfDataRequestPipeline(commandInterface, AF_DATA_WINDOW);
 
         return true;
     }
@@ -863,7 +878,7 @@ public class ZigBeeNetworkManagerImpl implements ZigBeeNetworkManager {
         );
     	
     	try {
-			commandInterface.sendRaw(new int[]{magicByte});
+			commandInterface.sendRaw(new byte[]{(byte) magicByte});
 		} catch (IOException e) {
 			logger.error("Failed to send bootloader magic byte", e);
 		}
@@ -1184,20 +1199,19 @@ public class ZigBeeNetworkManagerImpl implements ZigBeeNetworkManager {
         if (!waitForNetwork()) {
         	return null;
         }
-        AF_DATA_CONFIRM result = null;
 
-        waitAndLock3WayConversation(request);
-        final BlockingCommandReceiver waiter = new BlockingCommandReceiver(ZToolCMD.AF_DATA_CONFIRM, commandInterface);
+        final AfDataRequestPipeline.Transaction transaction = afDataRequestPipeline.open(request, TIMEOUT);
+        if (transaction == null) {
+            return null;
+        }
 
         AF_DATA_SRSP response = (AF_DATA_SRSP) sendSynchrouns(commandInterface, request);
         if (response == null || response.Status != 0) {
-            waiter.cleanup();
-        } else {
-            result = (AF_DATA_CONFIRM) waiter.getCommand(TIMEOUT);
+            afDataRequestPipeline.close(transaction);
+            return null;
         }
-        unLock3WayConversation(request);
 
-        return result;
+        return transaction.getConfirm(TIMEOUT);
     }
 
     public AfDataSrspExt sendAFDataRequestExt(AfDataRequestExt request) {
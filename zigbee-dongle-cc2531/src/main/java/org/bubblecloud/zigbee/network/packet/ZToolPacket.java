@@ -31,7 +31,6 @@ package org.bubblecloud.zigbee.network.packet;
 
 import org.bubblecloud.zigbee.util.ByteUtils;
 import org.bubblecloud.zigbee.util.DoubleByte;
-import org.bubblecloud.zigbee.util.Integers;
 
 /**
  * @author <a href="mailto:andrew.rapp@gmail.com">Andrew Rapp</a>
@@ -54,7 +53,7 @@ public class ZToolPacket {
 
     //private final static Logger log = Logger.getLogger(ZToolPacket.class);
     public final static int START_BYTE = 0xFE;
-    protected int[] packet;
+    private byte[] frame;
     private int LEN;
     private DoubleByte CMD;
     private int FCS;
@@ -78,52 +77,95 @@ public class ZToolPacket {
 
     public void buildPacket(DoubleByte ApiId, int[] frameData) {
         // packet size is start byte + len byte + 2 cmd bytes + data + checksum byte
-        packet = new int[frameData.length + 5];
-        packet[0] = START_BYTE;
+        frame = new byte[frameData.length + 5];
+        frame[0] = (byte) START_BYTE;
 
         // note: if checksum is not correct, XBee won't send out packet or return error.  ask me how I know.
         // checksum is always computed on pre-escaped packet
         Checksum checksum = new Checksum();
         // Packet length does not include escape bytes 
         this.LEN = frameData.length;
-        packet[1] = this.LEN;
-        checksum.addByte(packet[1]);
+        frame[1] = (byte) this.LEN;
+        checksum.addByte(this.LEN);
         // msb Cmd0 -> Type & Subsystem
-        packet[2] = ApiId.getMsb();
-        checksum.addByte(packet[2]);
+        frame[2] = (byte) ApiId.getMsb();
+        checksum.addByte(ApiId.getMsb());
         // lsb Cmd1 -> PROFILE_ID_HOME_AUTOMATION
-        packet[3] = ApiId.getLsb();
-        checksum.addByte(packet[3]);
+        frame[3] = (byte) ApiId.getLsb();
+        checksum.addByte(ApiId.getLsb());
         this.CMD = ApiId;
         //data
         for (int i = 0; i < frameData.length; i++) {
             if (!ByteUtils.isByteValue(frameData[i])) {
                 throw new RuntimeException("Value is greater than one byte: " + frameData[i] + " (" + Integer.toHexString(frameData[i]) + ")");
             }
-            packet[PAYLOAD_START_INDEX + i] = frameData[i];
-            checksum.addByte(packet[PAYLOAD_START_INDEX + i]);
+            frame[PAYLOAD_START_INDEX + i] = (byte) frameData[i];
+            checksum.addByte(frameData[i]);
         }
         // set last byte as checksum
         checksum.compute();
         this.FCS = checksum.getChecksum();
-        packet[packet.length - 1] = this.FCS;
+        frame[frame.length - 1] = (byte) this.FCS;
 
     }
 
     public CommandType getCommandType() {
         if (type != null) return type;
-        type = CommandType.values()[(packet[2] & 0x60) >> 5];
+        type = CommandType.values()[(frame[2] & 0x60) >> 5];
         return type;
     }
 
     public CommandSubsystem getCommandSubsystem() {
         if (subsystem != null) return subsystem;
-        subsystem = CommandSubsystem.values()[packet[2] & 0x1F];
+        subsystem = CommandSubsystem.values()[frame[2] & 0x1F];
         return subsystem;
     }
 
 
+    /**
+     * Gets the frame bytes including start byte, length, command, payload and checksum.
+     * The returned array is the backing array of the packet and must not be modified.
+     *
+     * @return the frame bytes
+     */
+    public byte[] getFrame() {
+        return frame;
+    }
+
+    /**
+     * Gets unsigned value of a frame byte.
+     *
+     * @param index the index of the byte in frame
+     * @return the byte value from 0 to 255
+     */
+    protected int getFrameByte(final int index) {
+        return frame[index] & 0xFF;
+    }
+
+    /**
+     * Gets unsigned 16 bit value of two frame bytes.
+     *
+     * @param msb the index of the most significant byte
+     * @param lsb the index of the least significant byte
+     * @return the value
+     */
+    protected short getFrameShort(final int msb, final int lsb) {
+        return (short) ((getFrameByte(msb) << 8) + getFrameByte(lsb));
+    }
+
+    /**
+     * Gets copy of the frame as unsigned values.
+     *
+     * @return the frame as int array
+     */
     public int[] getPacket() {
+        if (frame == null) {
+            return null;
+        }
+        final int[] packet = new int[frame.length];
+        for (int i = 0; i < frame.length; i++) {
+            packet[i] = frame[i] & 0xFF;
+        }
         return packet;
     }
 
@@ -136,7 +178,7 @@ public class ZToolPacket {
     }
 
     public short getCommandId() {
-        return Integers.shortFromInts(packet, 2, 3);
+        return (short) (((frame[2] & 0xFF) << 8) + (frame[3] & 0xFF));
     }
 
     public int getFCS() {
@@ -174,7 +216,7 @@ public class ZToolPacket {
     public String toString() {
         return "Packet: length = " + this.LEN +
                 ", apiId = " + ByteUtils.toBase16(this.CMD.getMsb()) + " " + ByteUtils.toBase16(this.CMD.getLsb()) +
-                ", full data = " + ByteUtils.toBase16(this.packet) +
+                ", full data = " + ByteUtils.toBase16(this.frame) +
                 ", checksum = " + ByteUtils.toBase16(this.FCS) +
                 ", error = " + this.error +
                 ", errorMessage = " + this.errorMsg;
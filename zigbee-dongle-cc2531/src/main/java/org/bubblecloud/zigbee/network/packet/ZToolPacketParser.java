@@ -30,12 +30,12 @@
 package org.bubblecloud.zigbee.network.packet;
 
 import org.bubblecloud.zigbee.util.ByteUtils;
-import org.bubblecloud.zigbee.util.MarkableInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 /**
  * @author <a href="mailto:andrew.rapp@gmail.com">Andrew Rapp</a>
@@ -67,6 +67,34 @@ public class ZToolPacketParser implements Runnable {
      * Flag reflecting that parser has been closed and parser parserThread should exit.
      */
     private boolean close = false;
+    /**
+     * The frame buffer: start byte, length, two command bytes, up to 255 payload bytes and checksum.
+     */
+    private final byte[] frame = new byte[260];
+    /**
+     * The bytes to be scanned again for start byte after a bad frame.
+     */
+    private final byte[] rescan = new byte[260];
+    /**
+     * The index of next byte to be scanned again.
+     */
+    private int rescanIndex = 0;
+    /**
+     * The number of bytes to be scanned again.
+     */
+    private int rescanLength = 0;
+    /**
+     * The number of received frames.
+     */
+    private long frameCount = 0;
+    /**
+     * The number of times parser had to resynchronize to the next start byte after a bad frame.
+     */
+    private long resyncCount = 0;
+    /**
+     * The number of bytes discarded while looking for start byte.
+     */
+    private long discardedByteCount = 0;
 
     /**
      * Construct which sets input stream where the packet is read from the and handler
@@ -77,15 +105,7 @@ public class ZToolPacketParser implements Runnable {
      */
     public ZToolPacketParser(final InputStream inputStream, final ZToolPacketHandler packetHandler) {
         logger.trace("Creating ZToolPacketParser");
-        if (inputStream.markSupported()) {
-            this.inputStream = inputStream;
-        } else {
-            logger.trace(
-                    "Provided InputStream {} doesn't provide the mark()/reset() feature, " +
-                            "wrapping it up as BufferedInputStream", inputStream.getClass()
-            );
-            this.inputStream = new MarkableInputStream(inputStream);
-        }
+        this.inputStream = inputStream;
         this.packetHandler = packetHandler;
 
         parserThread = new Thread(this, "ZToolPacketParser");
@@ -100,22 +120,24 @@ public class ZToolPacketParser implements Runnable {
         logger.trace("ZToolPacketParser parserThread started");
         while (!close) {
             try {
-                int val = inputStream.read();
+                int val = read();
                 if (val == ZToolPacket.START_BYTE) {
-                    inputStream.mark(256);
-                    final ZToolPacketStream packetStream = new ZToolPacketStream(inputStream);
-                    final ZToolPacket response = packetStream.parsePacket();
+                    final int frameLength = readFrame();
+                    final ZToolPacket response = parseFrame(frameLength);
 
-                    logger.trace("Response is {} -> {}", response.getClass(), response);
-                    if (response.isError()) {
-                        logger.error("Received a BAD PACKET {}", response.getPacket());
-                        inputStream.reset();
+                    if (response == null) {
+                        resyncCount++;
+                        logger.error("Received a BAD PACKET {}", ByteUtils.toBase16(Arrays.copyOf(frame, frameLength)));
+                        rescan(frameLength);
                         continue;
                     }
 
+                    frameCount++;
+                    logger.trace("Response is {} -> {}", response.getClass(), response);
                     packetHandler.handlePacket(response);
                 } else if (val != -1) {
                     // Log if not end of stream.
+                    discardedByteCount++;
                     logger.warn("Discarded stream: expected start byte but received this {}", ByteUtils.toBase16(val));
                 }
             } catch (final IOException e) {
@@ -125,7 +147,112 @@ public class ZToolPacketParser implements Runnable {
                 }
             }
         }
-        logger.debug("ZToolPacketParser parserThread exited.");
+        logger.debug("ZToolPacketParser parserThread exited after {} frames, {} resyncs and {} discarded bytes.",
+                frameCount, resyncCount, discardedByteCount);
+    }
+
+    /**
+     * Reads rest of the frame after start byte to frame buffer.
+     *
+     * @return the number of bytes in frame buffer
+     * @throws IOException if IO exception occurs
+     */
+    private int readFrame() throws IOException {
+        frame[0] = (byte) ZToolPacket.START_BYTE;
+        final int length = read();
+        if (length == -1) {
+            return 1;
+        }
+        frame[1] = (byte) length;
+        // Command bytes, payload and checksum.
+        final int frameLength = length + 5;
+        for (int i = 2; i < frameLength; i++) {
+            final int b = read();
+            if (b == -1) {
+                return i;
+            }
+            frame[i] = (byte) b;
+        }
+        return frameLength;
+    }
+
+    /**
+     * Verifies checksum of the frame in frame buffer and parses the packet.
+     *
+     * @param frameLength the number of bytes in frame buffer
+     * @return the packet or null if frame was incomplete or invalid
+     */
+    private ZToolPacket parseFrame(final int frameLength) {
+        if (frameLength < 5 || frameLength != (frame[1] & 0xFF) + 5) {
+            return null;
+        }
+        int checksum = 0;
+        for (int i = 1; i < frameLength - 1; i++) {
+            checksum ^= frame[i] & 0xFF;
+        }
+        if (checksum != (frame[frameLength - 1] & 0xFF)) {
+            logger.debug("Packet checksum failed.");
+            return null;
+        }
+        try {
+            return ZToolPacketStream.parsePacket(frame, frameLength);
+        } catch (final Exception e) {
+            logger.error("Packet parsing failed due to exception.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Schedules the bytes following the start byte of a bad frame to be scanned again for start byte.
+     *
+     * @param frameLength the number of bytes in frame buffer
+     */
+    private void rescan(final int frameLength) {
+        final int remaining = rescanLength - rescanIndex;
+        System.arraycopy(rescan, rescanIndex, rescan, frameLength - 1, remaining);
+        System.arraycopy(frame, 1, rescan, 0, frameLength - 1);
+        rescanIndex = 0;
+        rescanLength = frameLength - 1 + remaining;
+    }
+
+    /**
+     * Reads next byte either from bytes to be scanned again or from input stream.
+     *
+     * @return the byte value from 0 to 255 or -1 if end of stream has been reached
+     * @throws IOException if IO exception occurs
+     */
+    private int read() throws IOException {
+        if (rescanIndex < rescanLength) {
+            return rescan[rescanIndex++] & 0xFF;
+        }
+        return inputStream.read();
+    }
+
+    /**
+     * Gets the number of received frames.
+     *
+     * @return the number of frames
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Gets the number of times parser had to resynchronize after a bad frame.
+     *
+     * @return the number of resyncs
+     */
+    public long getResyncCount() {
+        return resyncCount;
+    }
+
+    /**
+     * Gets the number of bytes discarded while looking for start byte.
+     *
+     * @return the number of bytes
+     */
+    public long getDiscardedByteCount() {
+        return discardedByteCount;
     }
 
     /**
@@ -110,9 +110,20 @@ public class ZToolPacketStream
      * @since 0.6.0 - Revision 60
      */
     public static ZToolPacket parsePacket(byte[] packet) {
+        return parsePacket(packet, packet.length);
+    }
+
+    /**
+     * Parses packet from the beginning of the <b>byte</b> array and produces a {@link ZToolPacket}
+     *
+     * @param packet byte array
+     * @param packetLength the number of packet bytes in the array
+     * @return {@link ZToolPacket}
+     */
+    public static ZToolPacket parsePacket(byte[] packet, int packetLength) {
         final ZToolPacket response;
         int idx = 1;
-        if (packet[0] != 0xFE) {
+        if ((packet[0] & 0xFF) != ZToolPacket.START_BYTE) {
             throw new ZToolParseException("Buffer is not a valid packet, it doesn't start with 0xFE");
         }
         final int length = packet[idx] & 0xFF;
@@ -134,7 +145,7 @@ public class ZToolPacketStream
         if (fcs != response.getFCS()) {
             throw new ZToolParseException("Packet checksum failed");
         }
-        if (idx != packet.length) {
+        if (idx != packetLength) {
             log.warn("Packet buffer contains more data that has been ignored");
         }
         return response;
@@ -404,7 +415,7 @@ public class ZToolPacketStream
         int[] value = new int[length - this.getFrameDataBytesRead()];
 
         for (int i = 0; i < value.length; i++) {
-            value[i] = this.read("Remaining bytes " + (value.length - i));
+            value[i] = this.read();
             //log.debug("byte " + i + " is " + value[i]);
         }
 
@@ -80,7 +80,7 @@ public class AF_DATA_CONFIRM extends ZToolPacket/* implements ICONFIRMATION, IAF
     }
 
     public int getStatus() {
-        return super.packet[ZToolPacket.PAYLOAD_START_INDEX];
+        return getFrameByte(ZToolPacket.PAYLOAD_START_INDEX);
     }
 
     @Override
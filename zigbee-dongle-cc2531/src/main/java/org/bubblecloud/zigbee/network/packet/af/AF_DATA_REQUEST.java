@@ -135,4 +135,20 @@ public class AF_DATA_REQUEST extends ZToolPacket/* implements IREQUEST,IAF*/ {
 
     }
 
+    /**
+     * Gets the source endpoint from the packet.
+     * @return the source endpoint
+     */
+    public int getSrcEndpoint() {
+        return getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 3);
+    }
+
+    /**
+     * Gets the AF transaction ID from the packet.
+     * @return the transaction ID
+     */
+    public int getTransID() {
+        return getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 6);
+    }
+
 }
@@ -134,30 +134,30 @@ public class AF_INCOMING_MSG extends ZToolPacket /*implements IINDICATION,IAF*/
     }
 
     public byte getTransId() {
-        return (byte) (super.packet[ZToolPacket.PAYLOAD_START_INDEX + 15]);
+        return (byte) (getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 15));
     }
 
     public byte getSrcEndpoint() {
-        return (byte) super.packet[ZToolPacket.PAYLOAD_START_INDEX + 6];
+        return (byte) getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 6);
     }
 
     public short getDstEndpoint() {
-        return (byte) super.packet[ZToolPacket.PAYLOAD_START_INDEX + 7];
+        return (byte) getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 7);
     }
 
     public int getSrcAddr() {
-        return (int) ((super.packet[ZToolPacket.PAYLOAD_START_INDEX + 5] << 8)
-                + (super.packet[ZToolPacket.PAYLOAD_START_INDEX + 4]));
+        return (int) ((getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 5) << 8)
+                + (getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 4)));
     }
 
     public short getClusterId() {
-        return (short) ((super.packet[ZToolPacket.PAYLOAD_START_INDEX + 3] << 8)
-                + (super.packet[ZToolPacket.PAYLOAD_START_INDEX + 2]));
+        return (short) ((getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 3) << 8)
+                + (getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 2)));
     }
 
     public short getGroupId() {
-        return (short) ((super.packet[ZToolPacket.PAYLOAD_START_INDEX + 1] << 8)
-                + (super.packet[ZToolPacket.PAYLOAD_START_INDEX + 0]));
+        return (short) ((getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 1) << 8)
+                + (getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 0)));
     }
 
     public byte[] getData() {
@@ -92,9 +92,9 @@ public class ZDO_ACTIVE_EP_RSP extends ZToolPacket /*implements IRESPONSE_CALLBA
 
     public short[] getActiveEndPointList() {
         if (list == null) {
-            list = new short[super.packet[ZToolPacket.PAYLOAD_START_INDEX + 5]];
+            list = new short[getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 5)];
             for (int i = 0; i < list.length; i++) {
-                list[i] = (short) super.packet[ZToolPacket.PAYLOAD_START_INDEX + 6 + i];
+                list[i] = (short) getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 6 + i);
             }
         }
         return list;
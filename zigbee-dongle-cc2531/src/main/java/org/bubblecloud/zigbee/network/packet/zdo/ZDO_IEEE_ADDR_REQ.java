@@ -57,15 +57,15 @@ public class ZDO_IEEE_ADDR_REQ extends ZToolPacket /*implements IREQUEST,IZDo*/
 
     public short getShortAddress() {
 
-        return (short) (packet[PAYLOAD_START_INDEX + 0] + (packet[PAYLOAD_START_INDEX + 1] << 8));
+        return (short) (getFrameByte(PAYLOAD_START_INDEX + 0) + (getFrameByte(PAYLOAD_START_INDEX + 1) << 8));
     }
 
     public REQ_TYPE getRequestType() {
-        return REQ_TYPE.fromValue(packet[PAYLOAD_START_INDEX + 2]);
+        return REQ_TYPE.fromValue(getFrameByte(PAYLOAD_START_INDEX + 2));
     }
 
     public int getStartIndex() {
-        return super.packet[PAYLOAD_START_INDEX + 3];
+        return getFrameByte(PAYLOAD_START_INDEX + 3);
     }
 
 
@@ -32,7 +32,6 @@ import org.bubblecloud.zigbee.v3.model.ZToolAddress16;
 import org.bubblecloud.zigbee.network.packet.ZToolCMD;
 import org.bubblecloud.zigbee.network.packet.ZToolPacket;
 import org.bubblecloud.zigbee.util.DoubleByte;
-import org.bubblecloud.zigbee.util.Integers;
 
 import java.util.Arrays;
 
@@ -130,11 +129,10 @@ public class ZDO_SIMPLE_DESC_RSP extends ZToolPacket /*implements IRESPONSE_CALL
     public short[] getInputClustersList() {
         if (inputs == null) {
             if (len >= MIN_DESC_LEN) {
-                inputs = new short[super.packet[ZToolPacket.PAYLOAD_START_INDEX + 12]];
+                inputs = new short[getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 12)];
                 int j = 0;
                 for (int i = 0; i < inputs.length; i++) {
-                    inputs[i] = Integers.shortFromInts(
-                            super.packet,
+                    inputs[i] = getFrameShort(
                             ZToolPacket.PAYLOAD_START_INDEX + 14 + j,
                             ZToolPacket.PAYLOAD_START_INDEX + 13 + j
                     );
@@ -156,10 +154,9 @@ public class ZDO_SIMPLE_DESC_RSP extends ZToolPacket /*implements IRESPONSE_CALL
         if (outputs == null) {
             if (len >= MIN_DESC_LEN) {
                 int j = getInputClustersCount() * 2;
-                outputs = new short[super.packet[ZToolPacket.PAYLOAD_START_INDEX + 13 + j]];
+                outputs = new short[getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 13 + j)];
                 for (int i = 0; i < outputs.length; i++) {
-                    outputs[i] = Integers.shortFromInts(
-                            super.packet,
+                    outputs[i] = getFrameShort(
                             ZToolPacket.PAYLOAD_START_INDEX + 15 + j,
                             ZToolPacket.PAYLOAD_START_INDEX + 14 + j
                     );
@@ -178,7 +175,7 @@ public class ZDO_SIMPLE_DESC_RSP extends ZToolPacket /*implements IRESPONSE_CALL
 
     public byte getEndPoint() {
         if (len >= MIN_DESC_LEN) {
-            return (byte) (super.packet[ZToolPacket.PAYLOAD_START_INDEX + 6]);
+            return (byte) (getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 6));
         } else {
             return -1;
         }
@@ -186,8 +183,7 @@ public class ZDO_SIMPLE_DESC_RSP extends ZToolPacket /*implements IRESPONSE_CALL
 
     public short getProfileId() {
         if (len >= MIN_DESC_LEN) {
-            return Integers.shortFromInts(
-                    super.packet,
+            return getFrameShort(
                     ZToolPacket.PAYLOAD_START_INDEX + 8,
                     ZToolPacket.PAYLOAD_START_INDEX + 7
             );
@@ -198,8 +194,7 @@ public class ZDO_SIMPLE_DESC_RSP extends ZToolPacket /*implements IRESPONSE_CALL
 
     public short getDeviceId() {
         if (len >= MIN_DESC_LEN) {
-            return Integers.shortFromInts(
-                    super.packet,
+            return getFrameShort(
                     ZToolPacket.PAYLOAD_START_INDEX + 10,
                     ZToolPacket.PAYLOAD_START_INDEX + 9
             );
@@ -210,7 +205,7 @@ public class ZDO_SIMPLE_DESC_RSP extends ZToolPacket /*implements IRESPONSE_CALL
 
     public byte getDeviceVersion() {
         if (len >= MIN_DESC_LEN) {
-            return (byte) super.packet[ZToolPacket.PAYLOAD_START_INDEX + 11];
+            return (byte) getFrameByte(ZToolPacket.PAYLOAD_START_INDEX + 11);
         } else {
             return -1;
         }
@@ -93,7 +93,7 @@ public class ZigBeeDongleTiCc2531Impl implements ZigBeeDongle {
     @Override
     public int sendCommand(org.bubblecloud.zigbee.v3.Command command) throws ZigBeeException {
         if (command instanceof  ZclCommand) {
-            return zclCommandTransmitter.sendCommand(((ZclCommand)command).toCommandMessage());
+            return zclCommandTransmitter.sendCommand((ZclCommand) command);
         }  else {
             zdoCommandTransmitter.sendCommand((ZdoCommand) command);
             return -1;
@@ -28,7 +28,6 @@ import org.bubblecloud.zigbee.network.impl.*;
 import org.bubblecloud.zigbee.v3.ZigBeeException;
 import org.bubblecloud.zigbee.v3.model.Status;
 import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
-import org.bubblecloud.zigbee.util.ByteUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -97,34 +96,20 @@ public class ZclCommandTransmitter implements
 
     @Override
     public boolean notify(final AF_INCOMING_MSG clusterMessage) {
+        final int clusterId = clusterMessage.getClusterId();
+        final ZclFrameView frame;
+        try {
+            frame = new ZclFrameView(clusterMessage.getData());
+        } catch (final IllegalArgumentException e) {
+            LOGGER.debug("Ignored invalid ZCL frame from cluster {}: {}", clusterId, e.getMessage());
+            return false;
+        }
 
-        final ZCLFrame frame = new ZCLFrame(new ClusterMessageImpl(
-                clusterMessage.getData(), clusterMessage.getClusterId()));
-
-        final boolean isClientServerDirection = frame.getHeader()
-                .getFramecontrol().isClientServerDirection();
-        final boolean isClusterSpecificCommand = frame.getHeader()
-                .getFramecontrol().isClusterSpecificCommand();
-        final boolean isManufacturerExtension = frame.getHeader()
-                .getFramecontrol().isManufacturerExtension();
-        final boolean isDefaultResponseEnabled = frame.getHeader()
-                .getFramecontrol().isDefaultResponseEnabled();
-
-        int clusterId = clusterMessage.getClusterId();
-        final byte commandId = frame.getHeader().getCommandId();
-        final byte transactionId = frame.getHeader().getTransactionId();
-
-        final byte[] commandPayload = frame.getPayload();
-
-        LOGGER.debug("Received command: [ clusterId: " + clusterId
-                + " commandId: " + commandId + " specific: "
-                + isClusterSpecificCommand + " extension: "
-                + isManufacturerExtension + " ZCL Header: "
-                + ByteUtils.toBase16(frame.getHeader().toByte())
-                + ", ZCL Payload: " + ByteUtils.toBase16(frame.getPayload())
-                + "]");
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Received command: [ clusterId: " + clusterId + " " + frame + " ]");
+        }
 
-        if (isManufacturerExtension) {
+        if (frame.isManufacturerExtension()) {
             return false;
         }
         
@@ -136,67 +121,54 @@ public class ZclCommandTransmitter implements
         final int profileId = ApplicationFrameworkLayer.getAFLayer(
                 networkManager).getSenderEndpointProfileId(destinationEndpoint,
                 clusterMessage.getClusterId());
-        final ZclCommandMessage commandMessage = new ZclCommandMessage();
-        commandMessage.setClusterId(clusterId);
-        commandMessage.setSourceAddress(new ZigBeeDeviceAddress(sourceAddress,
-                sourceEndpoint & 0xffff));
-        // commandMessage.setSourceEndpoint(sourceEnpoint & (0xFFFF));
-        commandMessage.setDestinationAddress(new ZigBeeDeviceAddress(
-                destinationAddress, destinationEndpoint & 0xffff));
-        // commandMessage.setDestinationEndpoint(destinationEndpoint &
-        // (0xFFFF));
-        commandMessage.setTransactionId(transactionId);
-
-        ZclCommandType command = null;
-        if (isClusterSpecificCommand) {
-            LOGGER.debug("Received cluster specific command: [ clusterId: "
-                    + clusterId + " commandId: " + commandId + " ZCL Header: "
-                    + ByteUtils.toBase16(frame.getHeader().toByte())
-                    + ", ZCL Payload: "
-                    + ByteUtils.toBase16(frame.getPayload()) + "]");
-
-            for (final ZclCommandType candidate : ZclCommandType.values()) {
-                if (candidate.getClusterType().getProfileType().getId() == profileId
-                        && candidate.getClusterType().getId() == clusterId
-                        && candidate.getId() == (commandId & (0xFF))
-                        && candidate.isReceived() == isClientServerDirection) {
-                    command = candidate;
-                    break;
-                }
-            }
+        final ZclCommandType commandType;
+        if (frame.isClusterSpecificCommand()) {
+            commandType = ZclCommandType.getValue(profileId, clusterId, frame.getCommandId(),
+                    frame.isClientServerDirection());
         } else {
-            LOGGER.debug("Received general command: [ clusterId: " + clusterId
-                    + " commandId: " + commandId + " ZCL Header: "
-                    + ByteUtils.toBase16(frame.getHeader().toByte())
-                    + ", ZCL Payload: "
-                    + ByteUtils.toBase16(frame.getPayload()) + "]");
-
-            for (final ZclCommandType candidate : ZclCommandType.values()) {
-                if (candidate.getClusterType().getProfileType().getId() == profileId
-                        && candidate.isGeneric()
-                        && candidate.getId() == (commandId & (0xFF))) {
-                    command = candidate;
-                    break;
-                }
-            }
+            commandType = ZclCommandType.getGenericValue(profileId, frame.getCommandId());
         }
 
-        if (command == null) {
+        if (commandType == null) {
             return false;
         }
 
-        commandMessage.setType(command);
-        ZclCommandProtocol.deserializePayload(commandPayload, commandMessage);
+        final ZclCommand command = ZclCommandProtocol.deserializeCommand(commandType, frame.getFrame(),
+                frame.getPayloadOffset());
+        command.setClusterId(clusterId);
+        command.setSourceAddress(new ZigBeeDeviceAddress(sourceAddress,
+                sourceEndpoint & 0xffff));
+        command.setDestinationAddress(new ZigBeeDeviceAddress(
+                destinationAddress, destinationEndpoint & 0xffff));
+        command.setTransactionId(frame.getTransactionId());
 
-        LOGGER.debug("<<< " + commandMessage.toString());
+        LOGGER.debug("<<< {}", command);
 
         for (final CommandListener commandListener : commandListeners) {
-            commandListener.commandReceived(ZclUtil.toCommand(commandMessage));
+            commandListener.commandReceived(command);
         }
 
         return true;
     }
 
+    /**
+     * Sends command. Command fields are serialized directly to ZCL payload.
+     *
+     * @param command
+     *            the command
+     * @return transaction ID
+     * @throws ZigBeeException
+     */
+    public int sendCommand(final ZclCommand command) throws ZigBeeException {
+        final ZclCommandMessage commandMessage = new ZclCommandMessage();
+        commandMessage.setType(command.getType());
+        commandMessage.setClusterId(command.getClusterId());
+        commandMessage.setSourceAddress(command.getSourceAddress());
+        commandMessage.setDestinationAddress(command.getDestinationAddress());
+        commandMessage.setTransactionId(command.getTransactionId());
+        return sendCommand(commandMessage, ZclCommandProtocol.serializeCommand(command));
+    }
+
     /**
      * Sends command message.
      * 
@@ -207,100 +179,109 @@ public class ZclCommandTransmitter implements
      */
     public int sendCommand(final ZclCommandMessage commandMessage)
             throws ZigBeeException {
-        synchronized (networkManager) {
-            final ApplicationFrameworkLayer af = ApplicationFrameworkLayer
-                    .getAFLayer(networkManager);
-
-            final int clusterId;
-            if (commandMessage.getType().isGeneric()) {
-                clusterId = commandMessage.getClusterId();
-            } else {
-                clusterId = commandMessage.getType().getClusterType().getId();
-            }
-            commandMessage.setClusterId(clusterId);
+        return sendCommand(commandMessage, ZclCommandProtocol.serializePayload(commandMessage));
+    }
 
-            // TODO load properly dongle source address
-            ZigBeeAddress sourceAddress = new ZigBeeDeviceAddress(0,
-                    af.getSendingEndpoint(commandMessage.getType()
-                            .getClusterType().getProfileType().getId(),
-                            clusterId));
-            commandMessage.setSourceAddress(sourceAddress);
+    /**
+     * Sends command message with serialized payload.
+     *
+     * @param commandMessage
+     *            the command message
+     * @param payload
+     *            the ZCL payload
+     * @return transaction ID
+     * @throws ZigBeeException
+     */
+    private int sendCommand(final ZclCommandMessage commandMessage, final byte[] payload)
+            throws ZigBeeException {
+        final ApplicationFrameworkLayer af = ApplicationFrameworkLayer
+                .getAFLayer(networkManager);
 
-            final byte[] payload = ZclCommandProtocol
-                    .serializePayload(commandMessage);
+        final int clusterId;
+        if (commandMessage.getType().isGeneric()) {
+            clusterId = commandMessage.getClusterId();
+        } else {
+            clusterId = commandMessage.getType().getClusterType().getId();
+        }
+        commandMessage.setClusterId(clusterId);
 
-            final AbstractCommand cmd = new AbstractCommand(
-                    (byte) commandMessage.getType().getId(), null,
-                    commandMessage.getType().isGeneric() ? true
-                            : commandMessage.getType().isReceived(),
-                    !commandMessage.getType().isGeneric());
-            cmd.setPayload(payload);
-            final ZCLFrame zclFrame = new ZCLFrame(cmd, true);
-            if (commandMessage.getTransactionId() != null) {
-                zclFrame.getHeader().setTransactionId(
-                        commandMessage.getTransactionId());
+        // TODO load properly dongle source address
+        ZigBeeAddress sourceAddress = new ZigBeeDeviceAddress(0,
+                af.getSendingEndpoint(commandMessage.getType()
+                        .getClusterType().getProfileType().getId(),
+                        clusterId));
+        commandMessage.setSourceAddress(sourceAddress);
+
+        final AbstractCommand cmd = new AbstractCommand(
+                (byte) commandMessage.getType().getId(), null,
+                commandMessage.getType().isGeneric() ? true
+                        : commandMessage.getType().isReceived(),
+                !commandMessage.getType().isGeneric());
+        cmd.setPayload(payload);
+        final ZCLFrame zclFrame = new ZCLFrame(cmd, true);
+        if (commandMessage.getTransactionId() != null) {
+            zclFrame.getHeader().setTransactionId(
+                    commandMessage.getTransactionId());
+        }
+        final ClusterMessage input = new org.bubblecloud.zigbee.api.cluster.impl.ClusterMessageImpl(
+                (short) clusterId, zclFrame);
+
+        final short sender = af.getSendingEndpoint(commandMessage.getType()
+                .getClusterType().getProfileType().getId(), clusterId);
+        final byte afTransactionId = af.getNextTransactionId(sender);
+        final byte[] msg = input.getClusterMsg();
+
+        if (commandMessage.getDestinationGroupId() == null) {
+            ZigBeeDeviceAddress destination = (ZigBeeDeviceAddress) commandMessage
+                    .getDestinationAddress();
+            final AF_DATA_CONFIRM response = networkManager
+                    .sendAFDataRequest(new AF_DATA_REQUEST(destination
+                            .getAddress(), (short) destination
+                            .getEndpoint(), sender, input.getId(),
+                            afTransactionId, (byte) (0) /* options */,
+                            (byte) 0 /* radius */, msg));
+
+            commandMessage.setTransactionId(zclFrame.getHeader()
+                    .getTransactionId());
+            LOGGER.debug(">>> " + commandMessage.toString());
+
+            if (response == null) {
+                throw new ZigBeeException(
+                        "Unable to send cluster on the ZigBee network due to general error.");
             }
-            final ClusterMessage input = new org.bubblecloud.zigbee.api.cluster.impl.ClusterMessageImpl(
-                    (short) clusterId, zclFrame);
-
-            final short sender = af.getSendingEndpoint(commandMessage.getType()
-                    .getClusterType().getProfileType().getId(), clusterId);
-            final byte afTransactionId = af.getNextTransactionId(sender);
-            final byte[] msg = input.getClusterMsg();
-
-            if (commandMessage.getDestinationGroupId() == null) {
-                ZigBeeDeviceAddress destination = (ZigBeeDeviceAddress) commandMessage
-                        .getDestinationAddress();
-                final AF_DATA_CONFIRM response = networkManager
-                        .sendAFDataRequest(new AF_DATA_REQUEST(destination
-                                .getAddress(), (short) destination
-                                .getEndpoint(), sender, input.getId(),
-                                afTransactionId, (byte) (0) /* options */,
-                                (byte) 0 /* radius */, msg));
-
-                commandMessage.setTransactionId(zclFrame.getHeader()
-                        .getTransactionId());
-                LOGGER.debug(">>> " + commandMessage.toString());
 
-                if (response == null) {
-                    throw new ZigBeeException(
-                            "Unable to send cluster on the ZigBee network due to general error.");
-                }
-
-                if (response.getStatus() != 0) {
-                    throw new ZigBeeException(
-                            "Unable to send cluster on the ZigBee network due to: "
-                                    + ResponseStatus.getStatus(response
-                                            .getStatus())
-                                    + " "
-                                    + (response.getErrorMsg() != null ? " - "
-                                            + response.getErrorMsg() : "")
-                                    + ")");
-                }
-
-                return commandMessage.getTransactionId();
-
-            } else {
-                final AfDataSrspExt response = networkManager
-                        .sendAFDataRequestExt(new AfDataRequestExt(
-                                commandMessage.getDestinationGroupId(), sender,
-                                input.getId(), afTransactionId,
-                                (byte) (0) /* options */,
-                                (byte) 0 /* radius */, msg));
-                commandMessage.setTransactionId(zclFrame.getHeader()
-                        .getTransactionId());
-                LOGGER.debug(">>> " + commandMessage.toString());
+            if (response.getStatus() != 0) {
+                throw new ZigBeeException(
+                        "Unable to send cluster on the ZigBee network due to: "
+                                + ResponseStatus.getStatus(response
+                                        .getStatus())
+                                + " "
+                                + (response.getErrorMsg() != null ? " - "
+                                        + response.getErrorMsg() : "")
+                                + ")");
+            }
 
-                if (response.getStatus() != 0) {
-                    throw new ZigBeeException(
-                            "Unable to send cluster on the ZigBee network due to: "
-                                    + ResponseStatus.getStatus(response
-                                            .getStatus()));
-                }
+            return commandMessage.getTransactionId();
 
-                return commandMessage.getTransactionId();
+        } else {
+            final AfDataSrspExt response = networkManager
+                    .sendAFDataRequestExt(new AfDataRequestExt(
+                            commandMessage.getDestinationGroupId(), sender,
+                            input.getId(), afTransactionId,
+                            (byte) (0) /* options */,
+                            (byte) 0 /* radius */, msg));
+            commandMessage.setTransactionId(zclFrame.getHeader()
+                    .getTransactionId());
+            LOGGER.debug(">>> " + commandMessage.toString());
+
+            if (response.getStatus() != 0) {
+                throw new ZigBeeException(
+                        "Unable to send cluster on the ZigBee network due to: "
+                                + ResponseStatus.getStatus(response
+                                        .getStatus()));
             }
 
+            return commandMessage.getTransactionId();
         }
     }
 
@@ -0,0 +1,137 @@
+package org.bubblecloud.zigbee.v3.zcl;
+
+import org.bubblecloud.zigbee.util.ByteUtils;
+
+/**
+ * View over ZCL frame received from network. Header fields are read from the frame
+ * bytes and payload is referred by offset, so the frame is not copied.
+ */
+final class ZclFrameView {
+    /**
+     * The frame type mask of frame control field.
+     */
+    private static final int FRAME_TYPE_MASK = 0x03;
+    /**
+     * The cluster specific command frame type.
+     */
+    private static final int FRAME_TYPE_CLUSTER_SPECIFIC = 0x01;
+    /**
+     * The manufacturer specific bit of frame control field.
+     */
+    private static final int MANUFACTURER_SPECIFIC = 0x04;
+    /**
+     * The server to client direction bit of frame control field.
+     */
+    private static final int SERVER_CLIENT_DIRECTION = 0x08;
+    /**
+     * The disable default response bit of frame control field.
+     */
+    private static final int DISABLE_DEFAULT_RESPONSE = 0x10;
+
+    /**
+     * The frame.
+     */
+    private final byte[] frame;
+    /**
+     * The frame control field.
+     */
+    private final int frameControl;
+    /**
+     * The offset of transaction ID field.
+     */
+    private final int transactionIdOffset;
+
+    /**
+     * Constructor which sets the frame.
+     * @param frame the frame
+     * @throws IllegalArgumentException if frame is shorter than ZCL header
+     */
+    ZclFrameView(final byte[] frame) {
+        if (frame.length < 3) {
+            throw new IllegalArgumentException("ZCL frame too short: " + frame.length);
+        }
+        this.frame = frame;
+        this.frameControl = frame[0] & 0xff;
+        this.transactionIdOffset = (frameControl & MANUFACTURER_SPECIFIC) != 0 ? 3 : 1;
+        if (frame.length < transactionIdOffset + 2) {
+            throw new IllegalArgumentException("ZCL frame too short: " + frame.length);
+        }
+    }
+
+    /**
+     * Gets the frame.
+     * @return the frame
+     */
+    public byte[] getFrame() {
+        return frame;
+    }
+
+    /**
+     * Checks whether command is cluster specific.
+     * @return TRUE if command is cluster specific
+     */
+    public boolean isClusterSpecificCommand() {
+        return (frameControl & FRAME_TYPE_MASK) == FRAME_TYPE_CLUSTER_SPECIFIC;
+    }
+
+    /**
+     * Checks whether command is manufacturer specific.
+     * @return TRUE if command is manufacturer specific
+     */
+    public boolean isManufacturerExtension() {
+        return (frameControl & MANUFACTURER_SPECIFIC) != 0;
+    }
+
+    /**
+     * Checks whether command is sent from client to server.
+     * @return TRUE if command is sent from client to server
+     */
+    public boolean isClientServerDirection() {
+        return (frameControl & SERVER_CLIENT_DIRECTION) == 0;
+    }
+
+    /**
+     * Checks whether default response is enabled.
+     * @return TRUE if default response is enabled
+     */
+    public boolean isDefaultResponseEnabled() {
+        return (frameControl & DISABLE_DEFAULT_RESPONSE) == 0;
+    }
+
+    /**
+     * Gets the transaction ID.
+     * @return the transaction ID
+     */
+    public byte getTransactionId() {
+        return frame[transactionIdOffset];
+    }
+
+    /**
+     * Gets the command ID.
+     * @return the command ID
+     */
+    public int getCommandId() {
+        return frame[transactionIdOffset + 1] & 0xff;
+    }
+
+    /**
+     * Gets the offset of payload in frame.
+     * @return the payload offset
+     */
+    public int getPayloadOffset() {
+        return transactionIdOffset + 2;
+    }
+
+    @Override
+    public String toString() {
+        final byte[] header = new byte[getPayloadOffset()];
+        final byte[] payload = new byte[frame.length - header.length];
+        System.arraycopy(frame, 0, header, 0, header.length);
+        System.arraycopy(frame, header.length, payload, 0, payload.length);
+        return "ZCL Frame [ commandId: " + getCommandId()
+                + " specific: " + isClusterSpecificCommand()
+                + " extension: " + isManufacturerExtension()
+                + " ZCL Header: " + ByteUtils.toBase16(header)
+                + ", ZCL Payload: " + ByteUtils.toBase16(payload) + "]";
+    }
+}
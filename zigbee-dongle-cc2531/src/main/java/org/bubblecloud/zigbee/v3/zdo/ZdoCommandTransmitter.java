@@ -90,96 +90,94 @@ public class ZdoCommandTransmitter implements AsynchronousCommandListener {
      * @throws ZigBeeNetworkManagerException
      */
     public void sendCommand(final ZdoCommand command) throws ZigBeeException {
-        synchronized (networkManager) {
-            if (command instanceof ActiveEndpointsRequest) {
-                final ActiveEndpointsRequest activeEndpointsRequest = (ActiveEndpointsRequest) command;
-                networkManager.sendCommand(new ZDO_ACTIVE_EP_REQ(
-                        getZToolAddress16(activeEndpointsRequest.getDestinationAddress()),
-                        getZToolAddress16(activeEndpointsRequest.getNetworkAddressOfInterest())));
-            }
-            if (command instanceof IeeeAddressRequest) {
-                final IeeeAddressRequest ieeeAddressRequest = (IeeeAddressRequest) command;
-                networkManager.sendCommand(new ZDO_IEEE_ADDR_REQ(
-                        getZToolAddress16(ieeeAddressRequest.getNetworkAddress()),
-                        ieeeAddressRequest.getType(),
-                        ieeeAddressRequest.getStartIndex()
-                        ));
-            }
-            if (command instanceof SimpleDescriptorRequest) {
-                final SimpleDescriptorRequest simpleDescriptorRequest = (SimpleDescriptorRequest) command;
-                networkManager.sendCommand(new ZDO_SIMPLE_DESC_REQ(
-                        (short) simpleDescriptorRequest.getDestinationAddress(),
-                        (short) simpleDescriptorRequest.getEndpoint()));
-            }
-            if (command instanceof NodeDescriptorRequest) {
-                final NodeDescriptorRequest nodeDescriptorRequest = (NodeDescriptorRequest) command;
-                networkManager.sendCommand(new ZDO_NODE_DESC_REQ(
-                        getZToolAddress16(nodeDescriptorRequest.getDestinationAddress()),
-                        getZToolAddress16(nodeDescriptorRequest.getNetworkAddressOfInterest())));
-            }
-            if (command instanceof ManagementPermitJoinRequest) {
-                final ManagementPermitJoinRequest managementPermitJoinRequest = (ManagementPermitJoinRequest) command;
-                networkManager.sendCommand(new ZDO_MGMT_PERMIT_JOIN_REQ(
-                        (byte) managementPermitJoinRequest.getAddressingMode(),
-                        getZToolAddress16(managementPermitJoinRequest.getDestinationAddress()),
-                        managementPermitJoinRequest.getDuration(),
-                        managementPermitJoinRequest.getTrustCenterSignificance()));
-            }
-            if (command instanceof BindRequest) {
-                final BindRequest bindRequest = (BindRequest) command;
-                networkManager.sendCommand(new ZDO_BIND_REQ(
-                        getZToolAddress16(bindRequest.getDestinationAddress()),
-                        getZToolAddress64(bindRequest.getBindSourceAddress()),
-                        bindRequest.getBindSourceEndpoint(),
-                        new DoubleByte(bindRequest.getBindCluster()),
-                        bindRequest.getBindDestinationAddressingMode(),
-                        getZToolAddress64(bindRequest.getBindDestinationAddress()),
-                        bindRequest.getBindDestinationEndpoint()
-                        ));
-            }
-            if (command instanceof UnbindRequest) {
-                final UnbindRequest unbindRequest = (UnbindRequest) command;
-                networkManager.sendCommand(new ZDO_UNBIND_REQ(
-                        getZToolAddress16(unbindRequest.getDestinationAddress()),
-                        getZToolAddress64(unbindRequest.getBindSourceAddress()),
-                        unbindRequest.getBindSourceEndpoint(),
-                        new DoubleByte(unbindRequest.getBindCluster()),
-                        unbindRequest.getBindDestinationAddressingMode(),
-                        getZToolAddress64(unbindRequest.getBindDestinationAddress()),
-                        unbindRequest.getBindDestinationEndpoint()
-                ));
-            }
-            if (command instanceof UserDescriptorSet) {
-                final UserDescriptorSet userDescriptorSet = (UserDescriptorSet) command;
-                final byte[] bytes = userDescriptorSet.getDescriptor().getBytes(Charset.forName("ASCII"));
-                int length = bytes.length;
-                if (length > 16) {
-                    length = 16;
-                }
-                final int[] characters = new int[length];
-                for (int i = 0; i < characters.length; i++) {
-                    characters[i] = bytes[i];
-                }
-                networkManager.sendCommand(new ZDO_USER_DESC_SET(
-                        getZToolAddress16(userDescriptorSet.getDestinationAddress()),
-                        getZToolAddress16(userDescriptorSet.getNetworkAddress()),
-                        length,
-                        characters
-                ));
-            }
-            if (command instanceof UserDescriptorRequest) {
-                final UserDescriptorRequest userDescriptorRequest = (UserDescriptorRequest) command;
-                networkManager.sendCommand(new ZDO_USER_DESC_REQ(
-                        getZToolAddress16(userDescriptorRequest.getDestinationAddress()),
-                        getZToolAddress16(userDescriptorRequest.getNetworkAddressOfInterest())));
+        if (command instanceof ActiveEndpointsRequest) {
+            final ActiveEndpointsRequest activeEndpointsRequest = (ActiveEndpointsRequest) command;
+            networkManager.sendCommand(new ZDO_ACTIVE_EP_REQ(
+                    getZToolAddress16(activeEndpointsRequest.getDestinationAddress()),
+                    getZToolAddress16(activeEndpointsRequest.getNetworkAddressOfInterest())));
+        }
+        if (command instanceof IeeeAddressRequest) {
+            final IeeeAddressRequest ieeeAddressRequest = (IeeeAddressRequest) command;
+            networkManager.sendCommand(new ZDO_IEEE_ADDR_REQ(
+                    getZToolAddress16(ieeeAddressRequest.getNetworkAddress()),
+                    ieeeAddressRequest.getType(),
+                    ieeeAddressRequest.getStartIndex()
+                    ));
+        }
+        if (command instanceof SimpleDescriptorRequest) {
+            final SimpleDescriptorRequest simpleDescriptorRequest = (SimpleDescriptorRequest) command;
+            networkManager.sendCommand(new ZDO_SIMPLE_DESC_REQ(
+                    (short) simpleDescriptorRequest.getDestinationAddress(),
+                    (short) simpleDescriptorRequest.getEndpoint()));
+        }
+        if (command instanceof NodeDescriptorRequest) {
+            final NodeDescriptorRequest nodeDescriptorRequest = (NodeDescriptorRequest) command;
+            networkManager.sendCommand(new ZDO_NODE_DESC_REQ(
+                    getZToolAddress16(nodeDescriptorRequest.getDestinationAddress()),
+                    getZToolAddress16(nodeDescriptorRequest.getNetworkAddressOfInterest())));
+        }
+        if (command instanceof ManagementPermitJoinRequest) {
+            final ManagementPermitJoinRequest managementPermitJoinRequest = (ManagementPermitJoinRequest) command;
+            networkManager.sendCommand(new ZDO_MGMT_PERMIT_JOIN_REQ(
+                    (byte) managementPermitJoinRequest.getAddressingMode(),
+                    getZToolAddress16(managementPermitJoinRequest.getDestinationAddress()),
+                    managementPermitJoinRequest.getDuration(),
+                    managementPermitJoinRequest.getTrustCenterSignificance()));
+        }
+        if (command instanceof BindRequest) {
+            final BindRequest bindRequest = (BindRequest) command;
+            networkManager.sendCommand(new ZDO_BIND_REQ(
+                    getZToolAddress16(bindRequest.getDestinationAddress()),
+                    getZToolAddress64(bindRequest.getBindSourceAddress()),
+                    bindRequest.getBindSourceEndpoint(),
+                    new DoubleByte(bindRequest.getBindCluster()),
+                    bindRequest.getBindDestinationAddressingMode(),
+                    getZToolAddress64(bindRequest.getBindDestinationAddress()),
+                    bindRequest.getBindDestinationEndpoint()
+                    ));
+        }
+        if (command instanceof UnbindRequest) {
+            final UnbindRequest unbindRequest = (UnbindRequest) command;
+            networkManager.sendCommand(new ZDO_UNBIND_REQ(
+                    getZToolAddress16(unbindRequest.getDestinationAddress()),
+                    getZToolAddress64(unbindRequest.getBindSourceAddress()),
+                    unbindRequest.getBindSourceEndpoint(),
+                    new DoubleByte(unbindRequest.getBindCluster()),
+                    unbindRequest.getBindDestinationAddressingMode(),
+                    getZToolAddress64(unbindRequest.getBindDestinationAddress()),
+                    unbindRequest.getBindDestinationEndpoint()
+            ));
+        }
+        if (command instanceof UserDescriptorSet) {
+            final UserDescriptorSet userDescriptorSet = (UserDescriptorSet) command;
+            final byte[] bytes = userDescriptorSet.getDescriptor().getBytes(Charset.forName("ASCII"));
+            int length = bytes.length;
+            if (length > 16) {
+                length = 16;
             }
-            if (command instanceof ManagementLqiRequest) {
-                final ManagementLqiRequest managementLqiRequest = (ManagementLqiRequest) command;
-                networkManager.sendCommand(new ZDO_MGMT_LQI_REQ(
-                        getZToolAddress16(managementLqiRequest.getNetworkAddress()),
-                        managementLqiRequest.getStartIndex()
-                ));
+            final int[] characters = new int[length];
+            for (int i = 0; i < characters.length; i++) {
+                characters[i] = bytes[i];
             }
+            networkManager.sendCommand(new ZDO_USER_DESC_SET(
+                    getZToolAddress16(userDescriptorSet.getDestinationAddress()),
+                    getZToolAddress16(userDescriptorSet.getNetworkAddress()),
+                    length,
+                    characters
+            ));
+        }
+        if (command instanceof UserDescriptorRequest) {
+            final UserDescriptorRequest userDescriptorRequest = (UserDescriptorRequest) command;
+            networkManager.sendCommand(new ZDO_USER_DESC_REQ(
+                    getZToolAddress16(userDescriptorRequest.getDestinationAddress()),
+                    getZToolAddress16(userDescriptorRequest.getNetworkAddressOfInterest())));
+        }
+        if (command instanceof ManagementLqiRequest) {
+            final ManagementLqiRequest managementLqiRequest = (ManagementLqiRequest) command;
+            networkManager.sendCommand(new ZDO_MGMT_LQI_REQ(
+                    getZToolAddress16(managementLqiRequest.getNetworkAddress()),
+                    managementLqiRequest.getStartIndex()
+            ));
         }
     }
 
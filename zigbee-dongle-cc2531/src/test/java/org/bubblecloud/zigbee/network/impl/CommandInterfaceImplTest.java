@@ -0,0 +1,163 @@
+package org.bubblecloud.zigbee.network.impl;
+
+import org.bubblecloud.zigbee.network.SynchronousCommandListener;
+import org.bubblecloud.zigbee.network.packet.ZToolCMD;
+import org.bubblecloud.zigbee.network.packet.ZToolPacket;
+import org.bubblecloud.zigbee.network.packet.system.SYS_PING;
+import org.bubblecloud.zigbee.network.packet.system.SYS_PING_RESPONSE;
+import org.bubblecloud.zigbee.network.packet.system.SYS_VERSION;
+import org.bubblecloud.zigbee.util.DoubleByte;
+import org.bubblecloud.zigbee.v3.SerialPort;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests correlation of synchronous requests and responses, per command queueing and timeouts.
+ */
+public class CommandInterfaceImplTest {
+    private TestPort port;
+    private CommandInterfaceImpl commandInterface;
+
+    @Before
+    public void setUp() throws Exception {
+        port = new TestPort();
+        commandInterface = new CommandInterfaceImpl(port);
+        Assert.assertTrue(commandInterface.open());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        port.respond.close();
+        commandInterface.close();
+    }
+
+    @Test
+    public void testResponsesCompleteCommandsInOrder() throws Exception {
+        final TestListener first = new TestListener();
+        final TestListener second = new TestListener();
+        commandInterface.sendSynchronousCommand(new SYS_PING(), first, 5000);
+        commandInterface.sendSynchronousCommand(new SYS_PING(), second, 5000);
+        // Command with other ID is not queued behind the pings.
+        commandInterface.sendSynchronousCommand(new SYS_VERSION(), new TestListener(), 5000);
+        Assert.assertEquals(Arrays.asList(ZToolCMD.SYS_PING, ZToolCMD.SYS_VERSION), port.waitForCommands(2));
+
+        port.respond(new SYS_PING_RESPONSE(new DoubleByte(0, 1)));
+        Assert.assertTrue(first.latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(ZToolCMD.SYS_PING, ZToolCMD.SYS_VERSION, ZToolCMD.SYS_PING),
+                port.waitForCommands(3));
+        Assert.assertEquals(1, second.latch.getCount());
+
+        port.respond(new SYS_PING_RESPONSE(new DoubleByte(0, 2)));
+        Assert.assertTrue(second.latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, ((SYS_PING_RESPONSE) first.response).Capabilities);
+        Assert.assertEquals(2, ((SYS_PING_RESPONSE) second.response).Capabilities);
+    }
+
+    @Test
+    public void testTimeoutSendsNextCommand() throws Exception {
+        final TestListener first = new TestListener();
+        final TestListener second = new TestListener();
+        commandInterface.sendSynchronousCommand(new SYS_PING(), first, 100);
+        commandInterface.sendSynchronousCommand(new SYS_PING(), second, 5000);
+        Assert.assertEquals(1, port.waitForCommands(1).size());
+
+        // First command expires without response and the queued command is sent.
+        Assert.assertEquals(2, port.waitForCommands(2).size());
+        port.respond(new SYS_PING_RESPONSE(new DoubleByte(0, 2)));
+        Assert.assertTrue(second.latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, first.latch.getCount());
+    }
+
+    private static class TestListener implements SynchronousCommandListener {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile ZToolPacket response;
+
+        @Override
+        public void receivedCommandResponse(final ZToolPacket packet) {
+            response = packet;
+            latch.countDown();
+        }
+    }
+
+    private static class TestPort implements SerialPort {
+        private final List<Integer> bytes = new ArrayList<Integer>();
+        private final PipedOutputStream respond = new PipedOutputStream();
+        private final PipedInputStream input;
+
+        private TestPort() throws IOException {
+            input = new PipedInputStream(respond);
+        }
+
+        private void respond(final ZToolPacket packet) throws IOException {
+            respond.write(packet.getFrame());
+            respond.flush();
+        }
+
+        /**
+         * Waits until given number of commands have been written or five seconds have passed.
+         * @param count the command count
+         * @return the command IDs written
+         * @throws InterruptedException if interrupted
+         */
+        private synchronized List<Integer> waitForCommands(final int count) throws InterruptedException {
+            final long endTime = System.currentTimeMillis() + 5000;
+            List<Integer> commands = getCommands();
+            while (commands.size() < count && System.currentTimeMillis() < endTime) {
+                wait(Math.max(1, endTime - System.currentTimeMillis()));
+                commands = getCommands();
+            }
+            return commands;
+        }
+
+        private List<Integer> getCommands() {
+            final List<Integer> commands = new ArrayList<Integer>();
+            int index = 0;
+            while (index + 4 < bytes.size()) {
+                final int length = bytes.get(index + 1);
+                commands.add((bytes.get(index + 2) << 8) + bytes.get(index + 3));
+                index += length + 5;
+            }
+            return commands;
+        }
+
+        @Override
+        public boolean open() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new OutputStream() {
+                @Override
+                public void write(final int b) {
+                    synchronized (TestPort.this) {
+                        bytes.add(b & 0xff);
+                        TestPort.this.notifyAll();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return input;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.bubblecloud.zigbee.v3.zcl;
+
+import org.bubblecloud.zigbee.v3.zcl.protocol.ZclCommandType;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReportAttributesCommand;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests ZCL frame view and payload decoding at frame offset.
+ */
+public class ZclFrameViewTest {
+
+    @Test
+    public void testGeneralCommandFrame() {
+        // Report attributes: on/off attribute 0x0000 of type boolean with value 1.
+        final byte[] frame = new byte[] {0x18, 0x2a, 0x0a, 0x00, 0x00, 0x10, 0x01};
+        final ZclFrameView view = new ZclFrameView(frame);
+        Assert.assertFalse(view.isClusterSpecificCommand());
+        Assert.assertFalse(view.isManufacturerExtension());
+        Assert.assertFalse(view.isClientServerDirection());
+        Assert.assertFalse(view.isDefaultResponseEnabled());
+        Assert.assertEquals(0x2a, view.getTransactionId());
+        Assert.assertEquals(0x0a, view.getCommandId());
+        Assert.assertEquals(3, view.getPayloadOffset());
+
+        final ReportAttributesCommand command = (ReportAttributesCommand) ZclCommandProtocol.deserializeCommand(
+                ZclCommandType.REPORT_ATTRIBUTES_COMMAND, view.getFrame(), view.getPayloadOffset());
+        Assert.assertEquals(1, command.getReports().size());
+        Assert.assertEquals(0, command.getReports().get(0).getAttributeIdentifier());
+        Assert.assertEquals(Boolean.TRUE, command.getReports().get(0).getAttributeValue());
+    }
+
+    @Test
+    public void testManufacturerSpecificFrame() {
+        final byte[] frame = new byte[] {0x05, 0x34, 0x12, (byte) 0x80, (byte) 0xf0};
+        final ZclFrameView view = new ZclFrameView(frame);
+        Assert.assertTrue(view.isClusterSpecificCommand());
+        Assert.assertTrue(view.isManufacturerExtension());
+        Assert.assertTrue(view.isClientServerDirection());
+        Assert.assertTrue(view.isDefaultResponseEnabled());
+        Assert.assertEquals((byte) 0x80, view.getTransactionId());
+        Assert.assertEquals(0xf0, view.getCommandId());
+        Assert.assertEquals(5, view.getPayloadOffset());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedFrame() {
+        new ZclFrameView(new byte[] {0x04, 0x34, 0x12, 0x01});
+    }
+}
@@ -72,6 +72,11 @@ public class ZigBeeGatewayClient extends ZigBeeApi implements ZigBeeNetwork {
         return rpcClient.getZigBeeRpcApi().getDevices();
     }
 
+    @Override
+    public ZigBeeNetworkStateChanges getChangesSince(final long version) {
+        return rpcClient.getZigBeeRpcApi().getChangesSince(version);
+    }
+
     @Override
     public void addMembership(final int groupId, final String label) {
         rpcClient.getZigBeeRpcApi().addGroup(groupId, label);
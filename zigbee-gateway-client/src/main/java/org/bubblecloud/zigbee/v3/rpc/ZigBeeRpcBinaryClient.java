@@ -0,0 +1,550 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import org.bubblecloud.zigbee.v3.CallbackFuture;
+import org.bubblecloud.zigbee.v3.Command;
+import org.bubblecloud.zigbee.v3.ZdoRequest;
+import org.bubblecloud.zigbee.v3.ZigBeeAddress;
+import org.bubblecloud.zigbee.v3.ZigBeeDeviceAddress;
+import org.bubblecloud.zigbee.v3.ZigBeeException;
+import org.bubblecloud.zigbee.v3.ZigBeeGroupAddress;
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ZigBee RPC client using binary transport over a pool of persistent TCP connections. Requests
+ * are distributed over the connections and requests from multiple threads are multiplexed on
+ * each connection by request ID, so many requests can be in flight at the same time. Connection
+ * is opened on first request and reopened on next request if it fails.
+ * <p>
+ * Requests can be made asynchronously with {@link #sendAsync(Command)} in which case the
+ * returned future is completed by the connection reader when the response arrives. Commands
+ * to the same destination are sent on the same connection to keep them in order, and future
+ * callbacks are run by a callback thread so that they can make blocking requests.
+ */
+public class ZigBeeRpcBinaryClient implements InvocationHandler {
+    /**
+     * The {@link org.slf4j.Logger}.
+     */
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ZigBeeRpcBinaryClient.class);
+    /**
+     * The connection timeout in milliseconds.
+     */
+    public static final int CONNECTION_TIMEOUT_MILLIS = 3000;
+    /**
+     * The default number of pooled connections.
+     */
+    public static final int CONNECTION_COUNT_DEFAULT = 2;
+    /**
+     * The interval of checking response timeouts in milliseconds.
+     */
+    private static final long TIMEOUT_CHECK_INTERVAL_MILLIS = 500;
+    /**
+     * The time idle callback thread is kept alive in seconds.
+     */
+    private static final int CALLBACK_THREAD_KEEP_ALIVE_SECONDS = 60;
+    /**
+     * The send method.
+     */
+    private static final Method SEND_METHOD;
+
+    static {
+        try {
+            SEND_METHOD = ZigBeeRpcApi.class.getMethod("send", Command.class);
+        } catch (final NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The host.
+     */
+    private final String host;
+    /**
+     * The TCP port.
+     */
+    private final int port;
+    /**
+     * The access token.
+     */
+    private final String accessToken;
+    /**
+     * The response timeout in milliseconds.
+     */
+    private final long responseTimeoutMillis;
+    /**
+     * The codec.
+     */
+    private final ZigBeeRpcBinaryCodec codec = new ZigBeeRpcBinaryCodec();
+    /**
+     * The requests waiting for response by request ID.
+     */
+    private final Map<Integer, PendingRequest<?>> pendingRequests = new ConcurrentHashMap<Integer, PendingRequest<?>>();
+    /**
+     * The last request ID.
+     */
+    private final AtomicInteger lastRequestId = new AtomicInteger();
+    /**
+     * The index of the connection last used for synchronous request.
+     */
+    private final AtomicInteger lastConnectionIndex = new AtomicInteger();
+    /**
+     * The ZigBee RPC API proxy.
+     */
+    private final ZigBeeRpcApi zigBeeRpcApi;
+    /**
+     * The pooled connections.
+     */
+    private final Connection[] connections;
+    /**
+     * The executor running future callbacks in completion order.
+     */
+    private final ThreadPoolExecutor callbackExecutor = new ThreadPoolExecutor(1, 1,
+            CALLBACK_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "ZigBee binary RPC client callback");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * The timeout thread or null if not started.
+     */
+    private Thread timeoutThread;
+    /**
+     * True if client has been closed.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor for setting server address, access token and response timeout.
+     * @param host the host
+     * @param port the TCP port
+     * @param accessToken the access token
+     * @param responseTimeoutMillis the response timeout in milliseconds
+     */
+    public ZigBeeRpcBinaryClient(final String host, final int port, final String accessToken,
+                                 final long responseTimeoutMillis) {
+        this(host, port, accessToken, responseTimeoutMillis, CONNECTION_COUNT_DEFAULT);
+    }
+
+    /**
+     * Constructor for setting server address, access token, response timeout and connection count.
+     * @param host the host
+     * @param port the TCP port
+     * @param accessToken the access token
+     * @param responseTimeoutMillis the response timeout in milliseconds
+     * @param connectionCount the number of pooled connections
+     */
+    public ZigBeeRpcBinaryClient(final String host, final int port, final String accessToken,
+                                 final long responseTimeoutMillis, final int connectionCount) {
+        if (connectionCount < 1) {
+            throw new IllegalArgumentException("Connection count must be positive: " + connectionCount);
+        }
+        this.host = host;
+        this.port = port;
+        this.accessToken = accessToken;
+        this.responseTimeoutMillis = responseTimeoutMillis;
+        connections = new Connection[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            connections[i] = new Connection();
+        }
+        zigBeeRpcApi = (ZigBeeRpcApi) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {ZigBeeRpcApi.class}, this);
+        callbackExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gets the ZigBee RPC API.
+     * @return the ZigBee RPC API
+     */
+    public ZigBeeRpcApi getZigBeeRpcApi() {
+        return zigBeeRpcApi;
+    }
+
+    /**
+     * Gets the number of requests waiting for response.
+     * @return the number of requests
+     */
+    public int getPendingRequestCount() {
+        return pendingRequests.size();
+    }
+
+    /**
+     * Closes the connections. Requests waiting for response fail.
+     */
+    public void close() {
+        closed = true;
+        for (final Connection connection : connections) {
+            connection.close();
+        }
+        synchronized (this) {
+            if (timeoutThread != null) {
+                timeoutThread.interrupt();
+                timeoutThread = null;
+            }
+        }
+        callbackExecutor.shutdown();
+    }
+
+    /**
+     * Sends command without waiting for response. The future completes with the
+     * transaction ID or fails with {@link ZigBeeException}. Commands to the same destination
+     * are executed by the server in the order they were sent.
+     * @param command the command
+     * @return the transaction ID future
+     */
+    public CallbackFuture<Integer> sendAsync(final Command command) {
+        return call(SEND_METHOD, new Object[] {command},
+                connections[(getDestinationHash(command) & Integer.MAX_VALUE) % connections.length]);
+    }
+
+    /**
+     * Gets hash of command destination for keeping commands to the same destination in order.
+     * @param command the command
+     * @return the destination hash or 0 if destination is not known
+     */
+    static int getDestinationHash(final Command command) {
+        if (command instanceof ZclCommand) {
+            final ZigBeeAddress destination = ((ZclCommand) command).getDestinationAddress();
+            if (destination instanceof ZigBeeDeviceAddress) {
+                return ((ZigBeeDeviceAddress) destination).getAddress();
+            }
+            if (destination instanceof ZigBeeGroupAddress) {
+                return ~((ZigBeeGroupAddress) destination).getGroupId();
+            }
+        }
+        if (command instanceof ZdoRequest) {
+            return ((ZdoRequest) command).getDestinationAddress();
+        }
+        return 0;
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] arguments) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(this, arguments);
+        }
+        try {
+            final int connectionIndex = (lastConnectionIndex.incrementAndGet() & Integer.MAX_VALUE) % connections.length;
+            return call(method, arguments, connections[connectionIndex]).get();
+        } catch (final ExecutionException e) {
+            throw e.getCause();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw toException(method, "Interrupted while waiting for response to " + method.getName(), e);
+        }
+    }
+
+    /**
+     * Sends request without waiting for response.
+     * @param method the API method
+     * @param arguments the arguments
+     * @param connection the connection to send request on
+     * @param <T> the return value type
+     * @return the future completed with return value or failed with exception declared by method
+     */
+    private <T> CallbackFuture<T> call(final Method method, final Object[] arguments, final Connection connection) {
+        final int requestId = lastRequestId.incrementAndGet();
+        final PendingRequest<T> pendingRequest = new PendingRequest<T>(requestId, method, connection,
+                System.currentTimeMillis() + getResponseTimeout(method, arguments));
+        pendingRequests.put(requestId, pendingRequest);
+        try {
+            final byte[] request = codec.encodeRequest(requestId, method.getName(), arguments);
+            if (closed) {
+                throw new IOException("Client closed.");
+            }
+            startTimeoutThread();
+            connection.write(request);
+        } catch (final IOException e) {
+            pendingRequest.fail(e);
+        }
+        return pendingRequest;
+    }
+
+    /**
+     * Gets response timeout of request. Long-polling receive is given its wait time on top
+     * of the response timeout.
+     * @param method the API method
+     * @param arguments the arguments
+     * @return the response timeout in milliseconds
+     */
+    private long getResponseTimeout(final Method method, final Object[] arguments) {
+        if (method.getName().equals("receive") && arguments != null && arguments.length == 2
+                && arguments[1] instanceof Long) {
+            return responseTimeoutMillis + (Long) arguments[1];
+        }
+        return responseTimeoutMillis;
+    }
+
+    /**
+     * Starts the thread failing requests which do not receive response in time.
+     */
+    private synchronized void startTimeoutThread() {
+        if (timeoutThread != null) {
+            return;
+        }
+        timeoutThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                timeoutLoop();
+            }
+        }, "ZigBee binary RPC client timeout");
+        timeoutThread.setDaemon(true);
+        timeoutThread.start();
+    }
+
+    /**
+     * Fails timed out requests until client is closed.
+     */
+    private void timeoutLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(TIMEOUT_CHECK_INTERVAL_MILLIS);
+            } catch (final InterruptedException e) {
+                break;
+            }
+            final long now = System.currentTimeMillis();
+            for (final PendingRequest<?> pendingRequest : pendingRequests.values()) {
+                if (pendingRequest.deadline < now) {
+                    pendingRequest.fail(new IOException("Timeout waiting for response."));
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts error to exception declared by method if possible.
+     * @param method the method
+     * @param message the error message
+     * @param cause the cause or null
+     * @return the exception
+     */
+    private static Exception toException(final Method method, final String message, final Throwable cause) {
+        final List<Class<?>> exceptionTypes = Arrays.<Class<?>>asList(method.getExceptionTypes());
+        if (exceptionTypes.contains(ZigBeeException.class)) {
+            return cause == null ? new ZigBeeException(message) : new ZigBeeException(message, cause);
+        }
+        return new RuntimeException(message, cause);
+    }
+
+    /**
+     * Pooled connection which is opened on first write.
+     */
+    private class Connection {
+        /**
+         * The current socket or null if not connected.
+         */
+        private Socket socket;
+        /**
+         * The output stream of current socket.
+         */
+        private OutputStream outputStream;
+
+        /**
+         * Writes request frame connecting first if not connected.
+         * @param frame the frame
+         * @throws IOException if IO exception occurs
+         */
+        private void write(final byte[] frame) throws IOException {
+            final OutputStream connectionOutputStream = connect();
+            synchronized (connectionOutputStream) {
+                connectionOutputStream.write(frame);
+                connectionOutputStream.flush();
+            }
+        }
+
+        /**
+         * Closes the connection if open.
+         */
+        private void close() {
+            final Socket openSocket;
+            synchronized (this) {
+                openSocket = socket;
+            }
+            if (openSocket != null) {
+                disconnect(openSocket);
+            }
+        }
+
+        /**
+         * Connects and authorizes if not connected.
+         * @return the output stream of the connection
+         * @throws IOException if IO exception occurs
+         */
+        private synchronized OutputStream connect() throws IOException {
+            if (socket != null) {
+                return outputStream;
+            }
+            final Socket newSocket = new Socket();
+            newSocket.setTcpNoDelay(true);
+            newSocket.setKeepAlive(true);
+            newSocket.connect(new InetSocketAddress(host, port), CONNECTION_TIMEOUT_MILLIS);
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(newSocket.getInputStream()));
+            final OutputStream newOutputStream = newSocket.getOutputStream();
+            try {
+                newOutputStream.write(codec.encodeAuthorize(0, accessToken));
+                newOutputStream.flush();
+                newSocket.setSoTimeout(CONNECTION_TIMEOUT_MILLIS);
+                final ZigBeeRpcBinaryCodec.Frame authorization = codec.readFrame(in);
+                if (authorization.getType() != ZigBeeRpcBinaryCodec.RESPONSE) {
+                    throw new IOException("Binary RPC authorization failed: " + authorization.getBody().readUTF());
+                }
+                newSocket.setSoTimeout(0);
+            } catch (final IOException e) {
+                newSocket.close();
+                throw e;
+            }
+            socket = newSocket;
+            outputStream = newOutputStream;
+            final Thread readerThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    readLoop(newSocket, in);
+                }
+            }, "ZigBee binary RPC client reader");
+            readerThread.setDaemon(true);
+            readerThread.start();
+            return outputStream;
+        }
+
+        /**
+         * Disconnects and fails the requests of this connection waiting for response.
+         * @param failedSocket the socket to disconnect
+         */
+        private void disconnect(final Socket failedSocket) {
+            try {
+                failedSocket.close();
+            } catch (final IOException e) {
+                LOGGER.trace("Error closing binary RPC connection.", e);
+            }
+            synchronized (this) {
+                if (socket == failedSocket) {
+                    socket = null;
+                    outputStream = null;
+                }
+            }
+            for (final PendingRequest<?> pendingRequest : new ArrayList<PendingRequest<?>>(pendingRequests.values())) {
+                if (pendingRequest.connection == this) {
+                    pendingRequest.fail(new IOException("Connection closed."));
+                }
+            }
+        }
+
+        /**
+         * Reads responses and completes pending requests until connection fails.
+         * @param readSocket the socket
+         * @param in the input
+         */
+        private void readLoop(final Socket readSocket, final DataInputStream in) {
+            try {
+                while (true) {
+                    final ZigBeeRpcBinaryCodec.Frame response = codec.readFrame(in);
+                    final PendingRequest<?> pendingRequest = pendingRequests.get(response.getRequestId());
+                    if (pendingRequest != null) {
+                        pendingRequest.complete(response);
+                    }
+                }
+            } catch (final IOException e) {
+                if (!readSocket.isClosed()) {
+                    LOGGER.warn("Binary RPC connection failed: " + e.getMessage());
+                }
+            }
+            disconnect(readSocket);
+        }
+    }
+
+    /**
+     * Request waiting for response. Request is removed from pending requests when completed.
+     * @param <T> the return value type
+     */
+    private class PendingRequest<T> extends CallbackFuture<T> {
+        /**
+         * The request ID.
+         */
+        private final int requestId;
+        /**
+         * The API method.
+         */
+        private final Method method;
+        /**
+         * The connection request was sent on.
+         */
+        private final Connection connection;
+        /**
+         * The time after which request times out.
+         */
+        private final long deadline;
+
+        /**
+         * Constructor for setting the request ID, method, connection and deadline.
+         * @param requestId the request ID
+         * @param method the API method
+         * @param connection the connection
+         * @param deadline the deadline
+         */
+        private PendingRequest(final int requestId, final Method method, final Connection connection,
+                               final long deadline) {
+            super(callbackExecutor);
+            this.requestId = requestId;
+            this.method = method;
+            this.connection = connection;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Completes request with response.
+         * @param response the response
+         */
+        @SuppressWarnings("unchecked")
+        private void complete(final ZigBeeRpcBinaryCodec.Frame response) {
+            pendingRequests.remove(requestId);
+            try {
+                if (response.getType() == ZigBeeRpcBinaryCodec.ERROR) {
+                    super.fail(toException(method, response.getBody().readUTF(), null));
+                } else {
+                    final Type returnType = method.getGenericReturnType();
+                    set((T) codec.readValue(response.getBody(), returnType));
+                }
+            } catch (final IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Fails request with IO exception converted to exception declared by method.
+         * @param failure the failure
+         * @return false if request had already completed
+         */
+        @Override
+        public boolean fail(final Throwable failure) {
+            pendingRequests.remove(requestId);
+            return super.fail(toException(method, "Error in binary RPC call " + method.getName() + ": "
+                    + failure.getMessage(), failure));
+        }
+    }
+}
@@ -7,33 +7,65 @@ import org.bubblecloud.zigbee.v3.*;
 import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * ZigBeeConsole API client.
+ * <p>
+ * Commands can be sent without blocking with {@link #sendCommandAsync(Command)}. With binary
+ * transport the requests are pipelined over pooled connections. With JSON RPC the requests
+ * are sent by sender threads which reuse kept alive HTTP connections. Commands to the same
+ * destination are sent by the same connection or sender thread so they stay in order.
  *
  * @author Tommi S.E. Laukkanen
  */
-public class ZigBeeRpcClient implements ZigBeeNetwork {
+public class ZigBeeRpcClient implements ZigBeeAsyncNetwork {
     /**
      * The {@link org.slf4j.Logger}.
      */
     private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ZigBeeRpcClient.class);
     /**
-     * The minimum polling period in milliseconds.
+     * The time server waits for commands to arrive in receive in milliseconds.
      */
-    public static final long MINIMUM_POLLING_PERIOD_MILLIS = 100;
+    public static final long RECEIVE_TIMEOUT_MILLIS = 20000;
+    /**
+     * The time client waits for response to other calls than receive in milliseconds.
+     */
+    public static final int RESPONSE_TIMEOUT_MILLIS = 5000;
     /**
      * The wait time after receive error.
      */
     public static final int RECEIVE_ERROR_WAIT_MILLIS = 2000;
+    /**
+     * The URL prefix selecting binary transport.
+     */
+    public static final String BINARY_URL_PREFIX = "tcp://";
+    /**
+     * The number of threads sending commands asynchronously over JSON RPC.
+     */
+    public static final int SEND_THREAD_COUNT = 4;
     /**
      * The JSON RPC client.
      */
     private final ZigBeeRpcApi zigBeeRpcApi;
+    /**
+     * The RPC API used for long-polling receive with read timeout exceeding the receive timeout.
+     */
+    private final ZigBeeRpcApi receiveRpcApi;
+    /**
+     * The binary RPC client or null if JSON RPC is used.
+     */
+    private final ZigBeeRpcBinaryClient binaryClient;
+    /**
+     * The receive filter or null if all commands are received.
+     */
+    private ZigBeeRpcReceiveFilter receiveFilter;
     /**
      * The receive queue ID.
      */
@@ -41,7 +73,7 @@ public class ZigBeeRpcClient implements ZigBeeNetwork {
     /**
      * The shutdown flag.
      */
-    private boolean shutdown = false;
+    private volatile boolean shutdown = false;
     /**
      * The receive thread.
      */
@@ -50,14 +82,33 @@ public class ZigBeeRpcClient implements ZigBeeNetwork {
      * The ZCL command listeners.
      */
     private List<CommandListener> commandListeners = new ArrayList<CommandListener>();
+    /**
+     * The asynchronous JSON RPC sends waiting for sender thread by sender thread index.
+     */
+    private final List<BlockingQueue<PendingSend>> sendQueues = new ArrayList<BlockingQueue<PendingSend>>();
+    /**
+     * The JSON RPC sender threads.
+     */
+    private final List<Thread> sendThreads = new ArrayList<Thread>();
 
     /**
-     * Constructor which defines ZigBee RPC API URL and access token.
+     * Constructor which defines ZigBee RPC API URL and access token. URL with tcp scheme
+     * as in tcp://host:port selects the binary transport and other URLs JSON RPC over HTTP.
      * @param url the ZigBee RPC API URL
      * @param accessToken the ZigBee RPC API access token
      */
     public ZigBeeRpcClient(final String url, final String accessToken) {
+        if (url.startsWith(BINARY_URL_PREFIX)) {
+            final URI uri = URI.create(url);
+            binaryClient = new ZigBeeRpcBinaryClient(uri.getHost(), uri.getPort(), accessToken,
+                    RESPONSE_TIMEOUT_MILLIS);
+            zigBeeRpcApi = binaryClient.getZigBeeRpcApi();
+            receiveRpcApi = zigBeeRpcApi;
+            return;
+        }
+
         JsonRpcHttpClient  jsonRpcClient;
+        JsonRpcHttpClient  receiveJsonRpcClient;
 
         try {
             final ObjectMapper objectMapper = new ObjectMapper();
@@ -69,18 +120,36 @@ public class ZigBeeRpcClient implements ZigBeeNetwork {
 
             jsonRpcClient = new JsonRpcHttpClient(objectMapper, new URL(url), headers);
             jsonRpcClient.setConnectionTimeoutMillis(3000);
-            jsonRpcClient.setReadTimeoutMillis(5000);
+            jsonRpcClient.setReadTimeoutMillis(RESPONSE_TIMEOUT_MILLIS);
+
+            receiveJsonRpcClient = new JsonRpcHttpClient(objectMapper, new URL(url), headers);
+            receiveJsonRpcClient.setConnectionTimeoutMillis(3000);
+            receiveJsonRpcClient.setReadTimeoutMillis((int) RECEIVE_TIMEOUT_MILLIS + RESPONSE_TIMEOUT_MILLIS);
         } catch (MalformedURLException e) {
             throw new IllegalArgumentException("Malformed URL: " + url, e);
         }
 
+        binaryClient = null;
         zigBeeRpcApi = ProxyUtil.createClientProxy(
                 getClass().getClassLoader(),
                 ZigBeeRpcApi.class,
                 jsonRpcClient);
+        receiveRpcApi = ProxyUtil.createClientProxy(
+                getClass().getClassLoader(),
+                ZigBeeRpcApi.class,
+                receiveJsonRpcClient);
 
     }
 
+    /**
+     * Sets the filter evaluated by server to select commands delivered to this client.
+     * Has to be set before startup.
+     * @param receiveFilter the receive filter or null to receive all commands
+     */
+    public void setReceiveFilter(final ZigBeeRpcReceiveFilter receiveFilter) {
+        this.receiveFilter = receiveFilter;
+    }
+
     /**
      * Starts API client.
      */
@@ -88,7 +157,8 @@ public class ZigBeeRpcClient implements ZigBeeNetwork {
         if (receiveQueueId != null) {
             throw new UnsupportedOperationException("Already started");
         }
-        receiveQueueId = zigBeeRpcApi.addReceiveQueue();
+        receiveQueueId = receiveFilter == null ? zigBeeRpcApi.addReceiveQueue()
+                : zigBeeRpcApi.addReceiveQueue(receiveFilter);
         receiveThread = new Thread(new Runnable() {
             @Override
             public void run() {
@@ -99,17 +169,35 @@ public class ZigBeeRpcClient implements ZigBeeNetwork {
     }
 
     /**
-     * Stops API client.
+     * Stops API client. The receive queue is removed first to release receive waiting on server.
+     * Asynchronous sends still waiting in send queues fail.
      */
     public void shutdown() {
         shutdown = true;
+        zigBeeRpcApi.removeReceiveQueue(receiveQueueId);
         receiveThread.interrupt();
         try {
             receiveThread.join();
         } catch (final InterruptedException e) {
             LOGGER.trace("Shutdown receive thread join interrupted.", e);
         }
-        zigBeeRpcApi.removeReceiveQueue(receiveQueueId);
+        synchronized (sendThreads) {
+            for (final Thread sendThread : sendThreads) {
+                sendThread.interrupt();
+            }
+            sendThreads.clear();
+            final List<PendingSend> pendingSends = new ArrayList<PendingSend>();
+            for (final BlockingQueue<PendingSend> sendQueue : sendQueues) {
+                sendQueue.drainTo(pendingSends);
+            }
+            sendQueues.clear();
+            for (final PendingSend pendingSend : pendingSends) {
+                pendingSend.future.fail(new ZigBeeException("Client has been shut down."));
+            }
+        }
+        if (binaryClient != null) {
+            binaryClient.close();
+        }
     }
 
     /**
@@ -134,6 +222,18 @@ public class ZigBeeRpcClient implements ZigBeeNetwork {
         return zigBeeRpcApi.send(command);
     }
 
+    @Override
+    public CallbackFuture<Integer> sendCommandAsync(final Command command) {
+        if (binaryClient != null) {
+            return binaryClient.sendAsync(command);
+        }
+        final PendingSend pendingSend = new PendingSend(command);
+        if (!addPendingSend(pendingSend)) {
+            pendingSend.future.fail(new ZigBeeException("Client has been shut down."));
+        }
+        return pendingSend.future;
+    }
+
     @Override
     public void addCommandListener(final CommandListener commandListener) {
         final List<CommandListener> modifiedCommandListeners = new ArrayList<CommandListener>(commandListeners);
@@ -144,23 +244,80 @@ public class ZigBeeRpcClient implements ZigBeeNetwork {
     @Override
     public void removeCommandListener(final CommandListener commandListener) {
         final List<CommandListener> modifiedCommandListeners = new ArrayList<CommandListener>(commandListeners);
-        modifiedCommandListeners.add(commandListener);
+        modifiedCommandListeners.remove(commandListener);
         commandListeners = modifiedCommandListeners;
     }
 
     /**
-     * The receive loop.
+     * Adds send to the send queue of the JSON RPC sender thread sending commands to the destination
+     * of the command. Sender threads are started if not started.
+     * @param pendingSend the pending send
+     * @return false if client has been shut down
+     */
+    private boolean addPendingSend(final PendingSend pendingSend) {
+        synchronized (sendThreads) {
+            if (shutdown) {
+                return false;
+            }
+            if (sendQueues.isEmpty()) {
+                startSendThreads();
+            }
+            sendQueues.get((ZigBeeRpcBinaryClient.getDestinationHash(pendingSend.command) & Integer.MAX_VALUE)
+                    % SEND_THREAD_COUNT).add(pendingSend);
+            return true;
+        }
+    }
+
+    /**
+     * Starts the JSON RPC sender threads. Called while holding the sender thread list lock.
+     */
+    private void startSendThreads() {
+        for (int i = 0; i < SEND_THREAD_COUNT; i++) {
+            final BlockingQueue<PendingSend> sendQueue = new LinkedBlockingQueue<PendingSend>();
+            sendQueues.add(sendQueue);
+            final Thread sendThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    sendLoop(sendQueue);
+                }
+            }, "ZigBee RPC client sender");
+            sendThread.setDaemon(true);
+            sendThread.start();
+            sendThreads.add(sendThread);
+        }
+    }
+
+    /**
+     * The send loop executing asynchronous JSON RPC sends of a sender thread until shutdown.
+     * @param sendQueue the sends of the sender thread
+     */
+    private void sendLoop(final BlockingQueue<PendingSend> sendQueue) {
+        while (!shutdown) {
+            try {
+                sendQueue.take().run();
+            } catch (final InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * The receive loop. Receive blocks on server until commands arrive or timeout expires
+     * so commands are delivered without polling delay.
      */
     private void receiveLoop() {
         while (!shutdown) {
             try {
-                final List<Command> receivedCommands = zigBeeRpcApi.receive(receiveQueueId);
+                final List<Command> receivedCommands = receiveRpcApi.receive(receiveQueueId, RECEIVE_TIMEOUT_MILLIS);
                 for (final Command receivedCommand : receivedCommands) {
                     for (final CommandListener commandListener : commandListeners) {
                         commandListener.commandReceived(receivedCommand);
                     }
                 }
             } catch (ZigBeeException e) {
+                if (shutdown) {
+                    break;
+                }
                 LOGGER.error("Error while receiving ZCL commands.", e);
                 try {
                     Thread.sleep(RECEIVE_ERROR_WAIT_MILLIS);
@@ -168,12 +325,37 @@ public class ZigBeeRpcClient implements ZigBeeNetwork {
                     break;
                 }
             }
+        }
+    }
+
+    /**
+     * Asynchronous JSON RPC send waiting in send queue.
+     */
+    private class PendingSend implements Runnable {
+        /**
+         * The command.
+         */
+        private final Command command;
+        /**
+         * The future completed with transaction ID.
+         */
+        private final CallbackFuture<Integer> future = new CallbackFuture<Integer>();
+
+        /**
+         * Constructor for setting the command.
+         * @param command the command
+         */
+        private PendingSend(final Command command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
             try {
-                Thread.sleep(MINIMUM_POLLING_PERIOD_MILLIS);
-            } catch (final InterruptedException e) {
-                break;
+                future.set(zigBeeRpcApi.send(command));
+            } catch (final Exception e) {
+                future.fail(e);
             }
         }
     }
-
 }
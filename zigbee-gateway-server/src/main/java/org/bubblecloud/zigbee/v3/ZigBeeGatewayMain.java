@@ -7,6 +7,8 @@ import org.bubblecloud.zigbee.network.port.SerialPortImpl;
 import org.bubblecloud.zigbee.util.ZigBeeConstants;
 import org.bubblecloud.zigbee.v3.rpc.AccessLevel;
 import org.bubblecloud.zigbee.v3.rpc.AuthorizationProvider;
+import org.bubblecloud.zigbee.v3.rpc.ZigBeeRpcApiImpl;
+import org.bubblecloud.zigbee.v3.rpc.ZigBeeRpcBinaryServer;
 import org.bubblecloud.zigbee.v3.rpc.ZigBeeRpcServer;
 import org.slf4j.LoggerFactory;
 
@@ -136,12 +138,30 @@ public class ZigBeeGatewayMain {
                 return;
             }
 
+            final ZigBeeRpcBinaryServer zigBeeRpcBinaryServer;
+            if (!StringUtils.isEmpty(System.getenv("ZIGBEE_BINARY_RPC_PORT"))) {
+                final int binaryPort = Integer.parseInt(System.getenv("ZIGBEE_BINARY_RPC_PORT"));
+                zigBeeRpcBinaryServer = new ZigBeeRpcBinaryServer(new ZigBeeRpcApiImpl(gateway), binaryPort,
+                        authorizationProvider);
+                try {
+                    zigBeeRpcBinaryServer.start();
+                } catch (final IOException e) {
+                    LOGGER.error("Error starting ZigBee binary RPC server in port: " + binaryPort, e);
+                    return;
+                }
+            } else {
+                zigBeeRpcBinaryServer = null;
+            }
+
             Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
                 @Override
                 public void run() {
                     if (zigBeeRpcServer != null) {
                         zigBeeRpcServer.stop();
                     }
+                    if (zigBeeRpcBinaryServer != null) {
+                        zigBeeRpcBinaryServer.stop();
+                    }
                 }
             }));
 
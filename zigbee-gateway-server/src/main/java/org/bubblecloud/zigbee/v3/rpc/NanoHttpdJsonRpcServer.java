@@ -46,24 +46,11 @@ public class NanoHttpdJsonRpcServer extends JsonRpcServer {
     public NanoHttpdJsonRpcServerResponse handle(final NanoHTTPD.IHTTPSession session) {
         final NanoHttpdJsonRpcServerResponse response = new NanoHttpdJsonRpcServerResponse();
 
-        final String authorizationHeader = session.getHeaders().get("authorization");
-        if (authorizationHeader == null) {
-            response.setStatus(NanoHTTPD.Response.Status.FORBIDDEN);
-            return response;
-        }
-
-        if (!authorizationHeader.toLowerCase().startsWith("bearer ")) {
+        if (!isAuthorized(session)) {
             response.setStatus(NanoHTTPD.Response.Status.FORBIDDEN);
             return response;
         }
 
-        final String authorizationToken = authorizationHeader.substring(7);
-        if (authorizationProvider.getAccessLevel(authorizationToken) != AccessLevel.ADMINISTRATION) {
-            response.setStatus(NanoHTTPD.Response.Status.FORBIDDEN);
-            return response;
-        }
-
-
         LOGGER.trace("Handing HttpServletRequest " + session.getMethod());
 
         try {
@@ -100,4 +87,23 @@ public class NanoHttpdJsonRpcServer extends JsonRpcServer {
 
         return response;
     }
+
+    /**
+     * Checks whether HTTP request has bearer token with administration access level.
+     * @param session the session
+     * @return TRUE if request is authorized
+     */
+    public boolean isAuthorized(final NanoHTTPD.IHTTPSession session) {
+        final String authorizationHeader = session.getHeaders().get("authorization");
+        if (authorizationHeader == null) {
+            return false;
+        }
+
+        if (!authorizationHeader.toLowerCase().startsWith("bearer ")) {
+            return false;
+        }
+
+        final String authorizationToken = authorizationHeader.substring(7);
+        return authorizationProvider.getAccessLevel(authorizationToken) == AccessLevel.ADMINISTRATION;
+    }
 }
@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ZigBeeConsole API implementation.
@@ -18,6 +19,19 @@ public class ZigBeeRpcApiImpl implements ZigBeeRpcApi, CommandListener {
      * The {@link org.slf4j.Logger}.
      */
     private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ZigBeeRpcApiImpl.class);
+    /**
+     * The maximum number of commands returned by one receive.
+     */
+    public static final int RECEIVE_MAXIMUM_COUNT = 200;
+    /**
+     * The maximum time receive waits for commands in milliseconds.
+     */
+    public static final long RECEIVE_MAXIMUM_TIMEOUT_MILLIS = 30000;
+    /**
+     * The time after which receive queue which has not been polled is removed in milliseconds.
+     * Clients which crash never remove their receive queues.
+     */
+    public static final long RECEIVE_QUEUE_IDLE_TIMEOUT_MILLIS = 4 * RECEIVE_MAXIMUM_TIMEOUT_MILLIS;
     /**
      * The ZigBee console.
      */
@@ -55,47 +69,72 @@ public class ZigBeeRpcApiImpl implements ZigBeeRpcApi, CommandListener {
         }
     }
 
-    private final Map<String, Queue<Command>> receiveQueues = new HashMap<String, Queue<Command>>();
+    /**
+     * The receive queues. Commands are added to the queues without locking the map.
+     */
+    private final Map<String, ZigBeeRpcReceiveQueue> receiveQueues =
+            new ConcurrentHashMap<String, ZigBeeRpcReceiveQueue>();
 
     @Override
     public String addReceiveQueue() {
+        return addReceiveQueue(null);
+    }
+
+    @Override
+    public String addReceiveQueue(final ZigBeeRpcReceiveFilter filter) {
         final String receiveQueueId = UUID.randomUUID().toString();
-        synchronized (receiveQueues) {
-            receiveQueues.put(receiveQueueId, new LinkedList<Command>());
-        }
+        receiveQueues.put(receiveQueueId, new ZigBeeRpcReceiveQueue(receiveQueueId, filter));
         LOGGER.debug("ZCL command receive queue added: " + receiveQueueId);
         return receiveQueueId;
     }
 
     @Override
     public void removeReceiveQueue(String receiveQueueId) {
-        synchronized (receiveQueues) {
-            receiveQueues.remove(receiveQueueId);
+        final ZigBeeRpcReceiveQueue receiveQueue = receiveQueues.remove(receiveQueueId);
+        if (receiveQueue != null) {
+            receiveQueue.close();
         }
         LOGGER.debug("ZCL command receive queue removed: " + receiveQueueId);
     }
 
     @Override
     public List<Command> receive(String receiveQueueId) throws ZigBeeException {
-        final Queue<Command> receiveQueue;
-        synchronized (receiveQueues) {
-            receiveQueue = receiveQueues.get(receiveQueueId);
-        }
+        return receive(receiveQueueId, 0);
+    }
+
+    @Override
+    public List<Command> receive(String receiveQueueId, long timeoutMillis) throws ZigBeeException {
+        final ZigBeeRpcReceiveQueue receiveQueue = getReceiveQueue(receiveQueueId);
         if (receiveQueue == null) {
             throw new ZigBeeException("No such queue: " + receiveQueueId);
         }
-        synchronized (receiveQueue) {
-            int i = 0;
-            final List<Command> receivedCommands = new ArrayList<Command>();
-            while (i < 200 && receiveQueue.size() > 0) {
-                receivedCommands.add(receiveQueue.poll());
-                LOGGER.debug("ZCL command popped from receive queue: " + receiveQueueId);
-                i++;
-            }
+        try {
+            final List<Command> receivedCommands = receiveQueue.poll(RECEIVE_MAXIMUM_COUNT,
+                    Math.max(0, Math.min(timeoutMillis, RECEIVE_MAXIMUM_TIMEOUT_MILLIS)));
+            LOGGER.trace("{} ZCL commands popped from receive queue: {}", receivedCommands.size(), receiveQueueId);
             return receivedCommands;
+        } catch (final InterruptedException e) {
+            throw new ZigBeeException("Interrupted while waiting for commands in queue: " + receiveQueueId, e);
         }
     }
 
+    /**
+     * Gets receive queue.
+     * @param receiveQueueId the receive queue ID
+     * @return the receive queue or null if no such queue exists
+     */
+    public ZigBeeRpcReceiveQueue getReceiveQueue(final String receiveQueueId) {
+        return receiveQueues.get(receiveQueueId);
+    }
+
+    /**
+     * Gets receive queues for monitoring queue sizes, high-water marks and dropped commands.
+     * @return the receive queues
+     */
+    public Collection<ZigBeeRpcReceiveQueue> getReceiveQueues() {
+        return Collections.unmodifiableCollection(receiveQueues.values());
+    }
+
     @Override
     public void setDeviceLabel(int networkAddress, int endPointId, String label) {
         zigBeeGateway.getZigBeeApi().setDeviceLabel(networkAddress, endPointId, label);
@@ -131,18 +170,38 @@ public class ZigBeeRpcApiImpl implements ZigBeeRpcApi, CommandListener {
         return zigBeeGateway.getZigBeeApi().getDevices();
     }
 
+    @Override
+    public ZigBeeNetworkStateChanges getChangesSince(long version) {
+        return zigBeeGateway.getZigBeeApi().getChangesSince(version);
+    }
+
+    /**
+     * Closes and removes receive queues which have not been polled within idle timeout.
+     * @param now the current time in milliseconds
+     */
+    void removeIdleReceiveQueues(final long now) {
+        for (final ZigBeeRpcReceiveQueue receiveQueue : receiveQueues.values()) {
+            if (now - receiveQueue.getLastPollTime() > RECEIVE_QUEUE_IDLE_TIMEOUT_MILLIS) {
+                removeReceiveQueue(receiveQueue.getReceiveQueueId());
+                LOGGER.warn("ZCL command receive queue removed as not polled: " + receiveQueue.getReceiveQueueId());
+            }
+        }
+    }
+
     @Override
     public void commandReceived(final Command command) {
-        synchronized (receiveQueues) {
-            for (final String receiveQueueId : receiveQueues.keySet()) {
-                final Queue<Command> receiveQueue = receiveQueues.get(receiveQueueId);
-                if (receiveQueue.size() < 1000) {
-                    receiveQueue.add(command);
-                    LOGGER.debug("ZCL command pushed to receive queue: " + receiveQueueId);
-                } else {
-                    receiveQueues.remove(receiveQueueId);
-                    LOGGER.debug("ZCL command receive queue removed due to overflow: " + receiveQueueId);
-                }
+        removeIdleReceiveQueues(System.currentTimeMillis());
+        for (final ZigBeeRpcReceiveQueue receiveQueue : receiveQueues.values()) {
+            final Command filteredCommand = receiveQueue.filter(command);
+            if (filteredCommand == null || receiveQueue.add(filteredCommand)) {
+                continue;
+            }
+            if (receiveQueue.isClosed()) {
+                receiveQueues.remove(receiveQueue.getReceiveQueueId());
+                LOGGER.debug("ZCL command receive queue removed as closed: " + receiveQueue.getReceiveQueueId());
+            } else if (receiveQueue.getDroppedCount() % ZigBeeRpcReceiveQueue.CAPACITY == 1) {
+                LOGGER.warn("ZCL command receive queue full, dropped {} commands in total: {}",
+                        receiveQueue.getDroppedCount(), receiveQueue.getReceiveQueueId());
             }
         }
     }
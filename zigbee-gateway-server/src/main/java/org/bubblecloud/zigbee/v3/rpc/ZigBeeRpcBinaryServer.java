@@ -0,0 +1,366 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * ZigBee RPC server using binary transport over persistent TCP connections. Provides the same
+ * {@link ZigBeeRpcApi} as the JSON RPC server with compact command encoding. Client has to
+ * authorize with access token before making requests. Requests of one connection are executed
+ * by worker threads of the connection so that waiting receive does not block other requests.
+ * Send requests of a connection are executed by one sender thread in the order they arrived,
+ * so that commands pipelined to the same destination reach the network in order.
+ */
+public class ZigBeeRpcBinaryServer {
+    /**
+     * The {@link org.slf4j.Logger}.
+     */
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ZigBeeRpcBinaryServer.class);
+    /**
+     * The number of worker threads per connection.
+     */
+    public static final int WORKER_THREAD_COUNT = 4;
+    /**
+     * The send method name.
+     */
+    private static final String SEND_METHOD_NAME = "send";
+    /**
+     * The maximum number of requests waiting for execution per connection. Reader blocks
+     * when the queue is full so that the client is throttled by TCP flow control.
+     */
+    public static final int REQUEST_QUEUE_CAPACITY = 64;
+
+    /**
+     * The ZigBee RPC API handler.
+     */
+    private final ZigBeeRpcApi zigBeeRpcApi;
+    /**
+     * The TCP port.
+     */
+    private final int port;
+    /**
+     * The authorization provider.
+     */
+    private final AuthorizationProvider authorizationProvider;
+    /**
+     * The codec.
+     */
+    private final ZigBeeRpcBinaryCodec codec = new ZigBeeRpcBinaryCodec();
+    /**
+     * The API methods by name and argument count.
+     */
+    private final Map<String, Method> methods = new HashMap<String, Method>();
+    /**
+     * The open connections.
+     */
+    private final List<Connection> connections = new ArrayList<Connection>();
+    /**
+     * The server socket.
+     */
+    private ServerSocket serverSocket;
+    /**
+     * The accept thread.
+     */
+    private Thread acceptThread;
+
+    /**
+     * Constructor for setting the API handler, TCP port and authorization provider.
+     * @param zigBeeRpcApi the ZigBee RPC API handler
+     * @param port the TCP port
+     * @param authorizationProvider the authorization provider
+     */
+    public ZigBeeRpcBinaryServer(final ZigBeeRpcApi zigBeeRpcApi, final int port,
+                                 final AuthorizationProvider authorizationProvider) {
+        this.zigBeeRpcApi = zigBeeRpcApi;
+        this.port = port;
+        this.authorizationProvider = authorizationProvider;
+        for (final Method method : ZigBeeRpcApi.class.getMethods()) {
+            methods.put(method.getName() + "/" + method.getParameterTypes().length, method);
+        }
+    }
+
+    /**
+     * Starts accepting connections.
+     * @throws IOException if server socket can not be opened
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop();
+            }
+        }, "ZigBee binary RPC server");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        LOGGER.info("ZigBee binary RPC server started in port: " + getPort());
+    }
+
+    /**
+     * Stops accepting connections and closes open connections.
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (final IOException e) {
+            LOGGER.debug("Error closing binary RPC server socket.", e);
+        }
+        final List<Connection> openConnections;
+        synchronized (connections) {
+            openConnections = new ArrayList<Connection>(connections);
+        }
+        for (final Connection connection : openConnections) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Gets the TCP port the server is listening.
+     * @return the TCP port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until server socket is closed.
+     */
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                final Connection connection = new Connection(socket);
+                synchronized (connections) {
+                    connections.add(connection);
+                }
+                connection.start();
+            } catch (final IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOGGER.error("Error accepting binary RPC connection.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Client connection with reader thread and worker threads executing requests.
+     */
+    private class Connection {
+        /**
+         * The socket.
+         */
+        private final Socket socket;
+        /**
+         * The output stream.
+         */
+        private final OutputStream outputStream;
+        /**
+         * The requests waiting for execution.
+         */
+        private final BlockingQueue<ZigBeeRpcBinaryCodec.Frame> requests =
+                new LinkedBlockingQueue<ZigBeeRpcBinaryCodec.Frame>(REQUEST_QUEUE_CAPACITY);
+        /**
+         * The send requests waiting for execution in arrival order.
+         */
+        private final BlockingQueue<ZigBeeRpcBinaryCodec.Frame> sendRequests =
+                new LinkedBlockingQueue<ZigBeeRpcBinaryCodec.Frame>(REQUEST_QUEUE_CAPACITY);
+        /**
+         * The reader, sender and worker threads.
+         */
+        private final List<Thread> threads = new ArrayList<Thread>();
+        /**
+         * True if connection has been closed.
+         */
+        private volatile boolean closed = false;
+
+        /**
+         * Constructor for setting the socket.
+         * @param socket the socket
+         * @throws IOException if IO exception occurs
+         */
+        private Connection(final Socket socket) throws IOException {
+            this.socket = socket;
+            this.outputStream = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        /**
+         * Starts reader, sender and worker threads.
+         */
+        private void start() {
+            final Thread readerThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    readLoop();
+                }
+            }, "ZigBee binary RPC reader " + socket.getRemoteSocketAddress());
+            threads.add(readerThread);
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    workLoop(sendRequests);
+                }
+            }, "ZigBee binary RPC sender " + socket.getRemoteSocketAddress()));
+            for (int i = 0; i < WORKER_THREAD_COUNT; i++) {
+                threads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        workLoop(requests);
+                    }
+                }, "ZigBee binary RPC worker " + socket.getRemoteSocketAddress()));
+            }
+            for (final Thread thread : threads) {
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        /**
+         * Closes connection and stops threads.
+         */
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                LOGGER.debug("Error closing binary RPC connection.", e);
+            }
+            for (final Thread thread : threads) {
+                thread.interrupt();
+            }
+            synchronized (connections) {
+                connections.remove(this);
+            }
+        }
+
+        /**
+         * Reads authorization and request frames until connection is closed.
+         */
+        private void readLoop() {
+            try {
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                final ZigBeeRpcBinaryCodec.Frame authorization = codec.readFrame(in,
+                        ZigBeeRpcBinaryCodec.MAXIMUM_AUTHORIZE_FRAME_LENGTH);
+                if (authorization.getType() != ZigBeeRpcBinaryCodec.AUTHORIZE || authorizationProvider
+                        .getAccessLevel(authorization.getBody().readUTF()) != AccessLevel.ADMINISTRATION) {
+                    write(codec.encodeError(authorization.getRequestId(), "Forbidden"));
+                    close();
+                    return;
+                }
+                write(codec.encodeResponse(authorization.getRequestId(), null));
+                while (!closed) {
+                    final ZigBeeRpcBinaryCodec.Frame request = codec.readFrame(in);
+                    if (isSend(request)) {
+                        sendRequests.put(request);
+                    } else {
+                        requests.put(request);
+                    }
+                }
+            } catch (final SocketException e) {
+                LOGGER.debug("Binary RPC connection closed: " + socket.getRemoteSocketAddress());
+            } catch (final IOException e) {
+                if (!closed) {
+                    LOGGER.debug("Binary RPC connection ended: " + socket.getRemoteSocketAddress(), e);
+                }
+            } catch (final InterruptedException e) {
+                LOGGER.trace("Binary RPC reader interrupted.");
+            }
+            close();
+        }
+
+        /**
+         * Executes requests from queue until connection is closed.
+         * @param queue the request queue
+         */
+        private void workLoop(final BlockingQueue<ZigBeeRpcBinaryCodec.Frame> queue) {
+            while (!closed) {
+                final ZigBeeRpcBinaryCodec.Frame request;
+                try {
+                    request = queue.take();
+                } catch (final InterruptedException e) {
+                    continue;
+                }
+                try {
+                    write(execute(request));
+                } catch (final IOException e) {
+                    LOGGER.debug("Error writing binary RPC response.", e);
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Checks whether frame is a send request.
+         * @param frame the frame
+         * @return TRUE if frame is a send request
+         * @throws IOException if IO exception occurs in decoding
+         */
+        private boolean isSend(final ZigBeeRpcBinaryCodec.Frame frame) throws IOException {
+            return frame.getType() == ZigBeeRpcBinaryCodec.REQUEST
+                    && SEND_METHOD_NAME.equals(frame.getBody().readUTF());
+        }
+
+        /**
+         * Executes request.
+         * @param request the request
+         * @return the response or error frame
+         * @throws IOException if IO exception occurs in encoding
+         */
+        private byte[] execute(final ZigBeeRpcBinaryCodec.Frame request) throws IOException {
+            if (request.getType() != ZigBeeRpcBinaryCodec.REQUEST) {
+                return codec.encodeError(request.getRequestId(), "Unexpected frame type: " + request.getType());
+            }
+            final DataInputStream body = request.getBody();
+            final String methodName = body.readUTF();
+            final int argumentCount = body.readUnsignedByte();
+            final Method method = methods.get(methodName + "/" + argumentCount);
+            if (method == null) {
+                return codec.encodeError(request.getRequestId(), "No such method: " + methodName);
+            }
+            final Object[] arguments = new Object[argumentCount];
+            try {
+                for (int i = 0; i < argumentCount; i++) {
+                    arguments[i] = codec.readValue(body, method.getGenericParameterTypes()[i]);
+                }
+                return codec.encodeResponse(request.getRequestId(), method.invoke(zigBeeRpcApi, arguments));
+            } catch (final InvocationTargetException e) {
+                LOGGER.debug("Error in binary RPC method: " + methodName, e.getCause());
+                return codec.encodeError(request.getRequestId(), String.valueOf(e.getCause().getMessage()));
+            } catch (final Exception e) {
+                LOGGER.error("Error invoking binary RPC method: " + methodName, e);
+                return codec.encodeError(request.getRequestId(), "Error invoking method: " + methodName);
+            }
+        }
+
+        /**
+         * Writes frame to connection.
+         * @param frame the frame
+         * @throws IOException if IO exception occurs
+         */
+        private void write(final byte[] frame) throws IOException {
+            synchronized (outputStream) {
+                outputStream.write(frame);
+                outputStream.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import org.bubblecloud.zigbee.v3.Command;
+import org.bubblecloud.zigbee.v3.ZdoResponse;
+import org.bubblecloud.zigbee.v3.ZigBeeAddress;
+import org.bubblecloud.zigbee.v3.ZigBeeDeviceAddress;
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.field.AttributeReport;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReportAttributesCommand;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Receive filter compiled for evaluation on every received command. Network addresses and
+ * cluster IDs are looked up from bit sets and command type matches are cached by command
+ * class, so evaluation does not depend on the number of filtered values.
+ */
+public class ZigBeeRpcCompiledFilter {
+    /**
+     * The number of 16 bit network addresses and cluster IDs.
+     */
+    private static final int ID_COUNT = 0x10000;
+
+    /**
+     * The source network addresses or null if not filtered.
+     */
+    private final BitSet sourceAddresses;
+    /**
+     * The cluster IDs or null if not filtered.
+     */
+    private final BitSet clusterIds;
+    /**
+     * The command type simple class names or null if not filtered.
+     */
+    private final Set<String> commandTypes;
+    /**
+     * The command type matches by command class.
+     */
+    private final Map<Class<?>, Boolean> commandTypeMatches = new ConcurrentHashMap<Class<?>, Boolean>();
+    /**
+     * The minimum interval between reports of an attribute in milliseconds or 0 for no limit.
+     */
+    private final long minimumReportIntervalMillis;
+    /**
+     * The report states by attribute key.
+     */
+    private final Map<Long, ReportState> reportStates = new HashMap<Long, ReportState>();
+    /**
+     * The time when report states of attributes without recent reports are next removed.
+     */
+    private long nextPruneTime = 0;
+
+    /**
+     * Constructor which compiles the filter.
+     * @param filter the receive filter
+     */
+    public ZigBeeRpcCompiledFilter(final ZigBeeRpcReceiveFilter filter) {
+        sourceAddresses = toBitSet(filter.getSourceAddresses());
+        clusterIds = toBitSet(filter.getClusterIds());
+        if (filter.getCommandTypes() == null || filter.getCommandTypes().isEmpty()) {
+            commandTypes = null;
+        } else {
+            commandTypes = new HashSet<String>(filter.getCommandTypes());
+        }
+        minimumReportIntervalMillis = filter.getMinimumReportIntervalMillis();
+    }
+
+    /**
+     * Checks whether command matches the filter.
+     * @param command the command
+     * @return TRUE if command passes the address, cluster and type filters
+     */
+    public boolean matches(final Command command) {
+        if (sourceAddresses != null && !contains(sourceAddresses, getSourceAddress(command))) {
+            return false;
+        }
+        if (clusterIds != null) {
+            final Integer clusterId = command instanceof ZclCommand ? ((ZclCommand) command).getClusterId() : null;
+            if (clusterId == null || !contains(clusterIds, clusterId)) {
+                return false;
+            }
+        }
+        if (commandTypes != null) {
+            Boolean commandTypeMatch = commandTypeMatches.get(command.getClass());
+            if (commandTypeMatch == null) {
+                commandTypeMatch = commandTypes.contains(command.getClass().getSimpleName());
+                commandTypeMatches.put(command.getClass(), commandTypeMatch);
+            }
+            if (!commandTypeMatch) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Filters command for delivery. Attribute reports are limited to the minimum report interval
+     * per attribute: attributes delivered within the interval are removed from the report and
+     * their latest values are held until the interval has passed.
+     * @param command the command
+     * @return the command to deliver or null if nothing should be delivered
+     * @see #removeDueReports(long)
+     */
+    public Command filter(final Command command) {
+        if (!matches(command)) {
+            return null;
+        }
+        if (minimumReportIntervalMillis > 0 && command instanceof ReportAttributesCommand) {
+            return filterReport((ReportAttributesCommand) command);
+        }
+        return command;
+    }
+
+    /**
+     * Removes held attribute reports whose minimum interval has passed.
+     * @param now the current time in milliseconds
+     * @return the reports to deliver
+     */
+    public List<Command> removeDueReports(final long now) {
+        synchronized (reportStates) {
+            if (reportStates.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final Map<Long, ReportAttributesCommand> dueReports = new LinkedHashMap<Long, ReportAttributesCommand>();
+            for (final Map.Entry<Long, ReportState> entry : reportStates.entrySet()) {
+                final ReportState state = entry.getValue();
+                if (state.heldReport == null || now - state.deliveryTime < minimumReportIntervalMillis) {
+                    continue;
+                }
+                final long clusterKey = entry.getKey() & ~0xffffL;
+                ReportAttributesCommand dueReport = dueReports.get(clusterKey);
+                if (dueReport == null) {
+                    dueReport = createReport(state.heldCommand);
+                    dueReports.put(clusterKey, dueReport);
+                }
+                dueReport.getReports().add(state.heldReport);
+                state.deliveryTime = now;
+                state.heldReport = null;
+                state.heldCommand = null;
+            }
+            prune(now);
+            return new ArrayList<Command>(dueReports.values());
+        }
+    }
+
+    /**
+     * Gets the time when the next held attribute report is due.
+     * @return the time in milliseconds or Long.MAX_VALUE if no reports are held
+     */
+    public long getNextDueTime() {
+        synchronized (reportStates) {
+            long nextDueTime = Long.MAX_VALUE;
+            for (final ReportState state : reportStates.values()) {
+                if (state.heldReport != null) {
+                    nextDueTime = Math.min(nextDueTime, state.deliveryTime + minimumReportIntervalMillis);
+                }
+            }
+            return nextDueTime;
+        }
+    }
+
+    /**
+     * Gets the number of attributes which have report state.
+     * @return the number of attributes
+     */
+    int getReportStateCount() {
+        synchronized (reportStates) {
+            return reportStates.size();
+        }
+    }
+
+    /**
+     * Removes attributes delivered within minimum interval from report and holds their values.
+     * @param report the attribute report command
+     * @return the report with the due attributes or null if no attribute is due
+     */
+    private Command filterReport(final ReportAttributesCommand report) {
+        if (!(report.getSourceAddress() instanceof ZigBeeDeviceAddress) || report.getClusterId() == null
+                || report.getReports() == null) {
+            return report;
+        }
+        final ZigBeeDeviceAddress source = (ZigBeeDeviceAddress) report.getSourceAddress();
+        final long clusterKey = ((long) source.getAddress() << 40) | ((long) (source.getEndpoint() & 0xff) << 32)
+                | ((long) report.getClusterId() << 16);
+        final long now = System.currentTimeMillis();
+        synchronized (reportStates) {
+            prune(now);
+            final List<AttributeReport> dueAttributeReports = new ArrayList<AttributeReport>();
+            for (final AttributeReport attributeReport : report.getReports()) {
+                final long attributeKey = clusterKey | (attributeReport.getAttributeIdentifier() & 0xffff);
+                ReportState state = reportStates.get(attributeKey);
+                if (state == null) {
+                    state = new ReportState();
+                    reportStates.put(attributeKey, state);
+                } else if (now - state.deliveryTime < minimumReportIntervalMillis) {
+                    state.heldReport = attributeReport;
+                    state.heldCommand = report;
+                    continue;
+                }
+                state.deliveryTime = now;
+                state.heldReport = null;
+                state.heldCommand = null;
+                dueAttributeReports.add(attributeReport);
+            }
+            if (dueAttributeReports.size() == report.getReports().size()) {
+                return report;
+            }
+            if (dueAttributeReports.isEmpty()) {
+                return null;
+            }
+            final ReportAttributesCommand dueReport = createReport(report);
+            dueReport.getReports().addAll(dueAttributeReports);
+            return dueReport;
+        }
+    }
+
+    /**
+     * Removes states of attributes which have no held report and have not been delivered
+     * within minimum interval. Such attributes are due anyway, so removing their states keeps
+     * the map from growing with devices which have left the network. Run at most once per
+     * minimum interval.
+     * @param now the current time in milliseconds
+     */
+    private void prune(final long now) {
+        if (now < nextPruneTime) {
+            return;
+        }
+        nextPruneTime = now + minimumReportIntervalMillis;
+        final Iterator<ReportState> iterator = reportStates.values().iterator();
+        while (iterator.hasNext()) {
+            final ReportState state = iterator.next();
+            if (state.heldReport == null && now - state.deliveryTime >= minimumReportIntervalMillis) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Creates report without attribute reports with the addresses and cluster of given report.
+     * @param report the report
+     * @return the new report
+     */
+    private static ReportAttributesCommand createReport(final ReportAttributesCommand report) {
+        final ReportAttributesCommand newReport = new ReportAttributesCommand();
+        newReport.setSourceAddress(report.getSourceAddress());
+        newReport.setDestinationAddress(report.getDestinationAddress());
+        newReport.setClusterId(report.getClusterId());
+        newReport.setTransactionId(report.getTransactionId());
+        newReport.setReports(new ArrayList<AttributeReport>());
+        return newReport;
+    }
+
+    /**
+     * Gets source network address of command.
+     * @param command the command
+     * @return the source network address or null if not known
+     */
+    private static Integer getSourceAddress(final Command command) {
+        if (command instanceof ZclCommand) {
+            final ZigBeeAddress sourceAddress = ((ZclCommand) command).getSourceAddress();
+            return sourceAddress instanceof ZigBeeDeviceAddress
+                    ? ((ZigBeeDeviceAddress) sourceAddress).getAddress() : null;
+        }
+        if (command instanceof ZdoResponse) {
+            return ((ZdoResponse) command).getSourceAddress();
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether bit set contains ID.
+     * @param bitSet the bit set
+     * @param id the ID or null
+     * @return TRUE if ID is not null and is contained in bit set
+     */
+    private static boolean contains(final BitSet bitSet, final Integer id) {
+        return id != null && id >= 0 && id < ID_COUNT && bitSet.get(id);
+    }
+
+    /**
+     * Converts IDs to bit set.
+     * @param ids the IDs
+     * @return the bit set or null if IDs are not filtered
+     */
+    private static BitSet toBitSet(final Set<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+        final BitSet bitSet = new BitSet(ID_COUNT);
+        for (final Integer id : ids) {
+            if (id != null && id >= 0 && id < ID_COUNT) {
+                bitSet.set(id);
+            }
+        }
+        return bitSet;
+    }
+
+    /**
+     * Delivery state of an attribute.
+     */
+    private static class ReportState {
+        /**
+         * The last delivery time.
+         */
+        private long deliveryTime;
+        /**
+         * The latest attribute report held back or null.
+         */
+        private AttributeReport heldReport;
+        /**
+         * The command of the held attribute report or null.
+         */
+        private ReportAttributesCommand heldCommand;
+    }
+}
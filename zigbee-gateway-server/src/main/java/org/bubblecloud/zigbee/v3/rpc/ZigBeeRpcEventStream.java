@@ -0,0 +1,118 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bubblecloud.zigbee.v3.Command;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Server-sent events stream of commands arriving to receive queue. Each command is sent
+ * as one event containing the command as JSON. Comment line is sent when no commands arrive
+ * during keep alive period so that closed connections are detected. The stream ends when
+ * the receive queue is closed.
+ */
+public class ZigBeeRpcEventStream extends InputStream {
+    /**
+     * The keep alive period in milliseconds.
+     */
+    public static final long KEEP_ALIVE_PERIOD_MILLIS = 15000;
+    /**
+     * The UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    /**
+     * The receive queue.
+     */
+    private final ZigBeeRpcReceiveQueue receiveQueue;
+    /**
+     * The object mapper.
+     */
+    private final ObjectMapper objectMapper;
+    /**
+     * The bytes of current events.
+     */
+    private byte[] buffer = new byte[0];
+    /**
+     * The read position in buffer.
+     */
+    private int position = 0;
+
+    /**
+     * Constructor for setting the receive queue and object mapper.
+     * @param receiveQueue the receive queue
+     * @param objectMapper the object mapper
+     */
+    public ZigBeeRpcEventStream(final ZigBeeRpcReceiveQueue receiveQueue, final ObjectMapper objectMapper) {
+        this.receiveQueue = receiveQueue;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        final int count = Math.min(length, buffer.length - position);
+        System.arraycopy(buffer, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.length - position;
+    }
+
+    @Override
+    public void close() {
+        receiveQueue.close();
+    }
+
+    /**
+     * Fills buffer with next events waiting for commands if needed.
+     * @return false if stream has ended
+     * @throws IOException if IO exception occurs
+     */
+    private boolean fill() throws IOException {
+        if (position < buffer.length) {
+            return true;
+        }
+        if (receiveQueue.isClosed()) {
+            return false;
+        }
+        final List<Command> commands;
+        try {
+            commands = receiveQueue.poll(ZigBeeRpcApiImpl.RECEIVE_MAXIMUM_COUNT, KEEP_ALIVE_PERIOD_MILLIS);
+        } catch (final InterruptedException e) {
+            throw new InterruptedIOException("Interrupted while waiting for commands.");
+        }
+        final StringBuilder builder = new StringBuilder();
+        if (commands.isEmpty()) {
+            if (receiveQueue.isClosed()) {
+                return false;
+            }
+            builder.append(":\n\n");
+        }
+        for (final Command command : commands) {
+            builder.append("data: ").append(objectMapper.writeValueAsString(command)).append("\n\n");
+        }
+        buffer = builder.toString().getBytes(UTF8);
+        position = 0;
+        return true;
+    }
+}
@@ -0,0 +1,281 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import org.bubblecloud.zigbee.v3.Command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded queue of received commands waiting to be delivered to RPC client. Receivers can
+ * wait for commands to arrive instead of polling.
+ * <p>
+ * The queue is a ring buffer where each slot has a sequence number telling whether it is free
+ * for the producer or filled for the consumer. Adding commands does not lock; the monitor is
+ * only taken to wake up a waiting receiver. When the queue is full new commands are dropped
+ * and counted. Receivers drain commands in batches while holding the queue monitor.
+ */
+public class ZigBeeRpcReceiveQueue {
+    /**
+     * The maximum number of commands waiting for delivery.
+     */
+    public static final int CAPACITY = 1024;
+
+    /**
+     * The receive queue ID.
+     */
+    private final String receiveQueueId;
+    /**
+     * The compiled receive filter or null if all commands are accepted.
+     */
+    private final ZigBeeRpcCompiledFilter filter;
+    /**
+     * The command slots.
+     */
+    private final AtomicReferenceArray<Command> slots = new AtomicReferenceArray<Command>(CAPACITY);
+    /**
+     * The slot sequence numbers. Slot is free for position p when its sequence is p and
+     * filled for position p when its sequence is p + 1.
+     */
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    /**
+     * The next position to add command to.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * The next position to remove command from. Changed while holding queue monitor.
+     */
+    private volatile long head = 0;
+    /**
+     * The maximum number of commands which have been waiting for delivery.
+     */
+    private final AtomicLong highWaterMark = new AtomicLong();
+    /**
+     * The number of commands dropped because queue was full.
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+    /**
+     * True if a receiver is waiting for commands.
+     */
+    private final AtomicBoolean waiting = new AtomicBoolean(false);
+    /**
+     * True if queue has been closed.
+     */
+    private volatile boolean closed = false;
+    /**
+     * The time of last poll in milliseconds. Queue creation time if queue has not been polled.
+     */
+    private volatile long lastPollTime = System.currentTimeMillis();
+
+    /**
+     * Constructor for setting the receive queue ID.
+     * @param receiveQueueId the receive queue ID
+     */
+    public ZigBeeRpcReceiveQueue(final String receiveQueueId) {
+        this(receiveQueueId, null);
+    }
+
+    /**
+     * Constructor for setting the receive queue ID and receive filter.
+     * @param receiveQueueId the receive queue ID
+     * @param filter the receive filter or null to accept all commands
+     */
+    public ZigBeeRpcReceiveQueue(final String receiveQueueId, final ZigBeeRpcReceiveFilter filter) {
+        this.receiveQueueId = receiveQueueId;
+        this.filter = filter == null ? null : new ZigBeeRpcCompiledFilter(filter);
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Gets the receive queue ID.
+     * @return the receive queue ID
+     */
+    public String getReceiveQueueId() {
+        return receiveQueueId;
+    }
+
+    /**
+     * Filters command with the receive filter of the queue. Waiting receiver is woken up
+     * if a held back report becomes due before the time it is waiting for.
+     * @param command the command
+     * @return the command to add to queue or null if command is not accepted
+     */
+    public Command filter(final Command command) {
+        if (filter == null) {
+            return command;
+        }
+        final long nextDueTime = filter.getNextDueTime();
+        final Command filteredCommand = filter.filter(command);
+        if (filter.getNextDueTime() < nextDueTime) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+        return filteredCommand;
+    }
+
+    /**
+     * Adds command to queue and wakes up waiting receiver. Command is dropped and counted
+     * if queue is full.
+     * @param command the command
+     * @return false if queue is full or closed
+     */
+    public boolean add(final Command command) {
+        if (closed) {
+            return false;
+        }
+        long position;
+        while (true) {
+            position = tail.get();
+            final long difference = sequences.get(index(position)) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+        }
+        slots.set(index(position), command);
+        sequences.set(index(position), position + 1);
+
+        final long size = position + 1 - head;
+        long mark = highWaterMark.get();
+        while (size > mark && !highWaterMark.compareAndSet(mark, size)) {
+            mark = highWaterMark.get();
+        }
+
+        if (waiting.get() && waiting.compareAndSet(true, false)) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes queue and wakes up waiting receivers.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Checks whether queue has been closed.
+     * @return TRUE if queue is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets the number of commands waiting for delivery.
+     * @return the number of commands
+     */
+    public int getSize() {
+        return (int) Math.max(0, Math.min(CAPACITY, tail.get() - head));
+    }
+
+    /**
+     * Gets the maximum number of commands which have been waiting for delivery.
+     * @return the number of commands
+     */
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * Gets the number of commands dropped because queue was full.
+     * @return the number of commands
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Gets the time when queue was last polled. Receiver waiting in poll counts as polling.
+     * @return the time in milliseconds
+     */
+    public long getLastPollTime() {
+        return lastPollTime;
+    }
+
+    /**
+     * Removes commands from queue waiting for first command to arrive if queue is empty.
+     * Attribute reports held back by the receive filter are added to queue when due.
+     * @param maximumCount the maximum number of commands to remove
+     * @param timeoutMillis the maximum time to wait in milliseconds or 0 to return immediately
+     * @return list of commands which is empty if timeout expired or queue was closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized List<Command> poll(final int maximumCount, final long timeoutMillis)
+            throws InterruptedException {
+        lastPollTime = System.currentTimeMillis();
+        final long deadline = lastPollTime + timeoutMillis;
+        while (true) {
+            addDueReports();
+            if (isFilled(head) || closed) {
+                break;
+            }
+            final long now = System.currentTimeMillis();
+            final long remaining = deadline - now;
+            if (remaining <= 0) {
+                break;
+            }
+            waiting.set(true);
+            if (isFilled(head)) {
+                break;
+            }
+            wait(filter == null ? remaining : Math.max(1, Math.min(remaining, filter.getNextDueTime() - now)));
+        }
+        final List<Command> polledCommands = new ArrayList<Command>(Math.min(maximumCount, getSize()));
+        long position = head;
+        while (polledCommands.size() < maximumCount && isFilled(position)) {
+            final int index = index(position);
+            polledCommands.add(slots.get(index));
+            slots.set(index, null);
+            sequences.set(index, position + CAPACITY);
+            position++;
+            head = position;
+        }
+        lastPollTime = System.currentTimeMillis();
+        return polledCommands;
+    }
+
+    /**
+     * Adds attribute reports held back by the receive filter to queue if their interval has passed.
+     */
+    private void addDueReports() {
+        if (filter == null) {
+            return;
+        }
+        for (final Command command : filter.removeDueReports(System.currentTimeMillis())) {
+            add(command);
+        }
+    }
+
+    /**
+     * Checks whether slot at position has been filled.
+     * @param position the position
+     * @return TRUE if slot is filled
+     */
+    private boolean isFilled(final long position) {
+        return sequences.get(index(position)) == position + 1;
+    }
+
+    /**
+     * Gets slot index of position.
+     * @param position the position
+     * @return the slot index
+     */
+    private static int index(final long position) {
+        return (int) (position & (CAPACITY - 1));
+    }
+}
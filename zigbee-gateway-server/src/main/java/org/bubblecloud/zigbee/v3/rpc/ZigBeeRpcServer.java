@@ -17,10 +17,26 @@ public class ZigBeeRpcServer extends NanoHTTPD {
      * The {@link org.slf4j.Logger}.
      */
     private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ZigBeeRpcServer.class);
+    /**
+     * The URI of server-sent events stream of received commands.
+     */
+    public static final String EVENTS_URI = "/events";
+    /**
+     * The MIME type of server-sent events stream.
+     */
+    private static final String EVENT_STREAM_MIME_TYPE = "text/event-stream";
     /**
      * The JSON ROC server.
      */
     private final NanoHttpdJsonRpcServer jsonRpcServer;
+    /**
+     * The ZigBee RPC API.
+     */
+    private final ZigBeeRpcApiImpl zigBeeRpcApi;
+    /**
+     * The object mapper.
+     */
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructor which allows setting the ZigBeeConsole instance and HTTPD port.
@@ -37,8 +53,8 @@ public class ZigBeeRpcServer extends NanoHTTPD {
                            final String[] sslProtocols,
                            final AuthorizationProvider authorizationProvider) throws IOException {
         super(port);
-        final ZigBeeRpcApiImpl zigBeeRpcApi = new ZigBeeRpcApiImpl(zigBeeGateway);
-        final ObjectMapper objectMapper = new ObjectMapper();
+        zigBeeRpcApi = new ZigBeeRpcApiImpl(zigBeeGateway);
+        objectMapper = new ObjectMapper();
         objectMapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
         jsonRpcServer = new NanoHttpdJsonRpcServer(objectMapper, zigBeeRpcApi, ZigBeeRpcApi.class, authorizationProvider);
         if (keystorePath != null) {
@@ -54,8 +70,43 @@ public class ZigBeeRpcServer extends NanoHTTPD {
 
     @Override
     public Response serve(IHTTPSession session) {
+        if (EVENTS_URI.equals(session.getUri())) {
+            return serveEvents(session);
+        }
         final NanoHttpdJsonRpcServerResponse response = jsonRpcServer.handle(session);
         return NanoHTTPD.newFixedLengthResponse(response.getStatus(), "application/json-rpc", response.getMessage());
     }
 
+    /**
+     * Disables gzip encoding of server-sent events stream as the compressor would hold
+     * events until the stream is closed.
+     * @param response the response
+     * @return TRUE if response is to be gzip encoded when client accepts it
+     */
+    @Override
+    protected boolean useGzipWhenAccepted(final Response response) {
+        return !EVENT_STREAM_MIME_TYPE.equals(response.getMimeType()) && super.useGzipWhenAccepted(response);
+    }
+
+    /**
+     * Serves commands arriving to receive queue as server-sent events stream. The receive
+     * queue ID is given in queue parameter.
+     * @param session the session
+     * @return the response
+     */
+    private Response serveEvents(final IHTTPSession session) {
+        if (!jsonRpcServer.isAuthorized(session)) {
+            return NanoHTTPD.newFixedLengthResponse(Response.Status.FORBIDDEN, NanoHTTPD.MIME_PLAINTEXT, "");
+        }
+        final ZigBeeRpcReceiveQueue receiveQueue = zigBeeRpcApi.getReceiveQueue(session.getParms().get("queue"));
+        if (receiveQueue == null) {
+            return NanoHTTPD.newFixedLengthResponse(Response.Status.NOT_FOUND, NanoHTTPD.MIME_PLAINTEXT,
+                    "No such queue.");
+        }
+        final Response response = NanoHTTPD.newChunkedResponse(Response.Status.OK, EVENT_STREAM_MIME_TYPE,
+                new ZigBeeRpcEventStream(receiveQueue, objectMapper));
+        response.addHeader("Cache-Control", "no-cache");
+        return response;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import org.bubblecloud.zigbee.v3.Command;
+import org.bubblecloud.zigbee.v3.CommandListener;
+import org.bubblecloud.zigbee.v3.ZigBeeDongle;
+import org.bubblecloud.zigbee.v3.ZigBeeException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test dongle which ignores sent commands and delivers received commands to listeners.
+ */
+public class TestDongle implements ZigBeeDongle {
+    private final List<CommandListener> commandListeners = new CopyOnWriteArrayList<CommandListener>();
+
+    @Override
+    public boolean startup() {
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public int sendCommand(final Command command) throws ZigBeeException {
+        return 0;
+    }
+
+    @Override
+    public void addCommandListener(final CommandListener commandListener) {
+        commandListeners.add(commandListener);
+    }
+
+    @Override
+    public void removeCommandListener(final CommandListener commandListener) {
+        commandListeners.remove(commandListener);
+    }
+
+    /**
+     * Delivers received command to listeners.
+     * @param command the command
+     */
+    public void receive(final Command command) {
+        for (final CommandListener commandListener : commandListeners) {
+            commandListener.commandReceived(command);
+        }
+    }
+}
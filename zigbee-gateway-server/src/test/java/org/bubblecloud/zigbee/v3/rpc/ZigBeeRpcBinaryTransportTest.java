@@ -0,0 +1,429 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bubblecloud.zigbee.v3.CallbackFuture;
+import org.bubblecloud.zigbee.v3.Command;
+import org.bubblecloud.zigbee.v3.ZigBeeDevice;
+import org.bubblecloud.zigbee.v3.ZigBeeDeviceAddress;
+import org.bubblecloud.zigbee.v3.ZigBeeException;
+import org.bubblecloud.zigbee.v3.ZigBeeGroupAddress;
+import org.bubblecloud.zigbee.v3.ZigBeeNetworkStateChanges;
+import org.bubblecloud.zigbee.v3.zcl.field.AttributeReport;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReportAttributesCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OnCommand;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests binary RPC transport and compares its throughput to JSON encoding.
+ */
+public class ZigBeeRpcBinaryTransportTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZigBeeRpcBinaryTransportTest.class);
+
+    @Test
+    public void testTransport() throws Exception {
+        final TestRpcApi api = new TestRpcApi();
+        final ZigBeeRpcBinaryServer server = new ZigBeeRpcBinaryServer(api, 0, new TestAuthorizationProvider());
+        server.start();
+        final ZigBeeRpcBinaryClient client = new ZigBeeRpcBinaryClient("127.0.0.1", server.getPort(),
+                "secret", 5000);
+        try {
+            final ZigBeeRpcApi proxy = client.getZigBeeRpcApi();
+            final ReportAttributesCommand report = createReport();
+            Assert.assertEquals(1, proxy.send(report));
+            Assert.assertEquals(report.toString(), api.sentCommands.get(0).toString());
+
+            final List<Command> received = proxy.receive("queue", 1000);
+            Assert.assertEquals(2, received.size());
+            Assert.assertEquals(report.toString(), received.get(0).toString());
+            Assert.assertTrue(received.get(1) instanceof OnCommand);
+
+            Assert.assertEquals("queue", proxy.addReceiveQueue());
+            final ZigBeeRpcReceiveFilter filter = new ZigBeeRpcReceiveFilter();
+            filter.getClusterIds().add(6);
+            Assert.assertEquals("queue:[6]", proxy.addReceiveQueue(filter));
+            Assert.assertEquals(1, proxy.getDevices().size());
+            Assert.assertEquals(7, proxy.getDevices().get(0).getNetworkAddress());
+            Assert.assertEquals(9L, proxy.getChangesSince(3).getVersion());
+
+            try {
+                proxy.receive("missing");
+                Assert.fail("Expected exception.");
+            } catch (final ZigBeeException e) {
+                Assert.assertEquals("No such queue: missing", e.getMessage());
+            }
+        } finally {
+            client.close();
+        }
+
+        final ZigBeeRpcBinaryClient unauthorizedClient = new ZigBeeRpcBinaryClient("127.0.0.1", server.getPort(),
+                "wrong", 5000);
+        try {
+            unauthorizedClient.getZigBeeRpcApi().addReceiveQueue();
+            Assert.fail("Expected exception.");
+        } catch (final RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("authorization failed"));
+        }
+
+        // Oversized authorize frame is rejected before its body is allocated.
+        final Socket socket = new Socket("127.0.0.1", server.getPort());
+        try {
+            final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(ZigBeeRpcBinaryCodec.MAXIMUM_FRAME_LENGTH);
+            out.writeInt(1);
+            out.writeByte(ZigBeeRpcBinaryCodec.AUTHORIZE);
+            out.flush();
+            socket.setSoTimeout(5000);
+            Assert.assertEquals(-1, socket.getInputStream().read());
+        } catch (final IOException e) {
+            // Connection reset by server.
+        } finally {
+            socket.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void testMalformedArgument() throws Exception {
+        final ZigBeeRpcBinaryServer server = new ZigBeeRpcBinaryServer(new TestRpcApi(), 0,
+                new TestAuthorizationProvider());
+        server.start();
+        final ZigBeeRpcBinaryCodec codec = new ZigBeeRpcBinaryCodec();
+        final Socket socket = new Socket("127.0.0.1", server.getPort());
+        try {
+            socket.setSoTimeout(5000);
+            final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            final DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.write(codec.encodeAuthorize(1, "secret"));
+            out.flush();
+            Assert.assertEquals(ZigBeeRpcBinaryCodec.RESPONSE, codec.readFrame(in).getType());
+
+            // JSON value tag followed by JSON of unknown type.
+            final byte[] json = "[\"no.such.Filter\",{}]".getBytes("UTF-8");
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            final DataOutputStream bodyOut = new DataOutputStream(body);
+            bodyOut.writeUTF("addReceiveQueue");
+            bodyOut.writeByte(1);
+            bodyOut.writeByte(6);
+            bodyOut.writeInt(json.length);
+            bodyOut.write(json);
+            out.writeInt(5 + body.size());
+            out.writeInt(2);
+            out.writeByte(ZigBeeRpcBinaryCodec.REQUEST);
+            out.write(body.toByteArray());
+            out.flush();
+            final ZigBeeRpcBinaryCodec.Frame error = codec.readFrame(in);
+            Assert.assertEquals(2, error.getRequestId());
+            Assert.assertEquals(ZigBeeRpcBinaryCodec.ERROR, error.getType());
+
+            // Worker is still serving requests.
+            out.write(codec.encodeRequest(3, "addReceiveQueue", null));
+            out.flush();
+            final ZigBeeRpcBinaryCodec.Frame response = codec.readFrame(in);
+            Assert.assertEquals(3, response.getRequestId());
+            Assert.assertEquals(ZigBeeRpcBinaryCodec.RESPONSE, response.getType());
+        } finally {
+            socket.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testAsyncSend() throws Exception {
+        final TestRpcApi api = new TestRpcApi();
+        final ZigBeeRpcBinaryServer server = new ZigBeeRpcBinaryServer(api, 0, new TestAuthorizationProvider());
+        server.start();
+        final ZigBeeRpcBinaryClient client = new ZigBeeRpcBinaryClient("127.0.0.1", server.getPort(),
+                "secret", 5000, 3);
+        final int count = 1000;
+        final List<CallbackFuture<Integer>> futures = new ArrayList<CallbackFuture<Integer>>();
+        final AtomicInteger callbackCount = new AtomicInteger();
+        try {
+            final ReportAttributesCommand report = createReport();
+            for (int i = 0; i < count; i++) {
+                final CallbackFuture<Integer> future = client.sendAsync(report);
+                future.addCallback(new Runnable() {
+                    @Override
+                    public void run() {
+                        callbackCount.incrementAndGet();
+                    }
+                });
+                futures.add(future);
+            }
+            final Set<Integer> transactionIds = new HashSet<Integer>();
+            for (final CallbackFuture<Integer> future : futures) {
+                transactionIds.add(future.get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(count, transactionIds.size());
+            // Callbacks are run by the callback thread after futures complete.
+            final long endTime = System.currentTimeMillis() + 5000;
+            while (callbackCount.get() < count && System.currentTimeMillis() < endTime) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(count, callbackCount.get());
+            Assert.assertEquals(0, client.getPendingRequestCount());
+        } finally {
+            client.close();
+            server.stop();
+        }
+
+        final CallbackFuture<Integer> failedFuture = client.sendAsync(createReport());
+        try {
+            failedFuture.get(5, TimeUnit.SECONDS);
+            Assert.fail("Expected exception.");
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ZigBeeException);
+        }
+    }
+
+    @Test
+    public void testAsyncSendOrder() throws Exception {
+        final TestRpcApi api = new TestRpcApi();
+        final ZigBeeRpcBinaryServer server = new ZigBeeRpcBinaryServer(api, 0, new TestAuthorizationProvider());
+        server.start();
+        final ZigBeeRpcBinaryClient client = new ZigBeeRpcBinaryClient("127.0.0.1", server.getPort(),
+                "secret", 5000, 3);
+        try {
+            final int destinationCount = 5;
+            final List<CallbackFuture<Integer>> futures = new ArrayList<CallbackFuture<Integer>>();
+            for (int i = 0; i < 100; i++) {
+                for (int j = 0; j < destinationCount; j++) {
+                    final OnCommand command = new OnCommand();
+                    command.setDestinationAddress(new ZigBeeDeviceAddress(j, 1));
+                    command.setTransactionId((byte) i);
+                    futures.add(client.sendAsync(command));
+                }
+            }
+
+            // Callback making blocking request does not stall the connection reader.
+            final CallbackFuture<List<ZigBeeDevice>> callbackResult = new CallbackFuture<List<ZigBeeDevice>>();
+            futures.get(0).addCallback(new Runnable() {
+                @Override
+                public void run() {
+                    callbackResult.set(client.getZigBeeRpcApi().getDevices());
+                }
+            });
+            Assert.assertEquals(1, callbackResult.get(5, TimeUnit.SECONDS).size());
+
+            for (final CallbackFuture<Integer> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            for (int j = 0; j < destinationCount; j++) {
+                int lastTransactionId = -1;
+                for (final Command command : api.getAllSentCommands()) {
+                    final OnCommand onCommand = (OnCommand) command;
+                    if (((ZigBeeDeviceAddress) onCommand.getDestinationAddress()).getAddress() == j) {
+                        Assert.assertEquals(lastTransactionId + 1, (int) onCommand.getTransactionId());
+                        lastTransactionId = onCommand.getTransactionId();
+                    }
+                }
+                Assert.assertEquals(99, lastTransactionId);
+            }
+        } finally {
+            client.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testThroughputComparedToJson() throws Exception {
+        final ReportAttributesCommand report = createReport();
+        final int count = 20000;
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        final byte[] json = objectMapper.writeValueAsBytes(report);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            objectMapper.readValue(objectMapper.writeValueAsBytes(report), Command.class);
+        }
+        final long jsonNanos = System.nanoTime() - startTime;
+
+        final ZigBeeRpcBinaryCodec codec = new ZigBeeRpcBinaryCodec();
+        final byte[] binary = codec.encodeResponse(1, report);
+        startTime = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            final byte[] frame = codec.encodeResponse(i, report);
+            codec.readValue(codec.readFrame(new DataInputStream(new ByteArrayInputStream(frame))).getBody(),
+                    Command.class);
+        }
+        final long binaryNanos = System.nanoTime() - startTime;
+
+        final TestRpcApi api = new TestRpcApi();
+        final ZigBeeRpcBinaryServer server = new ZigBeeRpcBinaryServer(api, 0, new TestAuthorizationProvider());
+        server.start();
+        final ZigBeeRpcBinaryClient client = new ZigBeeRpcBinaryClient("127.0.0.1", server.getPort(),
+                "secret", 5000);
+        final ZigBeeRpcApi proxy = client.getZigBeeRpcApi();
+        final int threadCount = 4;
+        final int callCount = 2000;
+        final Thread[] threads = new Thread[threadCount];
+        startTime = System.nanoTime();
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < callCount; j++) {
+                        try {
+                            proxy.send(report);
+                        } catch (final ZigBeeException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final long transportNanos = System.nanoTime() - startTime;
+        client.close();
+        server.stop();
+
+        LOGGER.info("ReportAttributesCommand JSON: {} bytes, {} round trips/s", json.length,
+                count * 1000000000L / jsonNanos);
+        LOGGER.info("ReportAttributesCommand binary frame: {} bytes, {} round trips/s", binary.length,
+                count * 1000000000L / binaryNanos);
+        LOGGER.info("Binary transport over loopback: {} sends/s",
+                threadCount * callCount * 1000000000L / transportNanos);
+
+        Assert.assertEquals(threadCount * callCount, api.sendCount.get());
+        Assert.assertTrue(binary.length * 3 < json.length);
+    }
+
+    private static ReportAttributesCommand createReport() {
+        final AttributeReport attributeReport = new AttributeReport();
+        attributeReport.setAttributeIdentifier(0);
+        attributeReport.setAttributeDataType(0x20);
+        attributeReport.setAttributeValue(100);
+        final ReportAttributesCommand report = new ReportAttributesCommand();
+        report.setSourceAddress(new ZigBeeDeviceAddress(1234, 11));
+        report.setDestinationAddress(new ZigBeeDeviceAddress(0, 1));
+        report.setClusterId(8);
+        report.setTransactionId((byte) 12);
+        report.setReports(new ArrayList<AttributeReport>(Arrays.asList(attributeReport)));
+        return report;
+    }
+
+    private static class TestAuthorizationProvider implements AuthorizationProvider {
+        @Override
+        public AccessLevel getAccessLevel(final String accessToken) {
+            return "secret".equals(accessToken) ? AccessLevel.ADMINISTRATION : AccessLevel.NONE;
+        }
+    }
+
+    private static class TestRpcApi implements ZigBeeRpcApi {
+        private final List<Command> sentCommands = Collections.synchronizedList(new ArrayList<Command>());
+        private final List<Command> allSentCommands = new ArrayList<Command>();
+        private final AtomicInteger sendCount = new AtomicInteger();
+
+        private List<Command> getAllSentCommands() {
+            synchronized (allSentCommands) {
+                return new ArrayList<Command>(allSentCommands);
+            }
+        }
+
+        @Override
+        public String execute(String command) {
+            return command;
+        }
+
+        @Override
+        public int send(Command command) throws ZigBeeException {
+            if (sentCommands.isEmpty()) {
+                sentCommands.add(command);
+            }
+            if (command instanceof OnCommand) {
+                synchronized (allSentCommands) {
+                    allSentCommands.add(command);
+                }
+            }
+            return sendCount.incrementAndGet();
+        }
+
+        @Override
+        public String addReceiveQueue() {
+            return "queue";
+        }
+
+        @Override
+        public String addReceiveQueue(ZigBeeRpcReceiveFilter filter) {
+            return "queue:" + filter.getClusterIds();
+        }
+
+        @Override
+        public void removeReceiveQueue(String receiveQueueId) {
+        }
+
+        @Override
+        public List<Command> receive(String receiveQueueId) throws ZigBeeException {
+            throw new ZigBeeException("No such queue: " + receiveQueueId);
+        }
+
+        @Override
+        public List<Command> receive(String receiveQueueId, long timeoutMillis) throws ZigBeeException {
+            return Arrays.<Command>asList(createReport(), new OnCommand());
+        }
+
+        @Override
+        public void setDeviceLabel(int networkAddress, int endPointId, String label) {
+        }
+
+        @Override
+        public void removeDevice(int networkAddress) {
+        }
+
+        @Override
+        public List<ZigBeeDevice> getDevices() {
+            final ZigBeeDevice device = new ZigBeeDevice();
+            device.setNetworkAddress(7);
+            return Arrays.asList(device);
+        }
+
+        @Override
+        public ZigBeeNetworkStateChanges getChangesSince(long version) {
+            final ZigBeeNetworkStateChanges changes = new ZigBeeNetworkStateChanges();
+            changes.setVersion(version + 6);
+            return changes;
+        }
+
+        @Override
+        public void addGroup(int groupId, String label) {
+        }
+
+        @Override
+        public void removeGroup(int groupId) {
+        }
+
+        @Override
+        public ZigBeeGroupAddress getGroup(int groupId) {
+            return null;
+        }
+
+        @Override
+        public List<ZigBeeGroupAddress> getGroups() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import org.bubblecloud.zigbee.v3.Command;
+import org.bubblecloud.zigbee.v3.ZigBeeDeviceAddress;
+import org.bubblecloud.zigbee.v3.zcl.ZclCommand;
+import org.bubblecloud.zigbee.v3.zcl.field.AttributeReport;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.general.ReportAttributesCommand;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OnCommand;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests that receive filters select commands delivered to receive queues.
+ */
+public class ZigBeeRpcCompiledFilterTest {
+
+    @Test
+    public void testSourceClusterAndType() {
+        final ZigBeeRpcReceiveFilter filter = new ZigBeeRpcReceiveFilter();
+        filter.getSourceAddresses().addAll(Arrays.asList(1, 2));
+        filter.getClusterIds().add(6);
+        filter.getCommandTypes().add("ReportAttributesCommand");
+        final ZigBeeRpcCompiledFilter compiledFilter = new ZigBeeRpcCompiledFilter(filter);
+
+        Assert.assertTrue(compiledFilter.matches(createReport(1, 6, 0)));
+        Assert.assertTrue(compiledFilter.matches(createReport(2, 6, 0)));
+        Assert.assertFalse(compiledFilter.matches(createReport(3, 6, 0)));
+        Assert.assertFalse(compiledFilter.matches(createReport(1, 8, 0)));
+        Assert.assertFalse(compiledFilter.matches(setAddresses(new OnCommand(), 1, 6)));
+        Assert.assertFalse(compiledFilter.matches(new OnCommand()));
+
+        Assert.assertTrue(new ZigBeeRpcCompiledFilter(new ZigBeeRpcReceiveFilter()).matches(new OnCommand()));
+    }
+
+    @Test
+    public void testMinimumReportInterval() throws Exception {
+        final ZigBeeRpcReceiveFilter filter = new ZigBeeRpcReceiveFilter();
+        filter.setMinimumReportIntervalMillis(200);
+        final ZigBeeRpcCompiledFilter compiledFilter = new ZigBeeRpcCompiledFilter(filter);
+
+        Assert.assertNotNull(compiledFilter.filter(createReport(1, 6, 0)));
+        Assert.assertNull(compiledFilter.filter(createReport(1, 6, 0)));
+        Assert.assertNotNull(compiledFilter.filter(createReport(1, 6, 1)));
+        Assert.assertNotNull(compiledFilter.filter(createReport(2, 6, 0)));
+        Assert.assertNotNull(compiledFilter.filter(setAddresses(new OnCommand(), 1, 6)));
+        Thread.sleep(250);
+        Assert.assertEquals(1, compiledFilter.removeDueReports(System.currentTimeMillis()).size());
+        Assert.assertNull(compiledFilter.filter(createReport(1, 6, 0)));
+        Assert.assertNotNull(compiledFilter.filter(createReport(1, 6, 1)));
+    }
+
+    @Test
+    public void testReportIntervalPerAttribute() throws Exception {
+        final ZigBeeRpcReceiveFilter filter = new ZigBeeRpcReceiveFilter();
+        filter.setMinimumReportIntervalMillis(100);
+        final ZigBeeRpcCompiledFilter compiledFilter = new ZigBeeRpcCompiledFilter(filter);
+
+        Assert.assertNotNull(compiledFilter.filter(createReport(1, 6, 0)));
+        final ReportAttributesCommand report = createReport(1, 6, 0, 1);
+        final ReportAttributesCommand filteredReport = (ReportAttributesCommand) compiledFilter.filter(report);
+        Assert.assertEquals(Arrays.asList(1), getAttributeIds(filteredReport));
+        Assert.assertEquals(2, report.getReports().size());
+
+        // Latest held value of attribute 0 is delivered when its interval has passed.
+        final ReportAttributesCommand latestReport = createReport(1, 6, 0);
+        latestReport.getReports().get(0).setAttributeValue(200);
+        Assert.assertNull(compiledFilter.filter(latestReport));
+        Assert.assertTrue(compiledFilter.removeDueReports(System.currentTimeMillis()).isEmpty());
+        Assert.assertTrue(compiledFilter.getNextDueTime() <= System.currentTimeMillis() + 100);
+        Thread.sleep(150);
+        final List<Command> dueReports = compiledFilter.removeDueReports(System.currentTimeMillis());
+        Assert.assertEquals(1, dueReports.size());
+        Assert.assertEquals(Arrays.asList(0), getAttributeIds((ReportAttributesCommand) dueReports.get(0)));
+        Assert.assertEquals(200, ((ReportAttributesCommand) dueReports.get(0)).getReports().get(0)
+                .getAttributeValue());
+        Assert.assertEquals(Long.MAX_VALUE, compiledFilter.getNextDueTime());
+
+        // States of attributes without recent reports are removed.
+        Thread.sleep(150);
+        Assert.assertTrue(compiledFilter.removeDueReports(System.currentTimeMillis()).isEmpty());
+        Assert.assertEquals(0, compiledFilter.getReportStateCount());
+    }
+
+    @Test
+    public void testReceiveQueue() throws Exception {
+        final ZigBeeRpcReceiveFilter filter = new ZigBeeRpcReceiveFilter();
+        filter.getSourceAddresses().add(1);
+        final ZigBeeRpcReceiveQueue receiveQueue = new ZigBeeRpcReceiveQueue("queue", filter);
+        Assert.assertNotNull(receiveQueue.filter(createReport(1, 6, 0)));
+        Assert.assertNull(receiveQueue.filter(createReport(2, 6, 0)));
+        Assert.assertNotNull(new ZigBeeRpcReceiveQueue("all").filter(createReport(2, 6, 0)));
+    }
+
+    @Test
+    public void testReceiveQueueDeliversHeldReport() throws Exception {
+        final ZigBeeRpcReceiveFilter filter = new ZigBeeRpcReceiveFilter();
+        filter.setMinimumReportIntervalMillis(100);
+        final ZigBeeRpcReceiveQueue receiveQueue = new ZigBeeRpcReceiveQueue("queue", filter);
+        receiveQueue.add(receiveQueue.filter(createReport(1, 6, 0)));
+        Assert.assertNull(receiveQueue.filter(createReport(1, 6, 0)));
+        Assert.assertEquals(1, receiveQueue.poll(10, 0).size());
+
+        final long startTime = System.currentTimeMillis();
+        final List<Command> commands = receiveQueue.poll(10, 5000);
+        Assert.assertEquals(1, commands.size());
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 5000);
+    }
+
+    @Test
+    public void testHeldReportWakesWaitingReceiver() throws Exception {
+        final ZigBeeRpcReceiveFilter filter = new ZigBeeRpcReceiveFilter();
+        filter.setMinimumReportIntervalMillis(100);
+        final ZigBeeRpcReceiveQueue receiveQueue = new ZigBeeRpcReceiveQueue("queue", filter);
+        receiveQueue.add(receiveQueue.filter(createReport(1, 6, 0)));
+        Assert.assertEquals(1, receiveQueue.poll(10, 0).size());
+
+        final Thread reporter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                receiveQueue.filter(createReport(1, 6, 0));
+            }
+        });
+        reporter.start();
+        // Receiver starts waiting before the report is held.
+        final long startTime = System.currentTimeMillis();
+        final List<Command> commands = receiveQueue.poll(10, 10000);
+        Assert.assertEquals(1, commands.size());
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 2000);
+        reporter.join();
+    }
+
+    private static ReportAttributesCommand createReport(final int networkAddress, final int clusterId,
+                                                        final int... attributeIds) {
+        final List<AttributeReport> attributeReports = new ArrayList<AttributeReport>();
+        for (final int attributeId : attributeIds) {
+            final AttributeReport attributeReport = new AttributeReport();
+            attributeReport.setAttributeIdentifier(attributeId);
+            attributeReport.setAttributeDataType(0x20);
+            attributeReport.setAttributeValue(100);
+            attributeReports.add(attributeReport);
+        }
+        final ReportAttributesCommand report = setAddresses(new ReportAttributesCommand(), networkAddress, clusterId);
+        report.setReports(attributeReports);
+        return report;
+    }
+
+    private static List<Integer> getAttributeIds(final ReportAttributesCommand report) {
+        final List<Integer> attributeIds = new ArrayList<Integer>();
+        for (final AttributeReport attributeReport : report.getReports()) {
+            attributeIds.add(attributeReport.getAttributeIdentifier());
+        }
+        return attributeIds;
+    }
+
+    private static <C extends ZclCommand> C setAddresses(final C command, final int networkAddress,
+                                                         final int clusterId) {
+        command.setSourceAddress(new ZigBeeDeviceAddress(networkAddress, 1));
+        command.setDestinationAddress(new ZigBeeDeviceAddress(0, 1));
+        command.setClusterId(clusterId);
+        return command;
+    }
+}
@@ -0,0 +1,181 @@
+package org.bubblecloud.zigbee.v3.rpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bubblecloud.zigbee.v3.Command;
+import org.bubblecloud.zigbee.v3.ZigBeeGateway;
+import org.bubblecloud.zigbee.v3.zcl.protocol.command.on.off.OnCommand;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests long polling receive queue and server-sent events stream.
+ */
+public class ZigBeeRpcReceiveQueueTest {
+
+    @Test
+    public void testPollWaitsForCommand() throws Exception {
+        final ZigBeeRpcReceiveQueue receiveQueue = new ZigBeeRpcReceiveQueue("test");
+        Assert.assertTrue(receiveQueue.poll(10, 0).isEmpty());
+
+        final Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                receiveQueue.add(new Command());
+            }
+        });
+        sender.start();
+        final long startTime = System.currentTimeMillis();
+        final List<Command> commands = receiveQueue.poll(10, 5000);
+        Assert.assertEquals(1, commands.size());
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 2000);
+
+        receiveQueue.close();
+        Assert.assertTrue(receiveQueue.poll(10, 5000).isEmpty());
+        Assert.assertFalse(receiveQueue.add(new Command()));
+    }
+
+    @Test
+    public void testOverflow() throws Exception {
+        final ZigBeeRpcReceiveQueue receiveQueue = new ZigBeeRpcReceiveQueue("test");
+        for (int i = 0; i < ZigBeeRpcReceiveQueue.CAPACITY + 10; i++) {
+            receiveQueue.add(new OnCommand());
+        }
+        Assert.assertEquals(ZigBeeRpcReceiveQueue.CAPACITY, receiveQueue.getSize());
+        Assert.assertEquals(10, receiveQueue.getDroppedCount());
+        Assert.assertEquals(ZigBeeRpcReceiveQueue.CAPACITY, receiveQueue.getHighWaterMark());
+
+        Assert.assertEquals(200, receiveQueue.poll(200, 0).size());
+        Assert.assertTrue(receiveQueue.add(new OnCommand()));
+        Assert.assertEquals(ZigBeeRpcReceiveQueue.CAPACITY - 199, receiveQueue.poll(2000, 0).size());
+        Assert.assertEquals(0, receiveQueue.getSize());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        final ZigBeeRpcReceiveQueue receiveQueue = new ZigBeeRpcReceiveQueue("test");
+        final int producerCount = 4;
+        final int commandCount = 10000;
+        final Thread[] producers = new Thread[producerCount];
+        for (int i = 0; i < producerCount; i++) {
+            producers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < commandCount; j++) {
+                        receiveQueue.add(new OnCommand());
+                    }
+                }
+            });
+            producers[i].start();
+        }
+        int receivedCount = 0;
+        while (receivedCount + receiveQueue.getDroppedCount() < producerCount * commandCount) {
+            receivedCount += receiveQueue.poll(200, 10).size();
+        }
+        for (final Thread producer : producers) {
+            producer.join();
+        }
+        Assert.assertEquals(producerCount * commandCount, receivedCount + receiveQueue.getDroppedCount());
+        Assert.assertEquals(0, receiveQueue.getSize());
+    }
+
+    @Test
+    public void testEventStream() throws Exception {
+        final ZigBeeRpcReceiveQueue receiveQueue = new ZigBeeRpcReceiveQueue("test");
+        receiveQueue.add(new OnCommand());
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ZigBeeRpcEventStream(receiveQueue, new ObjectMapper()), "UTF-8"));
+        Assert.assertTrue(reader.readLine().startsWith("data: {"));
+        Assert.assertEquals("", reader.readLine());
+        receiveQueue.close();
+        Assert.assertNull(reader.readLine());
+    }
+
+    @Test
+    public void testEventStreamNotGzipped() throws Exception {
+        final TestDongle dongle = new TestDongle();
+        final ZigBeeRpcServer server = new ZigBeeRpcServer(new ZigBeeGateway(dongle, false), 0, null, null, null,
+                new AuthorizationProvider() {
+            @Override
+            public AccessLevel getAccessLevel(final String accessToken) {
+                return AccessLevel.ADMINISTRATION;
+            }
+        });
+        server.start();
+        try {
+            final String receiveQueueId = (String) new ObjectMapper().readValue(post(server.getListeningPort(),
+                    "{\"jsonrpc\":\"2.0\",\"method\":\"addReceiveQueue\",\"params\":[],\"id\":1}"),
+                    Map.class).get("result");
+
+            final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:"
+                    + server.getListeningPort() + ZigBeeRpcServer.EVENTS_URI + "?queue=" + receiveQueueId)
+                    .openConnection();
+            connection.setRequestProperty("Authorization", "Bearer test");
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            connection.setReadTimeout(5000);
+            Assert.assertEquals(200, connection.getResponseCode());
+            Assert.assertNull(connection.getHeaderField("Content-Encoding"));
+
+            dongle.receive(new OnCommand());
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    connection.getInputStream(), "UTF-8"));
+            Assert.assertTrue(reader.readLine().startsWith("data: "));
+            connection.disconnect();
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testIdleQueueRemoved() throws Exception {
+        final ZigBeeRpcApiImpl rpcApi = new ZigBeeRpcApiImpl(new ZigBeeGateway(new TestDongle(), false));
+        final String idleQueueId = rpcApi.addReceiveQueue();
+        final ZigBeeRpcReceiveQueue idleQueue = rpcApi.getReceiveQueue(idleQueueId);
+        final long now = idleQueue.getLastPollTime() + ZigBeeRpcApiImpl.RECEIVE_QUEUE_IDLE_TIMEOUT_MILLIS + 1;
+
+        rpcApi.removeIdleReceiveQueues(now - 2);
+        Assert.assertSame(idleQueue, rpcApi.getReceiveQueue(idleQueueId));
+
+        final String polledQueueId = rpcApi.addReceiveQueue();
+        Thread.sleep(10);
+        rpcApi.receive(polledQueueId);
+        rpcApi.removeIdleReceiveQueues(now);
+        Assert.assertNull(rpcApi.getReceiveQueue(idleQueueId));
+        Assert.assertTrue(idleQueue.isClosed());
+        Assert.assertNotNull(rpcApi.getReceiveQueue(polledQueueId));
+
+        rpcApi.commandReceived(new OnCommand());
+        Assert.assertEquals(1, rpcApi.getReceiveQueue(polledQueueId).getSize());
+    }
+
+    private static String post(final int port, final String body) throws Exception {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/")
+                .openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Authorization", "Bearer test");
+        connection.setDoOutput(true);
+        final OutputStream outputStream = connection.getOutputStream();
+        outputStream.write(body.getBytes("UTF-8"));
+        outputStream.close();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+        final StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            response.append(line);
+        }
+        reader.close();
+        return response.toString();
+    }
+}
@@ -21,6 +21,10 @@ import java.io.InputStream;
  *
  */
 public class SerialInputStream extends InputStream {
+    /**
+     * The receive buffer size.
+     */
+    private static final int BUFFER_SIZE = 4096;
     /**
      * The serial port.
      */
@@ -29,6 +33,26 @@ public class SerialInputStream extends InputStream {
      * The default time out.
      */
     private int defaultTimeout = 0;
+    /**
+     * The receive buffer drained from serial port.
+     */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    /**
+     * The index of next unread byte in receive buffer.
+     */
+    private int bufferIndex = 0;
+    /**
+     * The number of unread bytes in receive buffer.
+     */
+    private int bufferLength = 0;
+    /**
+     * The number of bytes received from serial port.
+     */
+    private long receivedByteCount = 0;
+    /**
+     * The number of reads from serial port.
+     */
+    private long portReadCount = 0;
 
     /** Instantiates a SerialInputStream for the given {@link SerialPort}
      * Do not create multiple streams for the same serial port
@@ -49,6 +73,23 @@ public class SerialInputStream extends InputStream {
         defaultTimeout = time;
     }
 
+    /**
+     * Gets the number of bytes received from serial port.
+     * @return the number of bytes
+     */
+    public long getReceivedByteCount() {
+        return receivedByteCount;
+    }
+
+    /**
+     * Gets the number of reads from serial port. Each read drains all bytes
+     * available in serial port input buffer.
+     * @return the number of reads
+     */
+    public long getPortReadCount() {
+        return portReadCount;
+    }
+
     /** Reads the next byte from the port.
      * If the timeout of this stream has been set, then this method
      * blocks until data is available or until the timeout has been hit.
@@ -68,17 +109,11 @@ public class SerialInputStream extends InputStream {
      * @throws IOException On serial port error or timeout
      */
     public int read(int timeout) throws IOException {
-        byte[] buf = new byte[1];
-        try {
-            if (timeout > 0) {
-                buf = serialPort.readBytes(1, timeout);
-            } else {
-                buf = serialPort.readBytes(1);
-            }
-            return buf[0];
-        } catch (Exception e) {
-            throw new IOException(e);
+        if (bufferLength == 0) {
+            fill(timeout);
         }
+        bufferLength--;
+        return buffer[bufferIndex++];
     }
 
     /** Non-blocking read of up to buf.length bytes from the stream.
@@ -107,18 +142,15 @@ public class SerialInputStream extends InputStream {
         if (buf.length < offset + length)
             length = buf.length - offset;
 
-        int available = this.available();
-
-        if (available > length)
-            available = length;
-
-        try {
-            byte[] readBuf = serialPort.readBytes(available);
-            System.arraycopy(readBuf, 0, buf, offset, length);
-            return readBuf.length;
-        } catch (Exception e) {
-            throw new IOException(e);
+        if (bufferLength == 0 && getPortAvailable() > 0) {
+            fill(0);
         }
+
+        final int count = Math.min(length, bufferLength);
+        System.arraycopy(buffer, bufferIndex, buf, offset, count);
+        bufferIndex += count;
+        bufferLength -= count;
+        return count;
     }
 
     /** Blocks until buf.length bytes are read, an error occurs, or the default timeout is hit (if specified).
@@ -170,10 +202,20 @@ public class SerialInputStream extends InputStream {
         if (timeout < 1)
             return read(buf, offset, length);
 
+        final int buffered = Math.min(length, bufferLength);
+        System.arraycopy(buffer, bufferIndex, buf, offset, buffered);
+        bufferIndex += buffered;
+        bufferLength -= buffered;
+        if (buffered == length) {
+            return length;
+        }
+
         try {
-            byte[] readBuf = serialPort.readBytes(length, timeout);
-            System.arraycopy(readBuf, 0, buf, offset, length);
-            return readBuf.length;
+            byte[] readBuf = serialPort.readBytes(length - buffered, timeout);
+            System.arraycopy(readBuf, 0, buf, offset + buffered, readBuf.length);
+            receivedByteCount += readBuf.length;
+            portReadCount++;
+            return buffered + readBuf.length;
         } catch (Exception e) {
             throw new IOException(e);
         }
@@ -181,6 +223,15 @@ public class SerialInputStream extends InputStream {
 
     @Override
     public int available() throws IOException {
+        return bufferLength + getPortAvailable();
+    }
+
+    /**
+     * Gets number of bytes in serial port input buffer.
+     * @return the number of bytes
+     * @throws IOException on error
+     */
+    private int getPortAvailable() throws IOException {
         int ret;
         try {
             ret = serialPort.getInputBufferBytesCount();
@@ -192,4 +243,34 @@ public class SerialInputStream extends InputStream {
         }
     }
 
+    /**
+     * Fills empty receive buffer with all bytes available in serial port input buffer.
+     * If none are available blocks until at least one byte has been received.
+     * @param timeout the timeout in milliseconds or 0 to block indefinitely
+     * @throws IOException on serial port error or timeout
+     */
+    private void fill(final int timeout) throws IOException {
+        try {
+            bufferIndex = 0;
+            bufferLength = 0;
+            int available = serialPort.getInputBufferBytesCount();
+            if (available <= 0) {
+                final byte[] first = timeout > 0 ? serialPort.readBytes(1, timeout) : serialPort.readBytes(1);
+                buffer[0] = first[0];
+                bufferLength = 1;
+                portReadCount++;
+                available = serialPort.getInputBufferBytesCount();
+            }
+            if (available > 0) {
+                final byte[] received = serialPort.readBytes(Math.min(available, BUFFER_SIZE - bufferLength));
+                System.arraycopy(received, 0, buffer, bufferLength, received.length);
+                bufferLength += received.length;
+                portReadCount++;
+            }
+            receivedByteCount += bufferLength;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
 }
\ No newline at end of file
@@ -52,8 +52,13 @@ public class SerialOutputStream extends OutputStream {
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
-        byte[] buffer = new byte[len];
-        System.arraycopy(b, off, buffer, 0, len);
+        final byte[] buffer;
+        if (off == 0 && len == b.length) {
+            buffer = b;
+        } else {
+            buffer = new byte[len];
+            System.arraycopy(b, off, buffer, 0, len);
+        }
         try {
             serialPort.writeBytes(buffer);
         } catch (SerialPortException e) {
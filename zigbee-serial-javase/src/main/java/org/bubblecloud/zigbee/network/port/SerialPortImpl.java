@@ -32,7 +32,7 @@ public class SerialPortImpl implements SerialPort, SerialPortEventListener {
     /**
      * The portName portName input stream.
      */
-    private InputStream inputStream;
+    private SerialInputStream inputStream;
     /**
      * The portName portName output stream.
      */
@@ -120,6 +120,8 @@ public class SerialPortImpl implements SerialPort, SerialPortEventListener {
                 outputStream.close();
                 serialPort.closePort();
                 LOGGER.info("Serial portName '" + serialPort.getPortName() + "' closed.");
+                LOGGER.debug("Received {} bytes in {} serial port reads.", inputStream.getReceivedByteCount(),
+                        inputStream.getPortReadCount());
                 serialPort = null;
                 inputStream = null;
                 outputStream = null;
@@ -27,36 +27,4 @@ public class UnsignedByteSerialInputStream extends SerialInputStream {
         return (super.read(timeout) & 0xff);
     }
 
-    @Override
-    public int read(byte[] buf, int offset, int length) throws IOException {
-        int bytesRead = super.read(buf, offset, length);
-        unsignArray(buf, bytesRead);
-        return bytesRead;
-    }
-
-    @Override
-    public int blockingRead(byte[] buf, int offset, int length, int timeout)
-            throws IOException {
-        int bytesRead = super.blockingRead(buf, offset, length, timeout);
-        unsignArray(buf, bytesRead);
-        return bytesRead;
-    }
-
-    /**
-     * Unsign array.
-     * @param inputArray the input array
-     * @param length the array length
-     */
-    private void unsignArray(byte[] inputArray, int length) {
-        if (length > 0) {
-            byte[] unsignedBytes = new byte[length];
-            for (int i = 0; i < length; i++) {
-                int s = inputArray[i] & 0xf;
-                unsignedBytes[i] = (byte) s;
-            }
-            System.arraycopy(unsignedBytes, 0, inputArray, 0, length);
-        }
-    }
-
 }
-